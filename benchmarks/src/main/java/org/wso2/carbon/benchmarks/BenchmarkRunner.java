@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Runs the kernel benchmarks with the standard JMH command line options, writing the results as JSON, unless another
+ * format is given with {@code -rf}, so that they can be compared across releases.
+ * <p>
+ * Unless a result file is given with {@code -rff}, the results are written to
+ * {@code carbon-kernel-benchmarks-<version>.<format>} in the working directory, e.g.
+ * {@code carbon-kernel-benchmarks-5.2.0.json} or {@code carbon-kernel-benchmarks-5.2.0.csv}.
+ *
+ * @since 5.2.0
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULT_FILE_PREFIX = "carbon-kernel-benchmarks-";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() ||
+                commandLineOptions.shouldListWithParams() || commandLineOptions.shouldListProfilers() ||
+                commandLineOptions.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        ResultFormatType resultFormat = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+        options.resultFormat(resultFormat);
+        if (!commandLineOptions.getResult().hasValue()) {
+            String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+            options.result(getResultFile(version != null ? version : "dev", resultFormat));
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * @param version      kernel version the benchmarks are run against
+     * @param resultFormat format of the benchmark results
+     * @return default result file name, with the extension of the result format
+     */
+    static String getResultFile(String version, ResultFormatType resultFormat) {
+        return RESULT_FILE_PREFIX + version + "." + resultFormat.toString().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Creates lightweight {@link Bundle} instances for benchmarks which only need a bundle identity, without starting an
+ * OSGi framework.
+ *
+ * @since 5.2.0
+ */
+public class SyntheticBundles {
+
+    private static final Version BUNDLE_VERSION = Version.parseVersion("1.0.0");
+
+    private SyntheticBundles() {
+    }
+
+    /**
+     * Creates a bundle which answers its id, symbolic name, version and location. Other bundle methods return null,
+     * false or zero.
+     *
+     * @param bundleId     bundle id
+     * @param symbolicName bundle symbolic name
+     * @return synthetic bundle
+     */
+    public static Bundle create(long bundleId, String symbolicName) {
+        return (Bundle) Proxy.newProxyInstance(SyntheticBundles.class.getClassLoader(), new Class<?>[]{Bundle.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBundleId":
+                            return bundleId;
+                        case "getSymbolicName":
+                            return symbolicName;
+                        case "getVersion":
+                            return BUNDLE_VERSION;
+                        case "getLocation":
+                            return "reference:file:plugins/" + symbolicName + ".jar";
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return Long.hashCode(bundleId);
+                        case "toString":
+                            return symbolicName + " [" + bundleId + "]";
+                        default:
+                            return getDefaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.context.PrivilegedCarbonContext;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Measures the latency a request thread sees when it sets the user of the request and writes an audit log entry,
+ * using the log4j2 configurations shipped with the runtime feature. The default configuration writes the logs
+ * synchronously, the production configuration through bounded asynchronous queues.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AuditLoggingBenchmark {
+
+    private static final String RUNTIME_PATH_PROPERTY = "wso2.runtime.path";
+    private static final String AUDIT_LOG = "AUDIT_LOG";
+
+    @Param({"log4j2.xml", "log4j2-production.xml"})
+    public String configuration;
+
+    private Path runtimePath;
+    private Logger auditLog;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, URISyntaxException {
+        URL configurationUrl = AuditLoggingBenchmark.class.getClassLoader().getResource("logging/" + configuration);
+        if (configurationUrl == null) {
+            throw new IllegalStateException("log4j2 configuration " + configuration + " is not in the classpath");
+        }
+        runtimePath = Files.createTempDirectory("audit-logging-benchmark");
+        System.setProperty(RUNTIME_PATH_PROPERTY, runtimePath.toString());
+
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        loggerContext.setConfigLocation(configurationUrl.toURI());
+        auditLog = LoggerFactory.getLogger(AUDIT_LOG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        // Stopping the context drains the asynchronous queues and closes the log files.
+        LogManager.shutdown();
+        try (Stream<Path> paths = Files.walk(runtimePath)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void auditedRequest(RequestThread requestThread) {
+        PrivilegedCarbonContext.getCurrentContext().setUserPrincipal(requestThread.principal);
+        auditLog.info("User {} invoked request {}", requestThread.principal.getName(), requestThread.nextRequestId());
+    }
+
+    /**
+     * A request thread, serving the requests of a single user.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+        private static final AtomicInteger userCount = new AtomicInteger();
+
+        private final String userName = "user-" + userCount.incrementAndGet();
+        private final Principal principal = () -> userName;
+        private long requestId;
+
+        long nextRequestId() {
+            return ++requestId;
+        }
+    }
+}
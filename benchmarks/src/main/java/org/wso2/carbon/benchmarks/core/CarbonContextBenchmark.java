@@ -0,0 +1,81 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.kernel.context.CarbonContext;
+import org.wso2.carbon.kernel.context.PrivilegedCarbonContext;
+
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CarbonContext} and {@link PrivilegedCarbonContext} get and set paths, which run on every
+ * request thread.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CarbonContextBenchmark {
+
+    private static final String PROPERTY_NAME = "benchmark.property";
+
+    private final Principal principal = () -> "admin";
+    private final Object propertyValue = new Object();
+
+    @Setup
+    public void setup() {
+        PrivilegedCarbonContext.getCurrentContext().setProperty(PROPERTY_NAME, propertyValue);
+        PrivilegedCarbonContext.getCurrentContext().setUserPrincipal(principal);
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return CarbonContext.getCurrentContext().getProperty(PROPERTY_NAME);
+    }
+
+    @Benchmark
+    public Principal getUserPrincipal() {
+        return CarbonContext.getCurrentContext().getUserPrincipal();
+    }
+
+    @Benchmark
+    public void setProperty() {
+        PrivilegedCarbonContext.getCurrentContext().setProperty(PROPERTY_NAME, propertyValue);
+    }
+
+    @Benchmark
+    public void setUserPrincipal() {
+        // The same principal is set again, as a request handler does for every request of a user.
+        PrivilegedCarbonContext.getCurrentContext().setUserPrincipal(principal);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.benchmarks.SyntheticBundles;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElementParserException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures {@link ManifestElement#parseHeader(String, String, Bundle)} over Carbon-Component headers of a startup
+ * listener with a growing number of required services, followed by the OSGi services the bundle provides.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManifestElementParseBenchmark {
+
+    private static final String CARBON_COMPONENT_HEADER = "Carbon-Component";
+
+    @Param({"1", "10", "50"})
+    private int requiredServiceCount;
+
+    private String headerValue;
+    private Bundle bundle;
+
+    @Setup
+    public void setup() {
+        String requiredServices = IntStream.range(0, requiredServiceCount)
+                .mapToObj(i -> "org.wso2.carbon.sample.service" + i + ".SampleService" + i)
+                .collect(Collectors.joining(","));
+        String providedServices = IntStream.range(0, requiredServiceCount)
+                .mapToObj(i -> "osgi.service;objectClass=\"org.wso2.carbon.sample.provided" + i + ".ProvidedService" +
+                        i + "\";serviceCount=\"" + (i % 4 + 1) + "\"")
+                .collect(Collectors.joining(","));
+        headerValue = "startup.listener;componentName=\"carbon-sample-component\";requiredService=\"" +
+                requiredServices + "\"," + providedServices;
+        bundle = SyntheticBundles.create(1, "org.wso2.carbon.sample");
+    }
+
+    @Benchmark
+    public List<ManifestElement> parseHeader() throws ManifestElementParserException {
+        return ManifestElement.parseHeader(CARBON_COMPONENT_HEADER, headerValue, bundle);
+    }
+}
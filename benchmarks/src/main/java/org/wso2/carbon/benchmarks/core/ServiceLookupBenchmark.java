@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.wso2.carbon.kernel.service.ServiceHandle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Compares looking up services on the request path through the {@link BundleContext} against reading them from a
+ * {@link ServiceHandle}, with several request threads. Runs an embedded OSGi framework with a number of ranked
+ * services registered.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ServiceLookupBenchmark {
+
+    @Param({"1", "10"})
+    private int serviceCount;
+
+    private Path storageDirectory;
+    private Framework framework;
+    private BundleContext bundleContext;
+    private ServiceHandle<IntSupplier> serviceHandle;
+
+    @Setup
+    public void setup() throws Exception {
+        storageDirectory = Files.createTempDirectory("service-lookup-benchmark");
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(Constants.FRAMEWORK_STORAGE, storageDirectory.toString());
+        configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+
+        FrameworkFactory frameworkFactory = ServiceLoader.load(FrameworkFactory.class).iterator().next();
+        framework = frameworkFactory.newFramework(configuration);
+        framework.start();
+        bundleContext = framework.getBundleContext();
+
+        for (int i = 0; i < serviceCount; i++) {
+            int value = i;
+            Hashtable<String, Object> properties = new Hashtable<>();
+            properties.put(Constants.SERVICE_RANKING, i);
+            bundleContext.registerService(IntSupplier.class, () -> value, properties);
+        }
+        serviceHandle = ServiceHandle.open(bundleContext, IntSupplier.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serviceHandle.close();
+        framework.stop();
+        framework.waitForStop(TimeUnit.SECONDS.toMillis(10));
+        deleteDirectory(storageDirectory);
+    }
+
+    @Benchmark
+    public int registryGet() {
+        ServiceReference<IntSupplier> reference = bundleContext.getServiceReference(IntSupplier.class);
+        IntSupplier service = bundleContext.getService(reference);
+        try {
+            return service.getAsInt();
+        } finally {
+            bundleContext.ungetService(reference);
+        }
+    }
+
+    @Benchmark
+    public int handleGet() {
+        return serviceHandle.get().getAsInt();
+    }
+
+    @Benchmark
+    public int registryGetAll() throws InvalidSyntaxException {
+        int sum = 0;
+        Collection<ServiceReference<IntSupplier>> references = bundleContext.getServiceReferences(IntSupplier.class,
+                null);
+        for (ServiceReference<IntSupplier> reference : references) {
+            sum += bundleContext.getService(reference).getAsInt();
+            bundleContext.ungetService(reference);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int handleGetAll() {
+        int sum = 0;
+        for (IntSupplier service : serviceHandle.getAll()) {
+            sum += service.getAsInt();
+        }
+        return sum;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.kernel.startupresolver.StartupServiceUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reporting the services bound by a deployer-style component one at a time through
+ * {@link StartupServiceUtils#updateServiceCache(String, Class)} against the batch variants, while other bundle
+ * activator threads report their services at the same time.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class StartupServiceCacheBatchBenchmark {
+
+    private static final String COMPONENT_NAME = "deployment-mgt";
+
+    private static final Class<?>[] SERVICE_INTERFACES = {Runnable.class, AutoCloseable.class, Comparable.class,
+            Iterable.class};
+
+    @Param({"10", "1000"})
+    private int serviceCount;
+
+    private Collection<Class> serviceInterfaces;
+
+    @Setup
+    public void setup() {
+        List<Class> interfaces = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            interfaces.add(SERVICE_INTERFACES[i % SERVICE_INTERFACES.length]);
+        }
+        serviceInterfaces = interfaces;
+    }
+
+    @Benchmark
+    public void perServiceUpdate() {
+        for (Class serviceInterface : serviceInterfaces) {
+            StartupServiceUtils.updateServiceCache(COMPONENT_NAME, serviceInterface);
+        }
+    }
+
+    @Benchmark
+    public void collectionUpdate() {
+        StartupServiceUtils.updateServiceCache(COMPONENT_NAME, serviceInterfaces);
+    }
+
+    @Benchmark
+    public void countedUpdate() {
+        StartupServiceUtils.updateServiceCache(COMPONENT_NAME, Runnable.class, serviceCount);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.kernel.internal.startupresolver.StartupServiceCache;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the contention on {@link StartupServiceCache} while components report their services from several bundle
+ * activator threads and the startup order resolver reads the available services at the same time.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupServiceCacheBenchmark {
+
+    private static final String[] COMPONENT_NAMES = {"transport-mgt", "deployment-mgt", "datasource-mgt",
+            "runtime-mgt", "repository-mgt", "jndi-mgt", "security-mgt", "analytics-mgt"};
+
+    private static final Class<?>[] SERVICE_INTERFACES = {Runnable.class, AutoCloseable.class, Comparable.class,
+            Iterable.class};
+
+    private final StartupServiceCache serviceCache = StartupServiceCache.getInstance();
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        serviceCache.update(COMPONENT_NAMES[random.nextInt(COMPONENT_NAMES.length)],
+                SERVICE_INTERFACES[random.nextInt(SERVICE_INTERFACES.length)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Map<String, Long> getAvailableService() {
+        return serviceCache.getAvailableService(
+                COMPONENT_NAMES[ThreadLocalRandom.current().nextInt(COMPONENT_NAMES.length)]);
+    }
+
+    @Benchmark
+    @Group("updateOnly")
+    @GroupThreads(4)
+    public void concurrentUpdate() {
+        update();
+    }
+}
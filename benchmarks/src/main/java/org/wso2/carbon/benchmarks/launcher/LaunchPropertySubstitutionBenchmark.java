@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.launcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.launcher.utils.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the variable substitution of a launch.properties file with many substitutions, comparing the compiled
+ * templates used by {@link Utils#initializeSystemProperties(String)} with the former regular expression based
+ * substitution.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LaunchPropertySubstitutionBenchmark {
+
+    private static final String VAR_REGEXP = "\\$\\{[^}]*}";
+    private static final Pattern varPattern = Pattern.compile(VAR_REGEXP);
+
+    private static final String[] VARIABLES = {"carbon.home", "wso2.runtime", "carbon.runtime.repository",
+            "carbon.osgi.repository", "benchmark.port.offset"};
+
+    @Param({"100", "1000"})
+    private int propertyCount;
+
+    private byte[] launchProperties;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("carbon.home", "/home/user/wso2carbon-kernel-5.2.0");
+        System.setProperty("wso2.runtime", "default");
+        System.setProperty("carbon.runtime.repository", "wso2");
+        System.setProperty("carbon.osgi.repository", "wso2/lib");
+        System.setProperty("benchmark.port.offset", "0");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < propertyCount; i++) {
+            builder.append("benchmark.property.").append(i).append('=').append("file:${")
+                    .append(VARIABLES[i % VARIABLES.length]).append("}/${carbon.runtime.repository}/${wso2.runtime}")
+                    .append("/plugins/bundle_").append(i).append(".jar@4:true\n");
+        }
+        launchProperties = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (String variable : VARIABLES) {
+            System.clearProperty(variable);
+        }
+    }
+
+    @Benchmark
+    public Properties compiledTemplates() throws IOException {
+        Properties properties = loadProperties();
+        properties.forEach((key, value) -> properties.put(key, Utils.initializeSystemProperties((String) value)));
+        return properties;
+    }
+
+    @Benchmark
+    public Properties regularExpressionBaseline() throws IOException {
+        Properties properties = loadProperties();
+        properties.forEach((key, value) -> properties.put(key, substituteWithRegularExpression((String) value)));
+        return properties;
+    }
+
+    private Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(launchProperties));
+        return properties;
+    }
+
+    /**
+     * The substitution used by the launcher before the compiled templates, kept here as the baseline.
+     */
+    private static String substituteWithRegularExpression(String value) {
+        String newValue = value;
+        Matcher matcher = varPattern.matcher(value);
+        while (matcher.find()) {
+            String sysPropKey = value.substring(matcher.start() + 2, matcher.end() - 1);
+            String sysPropValue = Utils.getSystemVariableValue(sysPropKey, null);
+            if (Utils.isNullOrEmpty(sysPropValue)) {
+                throw new RuntimeException("System property " + sysPropKey + " cannot be null");
+            }
+            sysPropValue = sysPropValue.replace("\\", "\\\\");
+            newValue = newValue.replaceFirst(VAR_REGEXP, sysPropValue);
+        }
+        return newValue;
+    }
+}
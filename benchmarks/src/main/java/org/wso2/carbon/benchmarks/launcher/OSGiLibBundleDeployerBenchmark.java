@@ -0,0 +1,150 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.benchmarks.launcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.extensions.OSGiLibBundleDeployerUtils;
+import org.wso2.carbon.launcher.extensions.model.BundleInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link OSGiLibBundleDeployerUtils#getBundlesInfo(Path)} and
+ * {@link OSGiLibBundleDeployerUtils#updateOSGiLib(String, String, List)} over a Carbon home with generated OSGi
+ * bundles in the wso2/lib directory, as done on every server startup.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OSGiLibBundleDeployerBenchmark {
+
+    private static final int PLUGIN_BUNDLE_COUNT = 200;
+
+    // Keeps a strong reference, so that the level set below is not lost when the logger is garbage collected.
+    private static final Logger deployerLogger = Logger.getLogger(OSGiLibBundleDeployerUtils.class.getName());
+
+    // 5000 covers large distributions, where the bundle information diff used to be quadratic.
+    @Param({"50", "200", "5000"})
+    private int libBundleCount;
+
+    private Path carbonHome;
+    private Path libDirectory;
+    private List<BundleInfo> libBundles;
+    private List<BundleInfo> changedLibBundles;
+    private boolean changed;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        deployerLogger.setLevel(java.util.logging.Level.WARNING);
+
+        carbonHome = Files.createTempDirectory("carbon-benchmark");
+        libDirectory = Files.createDirectories(carbonHome.resolve(Paths.get(Constants.OSGI_REPOSITORY)));
+        for (int i = 0; i < libBundleCount; i++) {
+            createBundle(libDirectory.resolve("org.wso2.carbon.benchmark.lib" + i + "_1.0.0.jar"),
+                    "org.wso2.carbon.benchmark.lib" + i, i % 10 == 0);
+        }
+
+        libBundles = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory);
+        changedLibBundles = new ArrayList<>(libBundles.subList(0, libBundles.size() - 1));
+
+        List<String> bundlesInfo = new ArrayList<>();
+        for (int i = 0; i < PLUGIN_BUNDLE_COUNT; i++) {
+            bundlesInfo.add("org.wso2.carbon.benchmark.plugin" + i + ",1.0.0,../plugins/org.wso2.carbon.benchmark" +
+                    ".plugin" + i + "_1.0.0.jar,4,true");
+        }
+        bundlesInfo.addAll(libBundles.stream().map(BundleInfo::toString).collect(Collectors.toList()));
+        Path bundlesInfoFile = carbonHome.resolve(Paths.get(Constants.PROFILE_REPOSITORY, Constants.DEFAULT_PROFILE,
+                "configuration", "org.eclipse.equinox.simpleconfigurator", Constants.BUNDLES_INFO));
+        Files.createDirectories(bundlesInfoFile.getParent());
+        Files.write(bundlesInfoFile, bundlesInfo);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(carbonHome)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BundleInfo> getBundlesInfo() throws IOException {
+        return OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory);
+    }
+
+    @Benchmark
+    public void updateOSGiLibUnchanged() throws IOException {
+        OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome.toString(), Constants.DEFAULT_PROFILE, libBundles);
+    }
+
+    @Benchmark
+    public void updateOSGiLibChanged() throws IOException {
+        // Alternates between removing and adding back a bundle, so that every invocation rewrites bundles.info.
+        changed = !changed;
+        OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome.toString(), Constants.DEFAULT_PROFILE,
+                new ArrayList<>(changed ? changedLibBundles : libBundles));
+    }
+
+    private static void createBundle(Path bundlePath, String symbolicName, boolean fragment) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", symbolicName + ";singleton:=true");
+        attributes.putValue("Bundle-Version", "1.0.0");
+        attributes.putValue("Export-Package", symbolicName + ";version=\"1.0.0\"");
+        if (fragment) {
+            attributes.putValue("Fragment-Host", "org.wso2.carbon.core");
+        }
+        try (OutputStream outputStream = Files.newOutputStream(bundlePath);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest)) {
+            jarOutputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.benchmarks.SyntheticBundles;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EventListener;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Measures the startup order resolution of {@link StartupComponentManager} and {@link StartupComponent} over a
+ * synthetic graph of startup listener components. Each component requires a random set of OSGi services, each
+ * service is provided by its own bundle, and the satisfiable components are notified after every service
+ * registration, the same way the startup order resolver drives them.
+ * <p>
+ * This benchmark lives in the startup resolver package since {@link StartupComponentManager} is package private.
+ *
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupComponentResolutionBenchmark {
+
+    /**
+     * Interfaces used as the required OSGi services. {@link StartupServiceCache} tracks services by their interface
+     * class, hence existing interfaces are used instead of generated names.
+     */
+    private static final Class<?>[] SERVICE_INTERFACES = {Runnable.class, Callable.class, Comparable.class,
+            AutoCloseable.class, Iterable.class, CharSequence.class, Appendable.class, Readable.class,
+            Cloneable.class, Serializable.class, Collection.class, List.class, Set.class, Map.class, Queue.class,
+            Deque.class, Iterator.class, Comparator.class, Supplier.class, Consumer.class, Function.class,
+            Predicate.class, BiFunction.class, BiConsumer.class, Executor.class, ExecutorService.class,
+            Future.class, Lock.class, Principal.class, Closeable.class, Flushable.class, EventListener.class};
+
+    @Param({"10", "100"})
+    private int componentCount;
+
+    @Param({"4", "16"})
+    private int requiredServiceCount;
+
+    private String[] componentNames;
+    private Bundle[] componentBundles;
+    private List<List<Class<?>>> requiredServices;
+    private Bundle[] providerBundles;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(componentCount * 31L + requiredServiceCount);
+        componentNames = new String[componentCount];
+        componentBundles = new Bundle[componentCount];
+        requiredServices = new ArrayList<>();
+        for (int i = 0; i < componentCount; i++) {
+            componentNames[i] = "benchmark-component-" + componentCount + "-" + requiredServiceCount + "-" + i;
+            componentBundles[i] = SyntheticBundles.create(i + 1, "org.wso2.carbon.benchmark.component" + i);
+
+            List<Class<?>> services = new ArrayList<>();
+            while (services.size() < Math.min(requiredServiceCount, SERVICE_INTERFACES.length)) {
+                Class<?> service = SERVICE_INTERFACES[random.nextInt(SERVICE_INTERFACES.length)];
+                if (!services.contains(service)) {
+                    services.add(service);
+                }
+            }
+            requiredServices.add(services);
+        }
+
+        providerBundles = new Bundle[SERVICE_INTERFACES.length];
+        for (int i = 0; i < SERVICE_INTERFACES.length; i++) {
+            providerBundles[i] = SyntheticBundles.create(componentCount + i + 1,
+                    "org.wso2.carbon.benchmark.provider" + i);
+        }
+    }
+
+    /**
+     * Clears the service counts the previous invocation left in the {@link StartupServiceCache} singleton, so that
+     * every invocation resolves the components from scratch.
+     */
+    @Setup(Level.Invocation)
+    public void clearServiceCache() throws ReflectiveOperationException {
+        Field componentMap = StartupServiceCache.class.getDeclaredField("componentMap");
+        componentMap.setAccessible(true);
+        ((Map<?, ?>) componentMap.get(StartupServiceCache.getInstance())).clear();
+    }
+
+    @Benchmark
+    public int resolve() {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        AtomicInteger satisfiedComponents = new AtomicInteger();
+
+        for (int i = 0; i < componentCount; i++) {
+            StartupComponent startupComponent = new StartupComponent(componentNames[i], componentBundles[i]);
+            requiredServices.get(i).forEach(service -> startupComponent.addRequiredService(service.getName()));
+            startupComponentManager.addStartupComponent(startupComponent);
+            startupComponentManager.addRequiredCapabilityListener(satisfiedComponents::incrementAndGet,
+                    componentNames[i], componentBundles[i]);
+        }
+
+        // Expected services, as declared by the osgi.service manifest headers of the provider bundles.
+        for (int i = 0; i < SERVICE_INTERFACES.length; i++) {
+            startupComponentManager.addExpectedCapability(new OSGiServiceCapability(SERVICE_INTERFACES[i].getName(),
+                    Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED,
+                    providerBundles[i], true));
+        }
+
+        // Service registrations, each followed by a resolution round.
+        for (int i = 0; i < SERVICE_INTERFACES.length; i++) {
+            Class<?> service = SERVICE_INTERFACES[i];
+            for (int j = 0; j < componentCount; j++) {
+                if (requiredServices.get(j).contains(service)) {
+                    StartupServiceCache.getInstance().update(componentNames[j], service);
+                }
+            }
+            startupComponentManager.updateCapability(new OSGiServiceCapability(service.getName(),
+                    Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.AVAILABLE,
+                    providerBundles[i], false));
+            startupComponentManager.notifySatisfiableComponents();
+        }
+        return satisfiedComponents.get();
+    }
+}
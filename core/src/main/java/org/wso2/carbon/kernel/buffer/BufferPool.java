@@ -0,0 +1,53 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded pool of direct byte buffers shared by the transports and runtimes of the server. This is registered as an
+ * OSGi service, so that transports and runtimes can reuse off-heap buffers instead of allocating heap buffers per
+ * request.
+ * <p>
+ * Buffers are pooled in size classes, the powers of two between the minimum and maximum buffer sizes of the pool. An
+ * acquired buffer must be released exactly once, and must not be used after it is released. Once the off-heap budget
+ * of the pool is used up, and for capacities above the maximum buffer size, heap buffers are returned instead.
+ *
+ * @since 5.2.0
+ */
+public interface BufferPool {
+
+    /**
+     * Returns a cleared buffer with at least the given capacity, in big-endian byte order. The limit of the buffer is
+     * its capacity, which is rounded up to the next size class of the pool.
+     *
+     * @param capacity minimum capacity of the buffer in bytes
+     * @return the buffer
+     */
+    ByteBuffer acquire(int capacity);
+
+    /**
+     * Returns a buffer acquired from this pool to the pool.
+     *
+     * @param buffer the buffer returned by {@link #acquire(int)}, not a slice or duplicate of it
+     */
+    void release(ByteBuffer buffer);
+
+    /**
+     * @return metrics of the pool
+     */
+    BufferPoolMetrics getMetrics();
+}
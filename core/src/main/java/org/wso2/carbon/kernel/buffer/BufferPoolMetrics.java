@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.buffer;
+
+/**
+ * Metrics of the {@link BufferPool}.
+ *
+ * @since 5.2.0
+ */
+public interface BufferPoolMetrics {
+
+    /**
+     * @return number of buffers acquired from the pool
+     */
+    long getAcquireCount();
+
+    /**
+     * @return ratio of the acquired buffers which were reused instead of allocated, between 0 and 1
+     */
+    double getHitRate();
+
+    /**
+     * @return number of direct buffers acquired and not released yet
+     */
+    long getOutstandingBuffers();
+
+    /**
+     * @return off-heap memory in bytes allocated by the pool, both pooled and outstanding buffers
+     */
+    long getDirectMemoryUsed();
+
+    /**
+     * @return maximum off-heap memory in bytes the pool allocates
+     */
+    long getMaxDirectMemory();
+
+    /**
+     * @return number of heap buffers returned because the off-heap budget was used up or the requested capacity was
+     * above the maximum buffer size
+     */
+    long getHeapFallbackCount();
+
+    /**
+     * @return number of buffers garbage collected without being released, counted only if leak detection is enabled
+     */
+    long getLeakCount();
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.cache;
+
+import java.util.function.Function;
+
+/**
+ * A bounded cache handed out by the {@link CacheService}.
+ * <p>
+ * Unless the cache is created with tenant awareness disabled, each tenant has its own partition of the cache, and all
+ * the operations apply to the partition of the tenant of the current {@code CarbonContext}. Keys and values cannot be
+ * null.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ * @since 5.2.0
+ */
+public interface Cache<K, V> {
+
+    /**
+     * @return name of the cache
+     */
+    String getName();
+
+    /**
+     * Returns the value cached for the given key.
+     *
+     * @param key the key
+     * @return the cached value, or null if there is no value or the value has expired
+     */
+    V get(K key);
+
+    /**
+     * Returns the value cached for the given key, loading it with the given loader if there is no value. Concurrent
+     * calls for the same key while a value is being loaded wait for that load instead of loading the value again.
+     * Exceptions thrown by the loader are thrown to all the waiting callers, and nothing is cached.
+     *
+     * @param key    the key
+     * @param loader function which loads the value of a key, may return null if there is no value
+     * @return the cached or loaded value, or null if the loader returned null
+     */
+    V get(K key, Function<? super K, ? extends V> loader);
+
+    /**
+     * Caches a value, replacing the value cached for the key, if any. The value may be evicted straight away if it is
+     * accessed less frequently than the values it would replace.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    void put(K key, V value);
+
+    /**
+     * Removes the value cached for the given key.
+     *
+     * @param key the key
+     */
+    void invalidate(K key);
+
+    /**
+     * Removes all the values of the current tenant.
+     */
+    void invalidateAll();
+
+    /**
+     * @return number of values cached for the current tenant
+     */
+    long size();
+
+    /**
+     * @return statistics of the cache, across all the tenants
+     */
+    CacheStatistics getStatistics();
+}
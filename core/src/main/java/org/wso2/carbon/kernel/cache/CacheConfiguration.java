@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.cache;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounds and expiry policy of a {@link Cache}. A cache is bounded by its maximum size unless a maximum weight is set,
+ * in which case it is bounded by the total weight of its values as calculated by the weigher. Both bounds apply to
+ * each tenant partition of the cache, while the number of partitions is bounded by the maximum partitions.
+ * <p>
+ * Configurations are equal if their bounds and expiry policy are equal and they have the same weigher.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ * @since 5.2.0
+ */
+public class CacheConfiguration<K, V> {
+
+    private long maximumSize = 10000;
+    private long maximumWeight = -1;
+    private ToLongBiFunction<? super K, ? super V> weigher;
+    private long expireAfterWriteNanos = -1;
+    private long expireAfterAccessNanos = -1;
+    private boolean tenantAware = true;
+    private int maximumPartitions = 1000;
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @param maximumSize maximum number of values of each tenant partition
+     */
+    public void setMaximumSize(long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size cannot be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public ToLongBiFunction<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * Bounds the cache by the total weight of its values instead of their number.
+     *
+     * @param maximumWeight maximum total weight of the values of each tenant partition
+     * @param weigher       function which calculates the weight of a value, the weight cannot be negative
+     */
+    public void setMaximumWeight(long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight cannot be negative: " + maximumWeight);
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher cannot be null");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    public long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    /**
+     * @param duration time after which a value expires once it is cached or replaced
+     * @param unit     unit of the duration
+     */
+    public void setExpireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = unit.toNanos(duration);
+    }
+
+    public long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    /**
+     * @param duration time after which a value expires once it is cached, replaced or read
+     * @param unit     unit of the duration
+     */
+    public void setExpireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = unit.toNanos(duration);
+    }
+
+    public boolean isTenantAware() {
+        return tenantAware;
+    }
+
+    /**
+     * @param tenantAware false to share a single partition among all the tenants
+     */
+    public void setTenantAware(boolean tenantAware) {
+        this.tenantAware = tenantAware;
+    }
+
+    public int getMaximumPartitions() {
+        return maximumPartitions;
+    }
+
+    /**
+     * @param maximumPartitions maximum number of tenant partitions, beyond which the least recently used partition is
+     *                          dropped
+     */
+    public void setMaximumPartitions(int maximumPartitions) {
+        if (maximumPartitions < 1) {
+            throw new IllegalArgumentException("Maximum partitions must be positive: " + maximumPartitions);
+        }
+        this.maximumPartitions = maximumPartitions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheConfiguration<?, ?> that = (CacheConfiguration<?, ?>) o;
+        return maximumSize == that.maximumSize && maximumWeight == that.maximumWeight && weigher == that.weigher &&
+                expireAfterWriteNanos == that.expireAfterWriteNanos &&
+                expireAfterAccessNanos == that.expireAfterAccessNanos && tenantAware == that.tenantAware &&
+                maximumPartitions == that.maximumPartitions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maximumSize, maximumWeight, System.identityHashCode(weigher), expireAfterWriteNanos,
+                expireAfterAccessNanos, tenantAware, maximumPartitions);
+    }
+}
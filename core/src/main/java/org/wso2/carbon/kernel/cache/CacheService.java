@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.cache;
+
+import java.util.List;
+
+/**
+ * Hands out named, bounded and tenant-aware caches. This is registered as an OSGi service, so that components can use
+ * it instead of maintaining their own unbounded maps. The statistics of the caches are exposed through the
+ * org.wso2.carbon:type=KernelCaches MBean.
+ *
+ * @since 5.2.0
+ */
+public interface CacheService {
+
+    /**
+     * Returns the cache with the given name, creating it with the given configuration if it does not exist.
+     *
+     * @param name          name of the cache
+     * @param configuration bounds and expiry policy used if the cache is created
+     * @param <K>           type of the keys
+     * @param <V>           type of the values
+     * @return the cache
+     * @throws IllegalArgumentException if the cache exists with a different configuration
+     */
+    <K, V> Cache<K, V> getCache(String name, CacheConfiguration<K, V> configuration);
+
+    /**
+     * Removes the cache with the given name, with the values of all the tenants.
+     *
+     * @param name name of the cache
+     */
+    void removeCache(String name);
+
+    /**
+     * @return statistics of all the caches
+     */
+    List<CacheStatistics> getCacheStatistics();
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.cache;
+
+/**
+ * Statistics of a {@link Cache}, across all the tenants.
+ *
+ * @since 5.2.0
+ */
+public interface CacheStatistics {
+
+    /**
+     * @return name of the cache
+     */
+    String getName();
+
+    /**
+     * @return number of cached values
+     */
+    long getSize();
+
+    /**
+     * @return number of tenant partitions of the cache
+     */
+    int getPartitionCount();
+
+    /**
+     * @return number of lookups which returned a cached value
+     */
+    long getHitCount();
+
+    /**
+     * @return number of lookups which did not find a cached value
+     */
+    long getMissCount();
+
+    /**
+     * @return ratio of the lookups which returned a cached value, between 0 and 1
+     */
+    double getHitRatio();
+
+    /**
+     * @return number of values evicted to keep the cache within its bounds, including the values not admitted
+     */
+    long getEvictionCount();
+
+    /**
+     * @return number of values removed because they expired
+     */
+    long getExpirationCount();
+
+    /**
+     * @return number of values loaded, including loads which returned null
+     */
+    long getLoadCount();
+
+    /**
+     * @return number of loads which threw an exception
+     */
+    long getLoadFailureCount();
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.concurrent;
+
+/**
+ * Metrics of an executor or scheduler handed out by the {@link KernelExecutorService}.
+ *
+ * @since 5.2.0
+ */
+public interface ExecutorMetrics {
+
+    /**
+     * @return name of the executor
+     */
+    String getName();
+
+    /**
+     * @return type of the executor, one of "thread-pool", "scheduler" or "virtual-thread"
+     */
+    String getType();
+
+    /**
+     * @return maximum number of threads of the executor, -1 if not bounded
+     */
+    int getMaxThreads();
+
+    /**
+     * @return current number of threads of the executor
+     */
+    int getPoolSize();
+
+    /**
+     * @return number of threads running a task
+     */
+    int getActiveCount();
+
+    /**
+     * @return number of tasks waiting in the queue of the executor
+     */
+    int getQueueDepth();
+
+    /**
+     * @return number of completed task executions
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * @return number of rejected tasks
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * @return average time in microseconds a task waited between its submission, or its scheduled time, and the
+     * start of its execution
+     */
+    long getAverageQueueTime();
+
+    /**
+     * @return average execution time of a task in microseconds
+     */
+    long getAverageExecutionTime();
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.concurrent;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Hands out named, bounded and monitored executors and schedulers whose threads are owned by the kernel. This is
+ * registered as an OSGi service, so that components can use it instead of creating their own threads and timers.
+ * <p>
+ * Executors are identified by their names, which are scoped to the bundle using this service and prefixed with its
+ * symbolic name and version, e.g. {@code org.wso2.carbon.sample_1.0.0/sample-executor}. Requesting an executor with
+ * the name of a running executor returns the running executor, and requesting it with a different configuration is
+ * rejected with an {@link IllegalArgumentException}. Once an executor is shut down by its user, the name can be
+ * reused. The executors of a bundle are shut down when the bundle releases this service, and all the executors are
+ * shut down when the Carbon core bundle stops.
+ *
+ * @since 5.2.0
+ */
+public interface KernelExecutorService {
+
+    /**
+     * Returns a thread pool with at most {@code maxThreads} threads and a queue of at most {@code queueCapacity}
+     * tasks. Tasks submitted while the queue is full are rejected with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param name          name of the executor, also used as the prefix of its thread names
+     * @param maxThreads    maximum number of threads
+     * @param queueCapacity maximum number of queued tasks
+     * @return the executor
+     */
+    ExecutorService getExecutor(String name, int maxThreads, int queueCapacity);
+
+    /**
+     * Returns a thread pool like {@link #getExecutor(String, int, int)} whose threads run at the given priority, e.g.
+     * {@link Thread#MIN_PRIORITY} for background work which should not compete with the server startup.
+     *
+     * @param name           name of the executor, also used as the prefix of its thread names
+     * @param maxThreads     maximum number of threads
+     * @param queueCapacity  maximum number of queued tasks
+     * @param threadPriority priority of the threads
+     * @return the executor
+     */
+    ExecutorService getExecutor(String name, int maxThreads, int queueCapacity, int threadPriority);
+
+    /**
+     * Returns a scheduler with {@code threads} threads.
+     *
+     * @param name    name of the scheduler, also used as the prefix of its thread names
+     * @param threads number of threads
+     * @return the scheduler
+     */
+    ScheduledExecutorService getScheduler(String name, int threads);
+
+    /**
+     * Returns an executor which runs each task in a new virtual thread. If the JVM does not support virtual threads,
+     * returns a thread pool with at most {@code maxThreads} threads and no queue instead.
+     *
+     * @param name       name of the executor, also used as the prefix of its thread names
+     * @param maxThreads maximum number of threads if virtual threads are not supported
+     * @return the executor
+     */
+    ExecutorService getVirtualThreadExecutor(String name, int maxThreads);
+
+    /**
+     * @return true if the JVM supports virtual threads
+     */
+    boolean isVirtualThreadSupported();
+
+    /**
+     * Returns the number of CPUs the server may use. This is the CPU quota of the container passed by the startup
+     * script in the carbon.cpu.count system property, or the number of processors available to the JVM otherwise.
+     * Executors doing CPU bound work should be sized by this number.
+     *
+     * @return number of CPUs, at least 1
+     */
+    int getAvailableProcessors();
+
+    /**
+     * @return metrics of all the running executors and schedulers
+     */
+    List<ExecutorMetrics> getExecutorMetrics();
+}
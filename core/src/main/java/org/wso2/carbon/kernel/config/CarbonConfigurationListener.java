@@ -0,0 +1,39 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.config;
+
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+
+/**
+ * Components which need to react to reloads of the Carbon configuration register an implementation of this
+ * interface as an OSGi service.
+ * <p>
+ * A reload replaces the {@link CarbonConfiguration} instance returned by
+ * {@link org.wso2.carbon.kernel.CarbonRuntime#getConfiguration()} with a new instance. Listeners are notified after the
+ * new instance is visible to all the threads.
+ *
+ * @since 5.2.0
+ */
+public interface CarbonConfigurationListener {
+
+    /**
+     * Called after the Carbon configuration is reloaded. The given instances must not be modified.
+     *
+     * @param previousConfiguration the configuration which was in use before the reload
+     * @param newConfiguration      the reloaded configuration
+     */
+    void onConfigurationReload(CarbonConfiguration previousConfiguration, CarbonConfiguration newConfiguration);
+}
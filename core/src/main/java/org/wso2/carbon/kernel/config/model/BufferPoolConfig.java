@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.config.model;
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Config bean for the pool of direct byte buffers shared by the transports and runtimes.
+ *
+ * @since 5.2.0
+ */
+@Configuration(description = "Configuration of the pool of direct byte buffers shared by transports and runtimes")
+public class BufferPoolConfig {
+
+    static final String DIRECT_MEMORY_MAX_PROPERTY = "carbon.direct.memory.max";
+    private static final long DEFAULT_MAX_DIRECT_MEMORY = 64 * 1024 * 1024;
+
+    @Element(description = "maximum off-heap memory in bytes allocated by the pool. Buffers requested once it is\n" +
+            "used up are allocated on the heap. Defaults to the carbon.direct.memory.max system property, which the\n" +
+            "startup script sets to CARBON_BUFFER_POOL_PERCENTAGE (50 by default) percent of the direct memory\n" +
+            "derived from the container memory limit, or to 64 MB if it is not set")
+    private long maxDirectMemory = getDefaultMaxDirectMemory();
+
+    @Element(description = "capacity in bytes of the smallest pooled buffer")
+    private int minBufferSize = 512;
+
+    @Element(description = "capacity in bytes of the largest pooled buffer. Larger buffers are not pooled")
+    private int maxBufferSize = 1024 * 1024;
+
+    @Element(description = "number of buffers of each size cached by each thread")
+    private int threadCacheSize = 4;
+
+    @Element(description = "To report buffers which are garbage collected without being released to the pool,\n" +
+            "change this value to true. Also enabled by the debug log level of the buffer pool")
+    private boolean leakDetection = false;
+
+    public long getMaxDirectMemory() {
+        return maxDirectMemory;
+    }
+
+    public void setMaxDirectMemory(long maxDirectMemory) {
+        this.maxDirectMemory = maxDirectMemory;
+    }
+
+    public int getMinBufferSize() {
+        return minBufferSize;
+    }
+
+    public void setMinBufferSize(int minBufferSize) {
+        this.minBufferSize = minBufferSize;
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public void setMaxBufferSize(int maxBufferSize) {
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    public int getThreadCacheSize() {
+        return threadCacheSize;
+    }
+
+    public void setThreadCacheSize(int threadCacheSize) {
+        this.threadCacheSize = threadCacheSize;
+    }
+
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Returns the maximum direct memory derived by the startup script from the container memory limit, if it is set.
+     */
+    private static long getDefaultMaxDirectMemory() {
+        String maxDirectMemory = System.getProperty(DIRECT_MEMORY_MAX_PROPERTY);
+        if (maxDirectMemory != null) {
+            try {
+                return Math.max(0, Long.parseLong(maxDirectMemory.trim()));
+            } catch (NumberFormatException e) {
+                // The default of the pool is used instead.
+            }
+        }
+        return DEFAULT_MAX_DIRECT_MEMORY;
+    }
+}
@@ -58,6 +58,15 @@ public class CarbonConfiguration {
     @Element(description = "JMX Configuration")
     private JMXConfiguration jmx = new JMXConfiguration();
 
+    @Element(description = "Live reload of the Carbon configuration")
+    private ConfigurationReloadConfig configurationReload = new ConfigurationReloadConfig();
+
+    @Element(description = "Transports managed by the kernel")
+    private TransportsConfig transports = new TransportsConfig();
+
+    @Element(description = "Pool of direct byte buffers shared by transports and runtimes")
+    private BufferPoolConfig bufferPool = new BufferPoolConfig();
+
     public String getId() {
         return id;
     }
@@ -85,4 +94,16 @@ public class CarbonConfiguration {
     public JMXConfiguration getJmxConfiguration() {
         return jmx;
     }
+
+    public ConfigurationReloadConfig getConfigurationReloadConfig() {
+        return configurationReload;
+    }
+
+    public TransportsConfig getTransportsConfig() {
+        return transports;
+    }
+
+    public BufferPoolConfig getBufferPoolConfig() {
+        return bufferPool;
+    }
 }
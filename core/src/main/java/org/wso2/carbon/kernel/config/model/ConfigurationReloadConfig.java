@@ -0,0 +1,42 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.config.model;
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Config bean for the live reload of the Carbon configuration.
+ *
+ * @since 5.2.0
+ */
+@Configuration(description = "Configuration for reloading the Carbon configuration when deployment.yaml changes")
+public class ConfigurationReloadConfig {
+
+    @Element(description = "To reload the Carbon configuration when deployment.yaml changes, change this value to true")
+    private boolean enabled = false;
+
+    @Element(description = "time in milliseconds without further changes to wait for before reloading")
+    private long debounceInterval = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getDebounceInterval() {
+        return debounceInterval;
+    }
+}
@@ -19,6 +19,7 @@ package org.wso2.carbon.kernel.config.model;
 
 
 import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
 
 /**
  * Config bean for startupOrderResolver.
@@ -30,6 +31,10 @@ public class StartupResolverConfig {
 
     private PendingCapabilityTimer pendingCapabilityTimer = new PendingCapabilityTimer();
 
+    @Element(description = "To coordinate the startup of the bundles installed after the server startup, " +
+            "change this value to true")
+    private boolean continuousMode = false;
+
     public CapabilityListenerTimer getCapabilityListenerTimer() {
         return capabilityListenerTimer;
     }
@@ -37,4 +42,8 @@ public class StartupResolverConfig {
     public PendingCapabilityTimer getPendingCapabilityTimer() {
         return pendingCapabilityTimer;
     }
+
+    public boolean isContinuousMode() {
+        return continuousMode;
+    }
 }
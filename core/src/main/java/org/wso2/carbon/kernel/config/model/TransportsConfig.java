@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.config.model;
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Config bean for the transports managed by the kernel.
+ *
+ * @since 5.2.0
+ */
+@Configuration(description = "Configuration of the transports managed by the kernel")
+public class TransportsConfig {
+
+    @Element(description = "To bind the listening ports of the transports as soon as they are registered, so that\n" +
+            "client connections wait in the accept backlog instead of being refused until the transports are\n" +
+            "started, change this value to true")
+    private boolean preBindPorts = false;
+
+    @Element(description = "accept backlog of the pre-bound listening ports")
+    private int acceptBacklog = 128;
+
+    @Element(description = "maximum number of transports started in parallel")
+    private int startupThreads = 4;
+
+    public boolean isPreBindPorts() {
+        return preBindPorts;
+    }
+
+    public void setPreBindPorts(boolean preBindPorts) {
+        this.preBindPorts = preBindPorts;
+    }
+
+    public int getAcceptBacklog() {
+        return acceptBacklog;
+    }
+
+    public void setAcceptBacklog(int acceptBacklog) {
+        this.acceptBacklog = acceptBacklog;
+    }
+
+    public int getStartupThreads() {
+        return startupThreads;
+    }
+
+    public void setStartupThreads(int startupThreads) {
+        this.startupThreads = startupThreads;
+    }
+}
@@ -32,6 +32,8 @@ import java.security.Principal;
 
 public final class PrivilegedCarbonContext extends CarbonContext {
 
+    private static final String USER_NAME_MDC_KEY = "user-name";
+
     private PrivilegedCarbonContext(CarbonContextHolder carbonContextHolder) {
         super(carbonContextHolder);
     }
@@ -65,8 +67,11 @@ public final class PrivilegedCarbonContext extends CarbonContext {
         Utils.checkSecurity();
         getCarbonContextHolder().setUserPrincipal(userPrincipal);
 
-        //for auditing
-        MDC.put("user-name", userPrincipal.getName());
+        //for auditing, the MDC is only written when the user changes as writing it copies the context map
+        String userName = userPrincipal.getName();
+        if (userName == null || !userName.equals(MDC.get(USER_NAME_MDC_KEY))) {
+            MDC.put(USER_NAME_MDC_KEY, userName);
+        }
     }
 
     /**
@@ -17,8 +17,14 @@ package org.wso2.carbon.kernel.internal;
 
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService;
+import org.wso2.carbon.kernel.internal.concurrent.KernelExecutorServiceFactory;
+import org.wso2.carbon.kernel.internal.concurrent.KernelExecutors;
+import org.wso2.carbon.kernel.internal.preload.ClassPreloader;
 import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
 
 /**
@@ -29,14 +35,40 @@ import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
 public class CarbonCoreBundleActivator implements BundleActivator {
     private static final Logger logger = LoggerFactory.getLogger(CarbonCoreBundleActivator.class);
 
+    private DefaultKernelExecutorService executorService;
+    private ServiceRegistration<KernelExecutorService> executorServiceRegistration;
+    private ClassPreloader classPreloader;
+
     @Override
     public void start(BundleContext bundleContext) throws Exception {
         DataHolder.getInstance().setBundleContext(bundleContext);
+
+        executorService = new DefaultKernelExecutorService();
+        executorServiceRegistration = bundleContext.registerService(KernelExecutorService.class,
+                new KernelExecutorServiceFactory(executorService), null);
+        try {
+            MBeanRegistrator.registerMBean(new KernelExecutors(executorService));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to register the kernel executors MBean.", e);
+        }
+
+        classPreloader = new ClassPreloader(bundleContext, executorService);
+        classPreloader.start();
         logger.debug("Carbon core bundle is started successfully");
     }
 
     @Override
     public void stop(BundleContext bundleContext) throws Exception {
+        if (classPreloader != null) {
+            classPreloader.stop();
+        }
+        if (executorServiceRegistration != null) {
+            executorServiceRegistration.unregister();
+            executorServiceRegistration = null;
+        }
+        if (executorService != null) {
+            executorService.shutdown();
+        }
         MBeanRegistrator.unregisterAllMBeans();
         logger.debug("Carbon core bundle is stopped successfully");
     }
@@ -1,5 +1,6 @@
 package org.wso2.carbon.kernel.internal;
 
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -8,9 +9,32 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.config.ConfigConstants;
+import org.wso2.carbon.config.ConfigProviderFactory;
 import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.PrivilegedCarbonRuntime;
+import org.wso2.carbon.kernel.buffer.BufferPool;
+import org.wso2.carbon.kernel.cache.CacheService;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.config.CarbonConfigurationListener;
+import org.wso2.carbon.kernel.config.model.BufferPoolConfig;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.config.model.ConfigurationReloadConfig;
+import org.wso2.carbon.kernel.internal.buffer.DirectBufferPool;
+import org.wso2.carbon.kernel.internal.cache.DefaultCacheService;
+import org.wso2.carbon.kernel.internal.cache.KernelCaches;
+import org.wso2.carbon.kernel.internal.config.CarbonConfigurationReloader;
 import org.wso2.carbon.kernel.internal.context.CarbonRuntimeFactory;
+import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
+import org.wso2.carbon.secvault.SecureVault;
+import org.wso2.carbon.utils.Utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -25,6 +49,16 @@ import org.wso2.carbon.kernel.internal.context.CarbonRuntimeFactory;
 )
 public class CarbonCoreComponent {
     private static final Logger logger = LoggerFactory.getLogger(CarbonCoreComponent.class);
+    private final List<CarbonConfigurationListener> configurationListeners = new CopyOnWriteArrayList<>();
+    private volatile SecureVault secureVault;
+    private KernelExecutorService executorService;
+    private PrivilegedCarbonRuntime reloadableRuntime;
+    private long reloadDebounceInterval;
+    private CarbonConfigurationReloader configurationReloader;
+    private DirectBufferPool bufferPool;
+    private ServiceRegistration<BufferPool> bufferPoolRegistration;
+    private DefaultCacheService cacheService;
+    private ServiceRegistration<CacheService> cacheServiceRegistration;
 
     @Activate
     public void activate() {
@@ -35,12 +69,27 @@ public class CarbonCoreComponent {
             ConfigProvider configProvider = DataHolder.getInstance().getConfigProvider();
 
             // 2) Creates the CarbonRuntime instance using the Carbon configuration provider.
-            CarbonRuntime carbonRuntime = CarbonRuntimeFactory.createCarbonRuntime(configProvider);
+            PrivilegedCarbonRuntime carbonRuntime = CarbonRuntimeFactory.createCarbonRuntime(configProvider);
 
             // 3) Register CarbonRuntime instance as an OSGi bundle.
             DataHolder.getInstance().getBundleContext()
                     .registerService(CarbonRuntime.class.getName(), carbonRuntime, null);
 
+            // 4) Register the pool of direct byte buffers shared by transports and runtimes.
+            registerBufferPool(carbonRuntime.getConfiguration().getBufferPoolConfig());
+
+            // 5) Register the bounded, tenant-aware cache service.
+            registerCacheService(carbonRuntime.getConfiguration().getTenant());
+
+            // 6) Reload the configuration of the CarbonRuntime instance on deployment.yaml changes, if enabled.
+            ConfigurationReloadConfig reloadConfig = carbonRuntime.getConfiguration().getConfigurationReloadConfig();
+            if (reloadConfig.isEnabled()) {
+                synchronized (this) {
+                    reloadableRuntime = carbonRuntime;
+                    reloadDebounceInterval = reloadConfig.getDebounceInterval();
+                    updateConfigurationReloader();
+                }
+            }
         } catch (Throwable throwable) {
             logger.error("Error while activating CarbonCoreComponent");
         }
@@ -49,6 +98,86 @@ public class CarbonCoreComponent {
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating CarbonCoreComponent");
+        synchronized (this) {
+            reloadableRuntime = null;
+            updateConfigurationReloader();
+        }
+        if (bufferPoolRegistration != null) {
+            bufferPoolRegistration.unregister();
+            bufferPoolRegistration = null;
+        }
+        if (bufferPool != null) {
+            bufferPool.shutdown();
+            bufferPool = null;
+        }
+        if (cacheServiceRegistration != null) {
+            cacheServiceRegistration.unregister();
+            cacheServiceRegistration = null;
+        }
+        if (cacheService != null) {
+            cacheService.shutdown();
+            cacheService = null;
+        }
+    }
+
+    private void registerCacheService(String serverTenant) {
+        cacheService = new DefaultCacheService(serverTenant);
+        cacheServiceRegistration = DataHolder.getInstance().getBundleContext()
+                .registerService(CacheService.class, cacheService, null);
+        try {
+            MBeanRegistrator.registerMBean(new KernelCaches(cacheService));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to register the kernel caches MBean.", e);
+        }
+    }
+
+    private void registerBufferPool(BufferPoolConfig bufferPoolConfig) {
+        bufferPool = new DirectBufferPool(bufferPoolConfig);
+        bufferPoolRegistration = DataHolder.getInstance().getBundleContext()
+                .registerService(BufferPool.class, bufferPool, null);
+        try {
+            MBeanRegistrator.registerMBean(bufferPool);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to register the buffer pool MBean.", e);
+        }
+    }
+
+    /**
+     * Runs the configuration reloader while the reload is enabled and the SecureVault is available. Without the
+     * SecureVault the secrets of deployment.yaml cannot be resolved, hence the reload waits until it is bound.
+     */
+    private synchronized void updateConfigurationReloader() {
+        boolean reloadable = reloadableRuntime != null && secureVault != null;
+        if (reloadable && configurationReloader == null) {
+            try {
+                startConfigurationReloader(reloadableRuntime, reloadDebounceInterval);
+            } catch (IOException e) {
+                configurationReloader = null;
+                logger.error("Failed to watch the Carbon configuration for changes", e);
+            }
+        } else if (!reloadable && configurationReloader != null) {
+            configurationReloader.stop();
+            configurationReloader = null;
+            if (reloadableRuntime != null) {
+                logger.info("Carbon configuration reload is paused until the SecureVault is available");
+            }
+        }
+    }
+
+    private void startConfigurationReloader(PrivilegedCarbonRuntime carbonRuntime, long debounceInterval)
+            throws IOException {
+        // The registered ConfigProvider caches the parsed deployment.yaml, hence a new one is created on every reload.
+        Path configurationFile = Paths.get(Utils.getRuntimeConfigPath().toString(),
+                ConfigConstants.DEPLOYMENT_CONFIG_YAML);
+        configurationReloader = new CarbonConfigurationReloader(configurationFile, () -> {
+            SecureVault currentSecureVault = secureVault;
+            if (currentSecureVault == null) {
+                throw new IllegalStateException("SecureVault is not available to resolve the configuration secrets");
+            }
+            return ConfigProviderFactory.getConfigProvider(configurationFile, currentSecureVault)
+                    .getConfigurationObject(CarbonConfiguration.class);
+        }, carbonRuntime, configurationListeners, debounceInterval, executorService);
+        configurationReloader.start();
     }
 
     @Reference(
@@ -65,4 +194,53 @@ public class CarbonCoreComponent {
     protected void unregisterConfigProvider(ConfigProvider configProvider) {
         DataHolder.getInstance().setConfigProvider(null);
     }
+
+    @Reference(
+            name = "carbon.core.secure.vault",
+            service = SecureVault.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unregisterSecureVault"
+    )
+    protected void registerSecureVault(SecureVault secureVault) {
+        this.secureVault = secureVault;
+        updateConfigurationReloader();
+    }
+
+    protected void unregisterSecureVault(SecureVault secureVault) {
+        if (this.secureVault == secureVault) {
+            this.secureVault = null;
+            updateConfigurationReloader();
+        }
+    }
+
+    @Reference(
+            name = "carbon.core.executor.service",
+            service = KernelExecutorService.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.STATIC,
+            unbind = "unregisterExecutorService"
+    )
+    protected void registerExecutorService(KernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    protected void unregisterExecutorService(KernelExecutorService executorService) {
+        this.executorService = null;
+    }
+
+    @Reference(
+            name = "carbon.core.configuration.listener",
+            service = CarbonConfigurationListener.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unregisterConfigurationListener"
+    )
+    protected void registerConfigurationListener(CarbonConfigurationListener configurationListener) {
+        configurationListeners.add(configurationListener);
+    }
+
+    protected void unregisterConfigurationListener(CarbonConfigurationListener configurationListener) {
+        configurationListeners.remove(configurationListener);
+    }
 }
@@ -40,13 +40,21 @@ public class CarbonStartupHandler {
      * @param serverName Server name to be in the log
      */
     public static void logServerStartupTime(String serverName) {
-        double startTime = Long.parseLong(System.getProperty(Constants.START_TIME));
-        double startupTime = (System.currentTimeMillis() - startTime) / 1000;
+        double startupTime = (double) getServerStartupTime() / 1000;
 
         DecimalFormat decimalFormatter = new DecimalFormat("#,##0.000");
         logger.info(serverName + " started in " + decimalFormatter.format(startupTime) + " sec");
     }
 
+    /**
+     * Returns the time elapsed since the server start time recorded by the launcher.
+     *
+     * @return server startup time in milliseconds
+     */
+    public static long getServerStartupTime() {
+        return System.currentTimeMillis() - Long.parseLong(System.getProperty(Constants.START_TIME));
+    }
+
     /**
      * Register the the CarbonServerInfo as an OSGi service. Other components can identify the server startup completion
      * by listening to the CarbonServerInfo Service registration.
@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Tracks the buffers acquired from a {@link DirectBufferPool} with weak references, and reports the buffers which are
+ * garbage collected without being released together with the stack trace of their acquisition.
+ *
+ * @since 5.2.0
+ */
+class BufferLeakDetector {
+    private static final Logger logger = LoggerFactory.getLogger(BufferLeakDetector.class);
+
+    private final ReferenceQueue<ByteBuffer> referenceQueue = new ReferenceQueue<>();
+
+    // Key of this map is the identity hash code of the buffer. ByteBuffer#hashCode depends on the buffer content.
+    private final Map<Integer, List<TrackedBuffer>> trackedBuffers = new HashMap<>();
+
+    /**
+     * Starts tracking an acquired buffer.
+     *
+     * @param buffer the acquired buffer
+     */
+    synchronized void track(ByteBuffer buffer) {
+        TrackedBuffer trackedBuffer = new TrackedBuffer(buffer, referenceQueue);
+        trackedBuffers.computeIfAbsent(trackedBuffer.key, key -> new ArrayList<>(1)).add(trackedBuffer);
+    }
+
+    /**
+     * Stops tracking a released buffer.
+     *
+     * @param buffer the released buffer
+     * @return false if the buffer is not tracked, i.e. it has not been acquired or has already been released
+     */
+    synchronized boolean untrack(ByteBuffer buffer) {
+        List<TrackedBuffer> bucket = trackedBuffers.get(System.identityHashCode(buffer));
+        if (bucket == null) {
+            return false;
+        }
+        for (Iterator<TrackedBuffer> iterator = bucket.iterator(); iterator.hasNext(); ) {
+            TrackedBuffer trackedBuffer = iterator.next();
+            if (trackedBuffer.get() == buffer) {
+                iterator.remove();
+                trackedBuffer.clear();
+                if (bucket.isEmpty()) {
+                    trackedBuffers.remove(trackedBuffer.key);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports the tracked buffers which have been garbage collected since the last call.
+     *
+     * @param leakConsumer consumer of the capacity of each leaked buffer
+     */
+    void pollLeaks(IntConsumer leakConsumer) {
+        Reference<? extends ByteBuffer> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            TrackedBuffer trackedBuffer = (TrackedBuffer) reference;
+            synchronized (this) {
+                List<TrackedBuffer> bucket = trackedBuffers.get(trackedBuffer.key);
+                if (bucket == null || !bucket.remove(trackedBuffer)) {
+                    continue;
+                }
+                if (bucket.isEmpty()) {
+                    trackedBuffers.remove(trackedBuffer.key);
+                }
+            }
+            logger.warn("A buffer of " + trackedBuffer.capacity + " bytes was garbage collected without being " +
+                    "released to the buffer pool", trackedBuffer.acquisitionTrace);
+            leakConsumer.accept(trackedBuffer.capacity);
+        }
+    }
+
+    /**
+     * Weak reference to an acquired buffer, with the stack trace of its acquisition.
+     */
+    private static class TrackedBuffer extends WeakReference<ByteBuffer> {
+        private final int key;
+        private final int capacity;
+        private final Throwable acquisitionTrace = new Throwable("Buffer acquired here");
+
+        TrackedBuffer(ByteBuffer buffer, ReferenceQueue<ByteBuffer> referenceQueue) {
+            super(buffer, referenceQueue);
+            this.key = System.identityHashCode(buffer);
+            this.capacity = buffer.capacity();
+        }
+    }
+}
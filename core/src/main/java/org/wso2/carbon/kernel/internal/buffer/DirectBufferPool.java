@@ -0,0 +1,558 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.buffer.BufferPool;
+import org.wso2.carbon.kernel.buffer.BufferPoolMetrics;
+import org.wso2.carbon.kernel.config.model.BufferPoolConfig;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link BufferPool} of the kernel. Registered as the org.wso2.carbon:type=DirectBufferPool MBean.
+ * <p>
+ * Each size class has a shared queue of free buffers, in front of which each thread keeps a small cache of its own,
+ * so that a thread which releases and acquires buffers of the same size does not contend with the others. The
+ * off-heap memory allocated by the pool, whether pooled, cached by a thread or outstanding, never exceeds the
+ * configured budget, which is capped at the maximum direct memory of the JVM. Once the budget is used up, buffers
+ * cached by terminated threads, and by threads which have not used their cache for a while, are reclaimed. The caches
+ * of terminated threads are also reclaimed whenever the number of thread caches doubles, so that short lived threads
+ * do not accumulate caches. Virtual threads use the shared queues only, since they are too many and too short lived
+ * to benefit from a cache. If the JVM runs out of direct memory regardless, for instance because of direct buffers
+ * allocated outside the pool, a heap buffer is handed out instead.
+ * <p>
+ * If leak detection is enabled, acquired buffers are tracked until they are released, which also detects releasing a
+ * buffer twice. Without it, free buffers are tracked instead, which detects releasing a buffer twice as well, but a
+ * buffer which is never released keeps its share of the budget.
+ *
+ * @since 5.2.0
+ */
+public class DirectBufferPool implements BufferPool, DirectBufferPoolMBean {
+    private static final Logger logger = LoggerFactory.getLogger(DirectBufferPool.class);
+
+    private static final String MAX_DIRECT_MEMORY_OPTION = "-XX:MaxDirectMemorySize=";
+    private static final long THREAD_CACHE_IDLE_TIME = TimeUnit.SECONDS.toNanos(1);
+    static final int MIN_THREAD_CACHE_PURGE_THRESHOLD = 16;
+
+    // Thread#isVirtual(), null if virtual threads are not supported. A method handle, since it is invoked on every
+    // acquire and release.
+    private static final MethodHandle IS_VIRTUAL_THREAD = getIsVirtualThread();
+
+    private final int minBufferSize;
+    private final int maxBufferSize;
+    private final int minSizeShift;
+    private final long maxDirectMemory;
+    private final int threadCacheSize;
+    private final long threadCacheIdleTime;
+
+    private final Queue<ByteBuffer>[] sharedPools;
+    private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(this::createThreadCache);
+    private final Set<ThreadCache> threadCaches = ConcurrentHashMap.newKeySet();
+    // Number of thread caches at which the caches of terminated threads are purged.
+    private volatile int threadCachePurgeThreshold = MIN_THREAD_CACHE_PURGE_THRESHOLD;
+    private final BufferLeakDetector leakDetector;
+    private final ReleasedBuffers releasedBuffers;
+    private volatile boolean shutdown;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder heapFallbackCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final AtomicLong outstandingBuffers = new AtomicLong();
+    private final AtomicLong directMemoryUsed = new AtomicLong();
+
+    public DirectBufferPool(BufferPoolConfig bufferPoolConfig) {
+        this(bufferPoolConfig, THREAD_CACHE_IDLE_TIME);
+    }
+
+    /**
+     * Creates a pool which reclaims the caches of live threads after the given idle time.
+     *
+     * @param bufferPoolConfig    the buffer pool configuration
+     * @param threadCacheIdleTime time in nanoseconds after which the cache of a live thread which does not use it is
+     *                            reclaimed, once the budget is used up
+     */
+    @SuppressWarnings("unchecked")
+    DirectBufferPool(BufferPoolConfig bufferPoolConfig, long threadCacheIdleTime) {
+        minBufferSize = roundUpToPowerOfTwo(Math.max(1, bufferPoolConfig.getMinBufferSize()));
+        maxBufferSize = Math.max(minBufferSize, roundUpToPowerOfTwo(bufferPoolConfig.getMaxBufferSize()));
+        minSizeShift = Integer.numberOfTrailingZeros(minBufferSize);
+        long jvmMaxDirectMemory = getJvmMaxDirectMemory(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        if (bufferPoolConfig.getMaxDirectMemory() > jvmMaxDirectMemory) {
+            logger.debug("Capping the direct memory of the buffer pool at the {} bytes of direct memory of the JVM",
+                    jvmMaxDirectMemory);
+        }
+        maxDirectMemory = Math.min(bufferPoolConfig.getMaxDirectMemory(), jvmMaxDirectMemory);
+        threadCacheSize = Math.max(0, bufferPoolConfig.getThreadCacheSize());
+        this.threadCacheIdleTime = threadCacheIdleTime;
+
+        int sizeClasses = Integer.numberOfTrailingZeros(maxBufferSize) - minSizeShift + 1;
+        sharedPools = new Queue[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            sharedPools[i] = new ConcurrentLinkedQueue<>();
+        }
+        leakDetector = bufferPoolConfig.isLeakDetection() || logger.isDebugEnabled() ? new BufferLeakDetector() : null;
+        releasedBuffers = leakDetector == null ? new ReleasedBuffers() : null;
+    }
+
+    @Override
+    public ByteBuffer acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Buffer capacity cannot be negative: " + capacity);
+        }
+        acquireCount.increment();
+        if (capacity > maxBufferSize) {
+            heapFallbackCount.increment();
+            return ByteBuffer.allocate(capacity);
+        }
+        if (leakDetector != null) {
+            leakDetector.pollLeaks(this::onLeak);
+        }
+
+        int sizeClass = getSizeClass(capacity);
+        ThreadCache cache = getThreadCache();
+        ByteBuffer buffer = cache != null ? cache.poll(sizeClass) : null;
+        if (buffer == null) {
+            buffer = sharedPools[sizeClass].poll();
+        }
+        if (buffer != null) {
+            hitCount.increment();
+        } else {
+            buffer = allocate(sizeClass);
+            if (buffer == null) {
+                heapFallbackCount.increment();
+                return ByteBuffer.allocate(minBufferSize << sizeClass);
+            }
+        }
+
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        outstandingBuffers.incrementAndGet();
+        if (leakDetector != null) {
+            leakDetector.track(buffer);
+        } else {
+            releasedBuffers.remove(buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        if (!buffer.isDirect()) {
+            // Heap buffers handed out when the budget was used up are left to the garbage collector.
+            return;
+        }
+        int capacity = buffer.capacity();
+        if (capacity < minBufferSize || capacity > maxBufferSize || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Buffer of " + capacity + " bytes was not acquired from this pool");
+        }
+        if (leakDetector != null && !leakDetector.untrack(buffer)) {
+            throw new IllegalArgumentException("Buffer was not acquired from this pool or has already been released");
+        }
+        if (shutdown) {
+            outstandingBuffers.decrementAndGet();
+            directMemoryUsed.addAndGet(-capacity);
+            return;
+        }
+        if (releasedBuffers != null && !releasedBuffers.add(buffer)) {
+            throw new IllegalArgumentException("Buffer has already been released");
+        }
+
+        outstandingBuffers.decrementAndGet();
+        int sizeClass = getSizeClass(capacity);
+        ThreadCache cache = getThreadCache();
+        if (cache == null || !cache.offer(sizeClass, buffer)) {
+            Queue<ByteBuffer> sharedPool = sharedPools[sizeClass];
+            sharedPool.offer(buffer);
+            // The pool may have been shut down after the buffer was offered.
+            if (shutdown && sharedPool.remove(buffer)) {
+                drop(buffer);
+            }
+        }
+    }
+
+    @Override
+    public BufferPoolMetrics getMetrics() {
+        return this;
+    }
+
+    /**
+     * Drops the pooled buffers and the buffers cached by the threads, leaving their off-heap memory to the garbage
+     * collector. Buffers released afterwards are dropped as well.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Iterator<ThreadCache> iterator = threadCaches.iterator(); iterator.hasNext(); ) {
+            iterator.next().clear();
+            iterator.remove();
+        }
+        threadCache.remove();
+        for (Queue<ByteBuffer> sharedPool : sharedPools) {
+            ByteBuffer buffer;
+            while ((buffer = sharedPool.poll()) != null) {
+                drop(buffer);
+            }
+        }
+        if (releasedBuffers != null) {
+            releasedBuffers.clear();
+        }
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long acquired = acquireCount.sum();
+        return acquired == 0 ? 0 : (double) hitCount.sum() / acquired;
+    }
+
+    @Override
+    public long getOutstandingBuffers() {
+        return outstandingBuffers.get();
+    }
+
+    @Override
+    public long getDirectMemoryUsed() {
+        return directMemoryUsed.get();
+    }
+
+    @Override
+    public long getMaxDirectMemory() {
+        return maxDirectMemory;
+    }
+
+    @Override
+    public long getHeapFallbackCount() {
+        return heapFallbackCount.sum();
+    }
+
+    @Override
+    public long getLeakCount() {
+        if (leakDetector != null) {
+            leakDetector.pollLeaks(this::onLeak);
+        }
+        return leakCount.sum();
+    }
+
+    @Override
+    public boolean isLeakDetectionEnabled() {
+        return leakDetector != null;
+    }
+
+    /**
+     * Allocates a new direct buffer of the given size class, if the off-heap budget allows.
+     *
+     * @return the buffer, or null if the budget is used up or the JVM is out of direct memory
+     */
+    private ByteBuffer allocate(int sizeClass) {
+        int size = minBufferSize << sizeClass;
+        if (!reserve(size)) {
+            // Buffers cached by terminated or idle threads are still part of the budget.
+            if (!reclaimThreadCaches()) {
+                return null;
+            }
+            ByteBuffer buffer = sharedPools[sizeClass].poll();
+            if (buffer != null) {
+                hitCount.increment();
+                return buffer;
+            }
+            if (!reserve(size)) {
+                return null;
+            }
+        }
+        try {
+            return ByteBuffer.allocateDirect(size);
+        } catch (OutOfMemoryError e) {
+            directMemoryUsed.addAndGet(-size);
+            String message = e.getMessage();
+            if (message == null || !message.toLowerCase(Locale.ENGLISH).contains("direct buffer memory")) {
+                throw e;
+            }
+            logger.debug("The JVM is out of direct memory, falling back to a heap buffer of {} bytes", size);
+            return null;
+        }
+    }
+
+    private boolean reserve(int size) {
+        long used;
+        do {
+            used = directMemoryUsed.get();
+            if (used + size > maxDirectMemory) {
+                return false;
+            }
+        } while (!directMemoryUsed.compareAndSet(used, used + size));
+        return true;
+    }
+
+    /**
+     * Moves the buffers cached by terminated threads, and by live threads which have not used their cache for
+     * {@code threadCacheIdleTime}, to the shared pools.
+     *
+     * @return true if any buffer was reclaimed
+     */
+    private boolean reclaimThreadCaches() {
+        long now = System.nanoTime();
+        boolean reclaimed = false;
+        for (Iterator<ThreadCache> iterator = threadCaches.iterator(); iterator.hasNext(); ) {
+            ThreadCache cache = iterator.next();
+            if (!cache.isOwnerAlive()) {
+                iterator.remove();
+                reclaimed |= cache.drainTo(sharedPools) > 0;
+            } else if (now - cache.getLastAccessTime() >= threadCacheIdleTime) {
+                reclaimed |= cache.drainTo(sharedPools) > 0;
+            }
+        }
+        return reclaimed;
+    }
+
+    private void drop(ByteBuffer buffer) {
+        if (releasedBuffers != null) {
+            releasedBuffers.remove(buffer);
+        }
+        directMemoryUsed.addAndGet(-buffer.capacity());
+    }
+
+    private void onLeak(int capacity) {
+        leakCount.increment();
+        outstandingBuffers.decrementAndGet();
+        // The garbage collector frees the off-heap memory of the leaked buffer.
+        directMemoryUsed.addAndGet(-capacity);
+    }
+
+    private int getSizeClass(int capacity) {
+        if (capacity <= minBufferSize) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minSizeShift;
+    }
+
+    /**
+     * Returns the cache of the current thread, or null if buffers are not cached by threads or the current thread is
+     * a virtual thread.
+     */
+    private ThreadCache getThreadCache() {
+        if (threadCacheSize == 0 || isVirtualThread(Thread.currentThread())) {
+            return null;
+        }
+        return threadCache.get();
+    }
+
+    private ThreadCache createThreadCache() {
+        ThreadCache cache = new ThreadCache(sharedPools.length);
+        threadCaches.add(cache);
+        if (threadCaches.size() >= threadCachePurgeThreshold) {
+            purgeThreadCaches();
+        }
+        return cache;
+    }
+
+    /**
+     * Moves the buffers cached by terminated threads to the shared pools and forgets their caches. Invoked whenever
+     * the number of caches doubles, hence at an amortized constant cost per thread.
+     */
+    private void purgeThreadCaches() {
+        for (Iterator<ThreadCache> iterator = threadCaches.iterator(); iterator.hasNext(); ) {
+            ThreadCache cache = iterator.next();
+            if (!cache.isOwnerAlive()) {
+                iterator.remove();
+                cache.drainTo(sharedPools);
+            }
+        }
+        threadCachePurgeThreshold = Math.max(MIN_THREAD_CACHE_PURGE_THRESHOLD, 2 * threadCaches.size());
+    }
+
+    /**
+     * @return the number of thread caches, including the caches of terminated threads which are not purged yet
+     */
+    int getThreadCacheCount() {
+        return threadCaches.size();
+    }
+
+    static boolean isVirtualThread(Thread thread) {
+        if (IS_VIRTUAL_THREAD == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL_THREAD.invokeExact(thread);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error occurred while checking whether thread " + thread.getName() +
+                    " is virtual", e);
+        }
+    }
+
+    private static MethodHandle getIsVirtualThread() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual",
+                    MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("Virtual threads are not supported by this JVM");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the maximum direct memory of the JVM, which is set with the -XX:MaxDirectMemorySize option and defaults
+     * to the maximum heap size.
+     *
+     * @param jvmArguments the input arguments of the JVM
+     * @return the maximum direct memory in bytes
+     */
+    static long getJvmMaxDirectMemory(List<String> jvmArguments) {
+        long maxDirectMemory = Runtime.getRuntime().maxMemory();
+        // The last occurrence of the option takes effect.
+        for (String argument : jvmArguments) {
+            if (argument.startsWith(MAX_DIRECT_MEMORY_OPTION)) {
+                try {
+                    maxDirectMemory = parseMemorySize(argument.substring(MAX_DIRECT_MEMORY_OPTION.length()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring the invalid JVM option " + argument, e);
+                }
+            }
+        }
+        return maxDirectMemory;
+    }
+
+    private static long parseMemorySize(String size) {
+        if (size.isEmpty()) {
+            throw new NumberFormatException("Memory size cannot be empty");
+        }
+        int shift;
+        switch (Character.toLowerCase(size.charAt(size.length() - 1))) {
+            case 'k':
+                shift = 10;
+                break;
+            case 'm':
+                shift = 20;
+                break;
+            case 'g':
+                shift = 30;
+                break;
+            case 't':
+                shift = 40;
+                break;
+            default:
+                return Long.parseLong(size);
+        }
+        long value = Long.parseLong(size.substring(0, size.length() - 1));
+        return value > (Long.MAX_VALUE >> shift) ? Long.MAX_VALUE : value << shift;
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Free buffers cached by a single thread, at most {@code threadCacheSize} of each size class. The cache is
+     * guarded by its own lock, which is uncontended unless the cache is reclaimed by another thread.
+     */
+    private final class ThreadCache {
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private final ArrayDeque<ByteBuffer>[] buffers;
+        private long lastAccessTime = System.nanoTime();
+
+        @SuppressWarnings("unchecked")
+        ThreadCache(int sizeClasses) {
+            buffers = new ArrayDeque[sizeClasses];
+        }
+
+        synchronized ByteBuffer poll(int sizeClass) {
+            if (buffers[sizeClass] == null) {
+                return null;
+            }
+            lastAccessTime = System.nanoTime();
+            return buffers[sizeClass].poll();
+        }
+
+        synchronized boolean offer(int sizeClass, ByteBuffer buffer) {
+            if (shutdown) {
+                return false;
+            }
+            lastAccessTime = System.nanoTime();
+            if (buffers[sizeClass] == null) {
+                buffers[sizeClass] = new ArrayDeque<>(threadCacheSize);
+            }
+            if (buffers[sizeClass].size() >= threadCacheSize) {
+                return false;
+            }
+            return buffers[sizeClass].offer(buffer);
+        }
+
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        synchronized long getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        /**
+         * Moves the cached buffers to the given pools.
+         *
+         * @return the number of buffers moved
+         */
+        synchronized int drainTo(Queue<ByteBuffer>[] pools) {
+            int drained = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    drained += buffers[i].size();
+                    pools[i].addAll(buffers[i]);
+                    buffers[i].clear();
+                }
+            }
+            return drained;
+        }
+
+        /**
+         * Drops the cached buffers.
+         */
+        synchronized void clear() {
+            for (ArrayDeque<ByteBuffer> sizeClassBuffers : buffers) {
+                if (sizeClassBuffers != null) {
+                    ByteBuffer buffer;
+                    while ((buffer = sizeClassBuffers.poll()) != null) {
+                        drop(buffer);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.buffer;
+
+import org.wso2.carbon.kernel.buffer.BufferPoolMetrics;
+
+/**
+ * MBean interface which exposes the metrics of the {@code BufferPool} of the kernel.
+ *
+ * @since 5.2.0
+ */
+public interface DirectBufferPoolMBean extends BufferPoolMetrics {
+
+    /**
+     * @return true if buffers garbage collected without being released are reported
+     */
+    boolean isLeakDetectionEnabled();
+}
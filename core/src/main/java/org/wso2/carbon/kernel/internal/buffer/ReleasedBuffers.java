@@ -0,0 +1,84 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Identity set of the free buffers of a {@link DirectBufferPool}, which detects releasing a buffer twice when leak
+ * detection is disabled. Free buffers are referenced by the pool anyway, hence unlike {@link BufferLeakDetector} this
+ * set keeps no reference to the outstanding buffers. The set is striped by the identity hash code of the buffers, so
+ * that threads releasing different buffers seldom contend.
+ *
+ * @since 5.2.0
+ */
+class ReleasedBuffers {
+    private static final int STRIPES = 16;
+
+    private final Set<ByteBuffer>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    ReleasedBuffers() {
+        stripes = new Set[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            // ByteBuffer#equals and ByteBuffer#hashCode depend on the buffer content.
+            stripes[i] = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+    }
+
+    /**
+     * Records a released buffer.
+     *
+     * @param buffer the released buffer
+     * @return false if the buffer has already been released
+     */
+    boolean add(ByteBuffer buffer) {
+        Set<ByteBuffer> stripe = getStripe(buffer);
+        synchronized (stripe) {
+            return stripe.add(buffer);
+        }
+    }
+
+    /**
+     * Forgets a buffer which is acquired again, or dropped by the pool.
+     *
+     * @param buffer the buffer
+     */
+    void remove(ByteBuffer buffer) {
+        Set<ByteBuffer> stripe = getStripe(buffer);
+        synchronized (stripe) {
+            stripe.remove(buffer);
+        }
+    }
+
+    /**
+     * Forgets all the released buffers.
+     */
+    void clear() {
+        for (Set<ByteBuffer> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Set<ByteBuffer> getStripe(ByteBuffer buffer) {
+        return stripes[System.identityHashCode(buffer) & (STRIPES - 1)];
+    }
+}
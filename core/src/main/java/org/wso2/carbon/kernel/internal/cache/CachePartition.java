@@ -0,0 +1,389 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import org.wso2.carbon.kernel.cache.CacheConfiguration;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The values of a single tenant of a {@link TenantAwareCache}.
+ * <p>
+ * Values are kept in a concurrent map for lock free reads, and in an access ordered list guarded by the eviction
+ * lock. Reads record the access only if the lock is free, so that readers never wait for each other. When the
+ * partition grows beyond its bounds, a new value is admitted only if its key was accessed more often than the key of
+ * the least recently used value it would replace, as estimated by a {@link FrequencySketch}. This keeps frequently
+ * used values in the cache when it is flooded with values used only once.
+ * <p>
+ * Concurrent loads of a key are coalesced. Invalidating a key cancels the registration of its running load, so that
+ * the loaded value, which may be stale, is returned to the callers waiting for it, but is not cached.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ * @since 5.2.0
+ */
+class CachePartition<K, V> {
+
+    // The number of values of a weight bounded partition is not known up front, hence its sketch grows up to this.
+    private static final long WEIGHTED_SKETCH_CAPACITY = 1 << 16;
+
+    private final TenantAwareCache<K, V> cache;
+    private final CacheConfiguration<K, V> configuration;
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Load<V>> loads = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    // Least recently used value first. Guarded by the eviction lock, as is the weighted size.
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private long weightedSize;
+    private volatile long lastAccessTime;
+
+    CachePartition(TenantAwareCache<K, V> cache, CacheConfiguration<K, V> configuration) {
+        this.cache = cache;
+        this.configuration = configuration;
+        this.sketch = new FrequencySketch(configuration.getMaximumWeight() >= 0 ?
+                WEIGHTED_SKETCH_CAPACITY : configuration.getMaximumSize());
+    }
+
+    V get(K key) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        Node<K, V> node = data.get(key);
+        long now = cache.getTicker().getAsLong();
+        if (node == null) {
+            cache.recordMiss();
+            recordAccess(key, null);
+            return null;
+        }
+        if (isExpired(node, now)) {
+            cache.recordMiss();
+            expire(node);
+            return null;
+        }
+        if (configuration.getExpireAfterAccessNanos() >= 0) {
+            node.accessTime = now;
+        }
+        cache.recordHit();
+        recordAccess(key, node);
+        return node.value;
+    }
+
+    V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        Load<V> load = new Load<>();
+        Load<V> runningLoad = loads.putIfAbsent(key, load);
+        if (runningLoad != null) {
+            if (runningLoad.thread == Thread.currentThread()) {
+                // Waiting for the load of this thread would never return.
+                throw new IllegalStateException("Recursive load of key " + key);
+            }
+            return join(runningLoad);
+        }
+        try {
+            // A load may have completed between the lookup and the registration of this load.
+            Node<K, V> node = data.get(key);
+            if (node != null && !isExpired(node, cache.getTicker().getAsLong())) {
+                load.complete(node.value);
+                return node.value;
+            }
+
+            V loadedValue;
+            try {
+                loadedValue = loader.apply(key);
+            } finally {
+                cache.recordLoad();
+            }
+            if (loadedValue != null) {
+                put(key, loadedValue, load);
+            }
+            load.complete(loadedValue);
+            return loadedValue;
+        } catch (RuntimeException | Error e) {
+            cache.recordLoadFailure();
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    void put(K key, V value) {
+        put(key, value, null);
+    }
+
+    /**
+     * Caches a value. A loaded value is cached only if its load has not been cancelled by an invalidation.
+     *
+     * @param load the load of the value, or null if the value is not loaded
+     */
+    private void put(K key, V value, Load<V> load) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        Objects.requireNonNull(value, "Value cannot be null");
+        long weight = weigh(key, value);
+        long now = cache.getTicker().getAsLong();
+
+        evictionLock.lock();
+        try {
+            if (load != null && loads.get(key) != load) {
+                return;
+            }
+            sketch.increment(key.hashCode());
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                weightedSize += weight - node.weight;
+                node.value = value;
+                node.weight = weight;
+                node.writeTime = now;
+                node.accessTime = now;
+                moveToTail(node);
+                evict(null, now);
+            } else {
+                node = new Node<>(key, value, weight, now);
+                data.put(key, node);
+                sketch.ensureCapacity(data.size());
+                linkLast(node);
+                weightedSize += weight;
+                evict(node, now);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void invalidate(K key) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        evictionLock.lock();
+        try {
+            loads.remove(key);
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void invalidateAll() {
+        evictionLock.lock();
+        try {
+            loads.clear();
+            data.clear();
+            // Readers may still hold the removed nodes, hence they are marked as unlinked.
+            for (Node<K, V> node = head; node != null; ) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.linked = false;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            weightedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    long size() {
+        return data.size();
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    /**
+     * Records an access of a key in the frequency sketch and the access order, unless another thread holds the lock.
+     */
+    private void recordAccess(K key, Node<K, V> node) {
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key.hashCode());
+                if (node != null && node.linked) {
+                    moveToTail(node);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes the expired values at the head of the access order, then evicts values until the partition is within its
+     * bounds. The candidate, a value which has just been added, is evicted instead of the least recently used value if
+     * its key is not accessed more often.
+     */
+    private void evict(Node<K, V> candidate, long now) {
+        while (head != null && head != candidate && isExpired(head, now)) {
+            removeNode(head);
+            cache.recordExpiration();
+        }
+
+        while (head != null && isOverBounds()) {
+            Node<K, V> victim = head;
+            if (candidate != null && victim != candidate) {
+                if (sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                    victim = candidate;
+                }
+                candidate = null;
+            }
+            removeNode(victim);
+            cache.recordEviction();
+        }
+    }
+
+    private boolean isOverBounds() {
+        if (configuration.getMaximumWeight() >= 0) {
+            return weightedSize > configuration.getMaximumWeight();
+        }
+        return data.size() > configuration.getMaximumSize();
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        long expireAfterWrite = configuration.getExpireAfterWriteNanos();
+        long expireAfterAccess = configuration.getExpireAfterAccessNanos();
+        return (expireAfterWrite >= 0 && now - node.writeTime >= expireAfterWrite) ||
+                (expireAfterAccess >= 0 && now - node.accessTime >= expireAfterAccess);
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (node.linked) {
+                removeNode(node);
+                cache.recordExpiration();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private long weigh(K key, V value) {
+        if (configuration.getMaximumWeight() < 0) {
+            return 1;
+        }
+        long weight = configuration.getWeigher().applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of a value cannot be negative: " + weight);
+        }
+        return weight;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+    }
+
+    private void linkLast(Node<K, V> node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        node.linked = true;
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        weightedSize -= node.weight;
+    }
+
+    private void moveToTail(Node<K, V> node) {
+        if (node != tail) {
+            long weight = node.weight;
+            unlink(node);
+            linkLast(node);
+            weightedSize += weight;
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A running load, with the thread which runs it.
+     */
+    private static final class Load<V> extends CompletableFuture<V> {
+        private final Thread thread = Thread.currentThread();
+    }
+
+    /**
+     * A cached value and its position in the access order.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile long writeTime;
+        private volatile long accessTime;
+        // Guarded by the eviction lock.
+        private long weight;
+        private boolean linked;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        Node(K key, V value, long weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+}
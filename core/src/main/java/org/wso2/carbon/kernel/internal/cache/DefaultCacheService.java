@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import org.wso2.carbon.kernel.cache.Cache;
+import org.wso2.carbon.kernel.cache.CacheConfiguration;
+import org.wso2.carbon.kernel.cache.CacheService;
+import org.wso2.carbon.kernel.cache.CacheStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link CacheService} of the kernel.
+ *
+ * @since 5.2.0
+ */
+public class DefaultCacheService implements CacheService {
+
+    private final String serverTenant;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<String, TenantAwareCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param serverTenant tenant of the server, used when the current CarbonContext does not specify a tenant
+     */
+    public DefaultCacheService(String serverTenant) {
+        this(serverTenant, System::nanoTime);
+    }
+
+    DefaultCacheService(String serverTenant, LongSupplier ticker) {
+        this.serverTenant = serverTenant;
+        this.ticker = ticker;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name, CacheConfiguration<K, V> configuration) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Cache name cannot be empty");
+        }
+        if (configuration == null) {
+            throw new IllegalArgumentException("Cache configuration cannot be null");
+        }
+        TenantAwareCache<?, ?> cache = caches.computeIfAbsent(name,
+                cacheName -> new TenantAwareCache<>(cacheName, configuration, serverTenant, ticker));
+        if (!cache.getConfiguration().equals(configuration)) {
+            throw new IllegalArgumentException("Cache " + name + " already exists with a different configuration");
+        }
+        return (Cache<K, V>) cache;
+    }
+
+    @Override
+    public void removeCache(String name) {
+        TenantAwareCache<?, ?> cache = caches.remove(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        return new ArrayList<>(caches.values());
+    }
+
+    /**
+     * Removes all the caches.
+     */
+    public void shutdown() {
+        caches.values().forEach(TenantAwareCache::clear);
+        caches.clear();
+    }
+}
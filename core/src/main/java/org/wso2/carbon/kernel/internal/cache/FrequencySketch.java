@@ -0,0 +1,137 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often each key of a {@link CachePartition} was accessed recently.
+ * Counters are halved once the number of recorded accesses reaches ten times the capacity, so that the sketch favours
+ * recent popularity. Not thread safe, used under the eviction lock of the partition.
+ * <p>
+ * The sketch starts small and grows with the number of values of the partition, up to its capacity, so that the many
+ * small partitions of a tenant-aware cache do not each pay for a sketch sized for a full partition. Growing discards
+ * the recorded frequencies, which only matter once the partition is full and the sketch no longer grows.
+ *
+ * @since 5.2.0
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+    private static final int MIN_SIZE = 16;
+    private static final int MAX_SIZE = 1 << 26;
+
+    private final int capacity;
+    // Each long holds sixteen 4-bit counters.
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * @param capacity maximum number of keys the sketch grows to
+     */
+    FrequencySketch(long capacity) {
+        this.capacity = (int) Math.min(Math.max(capacity, MIN_SIZE), MAX_SIZE);
+        resize(MIN_SIZE);
+    }
+
+    /**
+     * Grows the sketch to fit the given number of keys, at most its capacity.
+     *
+     * @param population current number of keys
+     */
+    void ensureCapacity(long population) {
+        int size = (int) Math.min(population, capacity);
+        if (size > table.length) {
+            resize(size);
+        }
+    }
+
+    /**
+     * @return number of longs of 4-bit counters of the sketch
+     */
+    int getTableSize() {
+        return table.length;
+    }
+
+    /**
+     * @param hashCode hash code of the key
+     * @return estimated number of recent accesses of the key, at most 15
+     */
+    int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int count = (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the key.
+     *
+     * @param hashCode hash code of the key
+     */
+    void increment(int hashCode) {
+        int hash = spread(hashCode);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & 0xfL) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void resize(int size) {
+        int tableSize = Integer.highestOneBit(size - 1) << 1;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * Math.min(tableSize, capacity);
+        additions = 0;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return ((int) index) & tableMask;
+    }
+
+    private static int offsetOf(int hash, int i) {
+        return ((hash >>> (i << 3)) & 0xf) << 2;
+    }
+
+    private static int spread(int hashCode) {
+        int hash = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
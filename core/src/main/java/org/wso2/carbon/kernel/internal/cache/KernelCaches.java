@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import org.wso2.carbon.kernel.cache.CacheService;
+import org.wso2.carbon.kernel.cache.CacheStatistics;
+import org.wso2.carbon.utils.Utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Exposes the statistics of the kernel caches. Registered as the org.wso2.carbon:type=KernelCaches MBean.
+ *
+ * @since 5.2.0
+ */
+public class KernelCaches implements KernelCachesMBean {
+
+    private static final String[] ITEM_NAMES;
+    private static final CompositeType CACHE_TYPE;
+    private static final TabularType CACHES_TYPE;
+
+    static {
+        try {
+            Map<String, OpenType<?>> items = new LinkedHashMap<>();
+            items.put("name", SimpleType.STRING);
+            items.put("size", SimpleType.LONG);
+            items.put("partitionCount", SimpleType.INTEGER);
+            items.put("hitCount", SimpleType.LONG);
+            items.put("missCount", SimpleType.LONG);
+            items.put("hitRatio", SimpleType.DOUBLE);
+            items.put("evictionCount", SimpleType.LONG);
+            items.put("expirationCount", SimpleType.LONG);
+            items.put("loadCount", SimpleType.LONG);
+            items.put("loadFailureCount", SimpleType.LONG);
+
+            ITEM_NAMES = items.keySet().toArray(new String[items.size()]);
+            CACHE_TYPE = new CompositeType("KernelCache", "Statistics of a kernel cache", ITEM_NAMES, ITEM_NAMES,
+                    items.values().toArray(new OpenType<?>[items.size()]));
+            CACHES_TYPE = new TabularType("KernelCaches", "Statistics of the kernel caches", CACHE_TYPE,
+                    new String[]{"name"});
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final CacheService cacheService;
+
+    public KernelCaches(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    @Override
+    public TabularData getCaches() {
+        TabularDataSupport caches = new TabularDataSupport(CACHES_TYPE);
+        try {
+            for (CacheStatistics statistics : cacheService.getCacheStatistics()) {
+                caches.put(new CompositeDataSupport(CACHE_TYPE, ITEM_NAMES, new Object[]{
+                        statistics.getName(), statistics.getSize(), statistics.getPartitionCount(),
+                        statistics.getHitCount(), statistics.getMissCount(), statistics.getHitRatio(),
+                        statistics.getEvictionCount(), statistics.getExpirationCount(), statistics.getLoadCount(),
+                        statistics.getLoadFailureCount()}));
+            }
+        } catch (OpenDataException e) {
+            throw new IllegalStateException("Error occurred while creating the kernel cache statistics", e);
+        }
+        return caches;
+    }
+
+    @Override
+    public void removeCache(String name) {
+        Utils.checkSecurity();
+        cacheService.removeCache(name);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * MBean interface which exposes the statistics of the caches of the {@code CacheService}.
+ *
+ * @since 5.2.0
+ */
+public interface KernelCachesMBean {
+
+    /**
+     * @return statistics of the caches, one row per cache indexed by the cache name
+     */
+    TabularData getCaches();
+
+    /**
+     * Removes the cache with the given name, with the values of all the tenants.
+     *
+     * @param name name of the cache
+     */
+    void removeCache(String name);
+}
@@ -0,0 +1,236 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import org.wso2.carbon.kernel.Constants;
+import org.wso2.carbon.kernel.cache.Cache;
+import org.wso2.carbon.kernel.cache.CacheConfiguration;
+import org.wso2.carbon.kernel.cache.CacheStatistics;
+import org.wso2.carbon.kernel.context.CarbonContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link Cache} with one {@link CachePartition} per tenant. The tenant is the {@code tenant.name} property of the
+ * current {@code CarbonContext}, or the tenant of the server if the property is not set. Once the number of
+ * partitions exceeds the maximum of the configuration, the least recently used partition is dropped.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ * @since 5.2.0
+ */
+public class TenantAwareCache<K, V> implements Cache<K, V>, CacheStatistics {
+
+    // Partitions are used by many threads, hence their access time is updated at most once per second.
+    private static final long PARTITION_ACCESS_RESOLUTION = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final CacheConfiguration<K, V> configuration;
+    private final String serverTenant;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<String, CachePartition<K, V>> partitions = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    TenantAwareCache(String name, CacheConfiguration<K, V> configuration, String serverTenant, LongSupplier ticker) {
+        this.name = name;
+        this.configuration = configuration;
+        this.serverTenant = serverTenant;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public V get(K key) {
+        return getPartition().get(key);
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return getPartition().get(key, loader);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        getPartition().put(key, value);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        getPartition().invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        getPartition().invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        CachePartition<K, V> partition = partitions.get(getTenant());
+        return partition == null ? 0 : partition.size();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return this;
+    }
+
+    @Override
+    public long getSize() {
+        return partitions.values().stream().mapToLong(CachePartition::size).sum();
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    /**
+     * Removes the values of all the tenants.
+     */
+    void clear() {
+        partitions.clear();
+    }
+
+    CacheConfiguration<K, V> getConfiguration() {
+        return configuration;
+    }
+
+    LongSupplier getTicker() {
+        return ticker;
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordEviction() {
+        evictionCount.increment();
+    }
+
+    void recordExpiration() {
+        expirationCount.increment();
+    }
+
+    void recordLoad() {
+        loadCount.increment();
+    }
+
+    void recordLoadFailure() {
+        loadFailureCount.increment();
+    }
+
+    private CachePartition<K, V> getPartition() {
+        String tenant = getTenant();
+        long now = ticker.getAsLong();
+        CachePartition<K, V> partition = partitions.get(tenant);
+        if (partition == null) {
+            boolean[] created = new boolean[1];
+            partition = partitions.computeIfAbsent(tenant, key -> {
+                created[0] = true;
+                CachePartition<K, V> newPartition = new CachePartition<>(this, configuration);
+                newPartition.setLastAccessTime(now);
+                return newPartition;
+            });
+            if (created[0] && partitions.size() > configuration.getMaximumPartitions()) {
+                evictPartition(partition);
+            }
+        } else if (now - partition.getLastAccessTime() >= PARTITION_ACCESS_RESOLUTION) {
+            partition.setLastAccessTime(now);
+        }
+        return partition;
+    }
+
+    /**
+     * Drops the least recently used partition other than the given one, which has just been created.
+     */
+    private void evictPartition(CachePartition<K, V> createdPartition) {
+        Map.Entry<String, CachePartition<K, V>> victim = null;
+        for (Map.Entry<String, CachePartition<K, V>> entry : partitions.entrySet()) {
+            if (entry.getValue() != createdPartition && (victim == null ||
+                    entry.getValue().getLastAccessTime() - victim.getValue().getLastAccessTime() < 0)) {
+                victim = entry;
+            }
+        }
+        if (victim != null && partitions.remove(victim.getKey(), victim.getValue())) {
+            evictionCount.add(victim.getValue().size());
+        }
+    }
+
+    private String getTenant() {
+        if (!configuration.isTenantAware()) {
+            return serverTenant;
+        }
+        Object tenant = CarbonContext.getCurrentContext().getProperty(Constants.TENANT_NAME);
+        return tenant instanceof String ? (String) tenant : serverTenant;
+    }
+}
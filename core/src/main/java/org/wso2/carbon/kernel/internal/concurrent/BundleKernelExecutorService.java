@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The {@link KernelExecutorService} of a single bundle. The names of the executors are scoped to the bundle, and the
+ * executors are shut down when the bundle releases the service.
+ *
+ * @since 5.2.0
+ */
+class BundleKernelExecutorService implements KernelExecutorService {
+
+    private final DefaultKernelExecutorService executorService;
+    private final Bundle bundle;
+
+    BundleKernelExecutorService(DefaultKernelExecutorService executorService, Bundle bundle) {
+        this.executorService = executorService;
+        this.bundle = bundle;
+    }
+
+    @Override
+    public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity) {
+        return executorService.getExecutor(bundle, name, maxThreads, queueCapacity, Thread.NORM_PRIORITY);
+    }
+
+    @Override
+    public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity, int threadPriority) {
+        return executorService.getExecutor(bundle, name, maxThreads, queueCapacity, threadPriority);
+    }
+
+    @Override
+    public ScheduledExecutorService getScheduler(String name, int threads) {
+        return executorService.getScheduler(bundle, name, threads);
+    }
+
+    @Override
+    public ExecutorService getVirtualThreadExecutor(String name, int maxThreads) {
+        return executorService.getVirtualThreadExecutor(bundle, name, maxThreads);
+    }
+
+    @Override
+    public boolean isVirtualThreadSupported() {
+        return executorService.isVirtualThreadSupported();
+    }
+
+    @Override
+    public int getAvailableProcessors() {
+        return executorService.getAvailableProcessors();
+    }
+
+    @Override
+    public List<ExecutorMetrics> getExecutorMetrics() {
+        return executorService.getExecutorMetrics();
+    }
+
+    /**
+     * Shuts down the executors of the bundle.
+     */
+    void shutdown() {
+        executorService.shutdown(bundle);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Default implementation of the {@link KernelExecutorService}. Created by the Carbon core bundle activator, which
+ * registers a {@link KernelExecutorServiceFactory} as the OSGi service, so that it is available before any service
+ * component is activated. Each bundle gets a view of this service whose executor names are scoped to the bundle.
+ *
+ * @since 5.2.0
+ */
+public class DefaultKernelExecutorService implements KernelExecutorService {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultKernelExecutorService.class);
+
+    static final String CPU_COUNT_PROPERTY = "carbon.cpu.count";
+
+    private final Map<String, ExecutorService> executors = new HashMap<>();
+    // Ids of the bundles owning the executors. Key is the executor name. Not set for the executors of the kernel.
+    private final Map<String, Long> executorOwners = new HashMap<>();
+    // Executors#newThreadPerTaskExecutor(ThreadFactory), null if virtual threads are not supported.
+    private final Method newThreadPerTaskExecutor;
+    private boolean shutdown;
+
+    public DefaultKernelExecutorService() {
+        Method executorMethod = null;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            executorMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (NoSuchMethodException e) {
+            logger.debug("Virtual threads are not supported by this JVM");
+        }
+        this.newThreadPerTaskExecutor = executorMethod;
+    }
+
+    @Override
+    public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity) {
+        return getExecutor(null, name, maxThreads, queueCapacity, Thread.NORM_PRIORITY);
+    }
+
+    @Override
+    public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity, int threadPriority) {
+        return getExecutor(null, name, maxThreads, queueCapacity, threadPriority);
+    }
+
+    @Override
+    public ScheduledExecutorService getScheduler(String name, int threads) {
+        return getScheduler(null, name, threads);
+    }
+
+    @Override
+    public ExecutorService getVirtualThreadExecutor(String name, int maxThreads) {
+        return getVirtualThreadExecutor(null, name, maxThreads);
+    }
+
+    /**
+     * Returns a thread pool owned by the given bundle. See {@link #getExecutor(String, int, int, int)}.
+     *
+     * @param owner          the bundle using the executor, null for the kernel
+     * @param name           name of the executor, unique within the owner
+     * @param maxThreads     maximum number of threads
+     * @param queueCapacity  maximum number of queued tasks
+     * @param threadPriority priority of the threads
+     * @return the executor
+     */
+    synchronized ExecutorService getExecutor(Bundle owner, String name, int maxThreads, int queueCapacity,
+                                             int threadPriority) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("Maximum number of threads of executor " + name +
+                    " should be positive: " + maxThreads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity of executor " + name + " cannot be negative: " +
+                    queueCapacity);
+        }
+        if (threadPriority < Thread.MIN_PRIORITY || threadPriority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Thread priority of executor " + name + " should be between " +
+                    Thread.MIN_PRIORITY + " and " + Thread.MAX_PRIORITY + ": " + threadPriority);
+        }
+        String executorName = getExecutorName(owner, name);
+        ExecutorService executor = getRunningExecutor(owner, executorName, MonitoredThreadPoolExecutor.TYPE);
+        if (executor == null) {
+            executor = register(owner, new MonitoredThreadPoolExecutor(executorName, maxThreads, queueCapacity,
+                    threadPriority));
+        } else if (((MonitoredThreadPoolExecutor) executor).getMaxThreads() != maxThreads
+                || ((MonitoredThreadPoolExecutor) executor).getQueueCapacity() != queueCapacity
+                || ((MonitoredThreadPoolExecutor) executor).getThreadPriority() != threadPriority) {
+            throw new IllegalArgumentException("Executor " + executorName + " is already running with at most " +
+                    ((MonitoredThreadPoolExecutor) executor).getMaxThreads() + " threads, a queue capacity of " +
+                    ((MonitoredThreadPoolExecutor) executor).getQueueCapacity() + " and thread priority " +
+                    ((MonitoredThreadPoolExecutor) executor).getThreadPriority());
+        }
+        return executor;
+    }
+
+    /**
+     * Returns a scheduler owned by the given bundle. See {@link #getScheduler(String, int)}.
+     *
+     * @param owner   the bundle using the scheduler, null for the kernel
+     * @param name    name of the scheduler, unique within the owner
+     * @param threads number of threads
+     * @return the scheduler
+     */
+    synchronized ScheduledExecutorService getScheduler(Bundle owner, String name, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads of scheduler " + name + " should be positive: " +
+                    threads);
+        }
+        String executorName = getExecutorName(owner, name);
+        ExecutorService scheduler = getRunningExecutor(owner, executorName, MonitoredScheduledExecutor.TYPE);
+        if (scheduler == null) {
+            scheduler = register(owner, new MonitoredScheduledExecutor(executorName, threads));
+        } else if (((MonitoredScheduledExecutor) scheduler).getMaxThreads() != threads) {
+            throw new IllegalArgumentException("Scheduler " + executorName + " is already running with " +
+                    ((MonitoredScheduledExecutor) scheduler).getMaxThreads() + " threads");
+        }
+        return (ScheduledExecutorService) scheduler;
+    }
+
+    /**
+     * Returns a virtual thread executor owned by the given bundle. See
+     * {@link #getVirtualThreadExecutor(String, int)}.
+     *
+     * @param owner      the bundle using the executor, null for the kernel
+     * @param name       name of the executor, unique within the owner
+     * @param maxThreads maximum number of threads if virtual threads are not supported
+     * @return the executor
+     */
+    synchronized ExecutorService getVirtualThreadExecutor(Bundle owner, String name, int maxThreads) {
+        if (!isVirtualThreadSupported()) {
+            logger.debug("Creating a thread pool for executor {}, since virtual threads are not supported", name);
+            return getExecutor(owner, name, maxThreads, 0, Thread.NORM_PRIORITY);
+        }
+
+        String executorName = getExecutorName(owner, name);
+        ExecutorService executor = getRunningExecutor(owner, executorName, MonitoredVirtualThreadExecutor.TYPE);
+        if (executor == null) {
+            try {
+                ThreadFactory threadFactory = virtualThreadFactory(executorName);
+                executor = register(owner, new MonitoredVirtualThreadExecutor(executorName,
+                        (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory)));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Error occurred while creating virtual thread executor " +
+                        executorName, e);
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public boolean isVirtualThreadSupported() {
+        return newThreadPerTaskExecutor != null;
+    }
+
+    @Override
+    public int getAvailableProcessors() {
+        String cpuCount = System.getProperty(CPU_COUNT_PROPERTY);
+        if (cpuCount != null) {
+            try {
+                return Math.max(1, Integer.parseInt(cpuCount.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring the invalid CPU count {} given in {}", cpuCount, CPU_COUNT_PROPERTY);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public synchronized List<ExecutorMetrics> getExecutorMetrics() {
+        List<ExecutorMetrics> metrics = new ArrayList<>(executors.size());
+        Iterator<ExecutorService> iterator = executors.values().iterator();
+        while (iterator.hasNext()) {
+            ExecutorService executor = iterator.next();
+            if (executor.isTerminated()) {
+                executorOwners.remove(((ExecutorMetrics) executor).getName());
+                iterator.remove();
+            } else {
+                metrics.add((ExecutorMetrics) executor);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Shuts down all the executors and interrupts their running tasks. Invoked when the Carbon core bundle stops.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        executors.values().forEach(DefaultKernelExecutorService::shutdownNow);
+        executors.clear();
+        executorOwners.clear();
+    }
+
+    /**
+     * Shuts down the executors of a bundle and interrupts their running tasks. Invoked when the bundle releases the
+     * kernel executor service, e.g. when it stops.
+     *
+     * @param owner the bundle
+     */
+    synchronized void shutdown(Bundle owner) {
+        Iterator<Map.Entry<String, Long>> iterator = executorOwners.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> executorOwner = iterator.next();
+            if (executorOwner.getValue() == owner.getBundleId()) {
+                shutdownNow(executors.remove(executorOwner.getKey()));
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void shutdownNow(ExecutorService executor) {
+        List<Runnable> pendingTasks = executor.shutdownNow();
+        if (!pendingTasks.isEmpty()) {
+            logger.debug("Discarded {} pending tasks of executor {}", pendingTasks.size(),
+                    ((ExecutorMetrics) executor).getName());
+        }
+    }
+
+    /**
+     * Returns the name of an executor, which is prefixed with the symbolic name and the version of the bundle owning
+     * it, so that two versions of a bundle do not share their executors.
+     */
+    private static String getExecutorName(Bundle owner, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Executor name cannot be empty");
+        }
+        return owner == null ? name : owner.getSymbolicName() + "_" + owner.getVersion() + "/" + name;
+    }
+
+    private ExecutorService getRunningExecutor(Bundle owner, String name, String type) {
+        if (shutdown) {
+            throw new IllegalStateException("Kernel executor service is shut down");
+        }
+
+        ExecutorService executor = executors.get(name);
+        if (executor == null || executor.isShutdown()) {
+            return null;
+        }
+        Long ownerId = executorOwners.get(name);
+        if (owner != null && (ownerId == null || ownerId != owner.getBundleId())) {
+            throw new IllegalArgumentException("Executor " + name + " is already used by another bundle");
+        }
+        if (!((ExecutorMetrics) executor).getType().equals(type)) {
+            throw new IllegalArgumentException("An executor of type " + ((ExecutorMetrics) executor).getType() +
+                    " is already running with the name " + name);
+        }
+        return executor;
+    }
+
+    private <T extends ExecutorService & ExecutorMetrics> T register(Bundle owner, T executor) {
+        executors.put(executor.getName(), executor);
+        if (owner != null) {
+            executorOwners.put(executor.getName(), owner.getBundleId());
+        } else {
+            executorOwners.remove(executor.getName());
+        }
+        logger.debug("Created {} executor {} with at most {} threads", executor.getType(), executor.getName(),
+                executor.getMaxThreads());
+        return executor;
+    }
+
+    /**
+     * Creates a factory of virtual threads named after the executor. Only invoked if virtual threads are supported.
+     */
+    private static ThreadFactory virtualThreadFactory(String name) throws ReflectiveOperationException {
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    }
+}
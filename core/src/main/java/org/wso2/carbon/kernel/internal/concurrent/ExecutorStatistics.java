@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Task latency, activity and rejection counters of a kernel executor. Also the rejection policy of the executor,
+ * which counts and rejects the task.
+ *
+ * @since 5.2.0
+ */
+class ExecutorStatistics implements RejectedExecutionHandler {
+
+    private final String executorName;
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final LongAdder startedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder queueTime = new LongAdder();
+    private final LongAdder executionTime = new LongAdder();
+
+    ExecutorStatistics(String executorName) {
+        this.executorName = executorName;
+    }
+
+    /**
+     * Wraps a task, so that the time it waits until it starts and its execution time are recorded.
+     *
+     * @param task the task
+     * @return the wrapped task
+     */
+    Runnable wrap(Runnable task) {
+        return new MonitoredTask(task);
+    }
+
+    /**
+     * Returns the tasks given by the users of an executor, e.g. to return the pending tasks from
+     * {@link java.util.concurrent.ExecutorService#shutdownNow()}.
+     *
+     * @param tasks the tasks, possibly wrapped by {@link #wrap(Runnable)}
+     * @return the unwrapped tasks
+     */
+    static List<Runnable> unwrap(List<Runnable> tasks) {
+        return tasks.stream()
+                .map(task -> task instanceof MonitoredTask ? ((MonitoredTask) task).task : task)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Records the start of a task.
+     *
+     * @param queueNanos time the task waited until it started
+     * @return the start time of the task to be passed to {@link #taskCompleted(long)}
+     */
+    long taskStarted(long queueNanos) {
+        activeTasks.incrementAndGet();
+        startedTasks.increment();
+        queueTime.add(Math.max(0, queueNanos));
+        return System.nanoTime();
+    }
+
+    void taskCompleted(long startTime) {
+        executionTime.add(System.nanoTime() - startTime);
+        completedTasks.increment();
+        activeTasks.decrementAndGet();
+    }
+
+    void taskRejected() {
+        rejectedTasks.increment();
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        taskRejected();
+        throw new RejectedExecutionException("Task rejected by the kernel executor " + executorName +
+                (executor.isShutdown() ? ", since the executor is shut down" : ", since the executor is saturated"));
+    }
+
+    int getActiveTaskCount() {
+        return activeTasks.get();
+    }
+
+    long getCompletedTaskCount() {
+        return completedTasks.sum();
+    }
+
+    long getRejectedTaskCount() {
+        return rejectedTasks.sum();
+    }
+
+    long getAverageQueueTime() {
+        long started = startedTasks.sum();
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueTime.sum() / started);
+    }
+
+    long getAverageExecutionTime() {
+        long completed = completedTasks.sum();
+        return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(executionTime.sum() / completed);
+    }
+
+    /**
+     * Task which records the time it waits until it starts and its execution time.
+     */
+    private class MonitoredTask implements Runnable {
+        private final Runnable task;
+        private final long submitTime = System.nanoTime();
+
+        MonitoredTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startTime = taskStarted(System.nanoTime() - submitTime);
+            try {
+                task.run();
+            } finally {
+                taskCompleted(startTime);
+            }
+        }
+    }
+}
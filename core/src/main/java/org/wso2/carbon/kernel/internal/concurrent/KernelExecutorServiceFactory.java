@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+
+/**
+ * Registered as the {@link KernelExecutorService} OSGi service, so that each bundle gets its own view of the
+ * {@link DefaultKernelExecutorService}. Executors of different bundles never clash by name, and the executors of a
+ * bundle are shut down once the bundle releases the service, e.g. when it stops.
+ *
+ * @since 5.2.0
+ */
+public class KernelExecutorServiceFactory implements ServiceFactory<KernelExecutorService> {
+
+    private final DefaultKernelExecutorService executorService;
+
+    public KernelExecutorServiceFactory(DefaultKernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public KernelExecutorService getService(Bundle bundle, ServiceRegistration<KernelExecutorService> registration) {
+        return new BundleKernelExecutorService(executorService, bundle);
+    }
+
+    @Override
+    public void ungetService(Bundle bundle, ServiceRegistration<KernelExecutorService> registration,
+                             KernelExecutorService service) {
+        ((BundleKernelExecutorService) service).shutdown();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Exposes the metrics of the kernel executors. Registered as the org.wso2.carbon:type=KernelExecutors MBean.
+ *
+ * @since 5.2.0
+ */
+public class KernelExecutors implements KernelExecutorsMBean {
+
+    private static final String[] ITEM_NAMES;
+    private static final CompositeType EXECUTOR_TYPE;
+    private static final TabularType EXECUTORS_TYPE;
+
+    static {
+        try {
+            Map<String, OpenType<?>> items = new LinkedHashMap<>();
+            items.put("name", SimpleType.STRING);
+            items.put("type", SimpleType.STRING);
+            items.put("maxThreads", SimpleType.INTEGER);
+            items.put("poolSize", SimpleType.INTEGER);
+            items.put("activeCount", SimpleType.INTEGER);
+            items.put("queueDepth", SimpleType.INTEGER);
+            items.put("completedTaskCount", SimpleType.LONG);
+            items.put("rejectedTaskCount", SimpleType.LONG);
+            items.put("averageQueueTime", SimpleType.LONG);
+            items.put("averageExecutionTime", SimpleType.LONG);
+
+            ITEM_NAMES = items.keySet().toArray(new String[items.size()]);
+            EXECUTOR_TYPE = new CompositeType("KernelExecutor", "Metrics of a kernel executor", ITEM_NAMES,
+                    ITEM_NAMES, items.values().toArray(new OpenType<?>[items.size()]));
+            EXECUTORS_TYPE = new TabularType("KernelExecutors", "Metrics of the kernel executors", EXECUTOR_TYPE,
+                    new String[]{"name"});
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final KernelExecutorService executorService;
+
+    public KernelExecutors(KernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public TabularData getExecutors() {
+        TabularDataSupport executors = new TabularDataSupport(EXECUTORS_TYPE);
+        try {
+            for (ExecutorMetrics metrics : executorService.getExecutorMetrics()) {
+                executors.put(new CompositeDataSupport(EXECUTOR_TYPE, ITEM_NAMES, new Object[]{
+                        metrics.getName(), metrics.getType(), metrics.getMaxThreads(), metrics.getPoolSize(),
+                        metrics.getActiveCount(), metrics.getQueueDepth(), metrics.getCompletedTaskCount(),
+                        metrics.getRejectedTaskCount(), metrics.getAverageQueueTime(),
+                        metrics.getAverageExecutionTime()}));
+            }
+        } catch (OpenDataException e) {
+            throw new IllegalStateException("Error occurred while creating the kernel executor metrics", e);
+        }
+        return executors;
+    }
+
+    @Override
+    public boolean isVirtualThreadSupported() {
+        return executorService.isVirtualThreadSupported();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * MBean interface which exposes the metrics of the executors and schedulers of the {@code KernelExecutorService}.
+ *
+ * @since 5.2.0
+ */
+public interface KernelExecutorsMBean {
+
+    /**
+     * @return metrics of the running executors, one row per executor indexed by the executor name
+     */
+    TabularData getExecutors();
+
+    /**
+     * @return true if the JVM supports virtual threads
+     */
+    boolean isVirtualThreadSupported();
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler of the {@code KernelExecutorService}. The queue time of a task is the delay between its scheduled time
+ * and the start of its execution.
+ *
+ * @since 5.2.0
+ */
+class MonitoredScheduledExecutor extends ScheduledThreadPoolExecutor implements ExecutorMetrics {
+
+    static final String TYPE = "scheduler";
+
+    private final String name;
+    private final ExecutorStatistics statistics;
+    private final ThreadLocal<Long> taskStartTime = new ThreadLocal<>();
+
+    MonitoredScheduledExecutor(String name, int threads) {
+        this(name, threads, new ExecutorStatistics(name));
+    }
+
+    private MonitoredScheduledExecutor(String name, int threads, ExecutorStatistics statistics) {
+        super(threads, new KernelThreadFactory(name), statistics);
+        setRemoveOnCancelPolicy(true);
+        this.name = name;
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        super.beforeExecute(thread, task);
+        long lateness = task instanceof Delayed ? -((Delayed) task).getDelay(TimeUnit.NANOSECONDS) : 0;
+        taskStartTime.set(statistics.taskStarted(lateness));
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable throwable) {
+        Long startTime = taskStartTime.get();
+        if (startTime != null) {
+            statistics.taskCompleted(startTime);
+            taskStartTime.remove();
+        }
+        super.afterExecute(task, throwable);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return getCorePoolSize();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return statistics.getRejectedTaskCount();
+    }
+
+    @Override
+    public long getAverageQueueTime() {
+        return statistics.getAverageQueueTime();
+    }
+
+    @Override
+    public long getAverageExecutionTime() {
+        return statistics.getAverageExecutionTime();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded thread pool of the {@code KernelExecutorService}. Idle threads are released after a minute.
+ *
+ * @since 5.2.0
+ */
+class MonitoredThreadPoolExecutor extends ThreadPoolExecutor implements ExecutorMetrics {
+
+    static final String TYPE = "thread-pool";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final String name;
+    private final int queueCapacity;
+    private final int threadPriority;
+    private final ExecutorStatistics statistics;
+
+    MonitoredThreadPoolExecutor(String name, int maxThreads, int queueCapacity) {
+        this(name, maxThreads, queueCapacity, Thread.NORM_PRIORITY);
+    }
+
+    MonitoredThreadPoolExecutor(String name, int maxThreads, int queueCapacity, int threadPriority) {
+        this(name, maxThreads, queueCapacity, threadPriority, new ExecutorStatistics(name));
+    }
+
+    private MonitoredThreadPoolExecutor(String name, int maxThreads, int queueCapacity, int threadPriority,
+                                        ExecutorStatistics statistics) {
+        super(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, createQueue(queueCapacity),
+                new KernelThreadFactory(name, threadPriority), statistics);
+        allowCoreThreadTimeOut(true);
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.threadPriority = threadPriority;
+        this.statistics = statistics;
+    }
+
+    private static BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return queueCapacity == 0 ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(statistics.wrap(command));
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return ExecutorStatistics.unwrap(super.shutdownNow());
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    int getThreadPriority() {
+        return threadPriority;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return getMaximumPoolSize();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return statistics.getRejectedTaskCount();
+    }
+
+    @Override
+    public long getAverageQueueTime() {
+        return statistics.getAverageQueueTime();
+    }
+
+    @Override
+    public long getAverageExecutionTime() {
+        return statistics.getAverageExecutionTime();
+    }
+}
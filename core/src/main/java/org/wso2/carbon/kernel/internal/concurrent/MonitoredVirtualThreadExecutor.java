@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual thread per task executor of the {@code KernelExecutorService}. Records the metrics of the tasks run by the
+ * JVM executor it wraps.
+ *
+ * @since 5.2.0
+ */
+class MonitoredVirtualThreadExecutor extends AbstractExecutorService implements ExecutorMetrics {
+
+    static final String TYPE = "virtual-thread";
+
+    private final String name;
+    private final ExecutorService executor;
+    private final ExecutorStatistics statistics;
+
+    MonitoredVirtualThreadExecutor(String name, ExecutorService executor) {
+        this.name = name;
+        this.executor = executor;
+        this.statistics = new ExecutorStatistics(name);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            executor.execute(statistics.wrap(command));
+        } catch (RejectedExecutionException e) {
+            statistics.taskRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return ExecutorStatistics.unwrap(executor.shutdownNow());
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return -1;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return statistics.getActiveTaskCount();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return statistics.getActiveTaskCount();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return 0;
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return statistics.getCompletedTaskCount();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return statistics.getRejectedTaskCount();
+    }
+
+    @Override
+    public long getAverageQueueTime() {
+        return statistics.getAverageQueueTime();
+    }
+
+    @Override
+    public long getAverageExecutionTime() {
+        return statistics.getAverageExecutionTime();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.PrivilegedCarbonRuntime;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.config.CarbonConfigurationListener;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the Carbon configuration when the configuration file changes.
+ * <p>
+ * The directory of the configuration file is watched with a {@link WatchService}, from a single thread executor of
+ * the {@link KernelExecutorService}. Changes are debounced, the
+ * configuration is only reloaded once no further change is seen for the debounce interval, so that an editor saving
+ * the file in several writes causes a single reload. The reloaded configuration replaces the configuration of the
+ * Carbon runtime as a whole and the {@link CarbonConfigurationListener}s are notified afterwards. If the configuration
+ * cannot be loaded, the current configuration is kept.
+ *
+ * @since 5.2.0
+ */
+public class CarbonConfigurationReloader {
+    private static final Logger logger = LoggerFactory.getLogger(CarbonConfigurationReloader.class);
+
+    private static final String THREAD_NAME = "CarbonConfigurationReloader";
+
+    private final Path configurationFile;
+    private final Callable<CarbonConfiguration> configurationLoader;
+    private final PrivilegedCarbonRuntime carbonRuntime;
+    private final Collection<CarbonConfigurationListener> listeners;
+    private final long debounceInterval;
+    private final KernelExecutorService executorService;
+
+    private WatchService watchService;
+    private ExecutorService watcherExecutor;
+    private Future<?> watcherTask;
+
+    /**
+     * @param configurationFile   the configuration file to watch
+     * @param configurationLoader loads a new configuration instance from the configuration file
+     * @param carbonRuntime       the runtime whose configuration is replaced
+     * @param listeners           listeners to notify after a reload, read on every reload
+     * @param debounceInterval    time in milliseconds without further changes to wait for before reloading
+     * @param executorService     provides the thread which watches the configuration file
+     */
+    public CarbonConfigurationReloader(Path configurationFile, Callable<CarbonConfiguration> configurationLoader,
+                                       PrivilegedCarbonRuntime carbonRuntime,
+                                       Collection<CarbonConfigurationListener> listeners, long debounceInterval,
+                                       KernelExecutorService executorService) {
+        this.configurationFile = configurationFile.toAbsolutePath();
+        this.configurationLoader = configurationLoader;
+        this.carbonRuntime = carbonRuntime;
+        this.listeners = listeners;
+        this.debounceInterval = Math.max(0, debounceInterval);
+        this.executorService = executorService;
+    }
+
+    /**
+     * Starts watching the configuration file.
+     *
+     * @throws IOException if the directory of the configuration file cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watcherTask != null) {
+            return;
+        }
+        watchService = configurationFile.getFileSystem().newWatchService();
+        configurationFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        watcherExecutor = executorService.getExecutor(THREAD_NAME, 1, 1);
+        watcherTask = watcherExecutor.submit(this::watch);
+        logger.debug("Watching {} for configuration changes", configurationFile);
+    }
+
+    /**
+     * Stops watching the configuration file.
+     */
+    public synchronized void stop() {
+        if (watcherTask == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing the watch service of " + configurationFile, e);
+        }
+        watcherTask.cancel(true);
+        watcherTask = null;
+        watcherExecutor.shutdownNow();
+        watcherExecutor = null;
+    }
+
+    /**
+     * Loads the configuration file and replaces the configuration of the Carbon runtime.
+     *
+     * @return true if the configuration was replaced
+     */
+    public boolean reload() {
+        CarbonConfiguration newConfiguration;
+        try {
+            newConfiguration = configurationLoader.call();
+        } catch (Exception e) {
+            logger.error("Failed to reload the Carbon configuration from " + configurationFile +
+                    ", the current configuration is kept", e);
+            return false;
+        }
+        if (newConfiguration == null) {
+            logger.error("No Carbon configuration found in {}, the current configuration is kept", configurationFile);
+            return false;
+        }
+
+        CarbonConfiguration previousConfiguration = carbonRuntime.getConfiguration();
+        carbonRuntime.setCarbonConfiguration(newConfiguration);
+        logger.info("Reloaded the Carbon configuration from {}", configurationFile);
+
+        for (CarbonConfigurationListener listener : listeners) {
+            try {
+                listener.onConfigurationReload(previousConfiguration, newConfiguration);
+            } catch (RuntimeException e) {
+                logger.error("Error while notifying " + listener.getClass().getName() +
+                        " of the Carbon configuration reload", e);
+            }
+        }
+        return true;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isConfigurationChanged(watchService.take())) {
+                    continue;
+                }
+                // Waits until the file stops changing.
+                WatchKey watchKey;
+                while ((watchKey = watchService.poll(debounceInterval, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigurationChanged(watchKey);
+                }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {} for configuration changes", configurationFile);
+        }
+    }
+
+    private boolean isConfigurationChanged(WatchKey watchKey) {
+        boolean changed = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    configurationFile.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        watchKey.reset();
+        return changed;
+    }
+}
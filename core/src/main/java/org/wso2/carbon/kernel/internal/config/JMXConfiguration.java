@@ -34,6 +34,8 @@ public class JMXConfiguration {
     private int rmiServerPort = 11111;
     @Element(description = "The port RMI registry is exposed")
     private int rmiRegistryPort = 9999;
+    @Element(description = "Time in milliseconds the kernel snapshot MBean caches a snapshot")
+    private long snapshotCacheInterval = 5000;
 
     public boolean isEnabled() {
         return enabled;
@@ -66,4 +68,12 @@ public class JMXConfiguration {
     public void setRmiRegistryPort(int rmiRegistryPort) {
         this.rmiRegistryPort = rmiRegistryPort;
     }
+
+    public long getSnapshotCacheInterval() {
+        return snapshotCacheInterval;
+    }
+
+    public void setSnapshotCacheInterval(long snapshotCacheInterval) {
+        this.snapshotCacheInterval = snapshotCacheInterval;
+    }
 }
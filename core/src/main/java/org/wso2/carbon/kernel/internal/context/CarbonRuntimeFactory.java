@@ -16,7 +16,6 @@
 package org.wso2.carbon.kernel.internal.context;
 
 import org.wso2.carbon.config.provider.ConfigProvider;
-import org.wso2.carbon.kernel.CarbonRuntime;
 import org.wso2.carbon.kernel.PrivilegedCarbonRuntime;
 import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
 
@@ -30,7 +29,7 @@ public class CarbonRuntimeFactory {
     private CarbonRuntimeFactory() {
     }
 
-    public static CarbonRuntime createCarbonRuntime(ConfigProvider configProvider) throws Exception {
+    public static PrivilegedCarbonRuntime createCarbonRuntime(ConfigProvider configProvider) throws Exception {
 
         CarbonConfiguration carbonConfiguration = configProvider.getConfigurationObject(
                         CarbonConfiguration.class);
@@ -20,11 +20,14 @@ import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
 
 /**
  * The default implementation of the CarbonRuntime.
+ * <p>
+ * The configuration is replaced as a whole when it is reloaded, hence readers only need a volatile read to see the
+ * latest configuration.
  *
  * @since 5.0.0
  */
 public class DefaultCarbonRuntime implements PrivilegedCarbonRuntime {
-    private CarbonConfiguration carbonConfiguration;
+    private volatile CarbonConfiguration carbonConfiguration;
 
     public CarbonConfiguration getConfiguration() {
         return carbonConfiguration;
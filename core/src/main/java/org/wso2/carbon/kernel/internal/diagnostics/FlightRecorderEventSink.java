@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+/**
+ * Emits the kernel events to the Java Flight Recorder. Events are only created if their event type is enabled in a
+ * running recording.
+ *
+ * @since 5.2.0
+ */
+class FlightRecorderEventSink implements KernelEventSink {
+
+    @Override
+    public void startupComponentSatisfied(String componentName, Bundle bundle, long waitTime) {
+        StartupComponentSatisfiedEvent event = new StartupComponentSatisfiedEvent();
+        if (event.isEnabled()) {
+            event.componentName = componentName;
+            event.bundle = getBundleName(bundle);
+            event.waitTime = waitTime;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void startupComponentPending(String componentName, Bundle bundle, String pendingCapabilities,
+                                        long waitTime) {
+        StartupComponentPendingEvent event = new StartupComponentPendingEvent();
+        if (event.isEnabled()) {
+            event.componentName = componentName;
+            event.bundle = getBundleName(bundle);
+            event.pendingCapabilities = pendingCapabilities;
+            event.waitTime = waitTime;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void capabilityListenerCallback(String componentName, Bundle bundle, Runnable callback) {
+        CapabilityListenerEvent event = new CapabilityListenerEvent();
+        event.begin();
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.componentName = componentName;
+                event.bundle = getBundleName(bundle);
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void runtimeTransition(Runtime runtime, String operation, KernelEvents.RuntimeAction action)
+            throws RuntimeServiceException {
+        RuntimeTransitionEvent event = new RuntimeTransitionEvent();
+        String fromState = String.valueOf(runtime.getState());
+        event.begin();
+        try {
+            action.run();
+        } catch (RuntimeServiceException | RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.runtime = runtime.getClass().getName();
+                event.operation = operation;
+                event.fromState = fromState;
+                event.toState = String.valueOf(runtime.getState());
+                event.commit();
+            }
+        }
+    }
+
+    private static String getBundleName(Bundle bundle) {
+        return bundle == null ? null : bundle.getSymbolicName() + ":" + bundle.getVersion();
+    }
+}
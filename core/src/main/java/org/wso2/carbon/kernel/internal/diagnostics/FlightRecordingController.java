@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Controls the single recording of {@link KernelDiagnostics}. Only used if the jdk.jfr API is available.
+ *
+ * @since 5.2.0
+ */
+class FlightRecordingController {
+
+    private static final String RECORDING_NAME = "carbon-kernel";
+
+    private Recording recording;
+
+    void start(String settings) throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A Java Flight Recorder recording is already running");
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (ParseException | NoSuchFileException e) {
+            throw new IllegalArgumentException("Invalid Java Flight Recorder settings " + settings, e);
+        }
+
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.start();
+    }
+
+    void stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No Java Flight Recorder recording is running");
+        }
+        recording.stop();
+    }
+
+    void dump(Path path) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No Java Flight Recorder recording has been started");
+        }
+        recording.dump(path);
+    }
+
+    String getState() {
+        return recording == null ? "NONE" : recording.getState().name();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.utils.Utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Starts, stops and dumps Java Flight Recorder recordings of the running server on demand. Registered as the
+ * org.wso2.carbon:type=KernelDiagnostics MBean.
+ *
+ * @since 5.2.0
+ */
+public class KernelDiagnostics implements KernelDiagnosticsMBean {
+    private static final Logger logger = LoggerFactory.getLogger(KernelDiagnostics.class);
+
+    private static final String DEFAULT_SETTINGS = "default";
+    private static final String NO_RECORDING = "NONE";
+
+    private FlightRecordingController recordingController;
+
+    @Override
+    public boolean isFlightRecorderAvailable() {
+        return KernelEvents.isFlightRecorderAvailable();
+    }
+
+    @Override
+    public synchronized String getRecordingState() {
+        return recordingController == null ? NO_RECORDING : recordingController.getState();
+    }
+
+    @Override
+    public synchronized void startRecording(String settings) throws IOException {
+        Utils.checkSecurity();
+        String recordingSettings = settings == null || settings.trim().isEmpty() ? DEFAULT_SETTINGS : settings.trim();
+        getRecordingController().start(recordingSettings);
+        logger.info("Started a Java Flight Recorder recording with the {} settings", recordingSettings);
+    }
+
+    @Override
+    public synchronized void stopRecording() {
+        Utils.checkSecurity();
+        getRecordingController().stop();
+        logger.info("Stopped the Java Flight Recorder recording");
+    }
+
+    @Override
+    public synchronized String dumpRecording(String path) throws IOException {
+        Utils.checkSecurity();
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException("Path of the recording file cannot be empty");
+        }
+        Path recordingFile = Paths.get(path.trim()).toAbsolutePath();
+        getRecordingController().dump(recordingFile);
+        logger.info("Dumped the Java Flight Recorder recording to {}", recordingFile);
+        return recordingFile.toString();
+    }
+
+    private FlightRecordingController getRecordingController() {
+        if (!KernelEvents.isFlightRecorderAvailable()) {
+            throw new IllegalStateException("Java Flight Recorder is not available in this JVM");
+        }
+        if (recordingController == null) {
+            recordingController = new FlightRecordingController();
+        }
+        return recordingController;
+    }
+}
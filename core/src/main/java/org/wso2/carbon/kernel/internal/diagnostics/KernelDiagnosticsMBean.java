@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import java.io.IOException;
+
+/**
+ * MBean interface for controlling Java Flight Recorder recordings of a running Carbon server.
+ *
+ * @since 5.2.0
+ */
+public interface KernelDiagnosticsMBean {
+
+    /**
+     * @return true if the JVM of the server supports Java Flight Recorder
+     */
+    boolean isFlightRecorderAvailable();
+
+    /**
+     * @return state of the recording started through this MBean, NONE if no recording is started
+     */
+    String getRecordingState();
+
+    /**
+     * Starts a recording with the kernel events and the events of the given JVM settings.
+     *
+     * @param settings name of the JVM recording settings, "default" or "profile". Empty uses "default"
+     * @throws IOException if the settings could not be read
+     */
+    void startRecording(String settings) throws IOException;
+
+    /**
+     * Stops the running recording. The recorded data is kept until the next recording is started.
+     */
+    void stopRecording();
+
+    /**
+     * Writes the data of the running or stopped recording to a file.
+     *
+     * @param path path of the file to write, relative paths are resolved against the working directory of the server
+     * @return absolute path of the written file
+     * @throws IOException if the file could not be written
+     */
+    String dumpRecording(String path) throws IOException;
+}
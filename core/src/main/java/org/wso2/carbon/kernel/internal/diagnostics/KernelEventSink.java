@@ -0,0 +1,44 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+/**
+ * Receives the diagnostic events of the kernel. The default methods record nothing and only run the given actions.
+ *
+ * @since 5.2.0
+ */
+interface KernelEventSink {
+
+    default void startupComponentSatisfied(String componentName, Bundle bundle, long waitTime) {
+    }
+
+    default void startupComponentPending(String componentName, Bundle bundle, String pendingCapabilities,
+                                         long waitTime) {
+    }
+
+    default void capabilityListenerCallback(String componentName, Bundle bundle, Runnable callback) {
+        callback.run();
+    }
+
+    default void runtimeTransition(Runtime runtime, String operation, KernelEvents.RuntimeAction action)
+            throws RuntimeServiceException {
+        action.run();
+    }
+}
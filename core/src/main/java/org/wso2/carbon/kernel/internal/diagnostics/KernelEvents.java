@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+/**
+ * Emits the Java Flight Recorder events of the kernel.
+ * <p>
+ * The events are emitted only if the JVM provides the jdk.jfr API, which is the case from JDK 11 and from the JDK 8
+ * updates with the Flight Recorder backport. On any other JVM the methods of this class only run the given actions.
+ * The event classes are never loaded unless the API is available.
+ *
+ * @since 5.2.0
+ */
+public final class KernelEvents {
+    private static final Logger logger = LoggerFactory.getLogger(KernelEvents.class);
+
+    private static final boolean flightRecorderAvailable = isFlightRecorderPresent();
+    private static final KernelEventSink eventSink = createEventSink();
+
+    private KernelEvents() {
+    }
+
+    /**
+     * @return true if the JVM provides the Java Flight Recorder API
+     */
+    public static boolean isFlightRecorderAvailable() {
+        return flightRecorderAvailable;
+    }
+
+    /**
+     * Records that a startup component got all its required capabilities.
+     *
+     * @param componentName name of the startup component
+     * @param bundle        bundle which declared the component
+     * @param waitTime      time the component waited for its capabilities in milliseconds
+     */
+    public static void startupComponentSatisfied(String componentName, Bundle bundle, long waitTime) {
+        eventSink.startupComponentSatisfied(componentName, bundle, waitTime);
+    }
+
+    /**
+     * Records that a startup component is still waiting for capabilities.
+     *
+     * @param componentName       name of the startup component
+     * @param bundle              bundle which declared the component
+     * @param pendingCapabilities names of the capabilities the component is waiting for
+     * @param waitTime            time the component has been waiting in milliseconds
+     */
+    public static void startupComponentPending(String componentName, Bundle bundle, String pendingCapabilities,
+                                               long waitTime) {
+        eventSink.startupComponentPending(componentName, bundle, pendingCapabilities, waitTime);
+    }
+
+    /**
+     * Runs a {@code RequiredCapabilityListener} callback, timing it.
+     *
+     * @param componentName name of the startup component of the listener
+     * @param bundle        bundle which declared the component
+     * @param callback      the callback
+     */
+    public static void capabilityListenerCallback(String componentName, Bundle bundle, Runnable callback) {
+        eventSink.capabilityListenerCallback(componentName, bundle, callback);
+    }
+
+    /**
+     * Runs a lifecycle operation of a runtime, recording the state transition it causes.
+     *
+     * @param runtime   the runtime
+     * @param operation name of the lifecycle operation
+     * @param action    the lifecycle operation
+     * @throws RuntimeServiceException if thrown by the lifecycle operation
+     */
+    public static void runtimeTransition(Runtime runtime, String operation, RuntimeAction action)
+            throws RuntimeServiceException {
+        eventSink.runtimeTransition(runtime, operation, action);
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, KernelEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static KernelEventSink createEventSink() {
+        if (flightRecorderAvailable) {
+            try {
+                return new FlightRecorderEventSink();
+            } catch (LinkageError e) {
+                logger.debug("Java Flight Recorder events are disabled", e);
+            }
+        }
+        return new KernelEventSink() {
+        };
+    }
+
+    /**
+     * A lifecycle operation of a runtime.
+     */
+    @FunctionalInterface
+    public interface RuntimeAction {
+        void run() throws RuntimeServiceException;
+    }
+}
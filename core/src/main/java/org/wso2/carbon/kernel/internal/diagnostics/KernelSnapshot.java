@@ -0,0 +1,202 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.internal.DataHolder;
+import org.wso2.carbon.kernel.internal.runtime.RuntimeManager;
+import org.wso2.carbon.kernel.runtime.Runtime;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Builds the kernel snapshot of {@link KernelSnapshotMBean}. Registered as the org.wso2.carbon:type=KernelSnapshot
+ * MBean.
+ * <p>
+ * A snapshot is built at most once per cache interval. Callers arriving while a snapshot is being built wait for it
+ * instead of building their own. The Carbon configuration is read from the Carbon runtime whenever a snapshot is
+ * built, so that a reloaded configuration is reflected in the next snapshot.
+ *
+ * @since 5.2.0
+ */
+public class KernelSnapshot implements KernelSnapshotMBean {
+
+    private static final CompositeType RUNTIME_TYPE;
+    private static final TabularType RUNTIMES_TYPE;
+    private static final CompositeType SNAPSHOT_TYPE;
+
+    static {
+        try {
+            RUNTIME_TYPE = new CompositeType("Runtime", "State of a Carbon runtime",
+                    new String[]{"runtime", "state"},
+                    new String[]{"Class name of the runtime", "Lifecycle state of the runtime"},
+                    new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING});
+            RUNTIMES_TYPE = new TabularType("Runtimes", "States of the Carbon runtimes", RUNTIME_TYPE,
+                    new String[]{"runtime"});
+
+            Map<String, OpenType<?>> items = new LinkedHashMap<>();
+            items.put("timestamp", SimpleType.LONG);
+            items.put("serverId", SimpleType.STRING);
+            items.put("serverName", SimpleType.STRING);
+            items.put("serverVersion", SimpleType.STRING);
+            items.put("uptime", SimpleType.LONG);
+            items.put("runtimes", RUNTIMES_TYPE);
+            items.put("heapUsed", SimpleType.LONG);
+            items.put("heapCommitted", SimpleType.LONG);
+            items.put("heapMax", SimpleType.LONG);
+            items.put("nonHeapUsed", SimpleType.LONG);
+            items.put("nonHeapCommitted", SimpleType.LONG);
+            items.put("threadCount", SimpleType.INTEGER);
+            items.put("peakThreadCount", SimpleType.INTEGER);
+            items.put("daemonThreadCount", SimpleType.INTEGER);
+            items.put("loadedClassCount", SimpleType.INTEGER);
+            items.put("unloadedClassCount", SimpleType.LONG);
+            items.put("gcCount", SimpleType.LONG);
+            items.put("gcTime", SimpleType.LONG);
+            items.put("availableProcessors", SimpleType.INTEGER);
+            items.put("systemLoadAverage", SimpleType.DOUBLE);
+            items.put("flightRecorderAvailable", SimpleType.BOOLEAN);
+
+            String[] names = items.keySet().toArray(new String[items.size()]);
+            SNAPSHOT_TYPE = new CompositeType("KernelSnapshot", "Kernel state and metrics of a Carbon server", names,
+                    names, items.values().toArray(new OpenType<?>[items.size()]));
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final CarbonRuntime carbonRuntime;
+    private final Object lock = new Object();
+
+    private volatile CompositeData snapshot;
+    private volatile long snapshotExpiry;
+
+    public KernelSnapshot(CarbonRuntime carbonRuntime) {
+        this.carbonRuntime = carbonRuntime;
+    }
+
+    @Override
+    public CompositeData getSnapshot() {
+        CompositeData current = snapshot;
+        if (current != null && System.nanoTime() - snapshotExpiry < 0) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (current == null || System.nanoTime() - snapshotExpiry >= 0) {
+                CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
+                current = buildSnapshot(carbonConfiguration);
+                snapshot = current;
+                snapshotExpiry = System.nanoTime() +
+                        TimeUnit.MILLISECONDS.toNanos(getCacheInterval(carbonConfiguration));
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public long getCacheInterval() {
+        return getCacheInterval(carbonRuntime.getConfiguration());
+    }
+
+    private static long getCacheInterval(CarbonConfiguration carbonConfiguration) {
+        return Math.max(0, carbonConfiguration.getJmxConfiguration().getSnapshotCacheInterval());
+    }
+
+    private CompositeData buildSnapshot(CarbonConfiguration carbonConfiguration) {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memoryMXBean.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memoryMXBean.getNonHeapMemoryUsage();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+        OperatingSystemMXBean osMXBean = ManagementFactory.getOperatingSystemMXBean();
+
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gcMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gcMXBean.getCollectionCount());
+            gcTime += Math.max(0, gcMXBean.getCollectionTime());
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("timestamp", System.currentTimeMillis());
+        values.put("serverId", carbonConfiguration.getId());
+        values.put("serverName", carbonConfiguration.getName());
+        values.put("serverVersion", carbonConfiguration.getVersion());
+        values.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
+        values.put("runtimes", buildRuntimes());
+        values.put("heapUsed", heap.getUsed());
+        values.put("heapCommitted", heap.getCommitted());
+        values.put("heapMax", heap.getMax());
+        values.put("nonHeapUsed", nonHeap.getUsed());
+        values.put("nonHeapCommitted", nonHeap.getCommitted());
+        values.put("threadCount", threadMXBean.getThreadCount());
+        values.put("peakThreadCount", threadMXBean.getPeakThreadCount());
+        values.put("daemonThreadCount", threadMXBean.getDaemonThreadCount());
+        values.put("loadedClassCount", classLoadingMXBean.getLoadedClassCount());
+        values.put("unloadedClassCount", classLoadingMXBean.getUnloadedClassCount());
+        values.put("gcCount", gcCount);
+        values.put("gcTime", gcTime);
+        values.put("availableProcessors", osMXBean.getAvailableProcessors());
+        values.put("systemLoadAverage", osMXBean.getSystemLoadAverage());
+        values.put("flightRecorderAvailable", KernelEvents.isFlightRecorderAvailable());
+
+        try {
+            return new CompositeDataSupport(SNAPSHOT_TYPE, values);
+        } catch (OpenDataException e) {
+            throw new IllegalStateException("Failed to build the kernel snapshot", e);
+        }
+    }
+
+    private TabularDataSupport buildRuntimes() {
+        TabularDataSupport runtimes = new TabularDataSupport(RUNTIMES_TYPE);
+        RuntimeManager runtimeManager = DataHolder.getInstance().getRuntimeManager();
+        if (runtimeManager == null) {
+            return runtimes;
+        }
+        for (Runtime runtime : runtimeManager.getRuntimeList()) {
+            String runtimeName = runtime.getClass().getName();
+            if (runtimes.containsKey(new Object[]{runtimeName})) {
+                continue;
+            }
+            try {
+                runtimes.put(new CompositeDataSupport(RUNTIME_TYPE, new String[]{"runtime", "state"},
+                        new Object[]{runtimeName, String.valueOf(runtime.getState())}));
+            } catch (OpenDataException e) {
+                throw new IllegalStateException("Failed to build the state of runtime " + runtimeName, e);
+            }
+        }
+        return runtimes;
+    }
+}
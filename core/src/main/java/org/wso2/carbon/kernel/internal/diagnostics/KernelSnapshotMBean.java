@@ -0,0 +1,40 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * MBean interface which exposes the kernel state and metrics of a Carbon server as a single snapshot, so that a
+ * monitoring agent can read all of them in one JMX call.
+ *
+ * @since 5.2.0
+ */
+public interface KernelSnapshotMBean {
+
+    /**
+     * Returns the kernel state and metrics. The snapshot is cached for {@link #getCacheInterval()} milliseconds, hence
+     * concurrent callers get the same snapshot.
+     *
+     * @return the snapshot
+     */
+    CompositeData getSnapshot();
+
+    /**
+     * @return time in milliseconds a snapshot is cached
+     */
+    long getCacheInterval();
+}
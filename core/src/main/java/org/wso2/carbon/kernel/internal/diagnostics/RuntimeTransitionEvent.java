@@ -0,0 +1,50 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a runtime lifecycle operation run by the {@code CarbonRuntimeService}. The duration of the
+ * event is the time spent in the operation.
+ *
+ * @since 5.2.0
+ */
+@Name("org.wso2.carbon.kernel.RuntimeTransition")
+@Label("Runtime Transition")
+@Category({"WSO2 Carbon", "Runtime"})
+@Description("A runtime lifecycle operation and the state transition it caused")
+class RuntimeTransitionEvent extends Event {
+
+    @Label("Runtime")
+    String runtime;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("From State")
+    String fromState;
+
+    @Label("To State")
+    String toState;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a startup component which is still waiting for some of its required capabilities, emitted
+ * each time the pending capability timer reports the pending components.
+ *
+ * @since 5.2.0
+ */
+@Name("org.wso2.carbon.kernel.StartupComponentPending")
+@Label("Startup Component Pending")
+@Category({"WSO2 Carbon", "Startup"})
+@Description("A startup component is waiting for required capabilities")
+@StackTrace(false)
+class StartupComponentPendingEvent extends Event {
+
+    @Label("Component")
+    String componentName;
+
+    @Label("Bundle")
+    String bundle;
+
+    @Label("Pending Capabilities")
+    String pendingCapabilities;
+
+    @Label("Wait Time")
+    @Description("Time from the startup component declaration until now")
+    @Timespan(Timespan.MILLISECONDS)
+    long waitTime;
+}
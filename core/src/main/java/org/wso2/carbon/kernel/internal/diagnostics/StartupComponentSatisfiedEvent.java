@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a startup component whose required capabilities are all available.
+ *
+ * @since 5.2.0
+ */
+@Name("org.wso2.carbon.kernel.StartupComponentSatisfied")
+@Label("Startup Component Satisfied")
+@Category({"WSO2 Carbon", "Startup"})
+@Description("A startup component got all its required capabilities")
+@StackTrace(false)
+class StartupComponentSatisfiedEvent extends Event {
+
+    @Label("Component")
+    String componentName;
+
+    @Label("Bundle")
+    String bundle;
+
+    @Label("Wait Time")
+    @Description("Time from the startup component declaration until all its capabilities were available")
+    @Timespan(Timespan.MILLISECONDS)
+    long waitTime;
+}
@@ -25,17 +25,24 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
 import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
 import org.wso2.carbon.kernel.internal.config.JMXConfiguration;
+import org.wso2.carbon.kernel.internal.diagnostics.KernelSnapshot;
+import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
 import org.wso2.carbon.kernel.jmx.connection.SingleAddressRMIServerSocketFactory;
 import org.wso2.carbon.kernel.jmx.security.CarbonJMXAuthenticator;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.management.remote.JMXConnectorServer;
 import javax.management.remote.JMXConnectorServerFactory;
 import javax.management.remote.JMXServiceURL;
@@ -54,13 +61,20 @@ import javax.management.remote.rmi.RMIConnectorServer;
 public class CarbonJMXComponent {
     private static final Logger logger = LoggerFactory.getLogger(CarbonJMXComponent.class);
     private static final String JAVA_RMI_SERVER_HOSTNAME = "java.rmi.server.hostname";
+    private static final String JMX_STARTUP_THREAD_NAME = "CarbonJMXStartup";
     private JMXConnectorServer jmxConnectorServer;
     private Registry rmiRegistry;
     private CarbonRuntime carbonRuntime;
+    private KernelExecutorService executorService;
+    private boolean stopped;
+    private volatile CompletableFuture<JMXServiceURL> connectorServerStartup = CompletableFuture.completedFuture(null);
 
     /**
      * This is the activation method of CarbonJMXComponent. This will be called when all the references are
      * satisfied.
+     * <p>
+     * The JMXConnectorServer is started in the background, since resolving the host name and creating the RMI
+     * registry may take a while and must not delay the activation of the other components.
      *
      * @param bundleContext the bundle context instance of this bundle.
      */
@@ -69,6 +83,7 @@ public class CarbonJMXComponent {
         try {
             CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
             JMXConfiguration jmxConfiguration = carbonConfiguration.getJmxConfiguration();
+            registerKernelSnapshot();
             if (!jmxConfiguration.isEnabled()) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("Remote JMX is disabled.");
@@ -76,6 +91,40 @@ public class CarbonJMXComponent {
                 return;
             }
 
+            CompletableFuture<JMXServiceURL> startup = new CompletableFuture<>();
+            connectorServerStartup = startup;
+            ExecutorService startupExecutor = executorService.getExecutor(JMX_STARTUP_THREAD_NAME, 1, 1);
+            startupExecutor.execute(() -> startConnectorServer(jmxConfiguration, startup));
+            startupExecutor.shutdown();
+        } catch (Throwable throwable) {
+            connectorServerStartup.completeExceptionally(throwable);
+            logger.error("Failed to start CarbonJMXComponent.", throwable);
+        }
+    }
+
+    /**
+     * Returns the completion of the JMXConnectorServer startup, which runs in the background.
+     * <p>
+     * The future completes with the JMX service URL once the connector server is started, or with null if remote JMX
+     * is disabled, no network interface is available or the component was deactivated in the meantime. It completes
+     * exceptionally if the connector server failed to start.
+     *
+     * @return the completion of the JMXConnectorServer startup
+     */
+    CompletableFuture<JMXServiceURL> getConnectorServerStartup() {
+        return connectorServerStartup;
+    }
+
+    /**
+     * Resolves the host, creates the RMI registry and starts the JMXConnectorServer. Runs in the JMX startup thread.
+     *
+     * @param jmxConfiguration the JMX configuration
+     * @param startup          completed once the startup finishes
+     */
+    private void startConnectorServer(JMXConfiguration jmxConfiguration, CompletableFuture<JMXServiceURL> startup) {
+        long startTime = System.nanoTime();
+        Registry registry = null;
+        try {
             String hostname = System.getProperty(JAVA_RMI_SERVER_HOSTNAME);
             if (hostname == null || hostname.isEmpty()) {
                 hostname = jmxConfiguration.getHostName();
@@ -87,12 +136,13 @@ public class CarbonJMXComponent {
                 if (logger.isDebugEnabled()) {
                     logger.debug("No network interface available for '{}' to start JMXConnectorServer", hostname);
                 }
+                startup.complete(null);
                 return;
             }
 
             SingleAddressRMIServerSocketFactory singleAddressRMIServerSocketFactory =
                     new SingleAddressRMIServerSocketFactory(inetAddresses[0]);
-            rmiRegistry = LocateRegistry.createRegistry(jmxConfiguration.getRmiRegistryPort(), null,
+            registry = LocateRegistry.createRegistry(jmxConfiguration.getRmiRegistryPort(), null,
                     singleAddressRMIServerSocketFactory);
 
             String jmxURL = "service:jmx:rmi://" + hostname + ":" + jmxConfiguration.getRmiServerPort()
@@ -104,12 +154,53 @@ public class CarbonJMXComponent {
             environment.put(RMIConnectorServer.RMI_SERVER_SOCKET_FACTORY_ATTRIBUTE,
                     singleAddressRMIServerSocketFactory);
 
-            jmxConnectorServer = JMXConnectorServerFactory.newJMXConnectorServer(jmxServiceURL, environment,
-                    ManagementFactory.getPlatformMBeanServer());
-            jmxConnectorServer.start();
-            logger.info("JMXServerManager JMX Service URL : " + jmxServiceURL.toString());
+            JMXConnectorServer connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(jmxServiceURL,
+                    environment, ManagementFactory.getPlatformMBeanServer());
+            connectorServer.start();
+
+            synchronized (this) {
+                rmiRegistry = registry;
+                jmxConnectorServer = connectorServer;
+                if (stopped) {
+                    // The component was deactivated while the connector server was starting.
+                    stopConnectorServer();
+                    startup.complete(null);
+                    return;
+                }
+            }
+            logger.info("JMXServerManager JMX Service URL : {} (started in {} ms)", jmxServiceURL,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            startup.complete(jmxServiceURL);
         } catch (Throwable throwable) {
-            logger.error("Failed to start CarbonJMXComponent.", throwable);
+            synchronized (this) {
+                if (registry != null && registry != rmiRegistry) {
+                    // The connector server failed to start, release the port of the RMI registry.
+                    unexportRegistry(registry);
+                }
+            }
+            logger.error("Failed to start the JMXConnectorServer after {} ms.",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), throwable);
+            startup.completeExceptionally(throwable);
+        }
+    }
+
+    private static void unexportRegistry(Registry registry) {
+        try {
+            UnicastRemoteObject.unexportObject(registry, true);
+        } catch (IOException e) {
+            logger.warn("Failed to stop the RMI registry.", e);
+        }
+    }
+
+    /**
+     * Registers the MBean which returns the kernel state and metrics in a single call, so that monitoring agents do
+     * not have to read the attributes one by one through the connector.
+     */
+    private void registerKernelSnapshot() {
+        try {
+            MBeanRegistrator.registerMBean(new KernelSnapshot(carbonRuntime));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to register the kernel snapshot MBean.", e);
         }
     }
 
@@ -120,11 +211,17 @@ public class CarbonJMXComponent {
      * @throws Exception this will be thrown if an issue occurs while executing the de-activate method
      */
     @Deactivate
-    protected void stop() throws Exception {
+    protected synchronized void stop() throws Exception {
+        stopped = true;
+        stopConnectorServer();
+    }
 
+    private synchronized void stopConnectorServer() throws IOException {
         if (jmxConnectorServer != null) {
             jmxConnectorServer.stop();
             UnicastRemoteObject.unexportObject(rmiRegistry, true); // Stop the RMI registry
+            jmxConnectorServer = null;
+            rmiRegistry = null;
         }
     }
 
@@ -142,4 +239,19 @@ public class CarbonJMXComponent {
     protected void unregisterCarbonRuntime(CarbonRuntime carbonRuntime) {
         this.carbonRuntime = null;
     }
+
+    @Reference(
+            name = "carbon.jmx.executor.service",
+            service = KernelExecutorService.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.STATIC,
+            unbind = "unregisterExecutorService"
+    )
+    protected void registerExecutorService(KernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    protected void unregisterExecutorService(KernelExecutorService executorService) {
+        this.executorService = null;
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.preload;
+
+import org.osgi.framework.hooks.weaving.WeavingHook;
+import org.osgi.framework.hooks.weaving.WovenClass;
+
+/**
+ * A {@link WeavingHook} which does not weave anything, but records every class defined by a bundle class loader into
+ * a {@link ClassPreloadProfile}. The framework calls weaving hooks for each class it defines, which gives us the
+ * classes loaded per bundle without touching the framework or the bundles.
+ *
+ * @since 5.2.0
+ */
+class ClassLoadRecorder implements WeavingHook {
+
+    private final ClassPreloadProfile profile;
+
+    ClassLoadRecorder(ClassPreloadProfile profile) {
+        this.profile = profile;
+    }
+
+    @Override
+    public void weave(WovenClass wovenClass) {
+        profile.addClass(ClassPreloadProfile.getBundleKey(wovenClass.getBundleWiring().getBundle()),
+                wovenClass.getClassName());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.preload;
+
+import org.osgi.framework.Bundle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The set of classes each bundle loaded before the server startup completed, together with a fingerprint of the
+ * installed bundles at the time it was recorded.
+ * <p>
+ * The profile is stored as a plain text file. The first line holds the fingerprint, every bundle starts with a
+ * {@code [symbolicName;version]} line and the class names of that bundle follow, one per line.
+ *
+ * @since 5.2.0
+ */
+public class ClassPreloadProfile {
+
+    private static final String FINGERPRINT_PREFIX = "fingerprint=";
+
+    private final String fingerprint;
+    private final Map<String, Set<String>> classesByBundle = new ConcurrentHashMap<>();
+
+    public ClassPreloadProfile(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Records a class loaded by the given bundle. This method may be called concurrently.
+     *
+     * @param bundleKey bundle key as returned by {@link #getBundleKey(Bundle)}
+     * @param className fully qualified class name
+     */
+    public void addClass(String bundleKey, String className) {
+        classesByBundle.computeIfAbsent(bundleKey, key -> ConcurrentHashMap.newKeySet()).add(className);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return an unmodifiable view of the recorded classes keyed by the bundle key
+     */
+    public Map<String, Set<String>> getClassesByBundle() {
+        return Collections.unmodifiableMap(classesByBundle);
+    }
+
+    /**
+     * @return total number of classes in this profile
+     */
+    public int getClassCount() {
+        return classesByBundle.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Writes this profile to the given file. The content is first written to a temporary file and then moved over
+     * the existing profile so that a partially written profile is never read.
+     *
+     * @param profileFile profile file
+     * @throws IOException if the profile cannot be written
+     */
+    public void write(Path profileFile) throws IOException {
+        Files.createDirectories(profileFile.getParent());
+        Path tempFile = profileFile.resolveSibling(profileFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writer.write(FINGERPRINT_PREFIX + fingerprint);
+            writer.newLine();
+            for (Map.Entry<String, Set<String>> entry : classesByBundle.entrySet()) {
+                writer.write("[" + entry.getKey() + "]");
+                writer.newLine();
+                for (String className : entry.getValue()) {
+                    writer.write(className);
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(tempFile, profileFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a profile from the given file.
+     *
+     * @param profileFile profile file
+     * @return the profile, or an empty Optional if the file does not exist or is not a valid profile
+     * @throws IOException if the profile cannot be read
+     */
+    public static Optional<ClassPreloadProfile> read(Path profileFile) throws IOException {
+        if (!Files.isRegularFile(profileFile)) {
+            return Optional.empty();
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(profileFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || !line.startsWith(FINGERPRINT_PREFIX)) {
+                return Optional.empty();
+            }
+
+            ClassPreloadProfile profile = new ClassPreloadProfile(line.substring(FINGERPRINT_PREFIX.length()));
+            String bundleKey = null;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    bundleKey = line.substring(1, line.length() - 1);
+                } else if (bundleKey != null) {
+                    profile.addClass(bundleKey, line);
+                }
+            }
+            return Optional.of(profile);
+        }
+    }
+
+    /**
+     * Returns the key used to identify a bundle in a profile.
+     *
+     * @param bundle OSGi bundle
+     * @return symbolic name and version of the bundle
+     */
+    public static String getBundleKey(Bundle bundle) {
+        return bundle.getSymbolicName() + ";" + bundle.getVersion();
+    }
+
+    /**
+     * Calculates a fingerprint of the given bundles. Adding, removing, upgrading or relocating a bundle changes the
+     * fingerprint, which invalidates a profile recorded with a different set of bundles.
+     *
+     * @param bundles installed bundles
+     * @return hex encoded SHA-256 digest of the bundle keys and locations
+     */
+    public static String getFingerprint(Bundle[] bundles) {
+        String bundleList = Arrays.stream(bundles)
+                .map(bundle -> getBundleKey(bundle) + ";" + bundle.getLocation())
+                .sorted()
+                .collect(Collectors.joining("\n"));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bundleList.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 message digest is not available", e);
+        }
+    }
+}
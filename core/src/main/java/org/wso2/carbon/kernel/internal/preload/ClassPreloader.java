@@ -0,0 +1,347 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.preload;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.hooks.weaving.WeavingHook;
+import org.osgi.framework.wiring.BundleWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.CarbonServerInfo;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.internal.startupresolver.StartupCriticalPath;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Shortens the server startup by loading the classes bundles are going to need before they actually need them.
+ * <p>
+ * A boot without a valid profile records the classes each bundle loads until the {@link CarbonServerInfo} service is
+ * registered. The following boots load those classes in parallel through each bundle's own class loader on otherwise
+ * idle cores, while bundle activators and the startup order resolver are still waiting on their dependencies. The
+ * profile is kept in the OSGi configuration area, which survives osgi.clean, and is discarded as soon as the set of
+ * installed bundles changes.
+ * <p>
+ * Bundles with the lazy activation policy are only preloaded once they are active, since loading a class of a lazy
+ * bundle in the STARTING state activates it on the preloader thread, ahead of its turn in the startup order.
+ * <p>
+ * Preloading can be disabled by setting the {@code carbon.startup.class.preload} system property to false.
+ *
+ * @since 5.2.0
+ */
+public class ClassPreloader implements ServiceListener {
+    private static final Logger logger = LoggerFactory.getLogger(ClassPreloader.class);
+
+    static final String CLASS_PRELOAD_ENABLED = "carbon.startup.class.preload";
+    static final String OSGI_CONFIGURATION_AREA = "osgi.configuration.area";
+    static final String PROFILE_DIRECTORY = "org.wso2.carbon.core";
+    static final String PROFILE_FILE = "class-preload.profile";
+
+    static final String PRELOAD_EXECUTOR_NAME = "CarbonClassPreloader";
+    static final String BACKGROUND_PRELOAD_EXECUTOR_NAME = "CarbonBackgroundClassPreloader";
+    static final int BACKGROUND_PRELOAD_THREADS = 1;
+
+    private final BundleContext bundleContext;
+    private final KernelExecutorService executorService;
+    private Path profileFile;
+
+    private ClassPreloadProfile recordedProfile;
+    private ServiceRegistration<WeavingHook> recorderRegistration;
+
+    // Preloads the bundles on the critical path of the previous startup at normal thread priority.
+    private ExecutorService preloadExecutor;
+    // Preloads the other bundles on a single thread of the minimum priority.
+    private ExecutorService backgroundPreloadExecutor;
+    private final AtomicInteger preloadedClassCount = new AtomicInteger();
+    private long preloadStartTime;
+
+    public ClassPreloader(BundleContext bundleContext, KernelExecutorService executorService) {
+        this.bundleContext = bundleContext;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Starts recording a new profile or preloading the classes of a valid existing profile.
+     */
+    public synchronized void start() {
+        if ("false".equalsIgnoreCase(bundleContext.getProperty(CLASS_PRELOAD_ENABLED))) {
+            logger.debug("Class preloading is disabled");
+            return;
+        }
+
+        profileFile = getProfileFile();
+        if (profileFile == null) {
+            logger.debug("OSGi configuration area is not available, hence class preloading is disabled");
+            return;
+        }
+
+        try {
+            bundleContext.addServiceListener(this,
+                    "(" + org.osgi.framework.Constants.OBJECTCLASS + "=" + CarbonServerInfo.class.getName() + ")");
+        } catch (InvalidSyntaxException e) {
+            logger.error("Error while registering the server startup listener for class preloading", e);
+            return;
+        }
+
+        String fingerprint = ClassPreloadProfile.getFingerprint(bundleContext.getBundles());
+        Optional<ClassPreloadProfile> profile = readProfile().filter(p -> fingerprint.equals(p.getFingerprint()));
+        if (profile.isPresent()) {
+            preload(profile.get());
+        } else {
+            logger.debug("No valid class preload profile found in {}. Recording a new profile.", profileFile);
+            recordedProfile = new ClassPreloadProfile(fingerprint);
+            recorderRegistration = bundleContext.registerService(WeavingHook.class,
+                    new ClassLoadRecorder(recordedProfile), null);
+        }
+    }
+
+    /**
+     * Stops recording or preloading without writing the profile, e.g. when the carbon core bundle stops before the
+     * server startup completes.
+     */
+    public synchronized void stop() {
+        bundleContext.removeServiceListener(this);
+        stopRecording();
+        stopPreloading();
+    }
+
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        if (event.getType() != ServiceEvent.REGISTERED) {
+            return;
+        }
+
+        synchronized (this) {
+            bundleContext.removeServiceListener(this);
+            if (stopRecording()) {
+                writeProfile();
+            }
+            stopPreloading();
+        }
+    }
+
+    /**
+     * Loads the classes of the given profile, one task per bundle.
+     */
+    private void preload(ClassPreloadProfile profile) {
+        Map<String, Bundle> bundles = Arrays.stream(bundleContext.getBundles())
+                .collect(Collectors.toMap(ClassPreloadProfile::getBundleKey, Function.identity(), (b1, b2) -> b1));
+
+        // Bundles on the critical path of the previous startup are preloaded at normal thread priority, the other
+        // bundles by a single thread of the minimum priority. The priority is ignored by the scheduler of Linux, hence
+        // the background thread is what bounds the competition with the critical path and the bundle activators.
+        Set<String> criticalBundles = readCriticalBundles();
+        Map<Boolean, List<Map.Entry<String, Set<String>>>> partitionedBundles =
+                profile.getClassesByBundle().entrySet().stream()
+                        .filter(entry -> bundles.containsKey(entry.getKey()))
+                        .collect(Collectors.partitioningBy(entry -> criticalBundles.contains(entry.getKey())));
+        List<Map.Entry<String, Set<String>>> critical = partitionedBundles.get(true);
+        List<Map.Entry<String, Set<String>>> background = partitionedBundles.get(false);
+
+        int threads = Math.max(1, executorService.getAvailableProcessors() - 1);
+        preloadExecutor = executorService.getExecutor(PRELOAD_EXECUTOR_NAME, threads,
+                Math.max(1, critical.size()));
+        backgroundPreloadExecutor = executorService.getExecutor(BACKGROUND_PRELOAD_EXECUTOR_NAME,
+                BACKGROUND_PRELOAD_THREADS, Math.max(1, background.size()), Thread.MIN_PRIORITY);
+
+        logger.debug("Preloading {} classes of {} bundles using {} threads and {} background thread",
+                profile.getClassCount(), profile.getClassesByBundle().size(), threads, BACKGROUND_PRELOAD_THREADS);
+        preloadStartTime = System.currentTimeMillis();
+        critical.forEach(entry -> preloadExecutor.execute(() -> preload(bundles.get(entry.getKey()),
+                entry.getValue())));
+        background.forEach(entry -> backgroundPreloadExecutor.execute(() -> preload(bundles.get(entry.getKey()),
+                entry.getValue())));
+        preloadExecutor.shutdown();
+        backgroundPreloadExecutor.shutdown();
+    }
+
+    private void preload(Bundle bundle, Set<String> classNames) {
+        if (!isPreloadable(bundle)) {
+            logger.trace("Skipped preloading the classes of bundle {} in state {}", bundle.getSymbolicName(),
+                    bundle.getState());
+            return;
+        }
+        BundleWiring bundleWiring = bundle.adapt(BundleWiring.class);
+        ClassLoader classLoader = bundleWiring != null ? bundleWiring.getClassLoader() : null;
+        if (classLoader == null) {
+            return;
+        }
+
+        for (String className : classNames) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                // Loads the class without initializing it. Initialization is left to the bundle itself.
+                classLoader.loadClass(className);
+                preloadedClassCount.incrementAndGet();
+            } catch (ClassNotFoundException | LinkageError e) {
+                // The bundle content has changed without a version change. Such classes are simply skipped.
+                logger.trace("Unable to preload class {} of bundle {}", className, bundle.getSymbolicName(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the classes of the given bundle can be loaded without side effects on the startup. Unresolved
+     * bundles cannot load classes, and loading a class of a lazily activated bundle which is not active yet would
+     * activate it.
+     *
+     * @param bundle OSGi bundle
+     * @return true if the classes of the bundle can be preloaded
+     */
+    static boolean isPreloadable(Bundle bundle) {
+        int state = bundle.getState();
+        if (state == Bundle.ACTIVE) {
+            return true;
+        }
+        if (state != Bundle.RESOLVED && state != Bundle.STARTING) {
+            return false;
+        }
+        Dictionary<String, String> headers = bundle.getHeaders("");
+        String activationPolicy = headers != null ?
+                headers.get(org.osgi.framework.Constants.BUNDLE_ACTIVATIONPOLICY) : null;
+        return activationPolicy == null ||
+                !activationPolicy.trim().startsWith(org.osgi.framework.Constants.ACTIVATION_LAZY);
+    }
+
+    /**
+     * Waits until the classes of the profile being preloaded are loaded.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return true if preloading completed or nothing is being preloaded, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitPreloading(long timeout, TimeUnit unit) throws InterruptedException {
+        ExecutorService executor;
+        ExecutorService backgroundExecutor;
+        synchronized (this) {
+            executor = preloadExecutor;
+            backgroundExecutor = backgroundPreloadExecutor;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return (executor == null || executor.awaitTermination(timeout, unit)) &&
+                (backgroundExecutor == null ||
+                        backgroundExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+    }
+
+    int getPreloadedClassCount() {
+        return preloadedClassCount.get();
+    }
+
+    /**
+     * Stops recording classes.
+     *
+     * @return true if a profile was being recorded
+     */
+    private boolean stopRecording() {
+        if (recorderRegistration == null) {
+            return false;
+        }
+        try {
+            recorderRegistration.unregister();
+        } catch (IllegalStateException e) {
+            logger.debug("Class load recorder is already unregistered", e);
+        }
+        recorderRegistration = null;
+        return true;
+    }
+
+    private void stopPreloading() {
+        if (preloadExecutor == null) {
+            return;
+        }
+        // Classes which are not preloaded by now are loaded on demand by the bundles themselves.
+        preloadExecutor.shutdownNow();
+        backgroundPreloadExecutor.shutdownNow();
+        preloadExecutor = null;
+        backgroundPreloadExecutor = null;
+        logger.debug("Preloaded {} classes in {} ms", preloadedClassCount.get(),
+                System.currentTimeMillis() - preloadStartTime);
+    }
+
+    private void writeProfile() {
+        try {
+            recordedProfile.write(profileFile);
+            logger.debug("Recorded {} classes of {} bundles to the class preload profile {}",
+                    recordedProfile.getClassCount(), recordedProfile.getClassesByBundle().size(), profileFile);
+        } catch (IOException e) {
+            logger.warn("Unable to write the class preload profile " + profileFile, e);
+        }
+        recordedProfile = null;
+    }
+
+    private Optional<ClassPreloadProfile> readProfile() {
+        try {
+            return ClassPreloadProfile.read(profileFile);
+        } catch (IOException e) {
+            logger.warn("Unable to read the class preload profile " + profileFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private Set<String> readCriticalBundles() {
+        Optional<Path> criticalPathFile = StartupCriticalPath.getFile(
+                bundleContext.getProperty(OSGI_CONFIGURATION_AREA));
+        if (!criticalPathFile.isPresent()) {
+            return Collections.emptySet();
+        }
+        try {
+            return StartupCriticalPath.read(criticalPathFile.get())
+                    .map(StartupCriticalPath::getBundles)
+                    .orElse(Collections.emptySet());
+        } catch (IOException e) {
+            logger.debug("Unable to read the startup critical path " + criticalPathFile.get(), e);
+            return Collections.emptySet();
+        }
+    }
+
+    private Path getProfileFile() {
+        String configurationArea = bundleContext.getProperty(OSGI_CONFIGURATION_AREA);
+        if (configurationArea == null) {
+            return null;
+        }
+        try {
+            return new File(new URL(configurationArea).getPath()).toPath().resolve(PROFILE_DIRECTORY)
+                    .resolve(PROFILE_FILE);
+        } catch (MalformedURLException e) {
+            logger.debug("Invalid OSGi configuration area " + configurationArea, e);
+            return null;
+        }
+    }
+}
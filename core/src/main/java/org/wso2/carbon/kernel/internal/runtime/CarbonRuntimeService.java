@@ -17,6 +17,7 @@ package org.wso2.carbon.kernel.internal.runtime;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.diagnostics.KernelEvents;
 import org.wso2.carbon.kernel.runtime.Runtime;
 import org.wso2.carbon.kernel.runtime.RuntimeService;
 import org.wso2.carbon.kernel.runtime.RuntimeState;
@@ -50,8 +51,8 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
         List<Runtime> runtimeMap = runtimeManager.getRuntimeList();
         for (Runtime runtime : runtimeMap) {
             if (runtime.getState() == RuntimeState.INACTIVE) {
-                runtime.init();
-                runtime.start();
+                KernelEvents.runtimeTransition(runtime, "init", runtime::init);
+                KernelEvents.runtimeTransition(runtime, "start", runtime::start);
             } else if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
             } else if (runtime.getState() == RuntimeState.MAINTENANCE) {
@@ -75,7 +76,7 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
             if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
             } else {
-                runtime.stop();
+                KernelEvents.runtimeTransition(runtime, "stop", runtime::stop);
             }
         }
     }
@@ -93,7 +94,7 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
             if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
             } else {
-                runtime.beginMaintenance();
+                KernelEvents.runtimeTransition(runtime, "beginMaintenance", runtime::beginMaintenance);
             }
         }
     }
@@ -111,7 +112,7 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
             if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
             } else {
-                runtime.endMaintenance();
+                KernelEvents.runtimeTransition(runtime, "endMaintenance", runtime::endMaintenance);
             }
         }
     }
@@ -24,6 +24,7 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.internal.DataHolder;
+import org.wso2.carbon.kernel.internal.diagnostics.KernelDiagnostics;
 import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
 import org.wso2.carbon.kernel.runtime.Runtime;
 import org.wso2.carbon.kernel.runtime.RuntimeService;
@@ -101,6 +102,7 @@ public class RuntimeServiceListenerComponent implements RequiredCapabilityListen
             runtimeService.startRuntimes();
             bundleContext.registerService(RuntimeService.class, runtimeService, null);
             MBeanRegistrator.registerMBean(runtimeService);
+            MBeanRegistrator.registerMBean(new KernelDiagnostics());
         } catch (Exception e) {
             logger.error("Error while starting runtime from Runtime manager", e);
         }
@@ -0,0 +1,520 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.SynchronousBundleListener;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.CapabilityProviderCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+import org.wso2.carbon.kernel.startupresolver.CapabilityProvider;
+import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.capabilityProviderElementPredicate;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.requiredCapabilityListenerElementPredicate;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.CAPABILITY_NAME;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.COMPONENT_NAME;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.OBJECT_CLASS;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.OSGI_SERVICE_COMPONENT;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.STARTUP_LISTENER_COMPONENT;
+
+/**
+ * Resolves the startup order of the startup components declared by bundles installed after the server startup.
+ * <p>
+ * The {@code StartupOrderResolver} stops once all the startup components known at the server startup are satisfied.
+ * In the continuous mode, this resolver takes over from then on. It is event driven, the Carbon-Component header of a
+ * newly installed bundle is processed when the bundle is installed, and the startup components it declares are
+ * checked whenever one of their required services, their {@code RequiredCapabilityListener} or a service cache update
+ * arrives. The existing bundles are never scanned again, the OSGi service capabilities and the pending
+ * {@code CapabilityProvider} services declared by them are kept in an index while the server starts and extended with
+ * the ones declared by the new bundles.
+ * <p>
+ * The bundle events and the service callbacks only update the state of this resolver. The bundles are processed and
+ * the {@code RequiredCapabilityListener}s are notified in order on a single thread, and the listeners are notified
+ * without holding the lock of this resolver, so that a listener which installs a bundle or registers a service does
+ * not block the framework.
+ *
+ * @since 5.2.0
+ */
+class ContinuousStartupResolver implements SynchronousBundleListener {
+    private static final Logger logger = LoggerFactory.getLogger(ContinuousStartupResolver.class);
+
+    private final BundleContext bundleContext;
+    private final ExecutorService dispatcher;
+    private final StartupComponentManager startupComponentManager = new StartupComponentManager();
+
+    // Expected OSGi service capabilities declared by the installed bundles. Key is the service interface name.
+    private final Map<String, List<DeclaredCapability>> declaredCapabilities = new HashMap<>();
+
+    // CapabilityProvider services declared by the installed bundles and not registered yet, or registered before the
+    // header of their bundle is processed. Key is the provided capability name.
+    private final Map<String, List<CapabilityProviderCapability>> declaredCapabilityProviders = new HashMap<>();
+
+    // Trackers of the required services of the pending startup components. Key is the component name.
+    private final Map<String, ServiceTracker<Object, Object>> componentTrackers = new HashMap<>();
+
+    // Bundles installed while the server was starting, processed once this resolver starts.
+    private final List<Bundle> installedBundles = new ArrayList<>();
+
+    // Ids of the bundles seen by this resolver, including the bundles processed by the StartupOrderResolver.
+    private final Set<Long> knownBundleIds = new HashSet<>();
+
+    // Ids of the bundles installed after the server startup whose Carbon-Component header is not processed yet.
+    private final Set<Long> unprocessedBundleIds = new HashSet<>();
+
+    private ServiceTracker<CapabilityProvider, CapabilityProvider> capabilityProviderTracker;
+    private boolean started;
+
+    /**
+     * Creates a resolver which processes the bundles and notifies the startup components on the given executor.
+     *
+     * @param bundleContext bundle context of the Carbon.core bundle
+     * @param dispatcher    single threaded executor, shut down when this resolver stops
+     */
+    ContinuousStartupResolver(BundleContext bundleContext, ExecutorService dispatcher) {
+        this.bundleContext = bundleContext;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Starts listening for installed bundles and returns the bundles installed so far, which should be processed by
+     * the {@code StartupOrderResolver}. The listener is registered and the bundles are taken atomically, hence a
+     * bundle is either in the returned list or processed by this resolver, never both. The installed bundles are only
+     * processed after {@link #start()}.
+     *
+     * @return the bundles installed before this resolver started listening
+     */
+    synchronized List<Bundle> open() {
+        bundleContext.addBundleListener(this);
+        Bundle[] bundles = bundleContext.getBundles();
+        Arrays.stream(bundles).forEach(bundle -> knownBundleIds.add(bundle.getBundleId()));
+        return Arrays.asList(bundles);
+    }
+
+    /**
+     * Records an OSGi service capability declared by a bundle processed during the server startup.
+     *
+     * @param capability the declared capability
+     */
+    synchronized void addDeclaredCapability(Capability capability) {
+        addDeclaredCapability(capability, 1);
+    }
+
+    private void addDeclaredCapability(Capability capability, long count) {
+        declaredCapabilities.computeIfAbsent(capability.getName(), name -> new ArrayList<>())
+                .add(new DeclaredCapability(capability, count));
+    }
+
+    /**
+     * Records a {@code CapabilityProvider} service declared by a bundle processed during the server startup.
+     *
+     * @param capabilityProvider the declared {@code CapabilityProvider} service
+     */
+    synchronized void addDeclaredCapabilityProvider(CapabilityProviderCapability capabilityProvider) {
+        addCapabilityProvider(capabilityProvider);
+    }
+
+    /**
+     * Records a declared or a registered {@code CapabilityProvider} service, unless it matches the registration or
+     * the declaration recorded earlier, in which case that one is no longer pending.
+     *
+     * @param capabilityProvider the declared or registered {@code CapabilityProvider} service
+     */
+    private void addCapabilityProvider(CapabilityProviderCapability capabilityProvider) {
+        if (!matchCapabilityProvider(capabilityProvider)) {
+            declaredCapabilityProviders.computeIfAbsent(capabilityProvider.getProvidedCapabilityName(),
+                    name -> new ArrayList<>()).add(capabilityProvider);
+        }
+    }
+
+    private boolean matchCapabilityProvider(CapabilityProviderCapability capabilityProvider) {
+        String name = capabilityProvider.getProvidedCapabilityName();
+        List<CapabilityProviderCapability> capabilityProviders = declaredCapabilityProviders.get(name);
+        // An expected and an available CapabilityProvider of the same bundle and capability are equal.
+        if (capabilityProviders == null || !capabilityProviders.remove(capabilityProvider)) {
+            return false;
+        }
+        if (capabilityProviders.isEmpty()) {
+            declaredCapabilityProviders.remove(name);
+        }
+        return true;
+    }
+
+    /**
+     * Takes over the startup order resolution from the {@code StartupOrderResolver}.
+     */
+    synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        capabilityProviderTracker = new ServiceTracker<>(bundleContext, CapabilityProvider.class,
+                new CapabilityProviderTrackerCustomizer());
+        capabilityProviderTracker.open();
+        StartupServiceCache.getInstance().setUpdateListener(() -> dispatch(this::notifySatisfiableComponents));
+
+        installedBundles.forEach(bundle -> dispatch(() -> processBundle(bundle)));
+        installedBundles.clear();
+        logger.debug("Continuous startup order resolution started");
+    }
+
+    /**
+     * Stops the resolution, releases all the trackers and shuts the dispatcher down.
+     */
+    synchronized void stop() {
+        bundleContext.removeBundleListener(this);
+        dispatcher.shutdownNow();
+        StartupServiceCache.getInstance().setUpdateListener(null);
+        componentTrackers.values().forEach(ServiceTracker::close);
+        componentTrackers.clear();
+        if (capabilityProviderTracker != null) {
+            capabilityProviderTracker.close();
+            capabilityProviderTracker = null;
+        }
+        started = false;
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        Bundle bundle = event.getBundle();
+        if (!StartupOrderResolverUtils.isCarbonComponentHeaderPresent(bundle)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (event.getType() == BundleEvent.INSTALLED) {
+                // The bundles returned by open() are processed by the StartupOrderResolver.
+                if (!knownBundleIds.add(bundle.getBundleId())) {
+                    return;
+                }
+                unprocessedBundleIds.add(bundle.getBundleId());
+                if (started) {
+                    dispatch(() -> processBundle(bundle));
+                } else {
+                    installedBundles.add(bundle);
+                }
+            } else if (event.getType() == BundleEvent.UNINSTALLED) {
+                knownBundleIds.remove(bundle.getBundleId());
+                unprocessedBundleIds.remove(bundle.getBundleId());
+                installedBundles.remove(bundle);
+                dispatch(() -> removeBundle(bundle));
+            }
+        }
+    }
+
+    /**
+     * Processes the Carbon-Component header of a bundle installed after the server startup.
+     *
+     * @param bundle the installed bundle
+     */
+    private void processBundle(Bundle bundle) {
+        synchronized (this) {
+            if (!started || !knownBundleIds.contains(bundle.getBundleId())) {
+                return;
+            }
+            addBundle(bundle);
+        }
+        notifySatisfiableComponents();
+    }
+
+    private void addBundle(Bundle bundle) {
+        unprocessedBundleIds.remove(bundle.getBundleId());
+        logger.debug("Processing the Carbon-Component header of bundle({}:{}) installed after the server startup",
+                bundle.getSymbolicName(), bundle.getVersion());
+
+        Map<String, List<ManifestElement>> groupedManifestElements =
+                StartupOrderResolverUtils.getManifestElements(bundle)
+                        .stream()
+                        .collect(Collectors.groupingBy(ManifestElement::getValue));
+        List<ManifestElement> serviceElements =
+                groupedManifestElements.getOrDefault(OSGI_SERVICE_COMPONENT, Collections.emptyList());
+
+        // 1) Startup components declared by the bundle.
+        List<StartupComponent> newComponents =
+                groupedManifestElements.getOrDefault(STARTUP_LISTENER_COMPONENT, Collections.emptyList())
+                        .stream()
+                        .map(StartupOrderResolverUtils::getStartupComponent)
+                        .filter(startupComponentManager::addStartupComponent)
+                        .collect(Collectors.toList());
+
+        // 2) OSGi services declared by the bundle.
+        List<OSGiServiceCapability> newCapabilities = serviceElements.stream()
+                .filter(capabilityProviderElementPredicate.negate().and(
+                        requiredCapabilityListenerElementPredicate.negate()))
+                .map(StartupOrderResolverUtils::getOSGiServiceCapabilities)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        newCapabilities.forEach(serviceCapability -> serviceCapability.getRequiredByComponentNames()
+                .forEach(componentName -> startupComponentManager.addRequiredOSGiServiceToComponent(componentName,
+                        serviceCapability.getName())));
+
+        // 3) The new components expect the services and the pending CapabilityProvider services declared by the
+        // already installed bundles. A CapabilityProvider of this bundle registered before its header was processed
+        // is pending as well, until it is matched with its declaration in the next step.
+        newComponents.forEach(startupComponent -> startupComponent.getRequiredServices()
+                .stream()
+                .distinct()
+                .forEach(service -> {
+                    declaredCapabilities.getOrDefault(service, Collections.emptyList()).forEach(declared ->
+                            startupComponent.addExpectedCapability(declared.capability, declared.count));
+                    declaredCapabilityProviders.getOrDefault(service, Collections.emptyList())
+                            .forEach(startupComponent::addExpectedOrAvailableCapabilityProvider);
+                }));
+
+        // 4) All the pending components expect the CapabilityProvider services declared by this bundle.
+        serviceElements.stream()
+                .filter(capabilityProviderElementPredicate)
+                .map(StartupOrderResolverUtils::getCapabilityProviderCapability)
+                .forEach(capabilityProvider -> {
+                    addCapabilityProvider(capabilityProvider);
+                    startupComponentManager.addExpectedOrAvailableCapabilityProvider(capabilityProvider);
+                });
+
+        // 5) All the pending components expect the services declared by this bundle.
+        newCapabilities.forEach(serviceCapability -> {
+            addDeclaredCapability(serviceCapability);
+            startupComponentManager.addExpectedCapability(serviceCapability);
+        });
+
+        // 6) Tracks the services required by the new components.
+        newComponents.forEach(this::openComponentTracker);
+    }
+
+    /**
+     * Removes the startup components and the capabilities declared by an uninstalled bundle. The pending components
+     * no longer wait for the capabilities of the bundle.
+     *
+     * @param bundle the uninstalled bundle
+     */
+    private void removeBundle(Bundle bundle) {
+        synchronized (this) {
+            startupComponentManager.removeStartupComponents(bundle).forEach(startupComponent -> {
+                ServiceTracker<Object, Object> tracker = componentTrackers.remove(startupComponent.getName());
+                if (tracker != null) {
+                    tracker.close();
+                }
+            });
+            startupComponentManager.removeCapabilities(bundle);
+            declaredCapabilities.values().forEach(capabilities ->
+                    capabilities.removeIf(declared -> bundle.equals(declared.capability.getBundle())));
+            declaredCapabilityProviders.values().forEach(capabilityProviders ->
+                    capabilityProviders.removeIf(capabilityProvider -> bundle.equals(capabilityProvider.getBundle())));
+        }
+        notifySatisfiableComponents();
+    }
+
+    private void openComponentTracker(StartupComponent startupComponent) {
+        StringBuilder filterBuilder = new StringBuilder("(|");
+        startupComponent.getRequiredServices().stream()
+                .distinct()
+                .forEach(service -> filterBuilder.append("(").append(OBJECT_CLASS).append("=").append(service)
+                        .append(")"));
+        filterBuilder.append("(&(").append(OBJECT_CLASS).append("=").append(RequiredCapabilityListener.class.getName())
+                .append(")(").append(COMPONENT_NAME).append("=").append(startupComponent.getName()).append(")))");
+
+        Filter filter;
+        try {
+            filter = bundleContext.createFilter(filterBuilder.toString());
+        } catch (InvalidSyntaxException e) {
+            throw new StartOrderResolverException("Error occurred while creating the service filter of startup " +
+                    "component " + startupComponent.getName(), e);
+        }
+
+        ServiceTracker<Object, Object> tracker = new ServiceTracker<>(bundleContext, filter,
+                new ComponentServiceTrackerCustomizer(startupComponent));
+        componentTrackers.put(startupComponent.getName(), tracker);
+        tracker.open();
+    }
+
+    /**
+     * Notifies the satisfiable startup components and stops tracking the services of the satisfied ones. The
+     * listeners are notified on the dispatcher thread after releasing the lock of this resolver.
+     */
+    private void notifySatisfiableComponents() {
+        List<StartupComponent> satisfiedComponents;
+        synchronized (this) {
+            if (!started) {
+                return;
+            }
+            satisfiedComponents = startupComponentManager.satisfyComponents();
+            satisfiedComponents.stream()
+                    .map(startupComponent -> componentTrackers.remove(startupComponent.getName()))
+                    .filter(Objects::nonNull)
+                    .forEach(ServiceTracker::close);
+        }
+        satisfiedComponents.forEach(StartupComponentManager::notifyCapabilityListener);
+    }
+
+    /**
+     * Runs a task on the dispatcher thread, unless this resolver is stopped.
+     *
+     * @param task the task to run
+     */
+    private void dispatch(Runnable task) {
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Error occurred in the continuous startup order resolver", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Continuous startup order resolver is stopped, ignoring the task", e);
+        }
+    }
+
+    /**
+     * Returns the startup components of this resolver matching the given filter.
+     *
+     * @param componentFilter the criteria to select the components
+     * @return the matching startup components
+     */
+    synchronized List<StartupComponent> getComponents(Predicate<StartupComponent> componentFilter) {
+        return startupComponentManager.getComponents(componentFilter);
+    }
+
+    /**
+     * Tracks the required services and the {@code RequiredCapabilityListener} of a single startup component.
+     */
+    private class ComponentServiceTrackerCustomizer implements ServiceTrackerCustomizer<Object, Object> {
+        private final StartupComponent startupComponent;
+
+        ComponentServiceTrackerCustomizer(StartupComponent startupComponent) {
+            this.startupComponent = startupComponent;
+        }
+
+        @Override
+        public Object addingService(ServiceReference<Object> reference) {
+            Object serviceObject = bundleContext.getService(reference);
+            if (serviceObject == null) {
+                return null;
+            }
+
+            synchronized (ContinuousStartupResolver.this) {
+                for (String serviceInterface : (String[]) reference.getProperty(OBJECT_CLASS)) {
+                    if (RequiredCapabilityListener.class.getName().equals(serviceInterface)) {
+                        startupComponentManager.addRequiredCapabilityListener(
+                                (RequiredCapabilityListener) serviceObject, startupComponent.getName(),
+                                reference.getBundle());
+                    } else if (startupComponent.isServiceRequired(serviceInterface)) {
+                        startupComponent.updateCapability(new OSGiServiceCapability(serviceInterface,
+                                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.AVAILABLE,
+                                reference.getBundle(), false));
+                    }
+                }
+            }
+            dispatch(ContinuousStartupResolver.this::notifySatisfiableComponents);
+            return serviceObject;
+        }
+
+        @Override
+        public void modifiedService(ServiceReference<Object> reference, Object service) {
+        }
+
+        @Override
+        public void removedService(ServiceReference<Object> reference, Object service) {
+            bundleContext.ungetService(reference);
+        }
+    }
+
+    /**
+     * Records the capabilities announced by the {@code CapabilityProvider} services, including the ones registered
+     * during the server startup.
+     */
+    private class CapabilityProviderTrackerCustomizer
+            implements ServiceTrackerCustomizer<CapabilityProvider, CapabilityProvider> {
+
+        @Override
+        public CapabilityProvider addingService(ServiceReference<CapabilityProvider> reference) {
+            Object capabilityName = reference.getProperty(CAPABILITY_NAME);
+            CapabilityProvider provider = bundleContext.getService(reference);
+            if (provider == null || !(capabilityName instanceof String) || ((String) capabilityName).trim().isEmpty()) {
+                return provider;
+            }
+
+            String name = ((String) capabilityName).trim();
+            Bundle bundle = reference.getBundle();
+            synchronized (ContinuousStartupResolver.this) {
+                CapabilityProviderCapability capabilityProvider = new CapabilityProviderCapability(
+                        CapabilityProvider.class.getName(), Capability.CapabilityType.OSGi_SERVICE,
+                        Capability.CapabilityState.AVAILABLE, name, bundle);
+                // A provider registered before the header of its bundle is processed is matched with its
+                // declaration once it is, the others only match the pending declarations.
+                if (unprocessedBundleIds.contains(bundle.getBundleId())) {
+                    addCapabilityProvider(capabilityProvider);
+                } else {
+                    matchCapabilityProvider(capabilityProvider);
+                }
+                startupComponentManager.addExpectedOrAvailableCapabilityProvider(capabilityProvider);
+                OSGiServiceCapability capability = new OSGiServiceCapability(name,
+                        Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED, bundle, true);
+                addDeclaredCapability(capability, provider.getCount());
+                startupComponentManager.addExpectedCapability(capability, provider.getCount());
+            }
+            dispatch(ContinuousStartupResolver.this::notifySatisfiableComponents);
+            return provider;
+        }
+
+        @Override
+        public void modifiedService(ServiceReference<CapabilityProvider> reference, CapabilityProvider service) {
+        }
+
+        @Override
+        public void removedService(ServiceReference<CapabilityProvider> reference, CapabilityProvider service) {
+            bundleContext.ungetService(reference);
+        }
+    }
+
+    /**
+     * A number of expected instances of an OSGi service capability declared by a bundle.
+     */
+    private static class DeclaredCapability {
+        private final Capability capability;
+        private final long count;
+
+        DeclaredCapability(Capability capability, long count) {
+            this.capability = capability;
+            this.count = count;
+        }
+    }
+}
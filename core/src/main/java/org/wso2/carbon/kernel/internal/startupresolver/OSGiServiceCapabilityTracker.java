@@ -36,7 +36,6 @@ import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.CAPABILITY_NAME;
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.COMPONENT_NAME;
@@ -161,14 +160,14 @@ class OSGiServiceCapabilityTracker {
                 startupComponentManager.addExpectedOrAvailableCapabilityProvider(capabilityProvider);
 
                 CapabilityProvider provider = (CapabilityProvider) serviceObject;
-                IntStream.range(0, provider.getCount())
-                        .forEach(count -> startupComponentManager.addExpectedCapability(
-                                new OSGiServiceCapability(
-                                        capabilityName.trim(),
-                                        Capability.CapabilityType.OSGi_SERVICE,
-                                        Capability.CapabilityState.EXPECTED,
-                                        bundle,
-                                        true)));
+                startupComponentManager.addExpectedCapability(
+                        new OSGiServiceCapability(
+                                capabilityName.trim(),
+                                Capability.CapabilityType.OSGi_SERVICE,
+                                Capability.CapabilityState.EXPECTED,
+                                bundle,
+                                true),
+                        provider.getCount());
             } else {
                 logger.debug("Updating indirect dependencies in components for interface={} via the implementation={}",
                         serviceInterfaceClassName, serviceImplClassName);
@@ -20,14 +20,18 @@ package org.wso2.carbon.kernel.internal.startupresolver;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.diagnostics.KernelEvents;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.CapabilityProviderCapability;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
 import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -42,14 +46,28 @@ class StartupComponentManager {
     // Key of this map is the component name
     private Map<String, StartupComponent> startupComponentMap = new HashMap<>();
 
+    // Components on the critical path of the previous server startup, notified before the other components.
+    private Set<String> priorityComponentNames = Collections.emptySet();
+
+    /**
+     * Sets the startup components whose RequiredCapabilityListeners are notified before the listeners of the other
+     * satisfiable components.
+     *
+     * @param priorityComponentNames names of the startup components
+     */
+    void setPriorityComponents(Set<String> priorityComponentNames) {
+        this.priorityComponentNames = priorityComponentNames;
+    }
+
     /**
      * Adds the given {@code StartupComponent}.
      * <p>
      * Add the StartupComponent to the startupComponentMap. Key is the componentName.
      *
      * @param startupComponent to be added.
+     * @return true if the component was added, false if a component with the same name already exists
      */
-    void addStartupComponent(StartupComponent startupComponent) {
+    boolean addStartupComponent(StartupComponent startupComponent) {
         String componentName = startupComponent.getName();
 
         if (startupComponentMap.get(componentName) != null) {
@@ -62,7 +80,7 @@ class StartupComponentManager {
                     startupComponent.getName(),
                     startupComponent.getBundle().getSymbolicName(),
                     startupComponent.getBundle().getVersion());
-            return;
+            return false;
         }
 
         if (logger.isDebugEnabled()) {
@@ -73,6 +91,29 @@ class StartupComponentManager {
         }
 
         startupComponentMap.put(componentName, startupComponent);
+        return true;
+    }
+
+    /**
+     * Removes the startup components declared by the given bundle.
+     *
+     * @param bundle the bundle whose components are removed
+     * @return the removed components
+     */
+    List<StartupComponent> removeStartupComponents(Bundle bundle) {
+        List<StartupComponent> removedComponents = getComponents(
+                startupComponent -> bundle.equals(startupComponent.getBundle()));
+        removedComponents.forEach(startupComponent -> startupComponentMap.remove(startupComponent.getName()));
+        return removedComponents;
+    }
+
+    /**
+     * Removes the capabilities declared by the given bundle from all the startup components.
+     *
+     * @param bundle the bundle whose capabilities are removed
+     */
+    void removeCapabilities(Bundle bundle) {
+        startupComponentMap.values().forEach(startupComponent -> startupComponent.removeCapabilities(bundle));
     }
 
     /**
@@ -159,6 +200,22 @@ class StartupComponentManager {
      * @param capability {@code Capability} instance
      */
     void addExpectedCapability(Capability capability) {
+        addExpectedCapability(capability, 1);
+    }
+
+    /**
+     * Adds {@code count} instances of an expected required capability, e.g. the capabilities announced by a
+     * {@code CapabilityProvider} OSGi service. The instances are registered with each startup component as a single
+     * counted entry.
+     *
+     * @param capability {@code Capability} instance
+     * @param count      number of expected instances of the capability
+     */
+    void addExpectedCapability(Capability capability, long count) {
+        if (count <= 0) {
+            return;
+        }
+
         startupComponentMap.values()
                 .stream()
                 .filter(startupComponent -> startupComponent.isServiceRequired(capability.getName()))
@@ -179,8 +236,9 @@ class StartupComponentManager {
                     }
 
                     if (logger.isDebugEnabled()) {
-                        logger.debug("Adding {} required capability {} from bundle({}:{}) to " +
+                        logger.debug("Adding {} {} required capability {} from bundle({}:{}) to " +
                                         "startup listener component {}.",
+                                count,
                                 (capability.getState() == Capability.CapabilityState.AVAILABLE) ?
                                         "available" : "expected",
                                 capability.getName(),
@@ -188,7 +246,7 @@ class StartupComponentManager {
                                 capability.getBundle().getVersion(),
                                 startupComponent.getName());
                     }
-                    startupComponent.addExpectedCapability(new Capability(capability));
+                    startupComponent.addExpectedCapability(capability, count);
                 });
 
     }
@@ -232,26 +290,49 @@ class StartupComponentManager {
     }
 
     void notifySatisfiableComponents() {
-        getComponents(StartupComponent::isSatisfiable)
-                .forEach(startupComponent -> {
+        satisfyComponents().forEach(StartupComponentManager::notifyCapabilityListener);
+    }
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Notifying RequiredCapabilityListener of component {} from bundle({}:{}) " +
-                                        "since all the required capabilities are available",
-                                startupComponent.getName(),
-                                startupComponent.getBundle().getSymbolicName(),
-                                startupComponent.getBundle().getVersion());
-                    }
+    /**
+     * Marks the satisfiable startup components as satisfied without notifying their listeners.
+     *
+     * @return the satisfied components in the order their listeners should be notified
+     */
+    List<StartupComponent> satisfyComponents() {
+        List<StartupComponent> satisfiedComponents = getComponents(StartupComponent::isSatisfiable)
+                .stream()
+                .sorted(Comparator.comparing(
+                        startupComponent -> !priorityComponentNames.contains(startupComponent.getName())))
+                .collect(Collectors.toList());
+        satisfiedComponents.forEach(startupComponent -> {
+            startupComponent.setSatisfied(true);
+            KernelEvents.startupComponentSatisfied(startupComponent.getName(), startupComponent.getBundle(),
+                    startupComponent.getWaitTime());
+        });
+        return satisfiedComponents;
+    }
 
-                    startupComponent.setSatisfied(true);
-                    RequiredCapabilityListener capabilityListener = startupComponent.getListener();
+    /**
+     * Notifies the {@code RequiredCapabilityListener} of a satisfied startup component.
+     *
+     * @param startupComponent the satisfied component
+     */
+    static void notifyCapabilityListener(StartupComponent startupComponent) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Notifying RequiredCapabilityListener of component {} from bundle({}:{}) " +
+                            "since all the required capabilities are available",
+                    startupComponent.getName(),
+                    startupComponent.getBundle().getSymbolicName(),
+                    startupComponent.getBundle().getVersion());
+        }
 
-                    try {
-                        capabilityListener.onAllRequiredCapabilitiesAvailable();
-                    } catch (RuntimeException e) {
-                        logger.error("Runtime Exception occurred while calling onAllRequiredCapabilitiesAvailable of "
-                                + "component " + startupComponent.getName(), e);
-                    }
-                });
+        RequiredCapabilityListener capabilityListener = startupComponent.getListener();
+        try {
+            KernelEvents.capabilityListenerCallback(startupComponent.getName(),
+                    startupComponent.getBundle(), capabilityListener::onAllRequiredCapabilitiesAvailable);
+        } catch (RuntimeException e) {
+            logger.error("Runtime Exception occurred while calling onAllRequiredCapabilitiesAvailable of "
+                    + "component " + startupComponent.getName(), e);
+        }
     }
 }
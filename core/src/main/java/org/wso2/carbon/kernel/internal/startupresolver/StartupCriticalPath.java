@@ -0,0 +1,219 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.wso2.carbon.kernel.internal.preload.ClassPreloadProfile;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The chain of startup components and capabilities which determined the duration of a server startup.
+ * <p>
+ * The chain starts from the startup component satisfied last. If the last required capability of a component became
+ * available after its {@code RequiredCapabilityListener}, the component waited for that capability, hence the chain
+ * continues with the startup component of the bundle which provided the capability. The chain is persisted at the end
+ * of each server startup, so that the next startup can give priority to the components and bundles on it.
+ *
+ * @since 5.2.0
+ */
+public class StartupCriticalPath {
+
+    static final String OSGI_CONFIGURATION_AREA = "osgi.configuration.area";
+    static final String PROFILE_DIRECTORY = "org.wso2.carbon.core";
+    static final String PROFILE_FILE = "startup-critical-path.properties";
+
+    private static final String STARTUP_TIME = "startupTime";
+    private static final String COMPONENTS = "components";
+    private static final String CAPABILITIES = "capabilities";
+    private static final String BUNDLES = "bundles";
+    private static final String SEPARATOR = ",";
+
+    private final long startupTime;
+    private final List<String> components;
+    private final List<String> capabilities;
+    private final Set<String> bundles;
+
+    StartupCriticalPath(long startupTime, List<String> components, List<String> capabilities, Set<String> bundles) {
+        this.startupTime = startupTime;
+        this.components = Collections.unmodifiableList(components);
+        this.capabilities = Collections.unmodifiableList(capabilities);
+        this.bundles = Collections.unmodifiableSet(bundles);
+    }
+
+    /**
+     * Finds the critical path of a completed server startup.
+     *
+     * @param startupComponents all the startup components of the server
+     * @param startupTime       duration of the server startup in milliseconds
+     * @return the critical path
+     */
+    static StartupCriticalPath of(Collection<StartupComponent> startupComponents, long startupTime) {
+        List<String> components = new ArrayList<>();
+        List<String> capabilities = new ArrayList<>();
+        Set<String> bundles = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+
+        StartupComponent current = startupComponents.stream()
+                .filter(StartupComponent::isSatisfied)
+                .max(Comparator.comparingLong(StartupComponent::getSatisfiedTime))
+                .orElse(null);
+        while (current != null && visited.add(current.getName())) {
+            components.add(0, current.getName());
+            bundles.add(ClassPreloadProfile.getBundleKey(current.getBundle()));
+
+            Capability capability = current.getLastAvailableCapability();
+            if (capability == null || capability.getBundle() == null ||
+                    current.getLastAvailableCapabilityTime() < current.getListenerTime()) {
+                // The component waited for its own RequiredCapabilityListener.
+                break;
+            }
+            capabilities.add(0, capability.getName());
+            bundles.add(ClassPreloadProfile.getBundleKey(capability.getBundle()));
+
+            // The component of the providing bundle, satisfied before the capability became available.
+            long capabilityTime = current.getLastAvailableCapabilityTime();
+            current = startupComponents.stream()
+                    .filter(StartupComponent::isSatisfied)
+                    .filter(component -> component.getBundle().equals(capability.getBundle()))
+                    .filter(component -> component.getSatisfiedTime() <= capabilityTime)
+                    .max(Comparator.comparingLong(StartupComponent::getSatisfiedTime))
+                    .orElse(null);
+        }
+        return new StartupCriticalPath(startupTime, components, capabilities, bundles);
+    }
+
+    /**
+     * @return duration of the server startup in milliseconds
+     */
+    public long getStartupTime() {
+        return startupTime;
+    }
+
+    /**
+     * @return names of the startup components on the critical path, in the order they were satisfied
+     */
+    public List<String> getComponents() {
+        return components;
+    }
+
+    /**
+     * @return names of the capabilities the startup components on the critical path waited for
+     */
+    public List<String> getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * @return keys, as returned by {@link ClassPreloadProfile#getBundleKey}, of the bundles of the components and
+     * capabilities on the critical path
+     */
+    public Set<String> getBundles() {
+        return bundles;
+    }
+
+    /**
+     * Writes the critical path to the given file.
+     *
+     * @param file critical path file
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(STARTUP_TIME, Long.toString(startupTime));
+        properties.setProperty(COMPONENTS, String.join(SEPARATOR, components));
+        properties.setProperty(CAPABILITIES, String.join(SEPARATOR, capabilities));
+        properties.setProperty(BUNDLES, String.join(SEPARATOR, bundles));
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Critical path of the last server startup");
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a critical path from the given file.
+     *
+     * @param file critical path file
+     * @return the critical path, or an empty Optional if the file does not exist or is not valid
+     * @throws IOException if the file cannot be read
+     */
+    public static Optional<StartupCriticalPath> read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return Optional.of(new StartupCriticalPath(Long.parseLong(properties.getProperty(STARTUP_TIME, "")),
+                    split(properties.getProperty(COMPONENTS)), split(properties.getProperty(CAPABILITIES)),
+                    new LinkedHashSet<>(split(properties.getProperty(BUNDLES)))));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the critical path file in the OSGi configuration area.
+     *
+     * @param configurationArea value of the osgi.configuration.area framework property
+     * @return the file, or an empty Optional if the configuration area is not available
+     */
+    public static Optional<Path> getFile(String configurationArea) {
+        if (configurationArea == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Paths.get(new URL(configurationArea).getPath()).resolve(PROFILE_DIRECTORY)
+                    .resolve(PROFILE_FILE));
+        } catch (MalformedURLException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(value.split(SEPARATOR)));
+    }
+}
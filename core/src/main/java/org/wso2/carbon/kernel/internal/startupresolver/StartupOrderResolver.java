@@ -26,17 +26,23 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
 import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
 import org.wso2.carbon.kernel.internal.CarbonStartupHandler;
+import org.wso2.carbon.kernel.internal.diagnostics.KernelEvents;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
 import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.capabilityProviderElementPredicate;
@@ -74,12 +80,22 @@ public class StartupOrderResolver {
 
     private OSGiServiceCapabilityTracker osgiServiceTracker;
 
-    private Timer capabilityListenerTimer = new Timer();
+    private static final String SCHEDULER_NAME = "CarbonStartupOrderResolver";
+    private static final String CONTINUOUS_RESOLVER_EXECUTOR_NAME = "CarbonContinuousStartupResolver";
 
-    private Timer pendingCapabilityTimer = new Timer();
+    private KernelExecutorService executorService;
+
+    // Runs the capability listener task and the pending capability task.
+    private ScheduledExecutorService scheduler;
 
     private CarbonRuntime carbonRuntime;
 
+    private ContinuousStartupResolver continuousStartupResolver;
+
+    private Path criticalPathFile;
+
+    private StartupCriticalPath previousCriticalPath;
+
     /**
      * Process Provide-Capability headers and populate a counter which keep all the expected service counts. Register
      * timers to track the service availability as well as pending service registrations.
@@ -94,12 +110,27 @@ public class StartupOrderResolver {
         try {
             logger.debug("Initialize - Startup Order Resolver.");
 
+            // Bundles installed from now on are handed over to the continuous resolver once the startup completes.
+            List<Bundle> bundles;
+            if (carbonRuntime.getConfiguration().getStartupResolverConfig().isContinuousMode()) {
+                continuousStartupResolver = new ContinuousStartupResolver(bundleContext,
+                        executorService.getExecutor(CONTINUOUS_RESOLVER_EXECUTOR_NAME, 1, Integer.MAX_VALUE));
+                bundles = continuousStartupResolver.open();
+            } else {
+                bundles = Arrays.asList(bundleContext.getBundles());
+            }
+
+            // Components on the critical path of the previous startup get their listeners notified first.
+            readCriticalPath(bundleContext);
+
             // 1) Process OSGi manifest headers to calculate the expected list required capabilities.
-            processManifestHeaders(Arrays.asList(bundleContext.getBundles()));
+            processManifestHeaders(bundles);
 
             // 2) Register capability trackers to get notified when required capabilities are available.
             startCapabilityTrackers();
 
+            scheduler = executorService.getScheduler(SCHEDULER_NAME, 2);
+
             // 3) Schedule a time task to check for startup components with zero pending required capabilities.
             scheduleCapabilityListenerTimer();
 
@@ -115,6 +146,13 @@ public class StartupOrderResolver {
     public void stop(BundleContext bundleContext) throws Exception {
         logger.debug("Deactivating startup resolver component available in bundle {}",
                 bundleContext.getBundle().getSymbolicName());
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (continuousStartupResolver != null) {
+            continuousStartupResolver.stop();
+            continuousStartupResolver = null;
+        }
     }
 
     @Reference(
@@ -132,6 +170,21 @@ public class StartupOrderResolver {
         this.carbonRuntime = null;
     }
 
+    @Reference(
+            name = "carbon.startup.order.resolver.executor.service",
+            service = KernelExecutorService.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.STATIC,
+            unbind = "unregisterExecutorService"
+    )
+    protected void registerExecutorService(KernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    protected void unregisterExecutorService(KernelExecutorService executorService) {
+        this.executorService = null;
+    }
+
     /**
      * Process supported manifest headers (Startup-Component and Provide-Capability).
      * <p>
@@ -178,24 +231,34 @@ public class StartupOrderResolver {
         long capabilityListenerTimerPeriod = carbonConfiguration.getStartupResolverConfig().
                 getCapabilityListenerTimer().getPeriod();
 
-        capabilityListenerTimer.scheduleAtFixedRate(new TimerTask() {
+        scheduler.scheduleAtFixedRate(new Runnable() {
 
             @Override
             public void run() {
                 synchronized (StartupComponentManager.class) {
+                    if (startupComponentManager == null) {
+                        return;
+                    }
+
                     if (startupComponentManager.getComponents(StartupComponent::isPending).size() == 0) {
                         startupComponentManager.notifySatisfiableComponents();
 
-                        logger.debug("All the StartupComponents are satisfied. Cancelling the capabilityListenerTimer");
+                        logger.debug("All the StartupComponents are satisfied. Shutting down the scheduler of the " +
+                                "capability listener and pending capability tasks");
 
                         CarbonStartupHandler.logServerStartupTime(carbonConfiguration.getName());
+                        writeCriticalPath(CarbonStartupHandler.getServerStartupTime());
                         CarbonStartupHandler.registerCarbonServerInfoService();
 
-                        capabilityListenerTimer.cancel();
-                        capabilityListenerTimer = null;
+                        // Cancels both periodic tasks.
+                        scheduler.shutdown();
                         startupComponentManager = null;
                         stopCapabilityTrackers();
 
+                        if (continuousStartupResolver != null) {
+                            continuousStartupResolver.start();
+                        }
+
                         logger.debug("Complete - Startup Order Resolver.");
                         return;
                     }
@@ -203,7 +266,56 @@ public class StartupOrderResolver {
 
                 startupComponentManager.notifySatisfiableComponents();
             }
-        }, capabilityListenerTimerDelay, capabilityListenerTimerPeriod);
+        }, capabilityListenerTimerDelay, capabilityListenerTimerPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the critical path of the previous server startup and gives priority to its startup components.
+     */
+    private void readCriticalPath(BundleContext bundleContext) {
+        criticalPathFile = StartupCriticalPath.getFile(
+                bundleContext.getProperty(StartupCriticalPath.OSGI_CONFIGURATION_AREA)).orElse(null);
+        if (criticalPathFile == null) {
+            return;
+        }
+
+        try {
+            previousCriticalPath = StartupCriticalPath.read(criticalPathFile).orElse(null);
+        } catch (IOException e) {
+            logger.warn("Unable to read the startup critical path " + criticalPathFile, e);
+        }
+        if (previousCriticalPath != null) {
+            logger.debug("Prioritizing startup components {} on the critical path of the previous startup",
+                    previousCriticalPath.getComponents());
+            startupComponentManager.setPriorityComponents(new HashSet<>(previousCriticalPath.getComponents()));
+        }
+    }
+
+    /**
+     * Writes the critical path of this server startup and reports the startup time against the previous startup.
+     *
+     * @param startupTime startup time of this server startup in milliseconds
+     */
+    private void writeCriticalPath(long startupTime) {
+        if (criticalPathFile == null) {
+            return;
+        }
+
+        StartupCriticalPath criticalPath = StartupCriticalPath.of(
+                startupComponentManager.getComponents(startupComponent -> true), startupTime);
+        if (previousCriticalPath != null) {
+            long timeSaved = previousCriticalPath.getStartupTime() - startupTime;
+            logger.info("Server startup took {} ms, {} ms {} than the previous startup. Critical path: {}",
+                    startupTime, Math.abs(timeSaved), timeSaved >= 0 ? "less" : "more", criticalPath.getComponents());
+        } else {
+            logger.debug("Startup critical path: {}", criticalPath.getComponents());
+        }
+
+        try {
+            criticalPath.write(criticalPathFile);
+        } catch (IOException e) {
+            logger.warn("Unable to write the startup critical path " + criticalPathFile, e);
+        }
     }
 
     private void schedulePendingCapabilityTimerTask() {
@@ -213,16 +325,13 @@ public class StartupOrderResolver {
         long pendingCapabilityTimerPeriod = carbonConfiguration.getStartupResolverConfig().
                 getPendingCapabilityTimer().getPeriod();
 
-        pendingCapabilityTimer.scheduleAtFixedRate(new TimerTask() {
+        scheduler.scheduleAtFixedRate(new Runnable() {
 
             @Override
             public void run() {
                 synchronized (StartupComponentManager.class) {
                     if (startupComponentManager == null) {
-                        logger.debug("StartupComponentManager is already disabled, therefore cancelling " +
-                                "the pendingCapabilityTimer");
-                        pendingCapabilityTimer.cancel();
-                        pendingCapabilityTimer = null;
+                        logger.debug("StartupComponentManager is already disabled");
                         return;
                     }
 
@@ -230,15 +339,20 @@ public class StartupOrderResolver {
                             startupComponentManager.getComponents(StartupComponent::isPending);
 
                     if (pendingComponents.size() == 0) {
-                        logger.debug("All the RequiredCapabilityListeners are notified, " +
-                                "therefore cancelling the pendingCapabilityTimer");
-                        pendingCapabilityTimer.cancel();
-                        pendingCapabilityTimer = null;
+                        // The capability listener task completes the startup and shuts down the scheduler.
+                        logger.debug("All the RequiredCapabilityListeners are notified");
                         return;
                     }
 
                     // Report pending startup component details.
                     logPendingComponentDetails(logger, pendingComponents);
+                    pendingComponents.forEach(startupComponent -> KernelEvents.startupComponentPending(
+                            startupComponent.getName(), startupComponent.getBundle(),
+                            startupComponent.getPendingCapabilities().stream()
+                                    .map(Capability::getName)
+                                    .distinct()
+                                    .collect(Collectors.joining(", ")),
+                            startupComponent.getWaitTime()));
 
 
                     // Report pending RequiredCapabilityListener details.
@@ -251,7 +365,7 @@ public class StartupOrderResolver {
                             startupComponentManager.getPendingCapabilityProviders());
                 }
             }
-        }, pendingCapabilityTimerDelay, pendingCapabilityTimerPeriod);
+        }, pendingCapabilityTimerDelay, pendingCapabilityTimerPeriod, TimeUnit.MILLISECONDS);
     }
 
     private void processServiceComponents(Map<String, List<ManifestElement>> groupedManifestElements) {
@@ -286,6 +400,9 @@ public class StartupOrderResolver {
                     }
 
                     startupComponentManager.addExpectedCapability(serviceCapability);
+                    if (continuousStartupResolver != null) {
+                        continuousStartupResolver.addDeclaredCapability(serviceCapability);
+                    }
                 });
     }
 
@@ -296,7 +413,12 @@ public class StartupOrderResolver {
         manifestElementList.stream()
                 .filter(capabilityProviderElementPredicate)
                 .map(StartupOrderResolverUtils::getCapabilityProviderCapability)
-                .forEach(startupComponentManager::addExpectedOrAvailableCapabilityProvider);
+                .forEach(capabilityProvider -> {
+                    startupComponentManager.addExpectedOrAvailableCapabilityProvider(capabilityProvider);
+                    if (continuousStartupResolver != null) {
+                        continuousStartupResolver.addDeclaredCapabilityProvider(capabilityProvider);
+                    }
+                });
     }
 
     /**
@@ -41,6 +41,9 @@ public class StartupServiceCache {
      */
     private Map<String, Map<String, Long>> componentMap = new HashMap<>();
 
+    // Notified after every update, used by the continuous startup order resolution.
+    private volatile Runnable updateListener;
+
     public static StartupServiceCache getInstance() {
         return serviceCacheInstance;
     }
@@ -55,8 +58,31 @@ public class StartupServiceCache {
      * @param interfaceName name of the OSGi service interface
      */
     public void update(String componentName, Class interfaceName) {
-        logger.debug("Updating StartupServiceCache, componentName={}, interfaceName={}.",
-                componentName, interfaceName.getName());
+        update(componentName, interfaceName, 1);
+    }
+
+    /**
+     * This method updates the StartupServiceCache with {@code count} instances of the given OSGi service.
+     *
+     * @param componentName name of the reporting component
+     * @param interfaceName name of the OSGi service interface
+     * @param count         number of service instances received by the component
+     */
+    public void update(String componentName, Class interfaceName, long count) {
+        update(componentName, Collections.singletonMap(interfaceName.getName(), count));
+    }
+
+    /**
+     * This method updates the StartupServiceCache with a batch of OSGi services received by a component. The whole
+     * batch is applied under a single lock and the update listener is run once.
+     *
+     * @param componentName name of the reporting component
+     * @param serviceCounts number of service instances received by the component against the OSGi service interface
+     *                      name
+     */
+    public void update(String componentName, Map<String, Long> serviceCounts) {
+        logger.debug("Updating StartupServiceCache, componentName={}, serviceCounts={}.",
+                componentName, serviceCounts);
 
         synchronized (componentMap) {
             Map<String, Long> componentServicesMap = componentMap.get(componentName);
@@ -66,16 +92,26 @@ public class StartupServiceCache {
                 componentMap.put(componentName, componentServicesMap);
             }
 
-            Long serviceCount = componentServicesMap.get(interfaceName.getName());
-            if (serviceCount == null) {
-                logger.debug("Creating a Service Instance List for interface {} in component {}",
-                        interfaceName, componentName);
-                serviceCount = 1L;
-            } else {
-                serviceCount++;
+            for (Map.Entry<String, Long> serviceCount : serviceCounts.entrySet()) {
+                if (serviceCount.getValue() > 0) {
+                    componentServicesMap.merge(serviceCount.getKey(), serviceCount.getValue(), Long::sum);
+                }
             }
-            componentServicesMap.put(interfaceName.getName(), serviceCount);
         }
+
+        Runnable listener = updateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Sets the listener which is run after every update of the cache.
+     *
+     * @param updateListener the listener, or null to remove the current listener
+     */
+    void setUpdateListener(Runnable updateListener) {
+        this.updateListener = updateListener;
     }
 
     /**
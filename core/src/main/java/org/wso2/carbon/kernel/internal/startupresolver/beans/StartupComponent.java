@@ -23,11 +23,11 @@ import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * {@code StartupComponent} Represents an entity which needs to hold its initialization until all the required
@@ -55,9 +55,11 @@ public class StartupComponent {
     private List<String> requiredServiceList = new ArrayList<>();
 
     /**
-     * List of expected capabilities.
+     * Expected capabilities by the capability name. Capabilities with the same bundle, state and dependency type
+     * are kept as a single counted entry, so that a {@code CapabilityProvider} with a large count costs a single
+     * entry.
      */
-    private final List<Capability> expectedCapabilityList = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, List<CapabilityCount>> expectedCapabilityMap = new HashMap<>();
 
     /**
      * RequiredCapabilityListener service instance.
@@ -79,6 +81,27 @@ public class StartupComponent {
      */
     private boolean satisfied = false;
 
+    /**
+     * Time at which this startup listener component was declared.
+     */
+    private final long creationTime = System.currentTimeMillis();
+
+    /**
+     * Time at which this startup listener component was satisfied.
+     */
+    private long satisfiedTime;
+
+    /**
+     * Time at which the RequiredCapabilityListener service became available.
+     */
+    private long listenerTime;
+
+    /**
+     * The last required capability which became available, used to find the startup critical path.
+     */
+    private Capability lastAvailableCapability;
+    private long lastAvailableCapabilityTime;
+
     /**
      * Constructor to create a {@code StartupComponent} instance.
      *
@@ -99,6 +122,15 @@ public class StartupComponent {
         return name;
     }
 
+    /**
+     * Time this startup listener component has been waiting since it was declared.
+     *
+     * @return the wait time in milliseconds.
+     */
+    public long getWaitTime() {
+        return System.currentTimeMillis() - creationTime;
+    }
+
     /**
      * Returns the required OSGi services lists of this component.
      *
@@ -123,66 +155,115 @@ public class StartupComponent {
     /**
      * Register {@code Capability} instances with this startup listener component.
      * <p>
-     * Adds the given {@code Capability} to the {@code expectedCapabilityList}
+     * Adds the given {@code Capability} to the expected capabilities.
      *
      * @param capability {@code Capability} object to be registered with this startup listener component.
      */
     public void addExpectedCapability(Capability capability) {
-        synchronized (expectedCapabilityList) {
-            Capability expectedCapability = expectedCapabilityList.stream()
-                    .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                    .filter(expCapability -> !expCapability.isSecondCheck()
-                            && expCapability.getState() == Capability.CapabilityState.AVAILABLE)
-                    .findFirst().orElse(null);
-
-            if (expectedCapability != null) {
-                expectedCapability.setSecondCheck(true);
-                expectedCapability.setDirectDependency(capability.isDirectDependency());
-            } else {
-                expectedCapabilityList.add(capability);
+        addExpectedCapability(capability, 1);
+    }
+
+    /**
+     * Register {@code count} instances of the given {@code Capability} with this startup listener component.
+     * <p>
+     * The instances are first matched against the available capabilities which are not yet matched with an expected
+     * capability. The remaining instances are added to the expected capabilities as a single counted entry.
+     *
+     * @param capability {@code Capability} object to be registered with this startup listener component.
+     * @param count      number of instances of the capability.
+     */
+    public void addExpectedCapability(Capability capability, long count) {
+        synchronized (expectedCapabilityMap) {
+            List<CapabilityCount> capabilityCounts = getCapabilityCounts(capability.getName());
+            long remainingCount = count;
+            while (remainingCount > 0) {
+                CapabilityCount availableCount = capabilityCounts.stream()
+                        .filter(capCount -> !capCount.capability.isSecondCheck()
+                                && capCount.capability.getState() == Capability.CapabilityState.AVAILABLE)
+                        .findFirst().orElse(null);
+                if (availableCount == null) {
+                    break;
+                }
+
+                long matchedCount = Math.min(remainingCount, availableCount.count);
+                removeCapability(capabilityCounts, availableCount, matchedCount);
+                addCapability(capabilityCounts, availableCount.capability, Capability.CapabilityState.AVAILABLE,
+                        capability.isDirectDependency(), true, matchedCount);
+                remainingCount -= matchedCount;
+            }
+
+            if (remainingCount > 0) {
+                addCapability(capabilityCounts, capability, capability.getState(), capability.isDirectDependency(),
+                        capability.isSecondCheck(), remainingCount);
             }
         }
     }
 
     /**
-     * This method updates the capability in the expected capability list.
+     * This method updates the capability in the expected capabilities.
      *
-     * If a corresponding capability is found in the expectedCapabilityList, then the existing capability is updated,
-     * or the new capability is added to the expectedCapabilityList otherwise.
+     * If a corresponding capability is found in the expected capabilities, then the existing capability is updated,
+     * or the new capability is added to the expected capabilities otherwise.
      *
      * @param capability the capability to be updated
      */
     public void updateCapability(Capability capability) {
-        synchronized (expectedCapabilityList) {
+        synchronized (expectedCapabilityMap) {
+            if (capability.getState() == Capability.CapabilityState.AVAILABLE) {
+                lastAvailableCapability = capability;
+                lastAvailableCapabilityTime = System.currentTimeMillis();
+            }
+
+            List<CapabilityCount> capabilityCounts = getCapabilityCounts(capability.getName());
             if (capability.getState() == Capability.CapabilityState.EXPECTED) {
-                Optional<Capability> optCapability = expectedCapabilityList.stream()
-                        .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                        .filter(expCapability -> expCapability.getState() == Capability.CapabilityState.AVAILABLE)
-                        .filter(expCapability -> !expCapability.isSecondCheck())
+                Optional<CapabilityCount> optCapabilityCount = capabilityCounts.stream()
+                        .filter(capCount -> capCount.capability.getState() == Capability.CapabilityState.AVAILABLE)
+                        .filter(capCount -> !capCount.capability.isSecondCheck())
                         .findFirst();
 
-                if (optCapability.isPresent()) {
-                    optCapability.get().setSecondCheck(true);
+                if (optCapabilityCount.isPresent()) {
+                    Capability matched = optCapabilityCount.get().capability;
+                    removeCapability(capabilityCounts, optCapabilityCount.get(), 1);
+                    addCapability(capabilityCounts, matched, Capability.CapabilityState.AVAILABLE,
+                            matched.isDirectDependency(), true, 1);
                 } else {
-                    expectedCapabilityList.add(capability);
+                    addCapability(capabilityCounts, capability, capability.getState(),
+                            capability.isDirectDependency(), capability.isSecondCheck(), 1);
                 }
             } else {
                 // if Capability.CapabilityState.AVAILABLE
-                Optional<Capability> optCapability = expectedCapabilityList.stream()
-                        .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                        .filter(expCapability -> expCapability.getState() == Capability.CapabilityState.EXPECTED)
+                Optional<CapabilityCount> optCapabilityCount = capabilityCounts.stream()
+                        .filter(capCount -> capCount.capability.getState() == Capability.CapabilityState.EXPECTED)
                         .findFirst();
 
-                if (optCapability.isPresent()) {
-                    optCapability.get().setState(Capability.CapabilityState.AVAILABLE);
-                    optCapability.get().setSecondCheck(true);
+                if (optCapabilityCount.isPresent()) {
+                    Capability matched = optCapabilityCount.get().capability;
+                    removeCapability(capabilityCounts, optCapabilityCount.get(), 1);
+                    addCapability(capabilityCounts, matched, Capability.CapabilityState.AVAILABLE,
+                            matched.isDirectDependency(), true, 1);
                 } else {
-                    expectedCapabilityList.add(capability);
+                    addCapability(capabilityCounts, capability, capability.getState(),
+                            capability.isDirectDependency(), capability.isSecondCheck(), 1);
                 }
             }
         }
     }
 
+    /**
+     * Removes the capabilities and the pending {@code CapabilityProvider} services declared by the given bundle,
+     * e.g. once the bundle is uninstalled and will never register them.
+     *
+     * @param capabilityBundle the bundle which declared the capabilities
+     */
+    public void removeCapabilities(Bundle capabilityBundle) {
+        synchronized (expectedCapabilityMap) {
+            expectedCapabilityMap.values().forEach(capabilityCounts -> capabilityCounts.removeIf(
+                    capCount -> Objects.equals(capCount.capability.getBundle(), capabilityBundle)));
+        }
+        pendingCapabilityProviderList.removeIf(
+                capabilityProvider -> Objects.equals(capabilityProvider.getBundle(), capabilityBundle));
+    }
+
     /**
      * Returns all the pending capabilities of this startup listener component. There could capabilities
      * in both AVAILABLE and EXPECTED state.
@@ -197,33 +278,29 @@ public class StartupComponent {
      * 1. all the direct dependencies
      * 2. all the indirect dependencies at EXPECTED state.
      *
+     * Capabilities with the same name, bundle and state are counted, hence returned only once.
+     *
      * @return the list of pending capabilities.
      */
     public List<Capability> getPendingCapabilities() {
         Map<String, Long> availableServiceCounts = StartupServiceCache.getInstance().getAvailableService(name);
 
-        synchronized (expectedCapabilityList) {
-            Map<String, Long> expectedServiceCounts = expectedCapabilityList.stream()
-                    .filter(expCapability -> expCapability.isDirectDependency()
-                            || (!expCapability.isDirectDependency()
-                            && expCapability.getState() == Capability.CapabilityState.EXPECTED))
-                    .map(expCapability -> expCapability.getName())
-                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-            availableServiceCounts.forEach((s, aLong) -> {
-                Long eCount = expectedServiceCounts.get(s);
-                if (eCount != null && aLong >= eCount) {
-                    expectedServiceCounts.remove(s);
+        synchronized (expectedCapabilityMap) {
+            List<Capability> pendingCapabilities = new ArrayList<>();
+            expectedCapabilityMap.forEach((capabilityName, capabilityCounts) -> {
+                long expectedCount = capabilityCounts.stream()
+                        .filter(capCount -> capCount.capability.isDirectDependency()
+                                || capCount.capability.getState() == Capability.CapabilityState.EXPECTED)
+                        .mapToLong(capCount -> capCount.count)
+                        .sum();
+                Long availableCount = availableServiceCounts.get(capabilityName);
+                if (expectedCount == 0 || (availableCount != null && availableCount >= expectedCount)) {
+                    return;
                 }
-            });
 
-            if (expectedServiceCounts.isEmpty()) {
-                return Collections.emptyList();
-            } else {
-                return expectedCapabilityList.stream()
-                        .filter(expCapability -> expectedServiceCounts.keySet().contains(expCapability.getName()))
-                        .collect(Collectors.toList());
-            }
+                capabilityCounts.forEach(capCount -> pendingCapabilities.add(capCount.capability));
+            });
+            return pendingCapabilities;
         }
     }
 
@@ -233,6 +310,25 @@ public class StartupComponent {
 
     public void setListener(RequiredCapabilityListener listener) {
         this.listener = listener;
+        this.listenerTime = System.currentTimeMillis();
+    }
+
+    public long getListenerTime() {
+        return listenerTime;
+    }
+
+    /**
+     * Returns the last required capability which became available. If this capability became available after the
+     * RequiredCapabilityListener, it is the capability this component waited for the longest.
+     *
+     * @return the capability, or null if no required capability became available
+     */
+    public Capability getLastAvailableCapability() {
+        return lastAvailableCapability;
+    }
+
+    public long getLastAvailableCapabilityTime() {
+        return lastAvailableCapabilityTime;
     }
 
     public void addExpectedOrAvailableCapabilityProvider(CapabilityProviderCapability capabilityProvider) {
@@ -257,6 +353,14 @@ public class StartupComponent {
 
     public void setSatisfied(boolean satisfied) {
         this.satisfied = satisfied;
+        this.satisfiedTime = satisfied ? System.currentTimeMillis() : 0;
+    }
+
+    /**
+     * @return time at which this component was satisfied, 0 if it is not satisfied yet
+     */
+    public long getSatisfiedTime() {
+        return satisfiedTime;
     }
 
     /**
@@ -290,6 +394,38 @@ public class StartupComponent {
         return !satisfied;
     }
 
+    private List<CapabilityCount> getCapabilityCounts(String capabilityName) {
+        return expectedCapabilityMap.computeIfAbsent(capabilityName, key -> new ArrayList<>());
+    }
+
+    private static void addCapability(List<CapabilityCount> capabilityCounts, Capability capability,
+                                      Capability.CapabilityState state, boolean directDependency,
+                                      boolean secondCheck, long count) {
+        CapabilityCount existingCount = capabilityCounts.stream()
+                .filter(capCount -> capCount.capability.getState() == state
+                        && capCount.capability.isDirectDependency() == directDependency
+                        && capCount.capability.isSecondCheck() == secondCheck
+                        && Objects.equals(capCount.capability.getBundle(), capability.getBundle()))
+                .findFirst().orElse(null);
+
+        if (existingCount != null) {
+            existingCount.count += count;
+        } else {
+            Capability countedCapability = new Capability(capability.getName(), capability.getType(), state,
+                    capability.getBundle(), directDependency);
+            countedCapability.setSecondCheck(secondCheck);
+            capabilityCounts.add(new CapabilityCount(countedCapability, count));
+        }
+    }
+
+    private static void removeCapability(List<CapabilityCount> capabilityCounts, CapabilityCount capabilityCount,
+                                         long count) {
+        capabilityCount.count -= count;
+        if (capabilityCount.count <= 0) {
+            capabilityCounts.remove(capabilityCount);
+        }
+    }
+
     /**
      * Checks whether the given components is equal to this component.
      * <p>
@@ -311,4 +447,17 @@ public class StartupComponent {
         assert false;
         return 10;
     }
+
+    /**
+     * A number of instances of a capability with the same name, bundle, state and dependency type.
+     */
+    private static class CapabilityCount {
+        private final Capability capability;
+        private long count;
+
+        CapabilityCount(Capability capability, long count) {
+            this.capability = capability;
+            this.count = count;
+        }
+    }
 }
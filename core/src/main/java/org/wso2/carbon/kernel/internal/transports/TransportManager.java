@@ -0,0 +1,257 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.transports;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.config.model.TransportsConfig;
+import org.wso2.carbon.kernel.transports.CarbonTransport;
+import org.wso2.carbon.kernel.transports.TransportState;
+import org.wso2.carbon.utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Manages the lifecycle of the transports registered with the kernel. Applies the port offset of the server to each
+ * transport, optionally binds their listening ports as soon as they are registered and starts them in parallel.
+ * Registered as the org.wso2.carbon:type=TransportManager MBean.
+ *
+ * @since 5.2.0
+ */
+public class TransportManager implements TransportManagerMBean {
+    private static final Logger logger = LoggerFactory.getLogger(TransportManager.class);
+
+    static final String STARTUP_EXECUTOR_NAME = "CarbonTransportStartup";
+
+    private static final String[] ITEM_NAMES;
+    private static final CompositeType TRANSPORT_TYPE;
+    private static final TabularType TRANSPORTS_TYPE;
+
+    static {
+        try {
+            Map<String, OpenType<?>> items = new LinkedHashMap<>();
+            items.put("id", SimpleType.STRING);
+            items.put("state", SimpleType.STRING);
+            items.put("port", SimpleType.INTEGER);
+            items.put("startLatency", SimpleType.LONG);
+
+            ITEM_NAMES = items.keySet().toArray(new String[items.size()]);
+            TRANSPORT_TYPE = new CompositeType("CarbonTransport", "State of a transport", ITEM_NAMES, ITEM_NAMES,
+                    items.values().toArray(new OpenType<?>[items.size()]));
+            TRANSPORTS_TYPE = new TabularType("CarbonTransports", "State of the transports", TRANSPORT_TYPE,
+                    new String[]{"id"});
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, CarbonTransport> transports = new ConcurrentHashMap<>();
+    private final KernelExecutorService executorService;
+    private final TransportsConfig transportsConfig;
+    private final int portOffset;
+
+    // Transports registered once all the transports have been started are started on registration.
+    private volatile boolean started;
+
+    public TransportManager(KernelExecutorService executorService, TransportsConfig transportsConfig,
+                            int portOffset) {
+        this.executorService = executorService;
+        this.transportsConfig = transportsConfig;
+        this.portOffset = portOffset;
+    }
+
+    /**
+     * Registers a transport, applies the port offset of the server to it and binds its listening port if port
+     * pre-binding is enabled.
+     *
+     * @param transport the transport
+     */
+    public void registerTransport(CarbonTransport transport) {
+        transport.setPortOffset(portOffset);
+        if (transportsConfig.isPreBindPorts() && transport.isPreBindable() && transport.getPort() >= 0) {
+            try {
+                transport.preBind(transportsConfig.getAcceptBacklog());
+                logger.debug("Bound port {} of transport {} ahead of its start", transport.getPort(),
+                        transport.getId());
+            } catch (IOException e) {
+                logger.warn("Unable to bind port " + transport.getPort() + " of transport " + transport.getId() +
+                        " ahead of its start", e);
+            }
+        }
+        transports.put(transport.getId(), transport);
+
+        if (started) {
+            start(Collections.singletonList(transport));
+        }
+    }
+
+    /**
+     * Unregisters a transport and releases its pre-bound listening port if it has not been started.
+     *
+     * @param transport the transport
+     */
+    public void unregisterTransport(CarbonTransport transport) {
+        transports.remove(transport.getId(), transport);
+        transport.release();
+    }
+
+    /**
+     * @return the registered transports
+     */
+    public Collection<CarbonTransport> getTransportList() {
+        return Collections.unmodifiableCollection(transports.values());
+    }
+
+    @Override
+    public TabularData getTransports() {
+        TabularDataSupport transportData = new TabularDataSupport(TRANSPORTS_TYPE);
+        try {
+            for (CarbonTransport transport : transports.values()) {
+                transportData.put(new CompositeDataSupport(TRANSPORT_TYPE, ITEM_NAMES, new Object[]{
+                        transport.getId(), transport.getState().name(), transport.getPort(),
+                        transport.getStartLatency()}));
+            }
+        } catch (OpenDataException e) {
+            throw new IllegalStateException("Error occurred while creating the transport data", e);
+        }
+        return transportData;
+    }
+
+    @Override
+    public void startTransport(String transportId) {
+        Utils.checkSecurity();
+        CarbonTransport transport = getTransport(transportId);
+        transport.startTransport();
+        logger.info("Started transport {} in {} ms", transportId, transport.getStartLatency());
+    }
+
+    @Override
+    public void stopTransport(String transportId) {
+        Utils.checkSecurity();
+        getTransport(transportId).stopTransport();
+        logger.info("Stopped transport {}", transportId);
+    }
+
+    @Override
+    public void startTransports() {
+        Utils.checkSecurity();
+        start(new ArrayList<>(transports.values()));
+        started = true;
+        // Transports registered while the others were starting are not started on registration, e.g. the ones
+        // registered by a starting transport. The transports registered from now on are.
+        start(new ArrayList<>(transports.values()));
+    }
+
+    @Override
+    public void stopTransports() {
+        Utils.checkSecurity();
+        started = false;
+        transports.values().stream()
+                .filter(transport -> transport.getState() == TransportState.STARTED ||
+                        transport.getState() == TransportState.IN_MAINTENANCE)
+                .forEach(transport -> {
+                    try {
+                        transport.stopTransport();
+                    } catch (RuntimeException e) {
+                        logger.error("Error while stopping transport " + transport.getId(), e);
+                    }
+                });
+    }
+
+    @Override
+    public void beginMaintenance() {
+        Utils.checkSecurity();
+        transports.values().stream()
+                .filter(transport -> transport.getState() == TransportState.STARTED)
+                .forEach(CarbonTransport::beginTransportMaintenance);
+    }
+
+    @Override
+    public void endMaintenance() {
+        Utils.checkSecurity();
+        transports.values().stream()
+                .filter(transport -> transport.getState() == TransportState.IN_MAINTENANCE)
+                .forEach(CarbonTransport::endTransportMaintenance);
+    }
+
+    /**
+     * Starts the given transports which are not started yet in parallel, and waits until all of them are started.
+     */
+    private synchronized void start(List<CarbonTransport> transports) {
+        List<CarbonTransport> transportList = transports.stream()
+                .filter(transport -> transport.getState() != TransportState.STARTED &&
+                        transport.getState() != TransportState.IN_MAINTENANCE)
+                .collect(Collectors.toList());
+        if (transportList.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = executorService.getExecutor(STARTUP_EXECUTOR_NAME,
+                Math.max(1, Math.min(transportsConfig.getStartupThreads(), transportList.size())),
+                transportList.size());
+        List<Future<?>> futures = new ArrayList<>(transportList.size());
+        try {
+            transportList.forEach(transport -> futures.add(executor.submit(transport::startTransport)));
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < transportList.size(); i++) {
+            CarbonTransport transport = transportList.get(i);
+            try {
+                futures.get(i).get();
+                logger.debug("Started transport {} on port {} in {} ms", transport.getId(), transport.getPort(),
+                        transport.getStartLatency());
+            } catch (ExecutionException e) {
+                logger.error("Error while starting transport " + transport.getId(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while starting the transports");
+                return;
+            }
+        }
+        logger.info("Started {} transports in {} ms", transportList.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private CarbonTransport getTransport(String transportId) {
+        CarbonTransport transport = transports.get(transportId);
+        if (transport == null) {
+            throw new IllegalArgumentException("Transport " + transportId + " is not registered");
+        }
+        return transport;
+    }
+}
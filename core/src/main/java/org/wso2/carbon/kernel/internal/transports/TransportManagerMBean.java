@@ -0,0 +1,65 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.transports;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * MBean interface for managing the transports registered with the kernel.
+ *
+ * @since 5.2.0
+ */
+public interface TransportManagerMBean {
+
+    /**
+     * @return state, effective port and start latency in milliseconds of the transports, indexed by the transport id
+     */
+    TabularData getTransports();
+
+    /**
+     * Starts the given transport.
+     *
+     * @param transportId id of the transport
+     */
+    void startTransport(String transportId);
+
+    /**
+     * Stops the given transport.
+     *
+     * @param transportId id of the transport
+     */
+    void stopTransport(String transportId);
+
+    /**
+     * Starts all the transports which are not running, in parallel.
+     */
+    void startTransports();
+
+    /**
+     * Stops all the running transports.
+     */
+    void stopTransports();
+
+    /**
+     * Puts all the started transports into maintenance mode.
+     */
+    void beginMaintenance();
+
+    /**
+     * Takes all the transports in maintenance mode out of it.
+     */
+    void endMaintenance();
+}
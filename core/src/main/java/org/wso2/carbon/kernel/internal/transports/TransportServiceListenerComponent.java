@@ -0,0 +1,188 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.transports;
+
+import org.eclipse.osgi.framework.console.CommandProvider;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
+import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
+import org.wso2.carbon.kernel.startupresolver.StartupServiceUtils;
+import org.wso2.carbon.kernel.transports.CarbonTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This service component is responsible for retrieving the CarbonTransport OSGi services and registering them with
+ * the transport manager. It also acts as a RequiredCapabilityListener for all the CarbonTransport capabilities, and
+ * once they are available, it starts the transports and registers the transport management console commands.
+ *
+ * @since 5.2.0
+ */
+@Component(
+        name = "org.wso2.carbon.kernel.internal.transports.TransportServiceListenerComponent",
+        immediate = true,
+        property = {
+                "componentName=" + TransportServiceListenerComponent.COMPONENT_NAME
+        }
+)
+public class TransportServiceListenerComponent implements RequiredCapabilityListener {
+    public static final String COMPONENT_NAME = "carbon-transport-mgt";
+    private static final Logger logger = LoggerFactory.getLogger(TransportServiceListenerComponent.class);
+
+    private CarbonRuntime carbonRuntime;
+    private KernelExecutorService executorService;
+    private BundleContext bundleContext;
+    private TransportManager transportManager;
+    private ServiceRegistration<CommandProvider> commandProviderRegistration;
+
+    // Transports bound before the activation of this component.
+    private final List<CarbonTransport> pendingTransports = new ArrayList<>();
+
+    @Activate
+    protected synchronized void start(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+        CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
+        transportManager = new TransportManager(executorService, carbonConfiguration.getTransportsConfig(),
+                carbonConfiguration.getPortsConfig().getOffset());
+        pendingTransports.forEach(transportManager::registerTransport);
+        pendingTransports.clear();
+    }
+
+    @Deactivate
+    protected synchronized void stop(BundleContext bundleContext) {
+        if (commandProviderRegistration != null) {
+            commandProviderRegistration.unregister();
+            commandProviderRegistration = null;
+        }
+        if (transportManager != null) {
+            transportManager.stopTransports();
+            transportManager.getTransportList().forEach(CarbonTransport::release);
+            transportManager = null;
+        }
+    }
+
+    /**
+     * Register the transport instance.
+     *
+     * @param transport - transport instance
+     */
+    @Reference(
+            name = "carbon.transport.service",
+            service = CarbonTransport.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unregisterTransport"
+    )
+    protected synchronized void registerTransport(CarbonTransport transport) {
+        try {
+            if (transportManager == null) {
+                pendingTransports.add(transport);
+            } else {
+                transportManager.registerTransport(transport);
+            }
+            StartupServiceUtils.updateServiceCache(COMPONENT_NAME, CarbonTransport.class);
+        } catch (Exception e) {
+            logger.error("Error while adding transport to the Transport manager", e);
+        }
+    }
+
+    /**
+     * Un-register the transport instance.
+     *
+     * @param transport - transport instance
+     */
+    protected synchronized void unregisterTransport(CarbonTransport transport) {
+        if (transportManager == null) {
+            pendingTransports.remove(transport);
+            return;
+        }
+        try {
+            transportManager.unregisterTransport(transport);
+        } catch (Exception e) {
+            logger.error("Error while removing transport from the Transport manager", e);
+        }
+    }
+
+    @Override
+    public void onAllRequiredCapabilitiesAvailable() {
+        TransportManager transportManager;
+        synchronized (this) {
+            transportManager = this.transportManager;
+        }
+        if (transportManager == null) {
+            return;
+        }
+
+        // Transports are started without holding the lock, so that they can register further transports.
+        logger.debug("Starting the transports registered with the Transport manager");
+        transportManager.startTransports();
+        synchronized (this) {
+            if (this.transportManager == null) {
+                return;
+            }
+            commandProviderRegistration = bundleContext.registerService(CommandProvider.class,
+                    new TransportMgtCommandProvider(transportManager), null);
+        }
+        try {
+            MBeanRegistrator.registerMBean(transportManager);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to register the transport manager MBean.", e);
+        }
+    }
+
+    @Reference(
+            name = "carbon.transport.mgt.carbon.runtime",
+            service = CarbonRuntime.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.STATIC,
+            unbind = "unregisterCarbonRuntime"
+    )
+    protected void registerCarbonRuntime(CarbonRuntime carbonRuntime) {
+        this.carbonRuntime = carbonRuntime;
+    }
+
+    protected void unregisterCarbonRuntime(CarbonRuntime carbonRuntime) {
+        this.carbonRuntime = null;
+    }
+
+    @Reference(
+            name = "carbon.transport.mgt.executor.service",
+            service = KernelExecutorService.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.STATIC,
+            unbind = "unregisterExecutorService"
+    )
+    protected void registerExecutorService(KernelExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    protected void unregisterExecutorService(KernelExecutorService executorService) {
+        this.executorService = null;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.service;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A typed handle to the OSGi services of a given type, backed by a {@link ServiceTracker}.
+ * <p>
+ * Looking up a service through {@code BundleContext.getServiceReference} and {@code BundleContext.getService} on each
+ * request synchronizes on the service registry and creates garbage. A {@code ServiceHandle} keeps an immutable
+ * snapshot of the tracked services, which is replaced when a service is registered, modified or unregistered.
+ * {@link #get()} and {@link #getAll()} only read a volatile field, hence they never block.
+ * <p>
+ * e.g.
+ * <pre>
+ * ServiceHandle&lt;CarbonRuntime&gt; runtime = ServiceHandle.open(bundleContext, CarbonRuntime.class);
+ * ...
+ * CarbonRuntime carbonRuntime = runtime.get();
+ * ...
+ * runtime.close();
+ * </pre>
+ *
+ * @param <S> type of the service
+ * @since 5.2.0
+ */
+public final class ServiceHandle<S> implements AutoCloseable {
+
+    private final ServiceTracker<S, S> serviceTracker;
+    final ServiceTrackerCustomizer<S, S> customizer;
+
+    private final Map<ServiceReference<S>, S> trackedServices = new HashMap<>();
+
+    // Snapshot of the tracked services, ordered from the highest ranked to the lowest ranked service.
+    private volatile List<S> services = Collections.emptyList();
+
+    ServiceHandle(BundleContext bundleContext, Class<S> serviceClass, Filter filter) {
+        this.customizer = new ServiceHandleCustomizer(bundleContext);
+        this.serviceTracker = filter == null ?
+                new ServiceTracker<>(bundleContext, serviceClass, customizer) :
+                new ServiceTracker<>(bundleContext, filter, customizer);
+    }
+
+    /**
+     * Opens a handle to the services registered with the given interface.
+     *
+     * @param bundleContext bundle context used to get the services
+     * @param serviceClass  interface of the services
+     * @param <S>           type of the service
+     * @return the opened handle
+     */
+    public static <S> ServiceHandle<S> open(BundleContext bundleContext, Class<S> serviceClass) {
+        ServiceHandle<S> serviceHandle = new ServiceHandle<>(bundleContext, serviceClass, null);
+        serviceHandle.serviceTracker.open();
+        return serviceHandle;
+    }
+
+    /**
+     * Opens a handle to the services registered with the given interface, which match the given filter.
+     *
+     * @param bundleContext bundle context used to get the services
+     * @param serviceClass  interface of the services
+     * @param filter        LDAP filter on the service properties, e.g. (componentName=carbon-transport-mgt)
+     * @param <S>           type of the service
+     * @return the opened handle
+     */
+    public static <S> ServiceHandle<S> open(BundleContext bundleContext, Class<S> serviceClass, String filter) {
+        String serviceFilter = "(&(" + Constants.OBJECTCLASS + "=" + serviceClass.getName() + ")" + filter + ")";
+        try {
+            ServiceHandle<S> serviceHandle = new ServiceHandle<>(bundleContext, serviceClass,
+                    bundleContext.createFilter(serviceFilter));
+            serviceHandle.serviceTracker.open();
+            return serviceHandle;
+        } catch (InvalidSyntaxException e) {
+            throw new IllegalArgumentException("Invalid service filter " + filter, e);
+        }
+    }
+
+    /**
+     * Returns the highest ranked service. If several services have the same ranking, the service with the lowest
+     * service id is returned.
+     *
+     * @return the highest ranked service, or null if no service is available
+     */
+    public S get() {
+        List<S> currentServices = services;
+        return currentServices.isEmpty() ? null : currentServices.get(0);
+    }
+
+    /**
+     * @return an immutable list of the available services, ordered from the highest ranked to the lowest ranked
+     */
+    public List<S> getAll() {
+        return services;
+    }
+
+    /**
+     * @return true if at least one service is available
+     */
+    public boolean isAvailable() {
+        return !services.isEmpty();
+    }
+
+    /**
+     * Stops tracking the services and releases them.
+     */
+    @Override
+    public void close() {
+        serviceTracker.close();
+    }
+
+    private void updateSnapshot() {
+        List<ServiceReference<S>> references = new ArrayList<>(trackedServices.keySet());
+        // ServiceReference ordering is by ranking and then by the reverse order of the service id.
+        references.sort(Collections.reverseOrder());
+        List<S> snapshot = new ArrayList<>(references.size());
+        references.forEach(reference -> snapshot.add(trackedServices.get(reference)));
+        services = Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * Maintains the snapshot of the tracked services.
+     */
+    private class ServiceHandleCustomizer implements ServiceTrackerCustomizer<S, S> {
+        private final BundleContext bundleContext;
+
+        ServiceHandleCustomizer(BundleContext bundleContext) {
+            this.bundleContext = bundleContext;
+        }
+
+        @Override
+        public S addingService(ServiceReference<S> reference) {
+            S service = bundleContext.getService(reference);
+            if (service != null) {
+                synchronized (trackedServices) {
+                    trackedServices.put(reference, service);
+                    updateSnapshot();
+                }
+            }
+            return service;
+        }
+
+        @Override
+        public void modifiedService(ServiceReference<S> reference, S service) {
+            synchronized (trackedServices) {
+                // The ranking of the service may have changed.
+                updateSnapshot();
+            }
+        }
+
+        @Override
+        public void removedService(ServiceReference<S> reference, S service) {
+            synchronized (trackedServices) {
+                trackedServices.remove(reference);
+                updateSnapshot();
+            }
+            bundleContext.ungetService(reference);
+        }
+    }
+}
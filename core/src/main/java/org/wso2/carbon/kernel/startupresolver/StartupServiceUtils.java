@@ -17,6 +17,10 @@ package org.wso2.carbon.kernel.startupresolver;
 
 import org.wso2.carbon.kernel.internal.startupresolver.StartupServiceCache;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 /**
  * A Utility which provides a way to update the startup service cache.
  *
@@ -42,4 +46,34 @@ public class StartupServiceUtils {
     public static void updateServiceCache(String componentName, Class interfaceName)  {
         StartupServiceCache.getInstance().update(componentName, interfaceName);
     }
+
+    /**
+     * Reports {@code count} instances of the OSGi service of type {@code interfaceName} received by a component in a
+     * single update of the internal service cache. Equivalent to calling
+     * {@link #updateServiceCache(String, Class)} {@code count} times.
+     *
+     * @param componentName name of the reporting component
+     * @param interfaceName name of the OSGi service interface
+     * @param count         number of service instances received
+     */
+    public static void updateServiceCache(String componentName, Class interfaceName, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Service count cannot be negative: " + count);
+        }
+        StartupServiceCache.getInstance().update(componentName, interfaceName, count);
+    }
+
+    /**
+     * Reports a batch of OSGi services received by a component in a single update of the internal service cache.
+     * Each element of {@code interfaceNames} stands for one service instance, equivalent to calling
+     * {@link #updateServiceCache(String, Class)} once per element.
+     *
+     * @param componentName  name of the reporting component
+     * @param interfaceNames OSGi service interfaces of the received service instances
+     */
+    public static void updateServiceCache(String componentName, Collection<Class> interfaceNames) {
+        Map<String, Long> serviceCounts = interfaceNames.stream()
+                .collect(Collectors.groupingBy(Class::getName, Collectors.counting()));
+        StartupServiceCache.getInstance().update(componentName, serviceCounts);
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.transports;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * The base class of the transports managed by the kernel. A transport is registered as an OSGi service of this type,
+ * and is started, stopped and put into maintenance mode by the kernel transport manager.
+ * <p>
+ * A transport with a listening port is created with its port as given in its own configuration. The kernel applies the
+ * port offset of the server to it, hence the transport must listen on {@link #getPort()}. If port pre-binding is
+ * enabled and the transport returns true from {@link #isPreBindable()}, the kernel binds the listening port as soon as
+ * the transport is registered, and the transport must accept connections from {@link #getBoundChannel()} instead of
+ * binding the port itself.
+ *
+ * @since 5.2.0
+ */
+public abstract class CarbonTransport {
+
+    private final String id;
+    private final int port;
+    private volatile int portOffset;
+    private volatile TransportState state = TransportState.UNINITIALIZED;
+    private volatile ServerSocketChannel boundChannel;
+    private volatile long startLatency = -1;
+
+    /**
+     * Creates a transport without a listening port.
+     *
+     * @param id unique id of the transport
+     */
+    protected CarbonTransport(String id) {
+        this(id, -1);
+    }
+
+    /**
+     * Creates a transport listening on the given port.
+     *
+     * @param id   unique id of the transport
+     * @param port listening port before applying the port offset of the server
+     */
+    protected CarbonTransport(String id, int port) {
+        this.id = id;
+        this.port = port;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return listening port with the port offset of the server applied, or -1 if the transport has no listening port
+     */
+    public int getPort() {
+        return port < 0 ? port : port + portOffset;
+    }
+
+    public TransportState getState() {
+        return state;
+    }
+
+    /**
+     * @return time taken by the last start of the transport in milliseconds, or -1 if it has never been started
+     */
+    public long getStartLatency() {
+        return startLatency;
+    }
+
+    /**
+     * Applies the port offset of the server. Called by the kernel before the transport is started.
+     *
+     * @param portOffset port offset from the ports configuration of the server
+     */
+    public final void setPortOffset(int portOffset) {
+        if (state == TransportState.STARTED || state == TransportState.IN_MAINTENANCE) {
+            throw new IllegalStateException("Cannot change the port of the running transport " + id);
+        }
+        this.portOffset = portOffset;
+    }
+
+    /**
+     * Binds the listening port of the transport ahead of its start. Connections made from now on wait in the accept
+     * backlog until the transport starts accepting them.
+     *
+     * @param backlog accept backlog of the listening port
+     * @throws IOException if the port cannot be bound
+     */
+    public final synchronized void preBind(int backlog) throws IOException {
+        if (!isPreBindable() || getPort() < 0) {
+            throw new IllegalStateException("Transport " + id + " does not support binding its port ahead of start");
+        }
+        if (boundChannel != null) {
+            return;
+        }
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(getBindAddress(), backlog);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        boundChannel = channel;
+    }
+
+    public final synchronized void startTransport() {
+        if (state == TransportState.STARTED || state == TransportState.IN_MAINTENANCE) {
+            throw new IllegalStateException("Cannot start transport " + id + ". Current state: " + state);
+        }
+        long startTime = System.nanoTime();
+        start();
+        startLatency = (System.nanoTime() - startTime) / 1_000_000;
+        state = TransportState.STARTED;
+    }
+
+    public final synchronized void stopTransport() {
+        if (state != TransportState.STARTED && state != TransportState.IN_MAINTENANCE) {
+            throw new IllegalStateException("Cannot stop transport " + id + ". Current state: " + state);
+        }
+        try {
+            stop();
+        } finally {
+            closeBoundChannel();
+            state = TransportState.STOPPED;
+        }
+    }
+
+    public final synchronized void beginTransportMaintenance() {
+        if (state != TransportState.STARTED) {
+            throw new IllegalStateException("Cannot put transport " + id + " into maintenance. Current state: " +
+                    state);
+        }
+        beginMaintenance();
+        state = TransportState.IN_MAINTENANCE;
+    }
+
+    public final synchronized void endTransportMaintenance() {
+        if (state != TransportState.IN_MAINTENANCE) {
+            throw new IllegalStateException("Transport " + id + " is not in maintenance. Current state: " + state);
+        }
+        endMaintenance();
+        state = TransportState.STARTED;
+    }
+
+    /**
+     * Releases a pre-bound listening port which has not been handed over to the transport. Called by the kernel when
+     * the transport is unregistered.
+     */
+    public final synchronized void release() {
+        if (state != TransportState.STARTED && state != TransportState.IN_MAINTENANCE) {
+            closeBoundChannel();
+        }
+    }
+
+    /**
+     * Returns whether the transport accepts connections from {@link #getBoundChannel()} when it has been pre-bound.
+     * Transports which do not support it bind their port themselves in {@link #start()}.
+     *
+     * @return true if the listening port of the transport can be bound by the kernel
+     */
+    public boolean isPreBindable() {
+        return false;
+    }
+
+    /**
+     * @return address the listening port is bound to when pre-binding, the wildcard address by default
+     */
+    protected InetSocketAddress getBindAddress() {
+        return new InetSocketAddress(getPort());
+    }
+
+    /**
+     * Returns the listening channel bound by the kernel ahead of the start of the transport. The transport owns the
+     * channel once it is started, and must bind its port itself if this returns null.
+     *
+     * @return the pre-bound listening channel, or null if the port has not been pre-bound
+     */
+    protected ServerSocketChannel getBoundChannel() {
+        return boundChannel;
+    }
+
+    protected abstract void start();
+
+    protected abstract void stop();
+
+    protected abstract void beginMaintenance();
+
+    protected abstract void endMaintenance();
+
+    private void closeBoundChannel() {
+        if (boundChannel != null) {
+            try {
+                boundChannel.close();
+            } catch (IOException e) {
+                // The channel is discarded anyway.
+            }
+            boundChannel = null;
+        }
+    }
+}
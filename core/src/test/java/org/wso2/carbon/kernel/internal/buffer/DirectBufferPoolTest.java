@@ -0,0 +1,285 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.buffer;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.config.model.BufferPoolConfig;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.buffer.DirectBufferPool.
+ *
+ * @since 5.2.0
+ */
+public class DirectBufferPoolTest {
+
+    private BufferPoolConfig bufferPoolConfig;
+
+    @BeforeMethod
+    public void init() {
+        bufferPoolConfig = new BufferPoolConfig();
+        bufferPoolConfig.setMinBufferSize(512);
+        bufferPoolConfig.setMaxBufferSize(8192);
+        bufferPoolConfig.setMaxDirectMemory(16384);
+    }
+
+    @Test
+    public void testBuffersAreSizeClassed() {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+
+        Assert.assertEquals(bufferPool.acquire(0).capacity(), 512);
+        Assert.assertEquals(bufferPool.acquire(512).capacity(), 512);
+        Assert.assertEquals(bufferPool.acquire(513).capacity(), 1024);
+        ByteBuffer buffer = bufferPool.acquire(5000);
+        Assert.assertEquals(buffer.capacity(), 8192);
+        Assert.assertEquals(buffer.limit(), 8192);
+        Assert.assertTrue(buffer.isDirect());
+
+        Assert.assertFalse(bufferPool.acquire(8193).isDirect());
+        Assert.assertEquals(bufferPool.getHeapFallbackCount(), 1);
+        Assert.assertEquals(bufferPool.getOutstandingBuffers(), 4);
+        Assert.assertEquals(bufferPool.getDirectMemoryUsed(), 512 + 512 + 1024 + 8192);
+    }
+
+    @Test
+    public void testReleasedBuffersAreReused() throws InterruptedException {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+
+        ByteBuffer buffer = bufferPool.acquire(1000);
+        buffer.putInt(42);
+        bufferPool.release(buffer);
+
+        ByteBuffer reused = bufferPool.acquire(1000);
+        Assert.assertSame(reused, buffer);
+        Assert.assertEquals(reused.position(), 0);
+        Assert.assertEquals(bufferPool.getHitRate(), 0.5);
+
+        // A buffer released by another thread is served from the shared pool once its cache is full.
+        bufferPoolConfig.setThreadCacheSize(0);
+        DirectBufferPool sharedBufferPool = new DirectBufferPool(bufferPoolConfig);
+        ByteBuffer sharedBuffer = sharedBufferPool.acquire(1000);
+        Thread thread = new Thread(() -> sharedBufferPool.release(sharedBuffer));
+        thread.start();
+        thread.join();
+        Assert.assertSame(sharedBufferPool.acquire(1000), sharedBuffer);
+        Assert.assertEquals(sharedBufferPool.getOutstandingBuffers(), 1);
+    }
+
+    @Test
+    public void testDirectMemoryIsBounded() throws InterruptedException {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+
+        ByteBuffer first = bufferPool.acquire(8192);
+        ByteBuffer second = bufferPool.acquire(8192);
+        ByteBuffer fallback = bufferPool.acquire(8192);
+        Assert.assertTrue(first.isDirect());
+        Assert.assertTrue(second.isDirect());
+        Assert.assertFalse(fallback.isDirect());
+        Assert.assertEquals(bufferPool.getDirectMemoryUsed(), bufferPool.getMaxDirectMemory());
+        bufferPool.release(fallback);
+
+        // Buffers cached by a terminated thread are reclaimed once the budget is used up.
+        Thread thread = new Thread(() -> {
+            bufferPool.release(first);
+            bufferPool.release(second);
+        });
+        thread.start();
+        thread.join();
+        Assert.assertTrue(bufferPool.acquire(8192).isDirect());
+        Assert.assertEquals(bufferPool.getDirectMemoryUsed(), bufferPool.getMaxDirectMemory());
+    }
+
+    @Test
+    public void testLeakDetection() throws InterruptedException {
+        bufferPoolConfig.setLeakDetection(true);
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+        Assert.assertTrue(bufferPool.isLeakDetectionEnabled());
+
+        ByteBuffer buffer = bufferPool.acquire(512);
+        bufferPool.release(buffer);
+        Assert.assertThrows(IllegalArgumentException.class, () -> bufferPool.release(buffer));
+        Assert.assertThrows(IllegalArgumentException.class, () -> bufferPool.release(ByteBuffer.allocateDirect(512)));
+
+        bufferPool.acquire(1024);
+        for (int i = 0; i < 50 && bufferPool.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(bufferPool.getLeakCount(), 1);
+        Assert.assertEquals(bufferPool.getOutstandingBuffers(), 0);
+    }
+
+    @Test
+    public void testDoubleReleaseWithoutLeakDetection() {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+
+        ByteBuffer buffer = bufferPool.acquire(512);
+        bufferPool.release(buffer);
+        Assert.assertThrows(IllegalArgumentException.class, () -> bufferPool.release(buffer));
+        Assert.assertEquals(bufferPool.getOutstandingBuffers(), 0);
+
+        // The buffer can be released again once it is acquired again.
+        Assert.assertSame(bufferPool.acquire(512), buffer);
+        bufferPool.release(buffer);
+        Assert.assertEquals(bufferPool.getOutstandingBuffers(), 0);
+    }
+
+    @Test
+    public void testIdleThreadCachesAreReclaimed() throws InterruptedException {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig, 0);
+        ByteBuffer first = bufferPool.acquire(8192);
+        ByteBuffer second = bufferPool.acquire(8192);
+
+        // The buffers stay in the cache of a thread which is alive, but does not use the pool anymore.
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            bufferPool.release(first);
+            bufferPool.release(second);
+            released.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        try {
+            released.await();
+            ByteBuffer buffer = bufferPool.acquire(8192);
+            Assert.assertTrue(buffer == first || buffer == second);
+            Assert.assertEquals(bufferPool.getDirectMemoryUsed(), bufferPool.getMaxDirectMemory());
+            Assert.assertTrue(thread.isAlive());
+        } finally {
+            done.countDown();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testTerminatedThreadCachesArePurged() throws InterruptedException {
+        bufferPoolConfig.setMaxDirectMemory(1024 * 1024);
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+
+        // Each short lived thread leaves a buffer in its cache. The budget is never used up, hence only the purge
+        // reclaims the caches of the terminated threads.
+        int threads = 4 * DirectBufferPool.MIN_THREAD_CACHE_PURGE_THRESHOLD;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> bufferPool.release(bufferPool.acquire(512)));
+            thread.start();
+            thread.join();
+        }
+
+        Assert.assertTrue(bufferPool.getThreadCacheCount() <= DirectBufferPool.MIN_THREAD_CACHE_PURGE_THRESHOLD,
+                "Caches of terminated threads were not purged: " + bufferPool.getThreadCacheCount());
+        // The buffers of the purged caches are reused by the later threads.
+        Assert.assertTrue(bufferPool.getHitRate() > 0);
+        Assert.assertTrue(bufferPool.getDirectMemoryUsed() <= DirectBufferPool.MIN_THREAD_CACHE_PURGE_THRESHOLD * 512);
+    }
+
+    @Test
+    public void testVirtualThreadsAreNotCached() throws Exception {
+        Assert.assertFalse(DirectBufferPool.isVirtualThread(Thread.currentThread()));
+        Method startVirtualThread;
+        try {
+            startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            throw new SkipException("Virtual threads are not supported by this JVM");
+        }
+
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+        ByteBuffer buffer = bufferPool.acquire(1024);
+        AtomicBoolean virtual = new AtomicBoolean();
+        Thread thread = (Thread) startVirtualThread.invoke(null, (Runnable) () -> {
+            virtual.set(DirectBufferPool.isVirtualThread(Thread.currentThread()));
+            bufferPool.release(buffer);
+        });
+        thread.join();
+        Assert.assertTrue(virtual.get());
+
+        // The buffer released by the virtual thread went straight to the shared pool.
+        Assert.assertEquals(bufferPool.getThreadCacheCount(), 1);
+        AtomicReference<ByteBuffer> acquired = new AtomicReference<>();
+        Thread platformThread = new Thread(() -> acquired.set(bufferPool.acquire(1024)));
+        platformThread.start();
+        platformThread.join();
+        Assert.assertSame(acquired.get(), buffer);
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+        ByteBuffer cached = bufferPool.acquire(1024);
+        ByteBuffer shared = bufferPool.acquire(1024);
+        ByteBuffer outstanding = bufferPool.acquire(1024);
+        bufferPool.release(cached);
+        Thread thread = new Thread(() -> bufferPool.release(shared));
+        thread.start();
+        thread.join();
+
+        bufferPool.shutdown();
+        Assert.assertEquals(bufferPool.getDirectMemoryUsed(), 1024);
+        ByteBuffer buffer = bufferPool.acquire(1024);
+        Assert.assertNotSame(buffer, cached);
+        Assert.assertNotSame(buffer, shared);
+
+        // Buffers released after the shutdown are dropped as well.
+        bufferPool.release(outstanding);
+        bufferPool.release(buffer);
+        Assert.assertEquals(bufferPool.getDirectMemoryUsed(), 0);
+        Assert.assertEquals(bufferPool.getOutstandingBuffers(), 0);
+        Assert.assertNotSame(bufferPool.acquire(1024), buffer);
+    }
+
+    @Test
+    public void testMaxDirectMemoryIsCappedByJvm() {
+        Assert.assertEquals(DirectBufferPool.getJvmMaxDirectMemory(Collections.singletonList("-Xmx64m")),
+                Runtime.getRuntime().maxMemory());
+        Assert.assertEquals(DirectBufferPool.getJvmMaxDirectMemory(
+                Arrays.asList("-XX:MaxDirectMemorySize=1g", "-XX:MaxDirectMemorySize=8K")), 8192);
+        Assert.assertEquals(DirectBufferPool.getJvmMaxDirectMemory(
+                Collections.singletonList("-XX:MaxDirectMemorySize=4096")), 4096);
+
+        bufferPoolConfig.setMaxDirectMemory(Long.MAX_VALUE);
+        DirectBufferPool bufferPool = new DirectBufferPool(bufferPoolConfig);
+        Assert.assertEquals(bufferPool.getMaxDirectMemory(),
+                DirectBufferPool.getJvmMaxDirectMemory(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+    }
+
+    @Test
+    public void testMaxDirectMemoryDerivedByStartupScript() {
+        Assert.assertEquals(new BufferPoolConfig().getMaxDirectMemory(), 64 * 1024 * 1024);
+        try {
+            System.setProperty("carbon.direct.memory.max", "209715200");
+            Assert.assertEquals(new BufferPoolConfig().getMaxDirectMemory(), 200 * 1024 * 1024);
+            System.setProperty("carbon.direct.memory.max", "invalid");
+            Assert.assertEquals(new BufferPoolConfig().getMaxDirectMemory(), 64 * 1024 * 1024);
+        } finally {
+            System.clearProperty("carbon.direct.memory.max");
+        }
+    }
+}
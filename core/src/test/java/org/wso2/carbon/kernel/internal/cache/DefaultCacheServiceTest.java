@@ -0,0 +1,293 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.Constants;
+import org.wso2.carbon.kernel.cache.Cache;
+import org.wso2.carbon.kernel.cache.CacheConfiguration;
+import org.wso2.carbon.kernel.context.PrivilegedCarbonContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.cache.DefaultCacheService.
+ *
+ * @since 5.2.0
+ */
+public class DefaultCacheServiceTest {
+
+    private AtomicLong ticker;
+    private DefaultCacheService cacheService;
+
+    @BeforeMethod
+    public void init() {
+        ticker = new AtomicLong();
+        cacheService = new DefaultCacheService(Constants.DEFAULT_TENANT, ticker::get);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        cacheService.shutdown();
+        PrivilegedCarbonContext.destroyCurrentContext();
+    }
+
+    @Test
+    public void testFrequentlyUsedValuesSurviveScans() {
+        CacheConfiguration<Integer, String> configuration = new CacheConfiguration<>();
+        configuration.setMaximumSize(10);
+        Cache<Integer, String> cache = cacheService.getCache("scan-cache", configuration);
+        Assert.assertSame(cacheService.getCache("scan-cache", configuration), cache);
+
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 10; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, "hot-" + key);
+                }
+            }
+        }
+        // Values used only once do not replace the values which are still used frequently.
+        for (int key = 100; key < 1100; key++) {
+            cache.put(key, "cold-" + key);
+            Assert.assertEquals(cache.get(key % 10), "hot-" + key % 10);
+        }
+
+        Assert.assertEquals(cache.size(), 10);
+        for (int key = 0; key < 10; key++) {
+            Assert.assertEquals(cache.get(key), "hot-" + key);
+        }
+        Assert.assertEquals(cache.getStatistics().getEvictionCount(), 1000);
+    }
+
+    @Test
+    public void testWeightBound() {
+        CacheConfiguration<String, byte[]> configuration = new CacheConfiguration<>();
+        configuration.setMaximumWeight(1000, (key, value) -> value.length);
+        Cache<String, byte[]> cache = cacheService.getCache("weighted-cache", configuration);
+
+        cache.put("first", new byte[400]);
+        cache.put("second", new byte[400]);
+        cache.put("first", new byte[500]);
+        Assert.assertEquals(cache.size(), 2);
+
+        cache.put("third", new byte[1001]);
+        Assert.assertNull(cache.get("third"));
+        Assert.assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testExpiry() {
+        CacheConfiguration<String, String> writeConfiguration = new CacheConfiguration<>();
+        writeConfiguration.setExpireAfterWrite(10, TimeUnit.SECONDS);
+        Cache<String, String> writeCache = cacheService.getCache("write-cache", writeConfiguration);
+
+        CacheConfiguration<String, String> accessConfiguration = new CacheConfiguration<>();
+        accessConfiguration.setExpireAfterAccess(10, TimeUnit.SECONDS);
+        Cache<String, String> accessCache = cacheService.getCache("access-cache", accessConfiguration);
+
+        writeCache.put("key", "value");
+        accessCache.put("key", "value");
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        Assert.assertEquals(writeCache.get("key"), "value");
+        Assert.assertEquals(accessCache.get("key"), "value");
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        Assert.assertNull(writeCache.get("key"));
+        Assert.assertEquals(accessCache.get("key"), "value");
+        Assert.assertEquals(writeCache.getStatistics().getExpirationCount(), 1);
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        Assert.assertNull(accessCache.get("key"));
+    }
+
+    @Test
+    public void testConcurrentLoadsAreCoalesced() throws Exception {
+        Cache<String, String> cache = cacheService.getCache("loading-cache", new CacheConfiguration<>());
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("key", key -> {
+                    loadCount.incrementAndGet();
+                    loadStarted.countDown();
+                    try {
+                        loadReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "loaded-" + key;
+                })));
+            }
+            Assert.assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            loadReleased.countDown();
+            for (Future<String> result : results) {
+                Assert.assertEquals(result.get(5, TimeUnit.SECONDS), "loaded-key");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(loadCount.get(), 1);
+        Assert.assertEquals(cache.getStatistics().getLoadCount(), 1);
+
+        Assert.assertThrows(IllegalStateException.class, () -> cache.get("failing", key -> {
+            throw new IllegalStateException("Unavailable");
+        }));
+        Assert.assertNull(cache.get("failing"));
+        Assert.assertEquals(cache.getStatistics().getLoadFailureCount(), 1);
+    }
+
+    @Test
+    public void testTenantPartitions() {
+        Cache<String, String> cache = cacheService.getCache("tenant-cache", new CacheConfiguration<>());
+        CacheConfiguration<String, String> sharedConfiguration = new CacheConfiguration<>();
+        sharedConfiguration.setTenantAware(false);
+        Cache<String, String> sharedCache = cacheService.getCache("shared-cache", sharedConfiguration);
+
+        cache.put("key", "server");
+        sharedCache.put("key", "shared");
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-a");
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(sharedCache.get("key"), "shared");
+        cache.put("key", "tenant-a");
+
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-b");
+        cache.invalidateAll();
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-a");
+        Assert.assertEquals(cache.get("key"), "tenant-a");
+
+        PrivilegedCarbonContext.destroyCurrentContext();
+        Assert.assertEquals(cache.get("key"), "server");
+        Assert.assertEquals(cache.getStatistics().getPartitionCount(), 3);
+        Assert.assertEquals(cache.getStatistics().getSize(), 2);
+
+        CompositeData statistics = new KernelCaches(cacheService).getCaches().get(new Object[]{"tenant-cache"});
+        Assert.assertEquals(statistics.get("hitCount"), 2L);
+        Assert.assertEquals(statistics.get("missCount"), 1L);
+    }
+
+    @Test
+    public void testInvalidatedLoadIsNotCached() {
+        Cache<String, String> cache = cacheService.getCache("invalidated-cache", new CacheConfiguration<>());
+
+        // The value is invalidated while it is loaded, hence the loaded value may be stale.
+        Assert.assertEquals(cache.get("key", key -> {
+            cache.invalidate(key);
+            return "stale";
+        }), "stale");
+        Assert.assertNull(cache.get("key"));
+
+        Assert.assertEquals(cache.get("key", key -> {
+            cache.invalidateAll();
+            return "stale";
+        }), "stale");
+        Assert.assertNull(cache.get("key"));
+
+        Assert.assertEquals(cache.get("key", key -> "fresh"), "fresh");
+        Assert.assertEquals(cache.get("key"), "fresh");
+    }
+
+    @Test
+    public void testRecursiveLoad() {
+        Cache<String, String> cache = cacheService.getCache("recursive-cache", new CacheConfiguration<>());
+
+        Assert.assertThrows(IllegalStateException.class, () -> cache.get("key", key -> cache.get(key, String::trim)));
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(cache.getStatistics().getLoadFailureCount(), 1);
+
+        // Loading another key from a loader is allowed.
+        Assert.assertEquals(cache.get("outer", key -> cache.get("inner", String::toUpperCase) + "-" + key),
+                "INNER-outer");
+        Assert.assertEquals(cache.get("inner"), "INNER");
+    }
+
+    @Test
+    public void testPartitionsAreBounded() {
+        CacheConfiguration<String, String> configuration = new CacheConfiguration<>();
+        configuration.setMaximumPartitions(2);
+        Cache<String, String> cache = cacheService.getCache("bounded-tenant-cache", configuration);
+
+        cache.put("key", "server");
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-a");
+        cache.put("key", "tenant-a");
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        PrivilegedCarbonContext.destroyCurrentContext();
+        Assert.assertEquals(cache.get("key"), "server");
+
+        // The partition of tenant-a is the least recently used one.
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-b");
+        cache.put("key", "tenant-b");
+        Assert.assertEquals(cache.getStatistics().getPartitionCount(), 2);
+        Assert.assertEquals(cache.getStatistics().getEvictionCount(), 1);
+        Assert.assertEquals(cache.get("key"), "tenant-b");
+        PrivilegedCarbonContext.destroyCurrentContext();
+        Assert.assertEquals(cache.get("key"), "server");
+        PrivilegedCarbonContext.getCurrentContext().setProperty(Constants.TENANT_NAME, "tenant-a");
+        Assert.assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void testConflictingConfiguration() {
+        CacheConfiguration<String, String> configuration = new CacheConfiguration<>();
+        configuration.setMaximumSize(100);
+        Cache<String, String> cache = cacheService.getCache("configured-cache", configuration);
+
+        CacheConfiguration<String, String> equalConfiguration = new CacheConfiguration<>();
+        equalConfiguration.setMaximumSize(100);
+        Assert.assertSame(cacheService.getCache("configured-cache", equalConfiguration), cache);
+
+        CacheConfiguration<String, String> otherConfiguration = new CacheConfiguration<>();
+        otherConfiguration.setMaximumSize(200);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> cacheService.getCache("configured-cache", otherConfiguration));
+    }
+
+    @Test
+    public void testFrequencySketchGrowsWithPopulation() {
+        // A partition of a few values does not allocate a sketch sized for its maximum size.
+        FrequencySketch sketch = new FrequencySketch(100_000);
+        Assert.assertEquals(sketch.getTableSize(), 16);
+        sketch.ensureCapacity(10);
+        Assert.assertEquals(sketch.getTableSize(), 16);
+        sketch.ensureCapacity(1000);
+        Assert.assertEquals(sketch.getTableSize(), 1024);
+        sketch.ensureCapacity(1_000_000);
+        Assert.assertEquals(sketch.getTableSize(), 131072);
+
+        for (int i = 0; i < 3; i++) {
+            sketch.increment(42);
+        }
+        Assert.assertEquals(sketch.frequency(42), 3);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.concurrent;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+import org.wso2.carbon.kernel.concurrent.KernelExecutorService;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService.
+ *
+ * @since 5.2.0
+ */
+public class DefaultKernelExecutorServiceTest {
+
+    private DefaultKernelExecutorService executorService;
+
+    @BeforeMethod
+    public void init() {
+        executorService = new DefaultKernelExecutorService();
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testExecutorsAreNamed() throws Exception {
+        ExecutorService executor = executorService.getExecutor("test-pool", 2, 10);
+        Assert.assertSame(executorService.getExecutor("test-pool", 2, 10), executor);
+
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(threadName, "test-pool-1");
+
+        executor.shutdown();
+        Assert.assertNotSame(executorService.getExecutor("test-pool", 2, 10), executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testExecutorTypeConflict() {
+        executorService.getExecutor("test-conflict", 1, 1);
+        executorService.getScheduler("test-conflict", 1);
+    }
+
+    @Test
+    public void testBoundedExecutorMetrics() throws Exception {
+        ExecutorService executor = executorService.getExecutor("test-bounded", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+
+        try {
+            executor.execute(() -> { });
+            Assert.fail("Task should be rejected when the queue is full");
+        } catch (RejectedExecutionException e) {
+            Assert.assertTrue(e.getMessage().contains("test-bounded"));
+        }
+
+        ExecutorMetrics metrics = (ExecutorMetrics) executor;
+        Assert.assertEquals(metrics.getType(), "thread-pool");
+        Assert.assertEquals(metrics.getMaxThreads(), 1);
+        Assert.assertEquals(metrics.getActiveCount(), 1);
+        Assert.assertEquals(metrics.getQueueDepth(), 1);
+        Assert.assertEquals(metrics.getRejectedTaskCount(), 1);
+
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(metrics.getCompletedTaskCount(), 2);
+    }
+
+    @Test
+    public void testSchedulerMetrics() throws Exception {
+        ScheduledExecutorService scheduler = executorService.getScheduler("test-scheduler", 1);
+        CountDownLatch runs = new CountDownLatch(3);
+        scheduler.scheduleAtFixedRate(runs::countDown, 0, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(runs.await(5, TimeUnit.SECONDS));
+        scheduler.shutdown();
+        Assert.assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        ExecutorMetrics metrics = (ExecutorMetrics) scheduler;
+        Assert.assertEquals(metrics.getType(), "scheduler");
+        Assert.assertTrue(metrics.getCompletedTaskCount() >= 3);
+    }
+
+    @Test
+    public void testVirtualThreadExecutor() throws Exception {
+        ExecutorService executor = executorService.getVirtualThreadExecutor("test-virtual", 4);
+        Assert.assertEquals(executor.submit(() -> "done").get(5, TimeUnit.SECONDS), "done");
+        Assert.assertEquals(((ExecutorMetrics) executor).getType(),
+                executorService.isVirtualThreadSupported() ? "virtual-thread" : "thread-pool");
+    }
+
+    @Test
+    public void testKernelExecutorsMBean() {
+        executorService.getExecutor("test-mbean", 1, 1);
+        TabularData executors = new KernelExecutors(executorService).getExecutors();
+        CompositeData executor = executors.get(new Object[]{"test-mbean"});
+        Assert.assertNotNull(executor);
+        Assert.assertEquals(executor.get("type"), "thread-pool");
+        Assert.assertEquals(executor.get("maxThreads"), 1);
+    }
+
+    @Test
+    public void testAvailableProcessors() {
+        try {
+            System.setProperty(DefaultKernelExecutorService.CPU_COUNT_PROPERTY, "3");
+            Assert.assertEquals(executorService.getAvailableProcessors(), 3);
+            System.setProperty(DefaultKernelExecutorService.CPU_COUNT_PROPERTY, "invalid");
+            Assert.assertEquals(executorService.getAvailableProcessors(), Runtime.getRuntime().availableProcessors());
+        } finally {
+            System.clearProperty(DefaultKernelExecutorService.CPU_COUNT_PROPERTY);
+        }
+        Assert.assertEquals(executorService.getAvailableProcessors(), Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testShutdown() {
+        ExecutorService executor = executorService.getExecutor("test-shutdown", 1, 1);
+        executorService.shutdown();
+        Assert.assertTrue(executor.isShutdown());
+        executorService.getExecutor("test-shutdown", 1, 1);
+    }
+
+    @Test
+    public void testExecutorThreadPriority() throws Exception {
+        ExecutorService executor = executorService.getExecutor("test-priority", 1, 1, Thread.MIN_PRIORITY);
+        Assert.assertEquals(executor.submit(() -> Thread.currentThread().getPriority()).get(5, TimeUnit.SECONDS),
+                Integer.valueOf(Thread.MIN_PRIORITY));
+        Assert.assertSame(executorService.getExecutor("test-priority", 1, 1, Thread.MIN_PRIORITY), executor);
+
+        try {
+            executorService.getExecutor("test-priority", 1, 1);
+            Assert.fail("Executor was returned with a different thread priority");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("thread priority " + Thread.MIN_PRIORITY), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testExecutorConfigurationConflict() {
+        executorService.getExecutor("test-configuration", 1, 1);
+        executorService.getExecutor("test-configuration", 2, 1);
+    }
+
+    @Test
+    public void testBundleScopedExecutors() throws Exception {
+        Bundle firstBundle = createBundle(1, "org.wso2.carbon.first", "1.0.0");
+        Bundle secondBundle = createBundle(2, "org.wso2.carbon.second", "1.0.0");
+        KernelExecutorServiceFactory serviceFactory = new KernelExecutorServiceFactory(executorService);
+        KernelExecutorService firstService = serviceFactory.getService(firstBundle, null);
+        KernelExecutorService secondService = serviceFactory.getService(secondBundle, null);
+
+        // Bundles may use the same executor name with different configurations.
+        ExecutorService firstExecutor = firstService.getExecutor("test-scoped", 1, 1);
+        ExecutorService secondExecutor = secondService.getExecutor("test-scoped", 2, 2);
+        Assert.assertNotSame(firstExecutor, secondExecutor);
+        Assert.assertSame(firstService.getExecutor("test-scoped", 1, 1), firstExecutor);
+        Assert.assertEquals(((ExecutorMetrics) firstExecutor).getName(), "org.wso2.carbon.first_1.0.0/test-scoped");
+        Assert.assertEquals(firstExecutor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS),
+                "org.wso2.carbon.first_1.0.0/test-scoped-1");
+
+        // The executors of a bundle are shut down once it releases the service.
+        serviceFactory.ungetService(firstBundle, null, firstService);
+        Assert.assertTrue(firstExecutor.isShutdown());
+        Assert.assertFalse(secondExecutor.isShutdown());
+        Assert.assertTrue(executorService.getExecutorMetrics().contains((ExecutorMetrics) secondExecutor));
+    }
+
+    @Test
+    public void testBundleVersionScopedExecutors() throws Exception {
+        Bundle firstVersion = createBundle(3, "org.wso2.carbon.versioned", "1.0.0");
+        Bundle secondVersion = createBundle(4, "org.wso2.carbon.versioned", "2.0.0");
+        KernelExecutorServiceFactory serviceFactory = new KernelExecutorServiceFactory(executorService);
+        KernelExecutorService firstService = serviceFactory.getService(firstVersion, null);
+        KernelExecutorService secondService = serviceFactory.getService(secondVersion, null);
+
+        // Two versions of a bundle installed side by side do not share their executors.
+        ExecutorService firstExecutor = firstService.getExecutor("test-versioned", 1, 1);
+        ExecutorService secondExecutor = secondService.getExecutor("test-versioned", 1, 1);
+        Assert.assertNotSame(firstExecutor, secondExecutor);
+        Assert.assertEquals(((ExecutorMetrics) secondExecutor).getName(),
+                "org.wso2.carbon.versioned_2.0.0/test-versioned");
+
+        serviceFactory.ungetService(firstVersion, null, firstService);
+        Assert.assertTrue(firstExecutor.isShutdown());
+        Assert.assertFalse(secondExecutor.isShutdown());
+        serviceFactory.ungetService(secondVersion, null, secondService);
+    }
+
+    @Test
+    public void testShutdownNowReturnsSubmittedTasks() throws Exception {
+        ExecutorService executor = executorService.getExecutor("test-shutdown-now", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(new CountDownLatch(1));
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Runnable pendingTask = () -> { };
+        executor.execute(pendingTask);
+
+        Assert.assertEquals(executor.shutdownNow(), Collections.singletonList(pendingTask));
+    }
+
+    private static Bundle createBundle(long bundleId, String symbolicName, String version) {
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getBundleId()).andReturn(bundleId).anyTimes();
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion(version)).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
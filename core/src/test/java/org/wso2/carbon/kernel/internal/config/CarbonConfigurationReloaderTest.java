@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.config;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.PrivilegedCarbonRuntime;
+import org.wso2.carbon.kernel.config.CarbonConfigurationListener;
+import org.wso2.carbon.kernel.concurrent.ExecutorMetrics;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService;
+import org.wso2.carbon.kernel.internal.context.DefaultCarbonRuntime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.config.CarbonConfigurationReloader.
+ *
+ * @since 5.2.0
+ */
+public class CarbonConfigurationReloaderTest {
+
+    private Path configurationDirectory;
+    private Path configurationFile;
+    private PrivilegedCarbonRuntime carbonRuntime;
+    private CarbonConfiguration initialConfiguration;
+    private DefaultKernelExecutorService executorService;
+
+    @BeforeMethod
+    public void init() throws IOException {
+        configurationDirectory = Files.createTempDirectory("carbon-configuration-reload");
+        configurationFile = configurationDirectory.resolve("deployment.yaml");
+        Files.write(configurationFile, "wso2.carbon:\n".getBytes(StandardCharsets.UTF_8));
+        initialConfiguration = new CarbonConfiguration();
+        carbonRuntime = new DefaultCarbonRuntime();
+        carbonRuntime.setCarbonConfiguration(initialConfiguration);
+        executorService = new DefaultKernelExecutorService();
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        executorService.shutdown();
+        Files.deleteIfExists(configurationFile);
+        Files.deleteIfExists(configurationDirectory);
+    }
+
+    @Test
+    public void testReloadReplacesConfigurationAndNotifiesListeners() {
+        CarbonConfiguration newConfiguration = new CarbonConfiguration();
+        CarbonConfiguration[] notified = new CarbonConfiguration[2];
+        CarbonConfigurationListener listener = (previous, current) -> {
+            notified[0] = previous;
+            notified[1] = current;
+        };
+        CarbonConfigurationReloader reloader = new CarbonConfigurationReloader(configurationFile,
+                () -> newConfiguration, carbonRuntime, Collections.singletonList(listener), 0, executorService);
+
+        Assert.assertTrue(reloader.reload());
+        Assert.assertSame(carbonRuntime.getConfiguration(), newConfiguration);
+        Assert.assertSame(notified[0], initialConfiguration);
+        Assert.assertSame(notified[1], newConfiguration);
+    }
+
+    @Test
+    public void testFailedReloadKeepsConfiguration() {
+        CarbonConfigurationReloader reloader = new CarbonConfigurationReloader(configurationFile, () -> {
+            throw new IllegalArgumentException("invalid configuration");
+        }, carbonRuntime, Collections.emptyList(), 0, executorService);
+
+        Assert.assertFalse(reloader.reload());
+        Assert.assertSame(carbonRuntime.getConfiguration(), initialConfiguration);
+    }
+
+    @Test
+    public void testFileChangesAreDebounced() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch reloaded = new CountDownLatch(1);
+        List<CarbonConfigurationListener> listeners =
+                Collections.singletonList((previous, current) -> reloaded.countDown());
+        CarbonConfigurationReloader reloader = new CarbonConfigurationReloader(configurationFile, () -> {
+            loadCount.incrementAndGet();
+            return new CarbonConfiguration();
+        }, carbonRuntime, listeners, 500, executorService);
+
+        reloader.start();
+        try {
+            Assert.assertTrue(executorService.getExecutorMetrics().stream().map(ExecutorMetrics::getName)
+                    .anyMatch("CarbonConfigurationReloader"::equals), "The watcher does not run on a kernel executor");
+            for (int i = 0; i < 3; i++) {
+                Files.write(configurationFile, ("wso2.carbon:\n  id: carbon-" + i + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                Thread.sleep(50);
+            }
+            // The polling watch service implementations report changes within a few seconds.
+            Assert.assertTrue(reloaded.await(30, TimeUnit.SECONDS), "Configuration was not reloaded");
+            Thread.sleep(1000);
+            Assert.assertEquals(loadCount.get(), 1);
+            Assert.assertNotSame(carbonRuntime.getConfiguration(), initialConfiguration);
+        } finally {
+            reloader.stop();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.diagnostics.KernelDiagnostics.
+ *
+ * @since 5.2.0
+ */
+public class KernelDiagnosticsTest {
+
+    private static final Path RECORDING_DIRECTORY = Paths.get("target", "kernel-diagnostics");
+
+    private KernelDiagnostics kernelDiagnostics;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        if (!KernelEvents.isFlightRecorderAvailable()) {
+            throw new SkipException("Java Flight Recorder is not available in this JVM");
+        }
+        Files.createDirectories(RECORDING_DIRECTORY);
+        kernelDiagnostics = new KernelDiagnostics();
+    }
+
+    @Test
+    public void testRecordingLifecycle() throws Exception {
+        Assert.assertTrue(kernelDiagnostics.isFlightRecorderAvailable());
+        Assert.assertEquals(kernelDiagnostics.getRecordingState(), "NONE");
+
+        kernelDiagnostics.startRecording(null);
+        Assert.assertEquals(kernelDiagnostics.getRecordingState(), "RUNNING");
+        KernelEvents.startupComponentSatisfied("diagnostics-component", null, 100);
+
+        Path recordingFile = RECORDING_DIRECTORY.resolve("running.jfr");
+        Assert.assertEquals(kernelDiagnostics.dumpRecording(recordingFile.toString()),
+                recordingFile.toAbsolutePath().toString());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName()
+                        .equals("org.wso2.carbon.kernel.StartupComponentSatisfied"))
+                .collect(Collectors.toList());
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getString("componentName"), "diagnostics-component");
+
+        kernelDiagnostics.stopRecording();
+        Assert.assertEquals(kernelDiagnostics.getRecordingState(), "STOPPED");
+
+        // A stopped recording can still be dumped and a new recording can be started.
+        Path stoppedRecordingFile = RECORDING_DIRECTORY.resolve("stopped.jfr");
+        kernelDiagnostics.dumpRecording(stoppedRecordingFile.toString());
+        Assert.assertTrue(Files.size(stoppedRecordingFile) > 0);
+        kernelDiagnostics.startRecording("profile");
+        Assert.assertEquals(kernelDiagnostics.getRecordingState(), "RUNNING");
+        kernelDiagnostics.stopRecording();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testStartRecordingTwice() throws Exception {
+        kernelDiagnostics.startRecording("default");
+        try {
+            kernelDiagnostics.startRecording("default");
+        } finally {
+            kernelDiagnostics.stopRecording();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testStopWithoutRecording() {
+        kernelDiagnostics.stopRecording();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDumpWithoutRecording() throws Exception {
+        kernelDiagnostics.dumpRecording(RECORDING_DIRECTORY.resolve("none.jfr").toString());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDumpToEmptyPath() throws Exception {
+        kernelDiagnostics.dumpRecording(" ");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testStartWithInvalidSettings() throws Exception {
+        kernelDiagnostics.startRecording("no-such-settings");
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.runtime.CarbonRuntimeService;
+import org.wso2.carbon.kernel.internal.runtime.RuntimeManager;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.RuntimeState;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class tests the Java Flight Recorder events emitted through
+ * org.wso2.carbon.kernel.internal.diagnostics.KernelEvents.
+ *
+ * @since 5.2.0
+ */
+public class KernelEventsTest {
+
+    private static final String RUNTIME_TRANSITION_EVENT = "org.wso2.carbon.kernel.RuntimeTransition";
+    private static final String COMPONENT_SATISFIED_EVENT = "org.wso2.carbon.kernel.StartupComponentSatisfied";
+    private static final String COMPONENT_PENDING_EVENT = "org.wso2.carbon.kernel.StartupComponentPending";
+    private static final String CAPABILITY_LISTENER_EVENT = "org.wso2.carbon.kernel.RequiredCapabilityListener";
+    private static final Path RECORDING_DIRECTORY = Paths.get("target", "kernel-events");
+
+    private Recording recording;
+
+    @BeforeMethod
+    public void startRecording() throws IOException {
+        if (!KernelEvents.isFlightRecorderAvailable()) {
+            throw new SkipException("Java Flight Recorder is not available in this JVM");
+        }
+        Files.createDirectories(RECORDING_DIRECTORY);
+        recording = new Recording();
+        recording.enable(RUNTIME_TRANSITION_EVENT).withThreshold(Duration.ZERO);
+        recording.enable(COMPONENT_SATISFIED_EVENT);
+        recording.enable(COMPONENT_PENDING_EVENT);
+        recording.enable(CAPABILITY_LISTENER_EVENT).withThreshold(Duration.ZERO);
+        recording.start();
+    }
+
+    @AfterMethod
+    public void closeRecording() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Test
+    public void testRuntimeTransitionEvents() throws Exception {
+        RuntimeManager runtimeManager = new RuntimeManager();
+        runtimeManager.registerRuntime(new LifecycleRuntime());
+        CarbonRuntimeService runtimeService = new CarbonRuntimeService(runtimeManager);
+        runtimeService.startRuntimes();
+        runtimeService.stopRuntimes();
+
+        List<RecordedEvent> events = filter(readEvents(), RUNTIME_TRANSITION_EVENT);
+        Assert.assertEquals(events.stream().map(event -> event.getString("operation")).collect(Collectors.toList()),
+                Arrays.asList("init", "start", "stop"));
+        assertTransition(events.get(0), "INACTIVE", "INACTIVE");
+        assertTransition(events.get(1), "INACTIVE", "ACTIVE");
+        assertTransition(events.get(2), "ACTIVE", "INACTIVE");
+        events.forEach(event -> {
+            Assert.assertEquals(event.getString("runtime"), LifecycleRuntime.class.getName());
+            Assert.assertFalse(event.getBoolean("failed"));
+        });
+    }
+
+    @Test
+    public void testFailedRuntimeTransitionEvent() throws Exception {
+        LifecycleRuntime runtime = new LifecycleRuntime();
+        try {
+            KernelEvents.runtimeTransition(runtime, "beginMaintenance", () -> {
+                throw new RuntimeServiceException("Maintenance is not supported");
+            });
+            Assert.fail("The exception of the lifecycle operation was not thrown");
+        } catch (RuntimeServiceException e) {
+            Assert.assertEquals(e.getMessage(), "Maintenance is not supported");
+        }
+
+        List<RecordedEvent> events = filter(readEvents(), RUNTIME_TRANSITION_EVENT);
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getString("operation"), "beginMaintenance");
+        Assert.assertTrue(events.get(0).getBoolean("failed"));
+    }
+
+    @Test
+    public void testStartupComponentEvents() throws Exception {
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn("org.wso2.carbon.sample").anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.replay(bundle);
+
+        KernelEvents.startupComponentPending("sample-component", bundle, "sample-capability", 250);
+        KernelEvents.startupComponentSatisfied("sample-component", bundle, 500);
+        boolean[] notified = new boolean[1];
+        KernelEvents.capabilityListenerCallback("sample-component", bundle, () -> notified[0] = true);
+        Assert.assertTrue(notified[0]);
+
+        List<RecordedEvent> events = readEvents();
+        RecordedEvent pending = filter(events, COMPONENT_PENDING_EVENT).get(0);
+        Assert.assertEquals(pending.getString("componentName"), "sample-component");
+        Assert.assertEquals(pending.getString("bundle"), "org.wso2.carbon.sample:1.0.0");
+        Assert.assertEquals(pending.getString("pendingCapabilities"), "sample-capability");
+        Assert.assertEquals(pending.getDuration("waitTime").toMillis(), 250);
+
+        RecordedEvent satisfied = filter(events, COMPONENT_SATISFIED_EVENT).get(0);
+        Assert.assertEquals(satisfied.getString("componentName"), "sample-component");
+        Assert.assertEquals(satisfied.getString("bundle"), "org.wso2.carbon.sample:1.0.0");
+        Assert.assertEquals(satisfied.getDuration("waitTime").toMillis(), 500);
+
+        RecordedEvent listener = filter(events, CAPABILITY_LISTENER_EVENT).get(0);
+        Assert.assertEquals(listener.getString("componentName"), "sample-component");
+        Assert.assertFalse(listener.getBoolean("failed"));
+    }
+
+    /**
+     * Stops the recording and reads the recorded events.
+     */
+    private List<RecordedEvent> readEvents() throws IOException {
+        recording.stop();
+        Path recordingFile = RECORDING_DIRECTORY.resolve("kernel-events.jfr");
+        recording.dump(recordingFile);
+        return RecordingFile.readAllEvents(recordingFile);
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String eventName) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private static void assertTransition(RecordedEvent event, String fromState, String toState) {
+        Assert.assertEquals(event.getString("fromState"), fromState);
+        Assert.assertEquals(event.getString("toState"), toState);
+    }
+
+    /**
+     * Runtime which moves through the lifecycle states.
+     */
+    private static class LifecycleRuntime implements Runtime {
+        private RuntimeState state = RuntimeState.INACTIVE;
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void start() {
+            state = RuntimeState.ACTIVE;
+        }
+
+        @Override
+        public void stop() {
+            state = RuntimeState.INACTIVE;
+        }
+
+        @Override
+        public void beginMaintenance() {
+            state = RuntimeState.MAINTENANCE;
+        }
+
+        @Override
+        public void endMaintenance() {
+            state = RuntimeState.ACTIVE;
+        }
+
+        @Override
+        public Enum<RuntimeState> getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(RuntimeState runtimeState) {
+            state = runtimeState;
+        }
+    }
+}
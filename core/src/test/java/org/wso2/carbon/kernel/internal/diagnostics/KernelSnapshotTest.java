@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.diagnostics;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.PrivilegedCarbonRuntime;
+import org.wso2.carbon.kernel.internal.DataHolder;
+import org.wso2.carbon.kernel.internal.context.DefaultCarbonRuntime;
+import org.wso2.carbon.kernel.internal.runtime.CustomRuntime;
+import org.wso2.carbon.kernel.internal.runtime.RuntimeManager;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.diagnostics.KernelSnapshot.
+ *
+ * @since 5.2.0
+ */
+public class KernelSnapshotTest {
+
+    private RuntimeManager previousRuntimeManager;
+
+    @BeforeClass
+    public void init() {
+        previousRuntimeManager = DataHolder.getInstance().getRuntimeManager();
+        RuntimeManager runtimeManager = new RuntimeManager();
+        runtimeManager.registerRuntime(new CustomRuntime());
+        DataHolder.getInstance().setRuntimeManager(runtimeManager);
+    }
+
+    @AfterClass
+    public void cleanup() {
+        DataHolder.getInstance().setRuntimeManager(previousRuntimeManager);
+    }
+
+    @Test
+    public void testSnapshotContent() {
+        CarbonConfiguration carbonConfiguration = new CarbonConfiguration();
+        CompositeData snapshot = new KernelSnapshot(createCarbonRuntime(carbonConfiguration)).getSnapshot();
+
+        Assert.assertEquals(snapshot.get("serverId"), carbonConfiguration.getId());
+        Assert.assertTrue((Long) snapshot.get("heapUsed") > 0);
+        Assert.assertTrue((Integer) snapshot.get("threadCount") > 0);
+        Assert.assertTrue((Integer) snapshot.get("loadedClassCount") > 0);
+
+        TabularData runtimes = (TabularData) snapshot.get("runtimes");
+        Assert.assertEquals(runtimes.size(), 1);
+        CompositeData runtime = runtimes.get(new Object[]{CustomRuntime.class.getName()});
+        Assert.assertNotNull(runtime);
+        Assert.assertEquals(runtime.get("state"), String.valueOf(new CustomRuntime().getState()));
+    }
+
+    @Test
+    public void testSnapshotIsCached() {
+        CarbonConfiguration carbonConfiguration = new CarbonConfiguration();
+        carbonConfiguration.getJmxConfiguration().setSnapshotCacheInterval(60000);
+        KernelSnapshot kernelSnapshot = new KernelSnapshot(createCarbonRuntime(carbonConfiguration));
+
+        Assert.assertEquals(kernelSnapshot.getCacheInterval(), 60000);
+        Assert.assertSame(kernelSnapshot.getSnapshot(), kernelSnapshot.getSnapshot());
+    }
+
+    @Test
+    public void testSnapshotIsRebuiltWithoutCaching() {
+        CarbonConfiguration carbonConfiguration = new CarbonConfiguration();
+        carbonConfiguration.getJmxConfiguration().setSnapshotCacheInterval(0);
+        KernelSnapshot kernelSnapshot = new KernelSnapshot(createCarbonRuntime(carbonConfiguration));
+
+        Assert.assertNotSame(kernelSnapshot.getSnapshot(), kernelSnapshot.getSnapshot());
+    }
+
+    @Test
+    public void testSnapshotReadsReloadedConfiguration() {
+        CarbonConfiguration carbonConfiguration = new CarbonConfiguration();
+        carbonConfiguration.getJmxConfiguration().setSnapshotCacheInterval(0);
+        PrivilegedCarbonRuntime carbonRuntime = createCarbonRuntime(carbonConfiguration);
+        KernelSnapshot kernelSnapshot = new KernelSnapshot(carbonRuntime);
+        Assert.assertEquals(kernelSnapshot.getSnapshot().get("serverId"), carbonConfiguration.getId());
+
+        CarbonConfiguration reloadedConfiguration = new CarbonConfiguration() {
+            @Override
+            public String getId() {
+                return "reloaded-carbon-kernel";
+            }
+        };
+        reloadedConfiguration.getJmxConfiguration().setSnapshotCacheInterval(30000);
+        carbonRuntime.setCarbonConfiguration(reloadedConfiguration);
+
+        Assert.assertEquals(kernelSnapshot.getSnapshot().get("serverId"), "reloaded-carbon-kernel");
+        Assert.assertEquals(kernelSnapshot.getCacheInterval(), 30000);
+    }
+
+    private static PrivilegedCarbonRuntime createCarbonRuntime(CarbonConfiguration carbonConfiguration) {
+        PrivilegedCarbonRuntime carbonRuntime = new DefaultCarbonRuntime();
+        carbonRuntime.setCarbonConfiguration(carbonConfiguration);
+        return carbonRuntime;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.jmx;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService;
+import org.wso2.carbon.kernel.internal.config.JMXConfiguration;
+import org.wso2.carbon.kernel.internal.context.DefaultCarbonRuntime;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * This class tests the background startup of the JMXConnectorServer of
+ * org.wso2.carbon.kernel.internal.jmx.CarbonJMXComponent.
+ *
+ * @since 5.2.0
+ */
+public class CarbonJMXComponentTest {
+
+    private static final String HOST_NAME = "127.0.0.1";
+
+    @Test
+    public void testConnectorServerStartup() throws Exception {
+        int registryPort = getFreePort();
+        CarbonJMXComponent jmxComponent = createComponent(true, getFreePort(), registryPort);
+        jmxComponent.start(null);
+        try {
+            JMXServiceURL jmxServiceURL = jmxComponent.getConnectorServerStartup().get(30, TimeUnit.SECONDS);
+            Assert.assertNotNull(jmxServiceURL);
+            Assert.assertTrue(jmxServiceURL.getURLPath().endsWith(":" + registryPort + "/jmxrmi"),
+                    jmxServiceURL.toString());
+            Registry registry = LocateRegistry.getRegistry(HOST_NAME, registryPort);
+            Assert.assertTrue(Arrays.asList(registry.list()).contains("jmxrmi"));
+        } finally {
+            jmxComponent.stop();
+        }
+        assertRegistryReleased(registryPort);
+    }
+
+    @Test
+    public void testFailedConnectorServerStartup() throws Exception {
+        // The RMI server port is in use, hence the connector server fails after the RMI registry is created.
+        int registryPort = getFreePort();
+        try (ServerSocket usedPort = new ServerSocket(0, 0, InetAddress.getByName(HOST_NAME))) {
+            CarbonJMXComponent jmxComponent = createComponent(true, usedPort.getLocalPort(), registryPort);
+            jmxComponent.start(null);
+            try {
+                jmxComponent.getConnectorServerStartup().get(30, TimeUnit.SECONDS);
+                Assert.fail("The connector server started on a port in use");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException, String.valueOf(e.getCause()));
+            }
+            jmxComponent.stop();
+        }
+        assertRegistryReleased(registryPort);
+    }
+
+    @Test
+    public void testDisabledConnectorServer() throws Exception {
+        CarbonJMXComponent jmxComponent = createComponent(false, getFreePort(), getFreePort());
+        jmxComponent.start(null);
+        Assert.assertNull(jmxComponent.getConnectorServerStartup().get(30, TimeUnit.SECONDS));
+        jmxComponent.stop();
+    }
+
+    /**
+     * Asserts that the RMI registry is stopped and its port is released. The RMI runtime closes the server socket of
+     * an unexported registry in the background.
+     */
+    private static void assertRegistryReleased(int registryPort) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (true) {
+            try (ServerSocket serverSocket = new ServerSocket(registryPort, 0, InetAddress.getByName(HOST_NAME))) {
+                Assert.assertEquals(serverSocket.getLocalPort(), registryPort);
+                return;
+            } catch (BindException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    Assert.fail("RMI registry port " + registryPort + " is still in use", e);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static CarbonJMXComponent createComponent(boolean enabled, int rmiServerPort, int rmiRegistryPort) {
+        CarbonConfiguration carbonConfiguration = new CarbonConfiguration();
+        JMXConfiguration jmxConfiguration = carbonConfiguration.getJmxConfiguration();
+        jmxConfiguration.setEnabled(enabled);
+        jmxConfiguration.setHostName(HOST_NAME);
+        jmxConfiguration.setRmiServerPort(rmiServerPort);
+        jmxConfiguration.setRmiRegistryPort(rmiRegistryPort);
+        DefaultCarbonRuntime carbonRuntime = new DefaultCarbonRuntime();
+        carbonRuntime.setCarbonConfiguration(carbonConfiguration);
+
+        CarbonJMXComponent jmxComponent = new CarbonJMXComponent();
+        jmxComponent.registerCarbonRuntime(carbonRuntime);
+        jmxComponent.registerExecutorService(new DefaultKernelExecutorService());
+        return jmxComponent;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
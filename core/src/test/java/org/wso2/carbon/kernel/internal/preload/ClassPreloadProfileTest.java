@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.preload;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+
+/**
+ * Unit tests for org.wso2.carbon.kernel.internal.preload.ClassPreloadProfile class.
+ *
+ * @since 5.2.0
+ */
+public class ClassPreloadProfileTest {
+
+    private static final Path PROFILE_FILE = Paths.get("target", "class-preload", ClassPreloader.PROFILE_FILE);
+
+    @Test
+    public void testWriteAndReadProfile() throws IOException {
+        ClassPreloadProfile profile = new ClassPreloadProfile("fingerprint-1");
+        profile.addClass("org.wso2.carbon.sample;1.0.0", "org.wso2.carbon.sample.Foo");
+        profile.addClass("org.wso2.carbon.sample;1.0.0", "org.wso2.carbon.sample.Bar");
+        profile.addClass("org.wso2.carbon.other;2.0.0", "org.wso2.carbon.other.Baz");
+        profile.write(PROFILE_FILE);
+
+        Optional<ClassPreloadProfile> readProfile = ClassPreloadProfile.read(PROFILE_FILE);
+        Assert.assertTrue(readProfile.isPresent());
+        Assert.assertEquals(readProfile.get().getFingerprint(), "fingerprint-1");
+        Assert.assertEquals(readProfile.get().getClassCount(), 3);
+        Assert.assertEquals(readProfile.get().getClassesByBundle().get("org.wso2.carbon.sample;1.0.0"),
+                new HashSet<>(Arrays.asList("org.wso2.carbon.sample.Foo", "org.wso2.carbon.sample.Bar")));
+    }
+
+    @Test
+    public void testReadMissingOrInvalidProfile() throws IOException {
+        Path invalidProfile = PROFILE_FILE.resolveSibling("invalid.profile");
+        Files.createDirectories(invalidProfile.getParent());
+        Files.write(invalidProfile, "org.wso2.carbon.sample.Foo".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertFalse(ClassPreloadProfile.read(PROFILE_FILE.resolveSibling("missing.profile")).isPresent());
+        Assert.assertFalse(ClassPreloadProfile.read(invalidProfile).isPresent());
+    }
+
+    @Test
+    public void testFingerprintChangesWithBundles() {
+        Bundle bundle = createBundle("org.wso2.carbon.sample", "1.0.0");
+        Bundle sameBundle = createBundle("org.wso2.carbon.sample", "1.0.0");
+        Bundle upgradedBundle = createBundle("org.wso2.carbon.sample", "1.1.0");
+        Bundle otherBundle = createBundle("org.wso2.carbon.other", "1.0.0");
+
+        String fingerprint = ClassPreloadProfile.getFingerprint(new Bundle[]{bundle, otherBundle});
+        Assert.assertEquals(ClassPreloadProfile.getFingerprint(new Bundle[]{otherBundle, sameBundle}), fingerprint);
+        Assert.assertNotEquals(ClassPreloadProfile.getFingerprint(new Bundle[]{upgradedBundle, otherBundle}),
+                fingerprint);
+        Assert.assertNotEquals(ClassPreloadProfile.getFingerprint(new Bundle[]{bundle}), fingerprint);
+    }
+
+    private Bundle createBundle(String symbolicName, String version) {
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion(version)).anyTimes();
+        EasyMock.expect(bundle.getLocation()).andReturn("reference:file:plugins/" + symbolicName + ".jar").anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.preload;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+import org.osgi.framework.wiring.BundleWiring;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for org.wso2.carbon.kernel.internal.preload.ClassPreloader class.
+ *
+ * @since 5.2.0
+ */
+public class ClassPreloaderTest {
+
+    private static final Path CONFIGURATION_AREA = Paths.get("target", "class-preloader", "configuration");
+
+    private final Map<String, Integer> executorThreads = new ConcurrentHashMap<>();
+    private DefaultKernelExecutorService executorService;
+
+    @BeforeMethod
+    public void init() throws IOException {
+        Files.createDirectories(CONFIGURATION_AREA);
+        Files.deleteIfExists(CONFIGURATION_AREA.resolve(ClassPreloader.PROFILE_DIRECTORY)
+                .resolve(ClassPreloader.PROFILE_FILE));
+        executorThreads.clear();
+        executorService = new DefaultKernelExecutorService() {
+            @Override
+            public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity) {
+                executorThreads.put(name, maxThreads);
+                return super.getExecutor(name, maxThreads, queueCapacity);
+            }
+
+            @Override
+            public ExecutorService getExecutor(String name, int maxThreads, int queueCapacity, int threadPriority) {
+                executorThreads.put(name, maxThreads);
+                return super.getExecutor(name, maxThreads, queueCapacity, threadPriority);
+            }
+
+            @Override
+            public int getAvailableProcessors() {
+                return 4;
+            }
+        };
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testPreloadableBundleStates() {
+        Assert.assertTrue(ClassPreloader.isPreloadable(createBundle("active", Bundle.ACTIVE, null, null)));
+        Assert.assertTrue(ClassPreloader.isPreloadable(createBundle("resolved", Bundle.RESOLVED, null, null)));
+        Assert.assertTrue(ClassPreloader.isPreloadable(createBundle("starting", Bundle.STARTING, null, null)));
+        Assert.assertFalse(ClassPreloader.isPreloadable(createBundle("installed", Bundle.INSTALLED, null, null)));
+        Assert.assertFalse(ClassPreloader.isPreloadable(createBundle("lazy", Bundle.STARTING, "lazy", null)));
+        Assert.assertFalse(ClassPreloader.isPreloadable(createBundle("lazy-include", Bundle.RESOLVED,
+                "lazy;include:=\"org.wso2.carbon.sample\"", null)));
+        Assert.assertTrue(ClassPreloader.isPreloadable(createBundle("lazy-active", Bundle.ACTIVE, "lazy", null)));
+    }
+
+    @Test
+    public void testPreloadProfileClasses() throws Exception {
+        RecordingClassLoader resolvedLoader = new RecordingClassLoader();
+        RecordingClassLoader lazyLoader = new RecordingClassLoader();
+        RecordingClassLoader installedLoader = new RecordingClassLoader();
+        Bundle resolved = createBundle("org.wso2.carbon.resolved", Bundle.RESOLVED, null, resolvedLoader);
+        Bundle lazy = createBundle("org.wso2.carbon.lazy", Bundle.STARTING, "lazy", lazyLoader);
+        Bundle installed = createBundle("org.wso2.carbon.installed", Bundle.INSTALLED, null, installedLoader);
+        Bundle[] bundles = {resolved, lazy, installed};
+
+        // The profile lists classes which no longer exist and a bundle which is no longer installed.
+        ClassPreloadProfile profile = new ClassPreloadProfile(ClassPreloadProfile.getFingerprint(bundles));
+        profile.addClass(ClassPreloadProfile.getBundleKey(resolved), String.class.getName());
+        profile.addClass(ClassPreloadProfile.getBundleKey(resolved), Integer.class.getName());
+        profile.addClass(ClassPreloadProfile.getBundleKey(resolved), "org.wso2.carbon.resolved.Removed");
+        profile.addClass(ClassPreloadProfile.getBundleKey(lazy), String.class.getName());
+        profile.addClass(ClassPreloadProfile.getBundleKey(installed), String.class.getName());
+        profile.addClass("org.wso2.carbon.uninstalled;1.0.0", String.class.getName());
+        profile.write(CONFIGURATION_AREA.resolve(ClassPreloader.PROFILE_DIRECTORY)
+                .resolve(ClassPreloader.PROFILE_FILE));
+
+        ClassPreloader preloader = new ClassPreloader(createBundleContext(bundles), executorService);
+        preloader.start();
+        Assert.assertTrue(preloader.awaitPreloading(10, TimeUnit.SECONDS));
+        preloader.stop();
+
+        Assert.assertEquals(preloader.getPreloadedClassCount(), 2);
+        Assert.assertEquals(resolvedLoader.loadedClasses.size(), 3);
+        // The bundle is not on the critical path, hence its classes are loaded by low priority threads.
+        Assert.assertTrue(resolvedLoader.threadPriorities.stream()
+                        .allMatch(priority -> priority == Thread.MIN_PRIORITY),
+                "Classes were preloaded at priorities " + resolvedLoader.threadPriorities);
+        // The background bundles do not compete with the critical path for more than a single core.
+        Assert.assertEquals(executorThreads.get(ClassPreloader.BACKGROUND_PRELOAD_EXECUTOR_NAME),
+                Integer.valueOf(ClassPreloader.BACKGROUND_PRELOAD_THREADS));
+        Assert.assertEquals(executorThreads.get(ClassPreloader.PRELOAD_EXECUTOR_NAME), Integer.valueOf(3));
+        Assert.assertTrue(lazyLoader.loadedClasses.isEmpty(), "Classes of a lazy bundle were preloaded");
+        Assert.assertTrue(installedLoader.loadedClasses.isEmpty(), "Classes of an unresolved bundle were preloaded");
+    }
+
+    @Test
+    public void testRecordWithoutValidProfile() throws Exception {
+        Bundle bundle = createBundle("org.wso2.carbon.sample", Bundle.RESOLVED, null, new RecordingClassLoader());
+        Path profileFile = CONFIGURATION_AREA.resolve(ClassPreloader.PROFILE_DIRECTORY)
+                .resolve(ClassPreloader.PROFILE_FILE);
+        new ClassPreloadProfile("stale-fingerprint").write(profileFile);
+
+        ClassPreloader preloader = new ClassPreloader(createBundleContext(new Bundle[]{bundle}), executorService);
+        preloader.start();
+        Assert.assertTrue(preloader.awaitPreloading(1, TimeUnit.SECONDS));
+        preloader.stop();
+        Assert.assertEquals(preloader.getPreloadedClassCount(), 0);
+    }
+
+    private BundleContext createBundleContext(Bundle[] bundles) throws Exception {
+        BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(bundleContext.getProperty(ClassPreloader.OSGI_CONFIGURATION_AREA))
+                .andReturn(CONFIGURATION_AREA.toAbsolutePath().toUri().toURL().toString()).anyTimes();
+        EasyMock.expect(bundleContext.getBundles()).andReturn(bundles).anyTimes();
+        EasyMock.replay(bundleContext);
+        return bundleContext;
+    }
+
+    private Bundle createBundle(String symbolicName, int state, String activationPolicy, ClassLoader classLoader) {
+        Dictionary<String, String> headers = new Hashtable<>();
+        if (activationPolicy != null) {
+            headers.put(Constants.BUNDLE_ACTIVATIONPOLICY, activationPolicy);
+        }
+        BundleWiring bundleWiring = EasyMock.createMock(BundleWiring.class);
+        EasyMock.expect(bundleWiring.getClassLoader()).andReturn(classLoader).anyTimes();
+        EasyMock.replay(bundleWiring);
+
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.expect(bundle.getLocation()).andReturn("reference:file:plugins/" + symbolicName + ".jar").anyTimes();
+        EasyMock.expect(bundle.getState()).andReturn(state).anyTimes();
+        EasyMock.expect(bundle.getHeaders("")).andReturn(headers).anyTimes();
+        EasyMock.expect(bundle.adapt(BundleWiring.class)).andReturn(bundleWiring).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+
+    /**
+     * Records the classes requested from a bundle class loader.
+     */
+    private static class RecordingClassLoader extends ClassLoader {
+        private final List<String> loadedClasses = new CopyOnWriteArrayList<>();
+        private final List<Integer> threadPriorities = new CopyOnWriteArrayList<>();
+
+        RecordingClassLoader() {
+            super(ClassPreloaderTest.class.getClassLoader());
+        }
+
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            loadedClasses.add(name);
+            threadPriorities.add(Thread.currentThread().getPriority());
+            return super.loadClass(name);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+import org.wso2.carbon.kernel.startupresolver.CapabilityProvider;
+import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
+
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for org.wso2.carbon.kernel.internal.startupresolver.ContinuousStartupResolver class.
+ *
+ * @since 5.2.0
+ */
+public class ContinuousStartupResolverTest {
+
+    private static final String COMPONENT_NAME = "continuous-component";
+    private static final String REQUIRED_SERVICE = "org.wso2.carbon.sample.ContinuousService";
+    private static final String CAPABILITY_PROVIDER_ELEMENT = "osgi.service;objectClass=\"" +
+            CapabilityProvider.class.getName() + "\";capabilityName=\"" + REQUIRED_SERVICE + "\"";
+    private static final String COMPONENT_ELEMENT = "startup.listener;componentName=\"" + COMPONENT_NAME + "\";" +
+            "requiredService=\"" + REQUIRED_SERVICE + "\"";
+
+    private final Map<String, ServiceListener> serviceListeners = new ConcurrentHashMap<>();
+    private final Map<ServiceReference<?>, Object> services = new ConcurrentHashMap<>();
+    private ExecutorService dispatcher;
+    private BundleContext bundleContext;
+    private ContinuousStartupResolver resolver;
+
+    private Bundle componentBundle;
+    private Bundle serviceBundle;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        serviceListeners.clear();
+        services.clear();
+        dispatcher = Executors.newSingleThreadExecutor();
+        componentBundle = createBundle(10, COMPONENT_ELEMENT);
+        serviceBundle = createBundle(11, "osgi.service;objectClass=\"" + REQUIRED_SERVICE + "\"");
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        if (resolver != null) {
+            resolver.stop();
+            resolver = null;
+        }
+        dispatcher.shutdownNow();
+    }
+
+    @Test
+    public void testInstalledBundle() throws Exception {
+        startResolver();
+
+        install(componentBundle);
+        List<StartupComponent> components = resolver.getComponents(component -> true);
+        Assert.assertEquals(components.size(), 1);
+        Assert.assertEquals(components.get(0).getName(), COMPONENT_NAME);
+        Assert.assertTrue(components.get(0).getPendingCapabilities().isEmpty());
+
+        // The pending component expects the service declared by the newly installed bundle.
+        install(serviceBundle);
+        List<Capability> pendingCapabilities = components.get(0).getPendingCapabilities();
+        Assert.assertEquals(pendingCapabilities.size(), 1);
+        Assert.assertEquals(pendingCapabilities.get(0).getName(), REQUIRED_SERVICE);
+        Assert.assertEquals(pendingCapabilities.get(0).getBundle(), serviceBundle);
+    }
+
+    @Test
+    public void testUninstalledBundle() throws Exception {
+        startResolver();
+        install(componentBundle);
+        install(serviceBundle);
+
+        List<Boolean> notifications = new CopyOnWriteArrayList<>();
+        registerCapabilityListener(() -> notifications.add(Thread.holdsLock(resolver)));
+        Assert.assertTrue(notifications.isEmpty(), "Component was notified while waiting for a declared service");
+
+        // The component no longer waits for the service of the uninstalled bundle.
+        bundleChanged(serviceBundle, BundleEvent.UNINSTALLED);
+        Assert.assertEquals(notifications, Collections.singletonList(false),
+                "Listener should be notified once, without holding the resolver lock");
+
+        bundleChanged(componentBundle, BundleEvent.UNINSTALLED);
+        Assert.assertTrue(resolver.getComponents(component -> true).isEmpty());
+    }
+
+    @Test
+    public void testBundleInstalledWhileOpening() throws Exception {
+        // The service bundle is installed after the listener is registered, but before the installed bundles are
+        // taken. Hence it is both returned by open() and reported by a bundle event.
+        List<Bundle> bundles = createResolver(serviceBundle).open();
+        Assert.assertEquals(bundles, Collections.singletonList(serviceBundle));
+        resolver.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, serviceBundle));
+        resolver.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, componentBundle));
+        resolver.start();
+        awaitDispatcher();
+
+        // The service bundle is left to the StartupOrderResolver, which did not declare its service here, and the
+        // component bundle installed before the resolver started is processed once it starts.
+        List<StartupComponent> components = resolver.getComponents(component -> true);
+        Assert.assertEquals(components.size(), 1);
+        Assert.assertEquals(components.get(0).getName(), COMPONENT_NAME);
+        Assert.assertTrue(components.get(0).getPendingCapabilities().isEmpty(),
+                "Bundle returned by open() was processed again");
+    }
+
+    @Test
+    public void testDeclaredCapabilityProvider() throws Exception {
+        Bundle providerBundle = createBundle(12, CAPABILITY_PROVIDER_ELEMENT);
+        startResolver();
+
+        // The component installed after the provider bundle waits for the CapabilityProvider it declared.
+        install(providerBundle);
+        install(componentBundle);
+        List<Boolean> notifications = new CopyOnWriteArrayList<>();
+        registerCapabilityListener(() -> notifications.add(true));
+        StartupComponent component = resolver.getComponents(startupComponent -> true).get(0);
+        Assert.assertEquals(component.getPendingCapabilityProviders().size(), 1);
+        Assert.assertTrue(notifications.isEmpty(), "Component was notified while waiting for a CapabilityProvider");
+
+        // Once registered, the component waits for the capabilities announced by the provider instead.
+        registerCapabilityProvider(providerBundle, 2);
+        awaitDispatcher();
+        Assert.assertTrue(component.getPendingCapabilityProviders().isEmpty());
+        List<Capability> pendingCapabilities = component.getPendingCapabilities();
+        Assert.assertEquals(pendingCapabilities.size(), 1);
+        Assert.assertEquals(pendingCapabilities.get(0).getName(), REQUIRED_SERVICE);
+        Assert.assertEquals(pendingCapabilities.get(0).getBundle(), providerBundle);
+        Assert.assertTrue(notifications.isEmpty(), "Component was notified while waiting for the capabilities");
+    }
+
+    @Test
+    public void testCapabilityProviderRegisteredBeforeBundleIsProcessed() throws Exception {
+        Bundle bundle = createBundle(12, COMPONENT_ELEMENT + "," + CAPABILITY_PROVIDER_ELEMENT);
+        startResolver();
+
+        // The bundle registers its CapabilityProvider before the dispatcher processes its header.
+        CountDownLatch processing = new CountDownLatch(1);
+        dispatcher.execute(() -> {
+            try {
+                processing.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        resolver.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, bundle));
+        registerCapabilityProvider(bundle, 1);
+        processing.countDown();
+        awaitDispatcher();
+
+        // The declaration in the header matches the registered provider, hence the component does not wait for it.
+        StartupComponent component = resolver.getComponents(startupComponent -> true).get(0);
+        Assert.assertTrue(component.getPendingCapabilityProviders().isEmpty(),
+                "Component waits for a CapabilityProvider which is already registered");
+        List<Capability> pendingCapabilities = component.getPendingCapabilities();
+        Assert.assertEquals(pendingCapabilities.size(), 1);
+        Assert.assertEquals(pendingCapabilities.get(0).getName(), REQUIRED_SERVICE);
+        Assert.assertEquals(pendingCapabilities.get(0).getBundle(), bundle);
+    }
+
+    private void startResolver() throws Exception {
+        Assert.assertTrue(createResolver().open().isEmpty());
+        resolver.start();
+        awaitDispatcher();
+    }
+
+    private ContinuousStartupResolver createResolver(Bundle... installedBundles) throws Exception {
+        bundleContext = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(bundleContext.getBundles()).andReturn(installedBundles).anyTimes();
+        EasyMock.expect(bundleContext.createFilter(EasyMock.anyString()))
+                .andAnswer(() -> FrameworkUtil.createFilter((String) EasyMock.getCurrentArguments()[0])).anyTimes();
+        bundleContext.addServiceListener(EasyMock.anyObject(ServiceListener.class), EasyMock.anyString());
+        EasyMock.expectLastCall().andAnswer(() -> {
+            serviceListeners.put((String) EasyMock.getCurrentArguments()[1],
+                    (ServiceListener) EasyMock.getCurrentArguments()[0]);
+            return null;
+        }).anyTimes();
+        EasyMock.expect(bundleContext.getService(EasyMock.anyObject()))
+                .andAnswer(() -> services.get(EasyMock.getCurrentArguments()[0])).anyTimes();
+        EasyMock.replay(bundleContext);
+        resolver = new ContinuousStartupResolver(bundleContext, dispatcher);
+        return resolver;
+    }
+
+    private void install(Bundle bundle) throws Exception {
+        bundleChanged(bundle, BundleEvent.INSTALLED);
+    }
+
+    private void bundleChanged(Bundle bundle, int type) throws Exception {
+        resolver.bundleChanged(new BundleEvent(type, bundle));
+        awaitDispatcher();
+    }
+
+    private void registerCapabilityListener(RequiredCapabilityListener listener) throws Exception {
+        ServiceReference<?> reference = EasyMock.createNiceMock(ServiceReference.class);
+        EasyMock.expect(reference.getProperty("objectClass"))
+                .andReturn(new String[]{RequiredCapabilityListener.class.getName()}).anyTimes();
+        EasyMock.expect(reference.getProperty("componentName")).andReturn(COMPONENT_NAME).anyTimes();
+        EasyMock.expect((Object) reference.getBundle()).andReturn(componentBundle).anyTimes();
+        EasyMock.replay(reference);
+        services.put(reference, listener);
+
+        ServiceListener serviceListener = serviceListeners.entrySet().stream()
+                .filter(entry -> entry.getKey().contains(COMPONENT_NAME))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Services of " + COMPONENT_NAME + " are not tracked"));
+        serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, reference));
+        awaitDispatcher();
+    }
+
+    private void registerCapabilityProvider(Bundle bundle, int count) throws Exception {
+        ServiceReference<?> reference = EasyMock.createNiceMock(ServiceReference.class);
+        EasyMock.expect(reference.getProperty("objectClass"))
+                .andReturn(new String[]{CapabilityProvider.class.getName()}).anyTimes();
+        EasyMock.expect(reference.getProperty("capabilityName")).andReturn(REQUIRED_SERVICE).anyTimes();
+        EasyMock.expect((Object) reference.getBundle()).andReturn(bundle).anyTimes();
+        EasyMock.replay(reference);
+        services.put(reference, (CapabilityProvider) () -> count);
+
+        ServiceListener serviceListener = serviceListeners.entrySet().stream()
+                .filter(entry -> entry.getKey().contains(CapabilityProvider.class.getName()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("CapabilityProvider services are not tracked"));
+        serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, reference));
+    }
+
+    private void awaitDispatcher() throws Exception {
+        // The dispatcher is single threaded, once this task completes the earlier tasks have completed as well.
+        dispatcher.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static Bundle createBundle(long bundleId, String carbonComponentHeader) {
+        Hashtable<String, String> headers = new Hashtable<>();
+        headers.put(StartupResolverConstants.CARBON_COMPONENT_HEADER, carbonComponentHeader);
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getBundleId()).andReturn(bundleId).anyTimes();
+        EasyMock.expect(bundle.getSymbolicName()).andReturn("org.wso2.carbon.sample." + bundleId).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.expect(bundle.getHeaders()).andReturn(headers).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * This class tests the computation and persistence of
+ * org.wso2.carbon.kernel.internal.startupresolver.StartupCriticalPath.
+ *
+ * @since 5.2.0
+ */
+public class StartupCriticalPathTest {
+
+    private static final String CAPABILITY_NAME = "org.wso2.carbon.sample.Deployer";
+
+    @Test
+    public void testCriticalPathFollowsLastAvailableCapability() throws InterruptedException {
+        Bundle providerBundle = createBundle("org.wso2.carbon.sample.provider");
+        Bundle serviceBundle = createBundle("org.wso2.carbon.sample.service");
+        Bundle otherBundle = createBundle("org.wso2.carbon.sample.other");
+
+        StartupComponent other = new StartupComponent("other-component", otherBundle);
+        other.setListener(() -> { });
+        other.setSatisfied(true);
+
+        StartupComponent provider = new StartupComponent("provider-component", providerBundle);
+        provider.setListener(() -> { });
+        provider.setSatisfied(true);
+
+        StartupComponent service = new StartupComponent("service-component", serviceBundle);
+        service.setListener(() -> { });
+        Thread.sleep(5);
+        service.updateCapability(new OSGiServiceCapability(CAPABILITY_NAME, Capability.CapabilityType.OSGi_SERVICE,
+                Capability.CapabilityState.AVAILABLE, providerBundle, false));
+        Thread.sleep(5);
+        service.setSatisfied(true);
+
+        StartupCriticalPath criticalPath = StartupCriticalPath.of(Arrays.asList(other, provider, service), 1500);
+        Assert.assertEquals(criticalPath.getComponents(), Arrays.asList("provider-component", "service-component"));
+        Assert.assertEquals(criticalPath.getCapabilities(), Arrays.asList(CAPABILITY_NAME));
+        Assert.assertEquals(criticalPath.getBundles().size(), 2);
+        Assert.assertFalse(criticalPath.getBundles().contains("org.wso2.carbon.sample.other;1.0.0"));
+    }
+
+    @Test
+    public void testCriticalPathRoundTrip() throws IOException {
+        Bundle bundle = createBundle("org.wso2.carbon.sample.provider");
+        StartupComponent startupComponent = new StartupComponent("provider-component", bundle);
+        startupComponent.setSatisfied(true);
+
+        Path directory = Files.createTempDirectory("critical-path");
+        Path file = directory.resolve("org.wso2.carbon.core").resolve("startup-critical-path.properties");
+        try {
+            StartupCriticalPath.of(Arrays.asList(startupComponent), 2500).write(file);
+
+            Optional<StartupCriticalPath> criticalPath = StartupCriticalPath.read(file);
+            Assert.assertTrue(criticalPath.isPresent());
+            Assert.assertEquals(criticalPath.get().getStartupTime(), 2500);
+            Assert.assertEquals(criticalPath.get().getComponents(), Arrays.asList("provider-component"));
+            Assert.assertTrue(criticalPath.get().getCapabilities().isEmpty());
+            Assert.assertTrue(criticalPath.get().getBundles().contains("org.wso2.carbon.sample.provider;1.0.0"));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.getParent());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testMissingCriticalPath() throws IOException {
+        Assert.assertFalse(StartupCriticalPath.read(Files.createTempDirectory("critical-path").resolve("none"))
+                .isPresent());
+    }
+
+    private static Bundle createBundle(String symbolicName) {
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver.beans;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.startupresolver.StartupServiceCache;
+import org.wso2.carbon.kernel.startupresolver.StartupServiceUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class tests the expected capability counting of
+ * org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent.
+ *
+ * @since 5.2.0
+ */
+public class StartupComponentTest {
+
+    private static final String CAPABILITY_NAME = Deployer.class.getName();
+    private static final int PROVIDED_COUNT = 10000;
+
+    private Bundle providerBundle;
+    private Bundle serviceBundle;
+
+    @BeforeMethod
+    public void init() {
+        providerBundle = createBundle("org.wso2.carbon.sample.provider");
+        serviceBundle = createBundle("org.wso2.carbon.sample.service");
+    }
+
+    @Test
+    public void testProvidedCapabilitiesAreCounted() {
+        StartupComponent startupComponent = createComponent("counted-component");
+        startupComponent.addExpectedCapability(expected(true), PROVIDED_COUNT);
+
+        List<Capability> pendingCapabilities = startupComponent.getPendingCapabilities();
+        Assert.assertEquals(pendingCapabilities.size(), 1);
+        Assert.assertEquals(pendingCapabilities.get(0).getState(), Capability.CapabilityState.EXPECTED);
+
+        for (int i = 0; i < PROVIDED_COUNT - 1; i++) {
+            startupComponent.updateCapability(available());
+        }
+        Assert.assertFalse(startupComponent.getPendingCapabilities().isEmpty());
+    }
+
+    @Test
+    public void testDirectDependenciesSatisfiedByServiceCache() {
+        StartupComponent startupComponent = createComponent("cached-component");
+        startupComponent.addExpectedCapability(expected(true), 3);
+
+        for (int i = 0; i < 2; i++) {
+            StartupServiceCache.getInstance().update("cached-component", Deployer.class);
+        }
+        Assert.assertFalse(startupComponent.getPendingCapabilities().isEmpty());
+
+        StartupServiceCache.getInstance().update("cached-component", Deployer.class);
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+    }
+
+    @Test
+    public void testDirectDependenciesSatisfiedByBatchUpdate() {
+        StartupComponent startupComponent = createComponent("batch-component");
+        startupComponent.addExpectedCapability(expected(true), PROVIDED_COUNT);
+
+        StartupServiceUtils.updateServiceCache("batch-component", Deployer.class, PROVIDED_COUNT - 1);
+        Assert.assertFalse(startupComponent.getPendingCapabilities().isEmpty());
+
+        StartupServiceUtils.updateServiceCache("batch-component", Collections.singletonList(Deployer.class));
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+    }
+
+    @Test
+    public void testIndirectDependenciesSatisfiedByArrivals() {
+        StartupComponent startupComponent = createComponent("indirect-component");
+        startupComponent.addExpectedCapability(expected(false), 2);
+
+        startupComponent.updateCapability(available());
+        Assert.assertFalse(startupComponent.getPendingCapabilities().isEmpty());
+
+        startupComponent.updateCapability(available());
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+    }
+
+    @Test
+    public void testArrivalsBeforeExpectedCapabilities() {
+        StartupComponent startupComponent = createComponent("early-component");
+        startupComponent.updateCapability(available());
+        startupComponent.updateCapability(available());
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+
+        startupComponent.addExpectedCapability(expected(false), 3);
+        List<Capability> pendingCapabilities = startupComponent.getPendingCapabilities();
+        Assert.assertEquals(pendingCapabilities.size(), 2);
+
+        startupComponent.updateCapability(available());
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+    }
+
+    private StartupComponent createComponent(String componentName) {
+        StartupComponent startupComponent = new StartupComponent(componentName, providerBundle);
+        startupComponent.addRequiredService(CAPABILITY_NAME);
+        return startupComponent;
+    }
+
+    private Capability expected(boolean directDependency) {
+        return new OSGiServiceCapability(CAPABILITY_NAME, Capability.CapabilityType.OSGi_SERVICE,
+                Capability.CapabilityState.EXPECTED, providerBundle, directDependency);
+    }
+
+    private Capability available() {
+        return new OSGiServiceCapability(CAPABILITY_NAME, Capability.CapabilityType.OSGi_SERVICE,
+                Capability.CapabilityState.AVAILABLE, serviceBundle, false);
+    }
+
+    private static Bundle createBundle(String symbolicName) {
+        Bundle bundle = EasyMock.createMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+
+    /**
+     * Service interface counted by the {@code StartupServiceCache}.
+     */
+    private interface Deployer {
+    }
+}
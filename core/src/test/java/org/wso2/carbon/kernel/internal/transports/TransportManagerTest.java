@@ -0,0 +1,199 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.transports;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.config.model.TransportsConfig;
+import org.wso2.carbon.kernel.internal.concurrent.DefaultKernelExecutorService;
+import org.wso2.carbon.kernel.transports.CarbonTransport;
+import org.wso2.carbon.kernel.transports.TransportState;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.transports.TransportManager.
+ *
+ * @since 5.2.0
+ */
+public class TransportManagerTest {
+
+    private static final long START_DELAY = 300;
+
+    private DefaultKernelExecutorService executorService;
+    private TransportsConfig transportsConfig;
+
+    @BeforeMethod
+    public void init() {
+        executorService = new DefaultKernelExecutorService();
+        transportsConfig = new TransportsConfig();
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testTransportsStartInParallel() {
+        TransportManager transportManager = new TransportManager(executorService, transportsConfig, 0);
+        for (int i = 0; i < 3; i++) {
+            transportManager.registerTransport(new SampleTransport("sample-" + i, -1, false));
+        }
+
+        long startTime = System.nanoTime();
+        transportManager.startTransports();
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        Assert.assertTrue(elapsedTime < 3 * START_DELAY, "Transports were started sequentially");
+        for (CarbonTransport transport : transportManager.getTransportList()) {
+            Assert.assertEquals(transport.getState(), TransportState.STARTED);
+            Assert.assertTrue(transport.getStartLatency() >= START_DELAY);
+        }
+
+        CompositeData transportData = transportManager.getTransports().get(new Object[]{"sample-0"});
+        Assert.assertEquals(transportData.get("state"), "STARTED");
+        Assert.assertTrue((Long) transportData.get("startLatency") >= START_DELAY);
+    }
+
+    @Test
+    public void testPortOffsetIsApplied() {
+        TransportManager transportManager = new TransportManager(executorService, transportsConfig, 2);
+        SampleTransport transport = new SampleTransport("http", 9090, false);
+        transportManager.registerTransport(transport);
+
+        Assert.assertEquals(transport.getPort(), 9092);
+        Assert.assertEquals(new SampleTransport("file", -1, false).getPort(), -1);
+    }
+
+    @Test
+    public void testPortIsBoundAheadOfStart() throws IOException {
+        transportsConfig.setPreBindPorts(true);
+        TransportManager transportManager = new TransportManager(executorService, transportsConfig, 0);
+        SampleTransport transport = new SampleTransport("http", 0, true);
+        transportManager.registerTransport(transport);
+
+        ServerSocketChannel boundChannel = transport.getChannel();
+        Assert.assertNotNull(boundChannel);
+        InetSocketAddress address = (InetSocketAddress) boundChannel.getLocalAddress();
+
+        // The connection waits in the accept backlog until the transport accepts it.
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", address.getPort()))) {
+            Assert.assertTrue(client.isConnected());
+            transportManager.startTransport("http");
+            try (SocketChannel accepted = boundChannel.accept()) {
+                Assert.assertNotNull(accepted);
+            }
+        }
+
+        transportManager.stopTransport("http");
+        Assert.assertFalse(boundChannel.isOpen());
+        Assert.assertEquals(transport.getState(), TransportState.STOPPED);
+    }
+
+    @Test
+    public void testTransportStateTransitions() {
+        TransportManager transportManager = new TransportManager(executorService, transportsConfig, 0);
+        SampleTransport transport = new SampleTransport("jms", -1, false);
+        transportManager.registerTransport(transport);
+
+        Assert.assertThrows(IllegalStateException.class, () -> transportManager.stopTransport("jms"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> transportManager.startTransport("unknown"));
+
+        transportManager.startTransports();
+        transportManager.beginMaintenance();
+        Assert.assertEquals(transport.getState(), TransportState.IN_MAINTENANCE);
+        Assert.assertThrows(IllegalStateException.class, () -> transportManager.startTransport("jms"));
+
+        transportManager.endMaintenance();
+        transportManager.stopTransports();
+        Assert.assertEquals(transport.getState(), TransportState.STOPPED);
+
+        // Transports registered after the transports are started are started on registration.
+        transportManager.startTransports();
+        SampleTransport lateTransport = new SampleTransport("late", -1, false);
+        transportManager.registerTransport(lateTransport);
+        Assert.assertEquals(lateTransport.getState(), TransportState.STARTED);
+    }
+
+    @Test
+    public void testTransportRegisteredWhileStarting() {
+        TransportManager transportManager = new TransportManager(executorService, transportsConfig, 0);
+        SampleTransport registeredTransport = new SampleTransport("registered", -1, false);
+        transportManager.registerTransport(new SampleTransport("starting", -1, false) {
+            @Override
+            protected void start() {
+                super.start();
+                transportManager.registerTransport(registeredTransport);
+            }
+        });
+
+        // The transport registered while the transports were starting is started along with them.
+        transportManager.startTransports();
+        Assert.assertEquals(registeredTransport.getState(), TransportState.STARTED);
+        Assert.assertEquals(transportManager.getTransportList().size(), 2);
+    }
+
+    /**
+     * Transport which takes a while to start.
+     */
+    private static class SampleTransport extends CarbonTransport {
+
+        private final boolean preBindable;
+
+        SampleTransport(String id, int port, boolean preBindable) {
+            super(id, port);
+            this.preBindable = preBindable;
+        }
+
+        @Override
+        public boolean isPreBindable() {
+            return preBindable;
+        }
+
+        ServerSocketChannel getChannel() {
+            return getBoundChannel();
+        }
+
+        @Override
+        protected void start() {
+            try {
+                Thread.sleep(START_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void stop() {
+        }
+
+        @Override
+        protected void beginMaintenance() {
+        }
+
+        @Override
+        protected void endMaintenance() {
+        }
+    }
+}
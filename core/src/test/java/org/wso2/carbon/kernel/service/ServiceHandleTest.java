@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.service;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * This class tests the snapshot maintained by org.wso2.carbon.kernel.service.ServiceHandle.
+ *
+ * @since 5.2.0
+ */
+public class ServiceHandleTest {
+
+    private TestServiceReference lowRanked;
+    private TestServiceReference highRanked;
+    private TestServiceReference sameRankedLater;
+    private ServiceHandle<String> serviceHandle;
+
+    @BeforeMethod
+    public void init() {
+        lowRanked = new TestServiceReference(1, 0);
+        highRanked = new TestServiceReference(2, 10);
+        sameRankedLater = new TestServiceReference(3, 10);
+
+        BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(bundleContext.getService(lowRanked)).andReturn("low").anyTimes();
+        EasyMock.expect(bundleContext.getService(highRanked)).andReturn("high").anyTimes();
+        EasyMock.expect(bundleContext.getService(sameRankedLater)).andReturn("later").anyTimes();
+        EasyMock.replay(bundleContext);
+
+        serviceHandle = new ServiceHandle<>(bundleContext, String.class, null);
+    }
+
+    @Test
+    public void testEmptyHandle() {
+        Assert.assertNull(serviceHandle.get());
+        Assert.assertFalse(serviceHandle.isAvailable());
+        Assert.assertEquals(serviceHandle.getAll(), Collections.emptyList());
+    }
+
+    @Test
+    public void testHighestRankedService() {
+        serviceHandle.customizer.addingService(lowRanked);
+        Assert.assertEquals(serviceHandle.get(), "low");
+
+        serviceHandle.customizer.addingService(sameRankedLater);
+        serviceHandle.customizer.addingService(highRanked);
+        Assert.assertEquals(serviceHandle.get(), "high");
+        Assert.assertEquals(serviceHandle.getAll(), Arrays.asList("high", "later", "low"));
+
+        serviceHandle.customizer.removedService(highRanked, "high");
+        Assert.assertEquals(serviceHandle.get(), "later");
+    }
+
+    @Test
+    public void testModifiedRanking() {
+        serviceHandle.customizer.addingService(lowRanked);
+        serviceHandle.customizer.addingService(highRanked);
+
+        lowRanked.ranking = 20;
+        serviceHandle.customizer.modifiedService(lowRanked, "low");
+        Assert.assertEquals(serviceHandle.getAll(), Arrays.asList("low", "high"));
+
+        serviceHandle.customizer.removedService(lowRanked, "low");
+        serviceHandle.customizer.removedService(highRanked, "high");
+        Assert.assertFalse(serviceHandle.isAvailable());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() {
+        serviceHandle.customizer.addingService(lowRanked);
+        serviceHandle.getAll().clear();
+    }
+
+    /**
+     * Service reference ordered by the service ranking and id, as specified for OSGi service references.
+     */
+    private static class TestServiceReference implements ServiceReference<String> {
+        private final long serviceId;
+        private int ranking;
+
+        TestServiceReference(long serviceId, int ranking) {
+            this.serviceId = serviceId;
+            this.ranking = ranking;
+        }
+
+        @Override
+        public Object getProperty(String key) {
+            return null;
+        }
+
+        @Override
+        public String[] getPropertyKeys() {
+            return new String[0];
+        }
+
+        @Override
+        public Bundle getBundle() {
+            return null;
+        }
+
+        @Override
+        public Bundle[] getUsingBundles() {
+            return null;
+        }
+
+        @Override
+        public boolean isAssignableTo(Bundle bundle, String className) {
+            return true;
+        }
+
+        @Override
+        public int compareTo(Object reference) {
+            TestServiceReference other = (TestServiceReference) reference;
+            if (ranking != other.ranking) {
+                return Integer.compare(ranking, other.ranking);
+            }
+            return Long.compare(other.serviceId, serviceId);
+        }
+    }
+}
@@ -28,6 +28,31 @@
 #   JAVA_OPTS       (Optional) Java runtime options used when the commands
 #                   is executed.
 #
+#   CARBON_CDS      (Optional) Set to "off" to start the server without the
+#                   class data sharing archive created by --cds-train.
+#
+#   CARBON_CONTAINER_SIZING (Optional) Set to "off" to ignore the cgroup memory
+#                   and CPU limits and start with the default heap size.
+#
+#   CARBON_HEAP_PERCENTAGE (Optional) Percentage of the container memory limit
+#                   used as the heap size. Defaults to 50.
+#
+#   CARBON_METASPACE_PERCENTAGE (Optional) Percentage of the container memory
+#                   limit used as the maximum metaspace size. Defaults to 10.
+#
+#   CARBON_DIRECT_MEMORY_PERCENTAGE (Optional) Percentage of the container
+#                   memory limit used as the maximum direct memory size.
+#                   Defaults to 10.
+#
+#   CARBON_BUFFER_POOL_PERCENTAGE (Optional) Percentage of the maximum direct
+#                   memory size used by the direct buffer pool of the kernel.
+#                   The rest is left to the direct buffers allocated outside
+#                   the pool, e.g. by the JDK and the transports. Defaults to 50.
+#
+#   CARBON_GC_PROFILE (Optional) "latency" selects G1 with a pause time goal,
+#                   "throughput" selects the parallel collector. The JVM
+#                   default collector is used if not set.
+#
 # NOTE: Borrowed generously from Apache Tomcat startup scripts.
 # -----------------------------------------------------------------------------
 
@@ -158,6 +183,8 @@ do
           CMD="restart"
     elif [ "$c" = "--test" ] || [ "$c" = "-test" ] || [ "$c" = "test" ]; then
           CMD="test"
+    elif [ "$c" = "--cds-train" ] || [ "$c" = "-cds-train" ] || [ "$c" = "cds-train" ]; then
+          CMD="cds-train"
     else
         args="$args $c"
     fi
@@ -218,6 +245,14 @@ if [ "$jdk_18" = "" ]; then
    echo " [ERROR] CARBON is supported only on JDK 1.8"
 fi
 
+# Major version of the JVM, i.e. 8 for "1.8.0_144" and 11 for "11.0.2".
+java_version=`$JAVA_HOME/bin/java -version 2>&1 | awk -F '"' '/version/ {print $2}'`
+case "$java_version" in
+  1.*) JAVA_MAJOR_VERSION=`echo "$java_version" | cut -d. -f2` ;;
+  *)   JAVA_MAJOR_VERSION=`echo "$java_version" | cut -d. -f1 | cut -d- -f1` ;;
+esac
+[ -z "$JAVA_MAJOR_VERSION" ] && JAVA_MAJOR_VERSION=8
+
 CARBON_XBOOTCLASSPATH=""
 for f in "$CARBON_HOME"/bin/bootstrap/xboot/*.jar
 do
@@ -227,6 +262,11 @@ do
 done
 
 JAVA_ENDORSED_DIRS="$CARBON_HOME/bin/bootstrap/endorsed":"$JAVA_HOME/jre/lib/endorsed":"$JAVA_HOME/lib/endorsed"
+# The endorsed standards override mechanism was removed in JDK 9, and the JVM refuses to start if it is set.
+JAVA_ENDORSED_OPT=""
+if [ "$JAVA_MAJOR_VERSION" -lt 9 ]; then
+  JAVA_ENDORSED_OPT="-Djava.endorsed.dirs=$JAVA_ENDORSED_DIRS"
+fi
 
 CARBON_CLASSPATH=""
 if [ -e "$JAVA_HOME/bin/bootstrap/tools.jar" ]; then
@@ -249,6 +289,7 @@ if $cygwin; then
   RUNTIME_HOME=`cygpath --absolute --windows "$RUNTIME_HOME"`
   CLASSPATH=`cygpath --path --windows "$CLASSPATH"`
   JAVA_ENDORSED_DIRS=`cygpath --path --windows "$JAVA_ENDORSED_DIRS"`
+  [ -n "$JAVA_ENDORSED_OPT" ] && JAVA_ENDORSED_OPT="-Djava.endorsed.dirs=$JAVA_ENDORSED_DIRS"
   CARBON_CLASSPATH=`cygpath --path --windows "$CARBON_CLASSPATH"`
   CARBON_XBOOTCLASSPATH=`cygpath --path --windows "$CARBON_XBOOTCLASSPATH"`
 fi
@@ -261,6 +302,119 @@ echo RUNTIME_HOME environment variable is set to $RUNTIME_HOME
 
 cd "$RUNTIME_HOME"
 
+# ----- Class data sharing (AppCDS) ------------------------------------------
+# "carbon.sh --cds-train" boots the server once, stops it as soon as the startup completes and archives the classes
+# loaded by the launcher and the OSGi framework. Subsequent boots map the archive as long as it matches the current
+# distribution, i.e. the JVM, the launcher classpath and the OSGi repository are unchanged since the training run.
+CDS_DIR="$RUNTIME_HOME/cds"
+CDS_ARCHIVE="$CDS_DIR/carbon.jsa"
+CDS_CLASS_LIST="$CDS_DIR/carbon.classlist"
+CDS_FINGERPRINT="$CDS_DIR/carbon.jsa.fingerprint"
+CDS_OPT=""
+CDS_PROP=""
+
+cds_fingerprint() {
+  {
+    $JAVA_HOME/bin/java -version 2>&1
+    echo "$CARBON_CLASSPATH"
+    ls -lR "$CARBON_HOME/bin/bootstrap" "$CARBON_HOME/wso2/lib/plugins" 2>/dev/null
+  } | cksum | cut -d' ' -f1
+}
+
+if [ "$CMD" = "cds-train" ]; then
+  if [ "$JAVA_MAJOR_VERSION" -lt 11 ]; then
+    echo "[ERROR] Class data sharing training requires JDK 11 or later."
+    exit 1
+  fi
+  mkdir -p "$CDS_DIR"
+  rm -f "$CDS_ARCHIVE" "$CDS_CLASS_LIST" "$CDS_FINGERPRINT"
+  if [ "$JAVA_MAJOR_VERSION" -ge 13 ]; then
+    # Dynamic archives also cover the classes loaded by the OSGi framework class loader.
+    CDS_OPT="-XX:ArchiveClassesAtExit=$CDS_ARCHIVE"
+  else
+    CDS_OPT="-XX:DumpLoadedClassList=$CDS_CLASS_LIST"
+  fi
+  CDS_PROP="-Dcarbon.cds.training=true"
+  echo "Starting WSO2 Carbon in class data sharing training mode"
+elif [ -f "$CDS_ARCHIVE" ] && [ "$CARBON_CDS" != "off" ]; then
+  if [ "$JAVA_MAJOR_VERSION" -ge 11 ] && [ -f "$CDS_FINGERPRINT" ] \
+      && [ "`cat "$CDS_FINGERPRINT"`" = "`cds_fingerprint`" ]; then
+    CDS_OPT="-XX:SharedArchiveFile=$CDS_ARCHIVE"
+    CDS_PROP="-Dcarbon.cds.archive=$CDS_ARCHIVE"
+    echo "Using class data sharing archive $CDS_ARCHIVE"
+  else
+    echo "Discarding class data sharing archive $CDS_ARCHIVE as it does not match the current distribution."
+    echo "Run carbon.sh --cds-train to create a new archive."
+    rm -f "$CDS_ARCHIVE" "$CDS_CLASS_LIST" "$CDS_FINGERPRINT"
+  fi
+fi
+
+# ----- Container-aware JVM sizing -------------------------------------------
+# The heap, metaspace and direct memory budgets are derived from the cgroup (v2 or v1) memory limit of the container
+# and the CPU count from its CPU quota, so that the JVM neither exceeds the limit nor sizes the kernel thread pools
+# for the CPUs of the host. Options given in JAVA_OPTS take precedence as they follow the derived options.
+MEM_OPTS="-Xms256m -Xmx1024m"
+GC_OPTS=""
+CPU_OPTS=""
+
+cgroup_memory_limit() {
+  if [ -f /sys/fs/cgroup/memory.max ]; then
+    limit=`cat /sys/fs/cgroup/memory.max`
+    [ "$limit" != "max" ] && echo "$limit"
+  elif [ -f /sys/fs/cgroup/memory/memory.limit_in_bytes ]; then
+    limit=`cat /sys/fs/cgroup/memory/memory.limit_in_bytes`
+    # cgroup v1 reports a value close to the maximum 64 bit integer if the memory is not limited.
+    [ ${#limit} -lt 19 ] && echo "$limit"
+  fi
+}
+
+cgroup_cpu_limit() {
+  if [ -f /sys/fs/cgroup/cpu.max ]; then
+    read quota period < /sys/fs/cgroup/cpu.max
+  elif [ -f /sys/fs/cgroup/cpu/cpu.cfs_quota_us ] && [ -f /sys/fs/cgroup/cpu/cpu.cfs_period_us ]; then
+    quota=`cat /sys/fs/cgroup/cpu/cpu.cfs_quota_us`
+    period=`cat /sys/fs/cgroup/cpu/cpu.cfs_period_us`
+  fi
+  if [ -n "$quota" ] && [ "$quota" != "max" ] && [ "$quota" != "-1" ] && [ -n "$period" ] && [ "$period" -gt 0 ]; then
+    echo $(( (quota + period - 1) / period ))
+  fi
+}
+
+if [ "$CARBON_CONTAINER_SIZING" != "off" ] && [ "$CMD" != "cds-train" ]; then
+  MEMORY_LIMIT=`cgroup_memory_limit`
+  if [ -n "$MEMORY_LIMIT" ]; then
+    MEMORY_LIMIT_MB=$(( MEMORY_LIMIT / 1048576 ))
+    HEAP_MB=$(( MEMORY_LIMIT_MB * ${CARBON_HEAP_PERCENTAGE:-50} / 100 ))
+    METASPACE_MB=$(( MEMORY_LIMIT_MB * ${CARBON_METASPACE_PERCENTAGE:-10} / 100 ))
+    DIRECT_MEMORY_MB=$(( MEMORY_LIMIT_MB * ${CARBON_DIRECT_MEMORY_PERCENTAGE:-10} / 100 ))
+    MEM_OPTS="-Xms${HEAP_MB}m -Xmx${HEAP_MB}m -XX:MaxMetaspaceSize=${METASPACE_MB}m"
+    MEM_OPTS="$MEM_OPTS -XX:MaxDirectMemorySize=${DIRECT_MEMORY_MB}m"
+    # The direct buffer pool of the kernel gets a share of the derived direct memory, in bytes.
+    BUFFER_POOL_MB=$(( DIRECT_MEMORY_MB * ${CARBON_BUFFER_POOL_PERCENTAGE:-50} / 100 ))
+    MEM_OPTS="$MEM_OPTS -Dcarbon.direct.memory.max=$(( BUFFER_POOL_MB * 1048576 ))"
+    echo "Container memory limit ${MEMORY_LIMIT_MB}m: heap ${HEAP_MB}m, metaspace ${METASPACE_MB}m," \
+      "direct memory ${DIRECT_MEMORY_MB}m of which ${BUFFER_POOL_MB}m for the buffer pool"
+  fi
+
+  CPU_LIMIT=`cgroup_cpu_limit`
+  if [ -n "$CPU_LIMIT" ]; then
+    CPU_OPTS="-Dcarbon.cpu.count=$CPU_LIMIT"
+    # -XX:ActiveProcessorCount is only understood by JDK 10 and later.
+    if [ "$JAVA_MAJOR_VERSION" -ge 10 ]; then
+      CPU_OPTS="-XX:ActiveProcessorCount=$CPU_LIMIT $CPU_OPTS"
+    fi
+    echo "Container CPU limit: $CPU_LIMIT"
+  fi
+fi
+
+case "$CARBON_GC_PROFILE" in
+  latency)    GC_OPTS="-XX:+UseG1GC -XX:MaxGCPauseMillis=100" ;;
+  throughput) GC_OPTS="-XX:+UseParallelGC" ;;
+  "")         ;;
+  *)          echo "[WARN] Unknown CARBON_GC_PROFILE $CARBON_GC_PROFILE, using the default collector." ;;
+esac
+[ -n "$GC_OPTS" ] && echo "Using the $CARBON_GC_PROFILE garbage collection profile: $GC_OPTS"
+
 START_EXIT_STATUS=121
 status=$START_EXIT_STATUS
 
@@ -271,12 +425,15 @@ while [ "$status" = "$START_EXIT_STATUS" ]
 do
     $JAVACMD \
     -Xbootclasspath/a:"$CARBON_XBOOTCLASSPATH" \
-    -Xms256m -Xmx1024m \
+    ${CDS_OPT:+"$CDS_OPT"} \
+    $MEM_OPTS \
+    $GC_OPTS \
+    $CPU_OPTS \
     -XX:+HeapDumpOnOutOfMemoryError \
     -XX:HeapDumpPath="$RUNTIME_HOME/logs/heap-dump.hprof" \
     $JAVA_OPTS \
     -classpath "$CARBON_CLASSPATH" \
-    -Djava.endorsed.dirs="$JAVA_ENDORSED_DIRS" \
+    ${JAVA_ENDORSED_OPT:+"$JAVA_ENDORSED_OPT"} \
     -Djava.io.tmpdir="$CARBON_HOME/tmp" \
     -Dcarbon.registry.root=/ \
     -Djava.command="$JAVACMD" \
@@ -286,6 +443,30 @@ do
     -Djava.util.logging.config.file="$RUNTIME_HOME/bin/bootstrap/logging.properties" \
     -Djava.security.egd=file:/dev/./urandom \
     -Dfile.encoding=UTF8 \
+    ${CDS_PROP:+"$CDS_PROP"} \
     org.wso2.carbon.launcher.Main $*
     status=$?
 done
+
+if [ "$CMD" = "cds-train" ]; then
+  if [ "$status" != "0" ]; then
+    echo "[ERROR] Class data sharing training run failed with the exit status $status."
+    rm -f "$CDS_ARCHIVE" "$CDS_CLASS_LIST"
+    exit $status
+  fi
+  if [ -f "$CDS_CLASS_LIST" ]; then
+    # JDK 11 and 12 can only archive the classes of the recorded class list in a separate dump step.
+    $JAVA_HOME/bin/java -Xshare:dump \
+      -Xbootclasspath/a:"$CARBON_XBOOTCLASSPATH" \
+      -XX:SharedClassListFile="$CDS_CLASS_LIST" \
+      -XX:SharedArchiveFile="$CDS_ARCHIVE" \
+      -classpath "$CARBON_CLASSPATH"
+  fi
+  if [ -f "$CDS_ARCHIVE" ]; then
+    cds_fingerprint > "$CDS_FINGERPRINT"
+    echo "Created class data sharing archive $CDS_ARCHIVE"
+  else
+    echo "[ERROR] Class data sharing archive was not created."
+    exit 1
+  fi
+fi
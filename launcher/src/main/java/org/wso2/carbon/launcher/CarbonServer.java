@@ -19,17 +19,28 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
 import org.wso2.carbon.launcher.config.CarbonInitialBundle;
 import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+import org.wso2.carbon.launcher.diagnostics.LauncherEvents;
 
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
+import static org.wso2.carbon.launcher.Constants.CARBON_CPU_COUNT;
+import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_INFO_CLASS;
 import static org.wso2.carbon.launcher.Constants.CARBON_START_TIME;
 
 /**
@@ -41,9 +52,14 @@ public class CarbonServer {
 
     private static final Logger logger = Logger.getLogger(CarbonServer.class.getName());
 
+    private static final int FRAMEWORK_RELEASE_ATTEMPTS = 10;
+    private static final long FRAMEWORK_RELEASE_WAIT_MILLIS = 100;
+
     private CarbonLaunchConfig config;
     private Framework framework;
     private ServerStatus serverStatus;
+    private WeakReference<ClassLoader> fwkClassLoaderReference;
+    private long restartStartTime = -1;
     /**
      * Constructor.
      *
@@ -65,10 +81,14 @@ public class CarbonServer {
 
         // Sets the server start time.
         System.setProperty(CARBON_START_TIME, Long.toString(System.currentTimeMillis()));
+        if (restartStartTime < 0) {
+            logJVMSettings();
+        }
 
         try {
             // Creates an OSGi framework instance.
             ClassLoader fwkClassLoader = createOSGiFwkClassLoader();
+            fwkClassLoaderReference = new WeakReference<>(fwkClassLoader);
             FrameworkFactory fwkFactory = loadOSGiFwkFactory(fwkClassLoader);
             framework = fwkFactory.newFramework(config.getProperties());
 
@@ -95,6 +115,66 @@ public class CarbonServer {
         }
     }
 
+    /**
+     * Logs the JVM settings the server runs with, i.e. the settings derived by the startup script from the container
+     * limits or given in JAVA_OPTS.
+     */
+    private void logJVMSettings() {
+        String cpuCount = System.getProperty(CARBON_CPU_COUNT);
+        String garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName)
+                .collect(Collectors.joining(", "));
+        String memoryOptions = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.startsWith("-XX:MaxMetaspaceSize=") ||
+                        argument.startsWith("-XX:MaxDirectMemorySize="))
+                .collect(Collectors.joining(" "));
+        logger.log(Level.INFO, "Starting the Carbon server with " +
+                (cpuCount != null ? cpuCount + " CPUs of the container quota" :
+                        Runtime.getRuntime().availableProcessors() + " CPUs") +
+                ", " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB maximum heap" +
+                (memoryOptions.isEmpty() ? "" : " (" + memoryOptions + ")") +
+                " and the " + garbageCollectors + " garbage collectors.");
+    }
+
+    /**
+     * Restarts this Carbon server instance within the running JVM. The previous OSGi framework must have been
+     * stopped already. A fresh framework is started only if the class loader of the previous framework becomes
+     * unreachable, i.e. nothing outside the previous framework still refers to its classes. Otherwise restarting in
+     * the same JVM would leak the previous framework and the caller should restart the JVM instead.
+     * <p>
+     * The in-process restart is best-effort. Equinox registers the JVM-wide URL stream handler and content handler
+     * factories through {@link java.net.URL#setURLStreamHandlerFactory} and
+     * {@link java.net.URLConnection#setContentHandlerFactory}, which cannot be unset, and some of its threads may
+     * outlive the framework. Both keep the previous framework class loader reachable, in which case this method
+     * returns false and the server is restarted in a new JVM, i.e. exits with the restart exit code.
+     * <p>
+     * Like {@link #start()}, this method returns only after the restarted server instance stops completely.
+     *
+     * @return true if the server was restarted, false if the previous framework could not be released
+     * @throws Exception if error occurred
+     */
+    public boolean restart() throws Exception {
+        long startTime = System.currentTimeMillis();
+        if (!releaseOSGiFramework()) {
+            logger.log(Level.WARNING, "The class loader of the stopped OSGi framework is still reachable after " +
+                    (System.currentTimeMillis() - startTime) + " ms. Restarting the server in the same JVM would " +
+                    "leak it.");
+            return false;
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Released the stopped OSGi framework in " +
+                    (System.currentTimeMillis() - startTime) + " ms.");
+        }
+
+        restartStartTime = startTime;
+        try {
+            start();
+        } finally {
+            restartStartTime = -1;
+        }
+        return true;
+    }
+
     /**
      * Stop this Carbon server instance.
      */
@@ -107,28 +187,11 @@ public class CarbonServer {
             logger.log(Level.FINE, "Stopping the OSGi framework.");
         }
 
-        // Framework.stop() method returns before the framework shutdown. But this.stop() method should only return
-        //  after framework stops completely. Therefore we invokes the framework.stop() method in a new
-        //  thread and this thread waits till the framework stops completely using the framework.waitForStop() method.
-        new Thread() {
-            public void run() {
-                try {
-                    framework.stop();
-                } catch (BundleException e) {
-                    logger.log(Level.SEVERE, e.getMessage(), e);
-                    throw new RuntimeException(e);
-                }
-            }
-        }.start();
-
-
+        // Bundles are stopped start level by start level within the configured deadlines. This method returns only
+        //  after the framework stops completely or the shutdown deadline passes.
         try {
-            FrameworkEvent event = framework.waitForStop(1000 * 60 * 3);
-            if (event.getType() == FrameworkEvent.WAIT_TIMEDOUT) {
-                if (logger.isLoggable(Level.FINE)) {
-                    logger.log(Level.FINE, "OSGi framework did not stop during the given time.");
-                }
-            }
+            new ShutdownOrchestrator(framework, config.getShutdownTimeout(), config.getBundleShutdownTimeout(),
+                    config.getShutdownParallelism()).shutdown();
         } catch (InterruptedException e) {
             logger.log(Level.SEVERE, e.getMessage(), e);
             throw new RuntimeException(e);
@@ -141,14 +204,30 @@ public class CarbonServer {
      *
      * @param framework osgiFramework
      * @throws BundleException
+     * @throws InvalidSyntaxException if the CDS training listener filter is invalid
      */
-    private void initAndStartOSGiFramework(Framework framework) throws BundleException {
+    private void initAndStartOSGiFramework(Framework framework) throws BundleException, InvalidSyntaxException {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Initializing the OSGi framework.");
         }
 
         framework.init();
 
+        if (LauncherEvents.isFlightRecorderAvailable()) {
+            framework.getBundleContext().addBundleListener(LauncherEvents.createBundleListener());
+        }
+
+        // Startup listeners have to be in place before the framework starts moving to the beginning start level.
+        if (config.isCDSTrainingRun()) {
+            registerServerStartupListener(framework.getBundleContext(), this::stopAfterCDSTraining);
+        }
+        if (restartStartTime > 0) {
+            long startTime = restartStartTime;
+            registerServerStartupListener(framework.getBundleContext(), () -> logger.log(Level.INFO,
+                    "Carbon server restarted in the same JVM in " + (System.currentTimeMillis() - startTime) +
+                            " ms."));
+        }
+
         // Starts the framework.
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Starting the OSGi framework.");
@@ -161,6 +240,76 @@ public class CarbonServer {
         }
     }
 
+    /**
+     * Registers a listener which runs the given action once the CarbonServerInfo service is registered, which marks
+     * the completion of the server startup.
+     *
+     * @param bundleContext system bundle context
+     * @param action        action to run on server startup completion
+     * @throws InvalidSyntaxException if the service filter is invalid
+     */
+    private void registerServerStartupListener(BundleContext bundleContext, Runnable action)
+            throws InvalidSyntaxException {
+        String filter = "(" + org.osgi.framework.Constants.OBJECTCLASS + "=" + CARBON_SERVER_INFO_CLASS + ")";
+        bundleContext.addServiceListener(new ServiceListener() {
+            @Override
+            public void serviceChanged(ServiceEvent event) {
+                if (event.getType() == ServiceEvent.REGISTERED) {
+                    bundleContext.removeServiceListener(this);
+                    action.run();
+                }
+            }
+        }, filter);
+    }
+
+    /**
+     * Stops the OSGi framework at the end of a class data sharing (CDS) training run. The classes loaded up to the
+     * server startup completion make up the class list recorded by the training run.
+     */
+    private void stopAfterCDSTraining() {
+        logger.log(Level.INFO, "Carbon server startup completed in CDS training mode. Stopping the server.");
+        try {
+            framework.stop();
+        } catch (BundleException e) {
+            logger.log(Level.SEVERE, "Error while stopping the OSGi framework after the CDS training run", e);
+        }
+    }
+
+    /**
+     * Drops all the references to the stopped OSGi framework and waits until its class loader is garbage collected.
+     *
+     * @return true if the framework class loader became unreachable
+     * @throws InterruptedException if interrupted while waiting for the garbage collection
+     */
+    private boolean releaseOSGiFramework() throws InterruptedException {
+        framework = null;
+        if (fwkClassLoaderReference == null) {
+            return true;
+        }
+
+        closeOSGiFwkClassLoader();
+        for (int i = 0; i < FRAMEWORK_RELEASE_ATTEMPTS && fwkClassLoaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(FRAMEWORK_RELEASE_WAIT_MILLIS);
+        }
+        return fwkClassLoaderReference.get() == null;
+    }
+
+    /**
+     * Closes the OSGi framework class loader to release the framework jar. The strong reference obtained here is
+     * confined to this method, so that it does not keep the class loader reachable afterwards.
+     */
+    private void closeOSGiFwkClassLoader() {
+        ClassLoader fwkClassLoader = fwkClassLoaderReference.get();
+        if (fwkClassLoader instanceof URLClassLoader) {
+            try {
+                ((URLClassLoader) fwkClassLoader).close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error while closing the OSGi framework class loader", e);
+            }
+        }
+    }
+
     /**
      * Wait until this Framework has completely stopped.
      *
@@ -187,11 +336,11 @@ public class CarbonServer {
     }
 
     /**
-     * Create OSGi framework class loader.
+     * Create OSGi framework class loader. Package-private for the restart tests.
      *
      * @return new OSGi class loader
      */
-    private ClassLoader createOSGiFwkClassLoader() {
+    ClassLoader createOSGiFwkClassLoader() {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Creating OSGi framework class loader.");
         }
@@ -202,12 +351,12 @@ public class CarbonServer {
 
     /**
      * Creates a new service loader for the given service type and class loader.
-     * Load OSGi framework factory for the given class loader.
+     * Load OSGi framework factory for the given class loader. Package-private for the restart tests.
      *
      * @param classLoader The class loader to be used to load provider-configurations
      * @return framework factory for creating framework instances
      */
-    private FrameworkFactory loadOSGiFwkFactory(ClassLoader classLoader) {
+    FrameworkFactory loadOSGiFwkFactory(ClassLoader classLoader) {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Loading OSGi FrameworkFactory implementation class from the classpath.");
         }
@@ -45,6 +45,21 @@ public class Constants {
     public static final String CARBON_INITIAL_OSGI_BUNDLES = "carbon.initial.osgi.bundles";
     public static final String CARBON_SERVER_LISTENERS = "carbon.server.listeners";
 
+    public static final String CARBON_SERVER_RESTART = "carbon.server.restart";
+    public static final String CARBON_SERVER_RESTART_MODE = "carbon.server.restart.mode";
+    public static final String IN_PROCESS_RESTART_MODE = "in-process";
+
+    public static final String CARBON_SHUTDOWN_TIMEOUT = "carbon.shutdown.timeout";
+    public static final String CARBON_SHUTDOWN_BUNDLE_TIMEOUT = "carbon.shutdown.bundle.timeout";
+    public static final String CARBON_SHUTDOWN_PARALLELISM = "carbon.shutdown.parallelism";
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 1000 * 60 * 3;
+    public static final long DEFAULT_SHUTDOWN_BUNDLE_TIMEOUT = 1000 * 30;
+
+    public static final String CARBON_CDS_TRAINING = "carbon.cds.training";
+    public static final String CARBON_CDS_ARCHIVE = "carbon.cds.archive";
+    public static final String CARBON_CPU_COUNT = "carbon.cpu.count";
+    static final String CARBON_SERVER_INFO_CLASS = "org.wso2.carbon.kernel.CarbonServerInfo";
+
     public static final String OSGI_INSTALL_AREA = "osgi.install.area";
     public static final String OSGI_CONFIG_AREA = "osgi.configuration.area";
     public static final String OSGI_INSTANCE_AREA = "osgi.instance.area";
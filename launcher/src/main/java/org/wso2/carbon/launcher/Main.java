@@ -32,7 +32,9 @@ import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.wso2.carbon.launcher.Constants.CARBON_CDS_ARCHIVE;
 import static org.wso2.carbon.launcher.Constants.CARBON_HOME;
+import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_RESTART;
 import static org.wso2.carbon.launcher.Constants.DEFAULT_PROFILE;
 import static org.wso2.carbon.launcher.Constants.ExitCodes;
 import static org.wso2.carbon.launcher.Constants.LAUNCH_PROPERTIES_FILE;
@@ -72,6 +74,7 @@ public class Main {
 
         // 3) Load the Carbon start configuration
         CarbonLaunchConfig config = loadCarbonLaunchConfig();
+        logClassDataSharingStatus(config);
 
         CarbonServer carbonServer = new CarbonServer(config);
 
@@ -83,19 +86,7 @@ public class Main {
 
         // 6) Start Carbon server.
         try {
-            // This method launches the OSGi framework, loads all the bundles and starts Carbon server completely.
-            carbonServer.start();
-
-            // Checking whether a server restart is required.
-            boolean restart = Boolean.parseBoolean(System.getProperty("carbon.server.restart"));
-            if (restart) {
-                // Here in this implementation we do not simply restart the OSGi framework. This could lead up to
-                //  memory leaks. Hence we do a complete JVM level restart. Exit state 121 is a special value.
-                //  Once the startup script receives this value, it restarts the JVM with the same arguments.
-                System.exit(ExitCodes.RESTART_ACTION);
-            } else {
-                System.exit(ExitCodes.SUCCESSFUL_TERMINATION);
-            }
+            System.exit(runServer(carbonServer, config));
         } catch (Throwable e) {
             // We need to invoke the stop method of the CarbonServer to allow the server to cleanup itself.
             carbonServer.stop();
@@ -105,6 +96,47 @@ public class Main {
         }
     }
 
+    /**
+     * Starts the Carbon server, and restarts it within this JVM as long as restarts are requested and the in-process
+     * restart mode succeeds.
+     *
+     * @param carbonServer Carbon server instance
+     * @param config       Carbon launch configuration
+     * @return the exit code of the JVM, {@link ExitCodes#RESTART_ACTION} if the JVM has to be restarted
+     * @throws Exception if error occurred
+     */
+    static int runServer(CarbonServer carbonServer, CarbonLaunchConfig config) throws Exception {
+        // This method launches the OSGi framework, loads all the bundles and starts Carbon server completely.
+        carbonServer.start();
+
+        // Checking whether a server restart is required.
+        while (isRestartRequested()) {
+            if (config.isInProcessRestart()) {
+                // Restart the OSGi framework within this JVM. CarbonServer verifies that the stopped framework
+                //  can be garbage collected before starting a new one, and refuses to restart otherwise.
+                System.setProperty(CARBON_SERVER_RESTART, "false");
+                if (carbonServer.restart()) {
+                    continue;
+                }
+                logger.log(Level.INFO, "Falling back to a JVM restart.");
+            }
+            // By default we do not simply restart the OSGi framework as this could lead up to memory leaks. Hence
+            //  we do a complete JVM level restart. Exit state 121 is a special value.
+            //  Once the startup script receives this value, it restarts the JVM with the same arguments.
+            return ExitCodes.RESTART_ACTION;
+        }
+        return ExitCodes.SUCCESSFUL_TERMINATION;
+    }
+
+    /**
+     * Checks whether the stopped server should be started again.
+     *
+     * @return true if the carbon.server.restart system property is set to true
+     */
+    private static boolean isRestartRequested() {
+        return Boolean.parseBoolean(System.getProperty(CARBON_SERVER_RESTART));
+    }
+
     /**
      * Loads Carbon launch configuration from the launch.properties file.
      *
@@ -129,6 +161,25 @@ public class Main {
         }
     }
 
+    /**
+     * Logs whether this JVM records or uses a class data sharing (CDS) archive. The archive itself is created and
+     * validated against the current distribution by the startup script.
+     *
+     * @param config Carbon launch configuration
+     */
+    private static void logClassDataSharingStatus(CarbonLaunchConfig config) {
+        if (config.isCDSTrainingRun()) {
+            logger.log(Level.INFO, "Starting Carbon server in CDS training mode. The server will stop once the " +
+                    "startup completes and the loaded classes will be archived.");
+            return;
+        }
+
+        String cdsArchive = System.getProperty(CARBON_CDS_ARCHIVE);
+        if (cdsArchive != null && logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Starting Carbon server with the CDS archive " + cdsArchive);
+        }
+    }
+
     /**
      * Registers a new virtual-machine shutdown hook.
      *
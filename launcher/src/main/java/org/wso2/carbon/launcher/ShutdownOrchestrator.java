@@ -0,0 +1,312 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Stops the OSGi framework within a bounded time.
+ * <p>
+ * Bundles are stopped start level by start level, starting from the highest start level, which is the reverse of
+ * the startup order. Within a start level, a bundle is stopped only after the bundles of the same start level which
+ * depend on it, i.e. which are wired to it or use one of its services, have stopped. Bundles which are not linked
+ * this way are stopped concurrently. Each bundle gets its own deadline and the whole shutdown has an overall
+ * deadline. A bundle which misses its deadline is logged and left behind, and once the overall deadline passes the
+ * remaining bundles are left to the framework shutdown. A timing report listing the slowest bundles is logged at the
+ * end.
+ *
+ * @since 5.2.0
+ */
+class ShutdownOrchestrator {
+
+    private static final Logger logger = Logger.getLogger(ShutdownOrchestrator.class.getName());
+
+    private static final int SLOWEST_BUNDLES_IN_REPORT = 5;
+
+    private final Framework framework;
+    private final long shutdownTimeout;
+    private final long bundleShutdownTimeout;
+    private final int parallelism;
+
+    private final Map<Bundle, Long> bundleStopTimes = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> startLevelStopTimes = new LinkedHashMap<>();
+    private final List<Bundle> slowBundles = new ArrayList<>();
+
+    /**
+     * @param framework             OSGi framework to be stopped
+     * @param shutdownTimeout       overall deadline for the shutdown in milliseconds
+     * @param bundleShutdownTimeout deadline for stopping a single bundle in milliseconds
+     * @param parallelism           maximum number of bundles stopped at once, 1 stops bundles one by one
+     */
+    ShutdownOrchestrator(Framework framework, long shutdownTimeout, long bundleShutdownTimeout, int parallelism) {
+        this.framework = framework;
+        this.shutdownTimeout = shutdownTimeout;
+        this.bundleShutdownTimeout = bundleShutdownTimeout;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Stops all the bundles and then the framework. This method returns once the framework is stopped or the overall
+     * deadline has passed.
+     *
+     * @throws InterruptedException if interrupted while waiting for the shutdown
+     */
+    void shutdown() throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + shutdownTimeout;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "CarbonShutdown-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Map.Entry<Integer, List<Bundle>> startLevel : getActiveBundlesByStartLevel().entrySet()) {
+                if (!stopStartLevel(executor, startLevel.getKey(), startLevel.getValue(), deadline)) {
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long bundlesStoppedTime = System.currentTimeMillis();
+        stopFramework(deadline);
+        long endTime = System.currentTimeMillis();
+
+        logReport(endTime - startTime, bundlesStoppedTime - startTime, endTime - bundlesStoppedTime);
+    }
+
+    /**
+     * Stops the bundles of a start level, dependent bundles before the bundles they depend on.
+     *
+     * @return false if the overall deadline has passed
+     */
+    private boolean stopStartLevel(ExecutorService executor, int startLevel, List<Bundle> bundles, long deadline)
+            throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Stopping " + bundles.size() + " bundles in start level " + startLevel);
+        }
+
+        List<List<Bundle>> stopOrder = getStopOrder(bundles);
+        boolean deadlinePassed = false;
+        for (int i = 0; i < stopOrder.size() && !deadlinePassed; i++) {
+            Map<Bundle, Future<?>> stopTasks = new LinkedHashMap<>();
+            stopOrder.get(i).forEach(bundle -> stopTasks.put(bundle, executor.submit(() -> stopBundle(bundle))));
+            deadlinePassed = !awaitStopTasks(stopTasks, deadline);
+
+            if (deadlinePassed) {
+                String pendingBundles = stopTasks.entrySet().stream()
+                        .filter(stopTask -> !stopTask.getValue().isDone())
+                        .map(stopTask -> getBundleName(stopTask.getKey()))
+                        .collect(Collectors.joining(", "));
+                String notStoppedBundles = stopOrder.subList(i + 1, stopOrder.size()).stream()
+                        .flatMap(List::stream)
+                        .map(ShutdownOrchestrator::getBundleName)
+                        .collect(Collectors.joining(", "));
+                logger.log(Level.SEVERE, "Carbon server shutdown exceeded the deadline of " + shutdownTimeout +
+                        " ms while stopping start level " + startLevel + ". Bundles still stopping: [" +
+                        pendingBundles + "], bundles not stopped: [" + notStoppedBundles +
+                        "]. Stopping the OSGi framework.");
+            }
+        }
+        startLevelStopTimes.put(startLevel, System.currentTimeMillis() - startTime);
+        return !deadlinePassed;
+    }
+
+    /**
+     * Waits for the given bundle stop tasks, each within the bundle deadline.
+     *
+     * @return false if the overall deadline has passed
+     */
+    private boolean awaitStopTasks(Map<Bundle, Future<?>> stopTasks, long deadline) throws InterruptedException {
+        for (Map.Entry<Bundle, Future<?>> stopTask : stopTasks.entrySet()) {
+            Bundle bundle = stopTask.getKey();
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                stopTask.getValue().get(Math.min(bundleShutdownTimeout, remaining), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                slowBundles.add(bundle);
+                logger.log(Level.WARNING, "Bundle " + getBundleName(bundle) + " did not stop within " +
+                        bundleShutdownTimeout + " ms. Continuing the shutdown without waiting for it.");
+            } catch (ExecutionException e) {
+                logger.log(Level.SEVERE, "Error while stopping bundle " + getBundleName(bundle), e.getCause());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders the bundles of a start level for stopping. Each group contains bundles which can be stopped
+     * concurrently, once all the groups before it have stopped. A bundle is placed after all the bundles of the start
+     * level which depend on it. Bundles with a dependency cycle are stopped one by one, the most recently installed
+     * bundle first.
+     *
+     * @param bundles bundles of a start level
+     * @return groups of bundles in the order they should be stopped
+     */
+    static List<List<Bundle>> getStopOrder(List<Bundle> bundles) {
+        Map<Bundle, Set<Bundle>> dependents = getDependents(bundles);
+        Set<Bundle> remaining = new LinkedHashSet<>(bundles);
+        List<List<Bundle>> stopOrder = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            List<Bundle> group = remaining.stream()
+                    .filter(bundle -> Collections.disjoint(dependents.get(bundle), remaining))
+                    .collect(Collectors.toList());
+            if (group.isEmpty()) {
+                group = Collections.singletonList(remaining.stream()
+                        .max(Comparator.comparingLong(Bundle::getBundleId))
+                        .get());
+            }
+            remaining.removeAll(group);
+            stopOrder.add(group);
+        }
+        return stopOrder;
+    }
+
+    /**
+     * @param bundles bundles of a start level
+     * @return bundles of the same start level which are wired to or use a service of each bundle
+     */
+    private static Map<Bundle, Set<Bundle>> getDependents(List<Bundle> bundles) {
+        Set<Bundle> startLevelBundles = new HashSet<>(bundles);
+        Map<Bundle, Set<Bundle>> dependents = new HashMap<>();
+        for (Bundle bundle : bundles) {
+            Set<Bundle> bundleDependents = new HashSet<>();
+            BundleWiring wiring = bundle.adapt(BundleWiring.class);
+            List<BundleWire> providedWires = wiring != null ? wiring.getProvidedWires(null) : null;
+            if (providedWires != null) {
+                providedWires.forEach(wire -> bundleDependents.add(wire.getRequirer().getBundle()));
+            }
+            ServiceReference<?>[] services = bundle.getRegisteredServices();
+            if (services != null) {
+                for (ServiceReference<?> service : services) {
+                    Bundle[] usingBundles = service.getUsingBundles();
+                    if (usingBundles != null) {
+                        bundleDependents.addAll(Arrays.asList(usingBundles));
+                    }
+                }
+            }
+            bundleDependents.retainAll(startLevelBundles);
+            bundleDependents.remove(bundle);
+            dependents.put(bundle, bundleDependents);
+        }
+        return dependents;
+    }
+
+    private void stopBundle(Bundle bundle) {
+        long startTime = System.currentTimeMillis();
+        try {
+            // Transient stop keeps the persistent autostart setting of the bundle intact.
+            bundle.stop(Bundle.STOP_TRANSIENT);
+        } catch (BundleException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            bundleStopTimes.put(bundle, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private void stopFramework(long deadline) throws InterruptedException {
+        try {
+            // Framework.stop() returns immediately and stops the framework in another thread.
+            framework.stop();
+        } catch (BundleException e) {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+
+        // waitForStop(0) waits forever, hence at least 1 ms.
+        FrameworkEvent event = framework.waitForStop(Math.max(1, deadline - System.currentTimeMillis()));
+        if (event.getType() == FrameworkEvent.WAIT_TIMEDOUT) {
+            logger.log(Level.SEVERE, "OSGi framework did not stop within the shutdown deadline of " +
+                    shutdownTimeout + " ms.");
+        }
+    }
+
+    /**
+     * @return active bundles grouped by start level, highest start level first
+     */
+    private Map<Integer, List<Bundle>> getActiveBundlesByStartLevel() {
+        return Arrays.stream(framework.getBundleContext().getBundles())
+                .filter(bundle -> bundle.getBundleId() != 0)
+                .filter(bundle -> bundle.getState() == Bundle.ACTIVE || bundle.getState() == Bundle.STARTING)
+                .collect(Collectors.groupingBy(bundle -> bundle.adapt(BundleStartLevel.class).getStartLevel(),
+                        () -> new TreeMap<Integer, List<Bundle>>(Comparator.reverseOrder()), Collectors.toList()));
+    }
+
+    private void logReport(long totalTime, long bundlesTime, long frameworkTime) {
+        String slowestBundles = bundleStopTimes.entrySet().stream()
+                .sorted(Map.Entry.<Bundle, Long>comparingByValue().reversed())
+                .limit(SLOWEST_BUNDLES_IN_REPORT)
+                .map(entry -> getBundleName(entry.getKey()) + " (" + entry.getValue() + " ms)")
+                .collect(Collectors.joining(", "));
+        logger.log(Level.INFO, "Carbon server stopped in " + totalTime + " ms (bundles: " + bundlesTime +
+                " ms, framework: " + frameworkTime + " ms). Slowest bundles: [" + slowestBundles + "]");
+
+        if (!slowBundles.isEmpty()) {
+            logger.log(Level.WARNING, "Bundles which missed the stop deadline of " + bundleShutdownTimeout +
+                    " ms: " + slowBundles.stream().map(ShutdownOrchestrator::getBundleName)
+                    .collect(Collectors.joining(", ")));
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            startLevelStopTimes.forEach((startLevel, time) -> logger.log(Level.FINE,
+                    "Start level " + startLevel + " stopped in " + time + " ms"));
+            bundleStopTimes.forEach((bundle, time) -> logger.log(Level.FINE,
+                    "Bundle " + getBundleName(bundle) + " stopped in " + time + " ms"));
+        }
+    }
+
+    private static String getBundleName(Bundle bundle) {
+        return bundle.getSymbolicName() + ":" + bundle.getVersion() + " [" + bundle.getBundleId() + "]";
+    }
+}
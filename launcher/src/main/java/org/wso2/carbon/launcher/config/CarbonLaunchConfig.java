@@ -38,13 +38,21 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static org.wso2.carbon.launcher.Constants.CARBON_CDS_TRAINING;
 import static org.wso2.carbon.launcher.Constants.CARBON_HOME;
 import static org.wso2.carbon.launcher.Constants.CARBON_INITIAL_OSGI_BUNDLES;
 import static org.wso2.carbon.launcher.Constants.CARBON_OSGI_FRAMEWORK;
 import static org.wso2.carbon.launcher.Constants.CARBON_OSGI_REPOSITORY;
 import static org.wso2.carbon.launcher.Constants.CARBON_PROFILE_REPOSITORY;
 import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_LISTENERS;
+import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_RESTART_MODE;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_BUNDLE_TIMEOUT;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_PARALLELISM;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_TIMEOUT;
+import static org.wso2.carbon.launcher.Constants.DEFAULT_SHUTDOWN_BUNDLE_TIMEOUT;
+import static org.wso2.carbon.launcher.Constants.DEFAULT_SHUTDOWN_TIMEOUT;
 import static org.wso2.carbon.launcher.Constants.ECLIPSE_P2_DATA_AREA;
+import static org.wso2.carbon.launcher.Constants.IN_PROCESS_RESTART_MODE;
 import static org.wso2.carbon.launcher.Constants.OSGI_CONFIG_AREA;
 import static org.wso2.carbon.launcher.Constants.OSGI_INSTALL_AREA;
 import static org.wso2.carbon.launcher.Constants.OSGI_INSTANCE_AREA;
@@ -69,6 +77,14 @@ public class CarbonLaunchConfig {
 
     private String carbonHome;
 
+    private boolean cdsTrainingRun;
+
+    private boolean inProcessRestart;
+
+    private long shutdownTimeout;
+    private long bundleShutdownTimeout;
+    private int shutdownParallelism;
+
     private String carbonOSGiRepositoryPath;
     private String carbonProfileRepositoryPath;
 
@@ -250,6 +266,53 @@ public class CarbonLaunchConfig {
         return carbonHome;
     }
 
+    /**
+     * Check whether this is a class data sharing (CDS) training run. A training run boots the server once to record
+     * the loaded classes and stops as soon as the server startup completes.
+     *
+     * @return true if the server is started in CDS training mode, false otherwise
+     */
+    public boolean isCDSTrainingRun() {
+        return cdsTrainingRun;
+    }
+
+    /**
+     * Check whether a server restart should be done within the running JVM instead of exiting with the restart exit
+     * code and letting the startup script launch a new JVM. The in-process restart is best-effort, the server still
+     * restarts the JVM if the stopped OSGi framework cannot be released (see
+     * {@link org.wso2.carbon.launcher.CarbonServer#restart()}).
+     *
+     * @return true if carbon.server.restart.mode is set to in-process, false otherwise
+     */
+    public boolean isInProcessRestart() {
+        return inProcessRestart;
+    }
+
+    /**
+     * @return overall deadline for the server shutdown in milliseconds
+     */
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * @return deadline for stopping a single bundle during the server shutdown in milliseconds
+     */
+    public long getBundleShutdownTimeout() {
+        return bundleShutdownTimeout;
+    }
+
+    /**
+     * Returns the maximum number of bundles of the same start level which are stopped at once during the server
+     * shutdown. Only bundles which do not depend on each other are stopped at once. Defaults to the number of
+     * available processors, 1 stops the bundles one by one.
+     *
+     * @return shutdown parallelism
+     */
+    public int getShutdownParallelism() {
+        return shutdownParallelism;
+    }
+
     /**
      * @return carbon server listeners
      */
@@ -308,10 +371,45 @@ public class CarbonLaunchConfig {
         eclipseP2DataArea = resolvePath(properties.get(ECLIPSE_P2_DATA_AREA), carbonOSGiRepositoryPath,
                 ECLIPSE_P2_DATA_AREA);
 
+        // System properties given by the startup script take precedence over the launch.properties entries.
+        cdsTrainingRun = Boolean.parseBoolean(System.getProperty(CARBON_CDS_TRAINING,
+                properties.get(CARBON_CDS_TRAINING)));
+        inProcessRestart = IN_PROCESS_RESTART_MODE.equals(System.getProperty(CARBON_SERVER_RESTART_MODE,
+                properties.get(CARBON_SERVER_RESTART_MODE)));
+        shutdownTimeout = getLongProperty(CARBON_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT);
+        bundleShutdownTimeout = getLongProperty(CARBON_SHUTDOWN_BUNDLE_TIMEOUT, DEFAULT_SHUTDOWN_BUNDLE_TIMEOUT);
+        shutdownParallelism = (int) getLongProperty(CARBON_SHUTDOWN_PARALLELISM,
+                Runtime.getRuntime().availableProcessors());
+
         populateInitialBundlesList(properties.get(CARBON_INITIAL_OSGI_BUNDLES));
         loadCarbonServerListeners(properties.get(CARBON_SERVER_LISTENERS));
     }
 
+    /**
+     * Reads a positive numeric property, a system property taking precedence over the launch.properties entry.
+     *
+     * @param key          property key
+     * @param defaultValue value used if the property is not set or is not a positive number
+     * @return property value
+     */
+    private long getLongProperty(String key, long defaultValue) {
+        String value = System.getProperty(key, properties.get(key));
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            long longValue = Long.parseLong(value.trim());
+            if (longValue > 0) {
+                return longValue;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the warning below.
+        }
+        logger.log(Level.WARNING, "Invalid value " + value + " for " + key + ". Using the default value " +
+                defaultValue + ".");
+        return defaultValue;
+    }
+
     /**
      * Resolve a file path against a parent path.
      *
@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a bundle installed in the OSGi framework of the Carbon server.
+ *
+ * @since 5.2.0
+ */
+@Name("org.wso2.carbon.launcher.BundleInstall")
+@Label("Bundle Install")
+@Category({"WSO2 Carbon", "Launcher"})
+@Description("A bundle was installed in the OSGi framework")
+@StackTrace(false)
+class BundleInstallEvent extends Event {
+
+    @Label("Bundle Id")
+    long bundleId;
+
+    @Label("Symbolic Name")
+    String symbolicName;
+
+    @Label("Version")
+    String version;
+
+    @Label("Location")
+    String location;
+}
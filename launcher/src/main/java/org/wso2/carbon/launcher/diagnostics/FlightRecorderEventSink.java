@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.diagnostics;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emits the launcher events to the Java Flight Recorder. Events are only created if their event type is enabled in a
+ * running recording.
+ *
+ * @since 5.2.0
+ */
+class FlightRecorderEventSink implements LauncherEventSink {
+
+    private final Map<Long, BundleStartEvent> startingBundles = new ConcurrentHashMap<>();
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        Bundle bundle = event.getBundle();
+        switch (event.getType()) {
+            case BundleEvent.INSTALLED:
+                BundleInstallEvent installEvent = new BundleInstallEvent();
+                if (installEvent.isEnabled()) {
+                    installEvent.bundleId = bundle.getBundleId();
+                    installEvent.symbolicName = bundle.getSymbolicName();
+                    installEvent.version = String.valueOf(bundle.getVersion());
+                    installEvent.location = bundle.getLocation();
+                    installEvent.commit();
+                }
+                break;
+            case BundleEvent.STARTING:
+                BundleStartEvent startEvent = new BundleStartEvent();
+                if (startEvent.isEnabled()) {
+                    startEvent.begin();
+                    startingBundles.put(bundle.getBundleId(), startEvent);
+                }
+                break;
+            case BundleEvent.STARTED:
+                commitBundleStart(bundle, false);
+                break;
+            case BundleEvent.STOPPING:
+            case BundleEvent.STOPPED:
+                // a bundle whose activator fails to start moves to STOPPING without a STARTED event
+                commitBundleStart(bundle, true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void osgiLibDeployment(String profile, LauncherEvents.DeploymentAction action) throws IOException {
+        OSGiLibDeploymentEvent event = new OSGiLibDeploymentEvent();
+        event.begin();
+        try {
+            event.bundleCount = action.deploy();
+        } catch (IOException | RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.profile = profile;
+                event.commit();
+            }
+        }
+    }
+
+    private void commitBundleStart(Bundle bundle, boolean failed) {
+        BundleStartEvent event = startingBundles.remove(bundle.getBundleId());
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.bundleId = bundle.getBundleId();
+                event.symbolicName = bundle.getSymbolicName();
+                event.version = String.valueOf(bundle.getVersion());
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
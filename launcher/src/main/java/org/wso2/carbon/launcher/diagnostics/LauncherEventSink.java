@@ -0,0 +1,35 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.diagnostics;
+
+import org.osgi.framework.BundleEvent;
+
+import java.io.IOException;
+
+/**
+ * Receives the diagnostic events of the launcher. The default methods record nothing and only run the given actions.
+ *
+ * @since 5.2.0
+ */
+interface LauncherEventSink {
+
+    default void bundleChanged(BundleEvent event) {
+    }
+
+    default void osgiLibDeployment(String profile, LauncherEvents.DeploymentAction action) throws IOException {
+        action.deploy();
+    }
+}
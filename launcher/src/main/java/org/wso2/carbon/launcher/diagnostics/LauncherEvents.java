@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.diagnostics;
+
+import org.osgi.framework.SynchronousBundleListener;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits the Java Flight Recorder events of the Carbon launcher.
+ * <p>
+ * The events are emitted only if the JVM provides the jdk.jfr API. On any other JVM the methods of this class only run
+ * the given actions. The event classes are never loaded unless the API is available.
+ *
+ * @since 5.2.0
+ */
+public final class LauncherEvents {
+    private static final Logger logger = Logger.getLogger(LauncherEvents.class.getName());
+
+    private static final boolean flightRecorderAvailable = isFlightRecorderPresent();
+    private static final LauncherEventSink eventSink = createEventSink();
+
+    private LauncherEvents() {
+    }
+
+    /**
+     * @return true if the JVM provides the Java Flight Recorder API
+     */
+    public static boolean isFlightRecorderAvailable() {
+        return flightRecorderAvailable;
+    }
+
+    /**
+     * Returns a bundle listener which records the installation and the activation of the bundles.
+     *
+     * @return the bundle listener to be registered with the system bundle context
+     */
+    public static SynchronousBundleListener createBundleListener() {
+        return eventSink::bundleChanged;
+    }
+
+    /**
+     * Runs the deployment of the {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} bundles of a profile, timing it.
+     *
+     * @param profile the Carbon profile being updated
+     * @param action  the deployment, returning the number of bundles found
+     * @throws IOException if thrown by the deployment
+     */
+    public static void osgiLibDeployment(String profile, DeploymentAction action) throws IOException {
+        eventSink.osgiLibDeployment(profile, action);
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, LauncherEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static LauncherEventSink createEventSink() {
+        if (flightRecorderAvailable) {
+            try {
+                return new FlightRecorderEventSink();
+            } catch (LinkageError e) {
+                logger.log(Level.FINE, "Java Flight Recorder events are disabled", e);
+            }
+        }
+        return new LauncherEventSink() {
+        };
+    }
+
+    /**
+     * A deployment of OSGi bundles.
+     */
+    @FunctionalInterface
+    public interface DeploymentAction {
+        /**
+         * @return number of bundles deployed
+         * @throws IOException if an I/O error occurs
+         */
+        int deploy() throws IOException;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the deployment of the osgi-lib bundles to a Carbon profile. The duration of the event is
+ * the time spent scanning the bundles and updating the bundles.info file.
+ *
+ * @since 5.2.0
+ */
+@Name("org.wso2.carbon.launcher.OSGiLibDeployment")
+@Label("OSGi-Lib Deployment")
+@Category({"WSO2 Carbon", "Launcher"})
+@Description("The osgi-lib bundles were deployed to a Carbon profile")
+class OSGiLibDeploymentEvent extends Event {
+
+    @Label("Profile")
+    String profile;
+
+    @Label("Bundle Count")
+    int bundleCount;
+
+    @Label("Failed")
+    boolean failed;
+}
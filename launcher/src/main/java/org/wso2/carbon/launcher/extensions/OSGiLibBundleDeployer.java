@@ -18,6 +18,7 @@ package org.wso2.carbon.launcher.extensions;
 import org.wso2.carbon.launcher.CarbonServerEvent;
 import org.wso2.carbon.launcher.CarbonServerListener;
 import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.diagnostics.LauncherEvents;
 import org.wso2.carbon.launcher.extensions.model.BundleInfo;
 import org.wso2.carbon.launcher.utils.Utils;
 
@@ -52,13 +53,16 @@ public class OSGiLibBundleDeployer implements CarbonServerListener {
                     .orElse(Constants.DEFAULT_PROFILE);
 
             try {
-                logger.log(Level.FINE,
-                        "Loading the new OSGi bundle information from " + Constants.OSGI_LIB + " folder...");
-                List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectoryPath);
-                logger.log(Level.FINE, "Successfully loaded the new OSGi bundle information from " +
-                        Constants.OSGI_LIB + " folder");
+                LauncherEvents.osgiLibDeployment(profile, () -> {
+                    logger.log(Level.FINE,
+                            "Loading the new OSGi bundle information from " + Constants.OSGI_LIB + " folder...");
+                    List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectoryPath);
+                    logger.log(Level.FINE, "Successfully loaded the new OSGi bundle information from " +
+                            Constants.OSGI_LIB + " folder");
 
-                OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome.toString(), profile, newBundlesInfo);
+                    OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome.toString(), profile, newBundlesInfo);
+                    return newBundlesInfo.size();
+                });
             } catch (IOException e) {
                 logger.log(Level.SEVERE, "Failed to update the OSGi bundle information of Carbon Runtime: " + profile,
                         e);
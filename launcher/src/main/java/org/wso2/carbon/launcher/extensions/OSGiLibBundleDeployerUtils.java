@@ -21,15 +21,25 @@ import org.wso2.carbon.launcher.extensions.model.BundleInstallStatus;
 import org.wso2.carbon.launcher.extensions.model.BundleLocation;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
@@ -45,6 +55,12 @@ import java.util.stream.Stream;
 public class OSGiLibBundleDeployerUtils {
     private static final Logger logger = Logger.getLogger(OSGiLibBundleDeployerUtils.class.getName());
 
+    private static final String BUNDLES_INFO_LOCK = Constants.BUNDLES_INFO + ".lock";
+    private static final String BUNDLES_INFO_TEMP = Constants.BUNDLES_INFO + ".tmp";
+
+    //  guards the bundles.info file of each profile within this JVM, the file lock guards it against other processes
+    private static final Map<Path, ReentrantLock> profileLocks = new ConcurrentHashMap<>();
+
     /**
      * Updates the bundles.info file of the specified Carbon Runtime based on the OSGi bundles deployed in the
      * {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory. The OSGi bundle information in the
@@ -60,13 +76,19 @@ public class OSGiLibBundleDeployerUtils {
      * the Profile is updated.
      * 4. During Profile update, the existing, non OSGi-lib bundle information are merged with the new OSGi bundle
      * information.
+     * <p>
+     * The existing and new OSGi bundle information are compared by their symbolic names and versions using hash
+     * lookups, so that the comparison is linear in the number of bundles. Different Carbon Runtimes may be updated
+     * concurrently, while the updates of the same Carbon Runtime are serialized using a lock on its bundles.info
+     * file, which also excludes other processes such as the OSGi-lib deployer tool. The bundles.info file is
+     * replaced atomically, so that a concurrently starting server never reads a partially written file.
      *
      * @param carbonHome     the {@link String} representation of carbon.home
      * @param carbonProfile  the name of the Carbon Runtime of which the bundles.info is to be updated
      * @param newBundlesInfo the new OSGi bundle information
      * @throws IOException if an I/O error occurs
      */
-    public static synchronized void updateOSGiLib(String carbonHome, String carbonProfile,
+    public static void updateOSGiLib(String carbonHome, String carbonProfile,
             List<BundleInfo> newBundlesInfo) throws IOException {
         //  validates the arguments provided
         if ((carbonHome == null) || (carbonHome.isEmpty())) {
@@ -84,23 +106,60 @@ public class OSGiLibBundleDeployerUtils {
 
         Path bundlesInfoFile = Paths.get(carbonHome, Constants.PROFILE_REPOSITORY, carbonProfile, "configuration",
                 "org.eclipse.equinox.simpleconfigurator", Constants.BUNDLES_INFO);
+        if (!Files.exists(bundlesInfoFile)) {
+            throw new IOException("Invalid file path. The specified path may not exist or " +
+                    "user may not have required file permissions for the specified path: " + bundlesInfoFile);
+        }
+        ReentrantLock profileLock = profileLocks.computeIfAbsent(bundlesInfoFile.toAbsolutePath().normalize(),
+                path -> new ReentrantLock());
+        profileLock.lock();
+        try (FileChannel lockChannel = FileChannel.open(bundlesInfoFile.resolveSibling(BUNDLES_INFO_LOCK),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockChannel.lock()) {
+            updateBundlesInfo(carbonProfile, bundlesInfoFile, newBundlesInfo);
+        } finally {
+            profileLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the specified bundles.info file with the new OSGi bundle information, if the OSGi-lib bundles listed in
+     * it differ from the new OSGi bundle information. Invoked while holding the lock of the Carbon Runtime.
+     *
+     * @param carbonProfile   the name of the Carbon Runtime of which the bundles.info is to be updated
+     * @param bundlesInfoFile the bundles.info file of the Carbon Runtime
+     * @param newBundlesInfo  the new OSGi bundle information
+     * @throws IOException if an I/O error occurs
+     */
+    private static void updateBundlesInfo(String carbonProfile, Path bundlesInfoFile, List<BundleInfo> newBundlesInfo)
+            throws IOException {
         //  retrieves the OSGi bundle information defined in the existing bundles.info file
-        Map<BundleLocation, List<BundleInfo>> existingBundlesInfo = Files.readAllLines(bundlesInfoFile)
-                .stream()
-                .filter(line -> !line.startsWith("#"))
-                .map(BundleInfo::getInstance)
-                .collect(Collectors.groupingBy(BundleInfo::isFromOSGiLib));
+        List<BundleInfo> existingNonOSGiLibBundles = new ArrayList<>();
+        List<BundleInfo> existingOSGiLibBundles = new ArrayList<>();
+        for (String line : Files.readAllLines(bundlesInfoFile)) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            BundleInfo bundleInfo = BundleInfo.getInstance(line);
+            if (bundleInfo.isFromOSGiLib() == BundleLocation.OSGI_LIB_BUNDLE) {
+                existingOSGiLibBundles.add(bundleInfo);
+            } else {
+                existingNonOSGiLibBundles.add(bundleInfo);
+            }
+        }
 
         Map<BundleInstallStatus, List<BundleInfo>> updatableBundles =
-                getUpdatableBundles(newBundlesInfo, existingBundlesInfo.get(BundleLocation.OSGI_LIB_BUNDLE));
+                getUpdatableBundles(newBundlesInfo, existingOSGiLibBundles);
 
         if ((updatableBundles.get(BundleInstallStatus.TO_BE_INSTALLED).size() > 0) || (
                 updatableBundles.get(BundleInstallStatus.TO_BE_REMOVED).size() > 0)) {
 
-            logger.log(Level.FINE, getBundleInstallationSummary(updatableBundles));
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, getBundleInstallationSummary(updatableBundles));
+            }
 
             List<BundleInfo> effectiveNewBundleInfo = mergeOSGiLibWithExistingBundlesInfo(newBundlesInfo,
-                    existingBundlesInfo);
+                    existingNonOSGiLibBundles);
 
             updateBundlesInfoFile(effectiveNewBundleInfo, bundlesInfoFile);
             logger.log(Level.INFO,
@@ -204,6 +263,10 @@ public class OSGiLibBundleDeployerUtils {
     /**
      * Returns the OSGi bundles information which are to be either added or removed from the existing set of bundle
      * information, in order to bring the existing bundle information up-to-date with new bundle information.
+     * <p>
+     * The existing bundle information is indexed by symbolic name and version, so that a single pass over the new
+     * bundle information finds the bundles to be installed, and the bundles left in the index are the ones to be
+     * removed.
      *
      * @param newBundlesInfo     the new OSGi bundle information
      * @param existingBundleInfo the existing OSGi bundle information
@@ -214,55 +277,44 @@ public class OSGiLibBundleDeployerUtils {
             List<BundleInfo> existingBundleInfo) {
         Map<BundleInstallStatus, List<BundleInfo>> updatableBundles = new HashMap<>();
 
-        //  retrieves the newly installable OSGi bundle information
-        List<BundleInfo> bundlesToBeInstalled = Optional.ofNullable(newBundlesInfo)
-                .orElse(new ArrayList<>())
-                .stream()
-                .filter(bundleInfo -> !Optional.ofNullable(existingBundleInfo)
-                        .orElse(new ArrayList<>()).contains(bundleInfo))
-                .collect(Collectors.toList());
-
-        //  retrieves the OSGi bundle information to be uninstalled
-        List<BundleInfo> bundlesToBeRemoved = Optional.ofNullable(existingBundleInfo)
-                .orElse(new ArrayList<>())
-                .stream()
-                .filter(bundleInfo -> !Optional.ofNullable(newBundlesInfo)
-                        .orElse(new ArrayList<>()).contains(bundleInfo))
-                .collect(Collectors.toList());
+        Set<BundleInfo> bundlesToBeRemoved = new LinkedHashSet<>(existingBundleInfo);
+        List<BundleInfo> bundlesToBeInstalled = new ArrayList<>();
+        Set<BundleInfo> visitedBundles = new HashSet<>();
+        for (BundleInfo bundleInfo : newBundlesInfo) {
+            //  duplicates of the new bundle information are considered once
+            if (visitedBundles.add(bundleInfo) && !bundlesToBeRemoved.remove(bundleInfo)) {
+                bundlesToBeInstalled.add(bundleInfo);
+            }
+        }
 
         //  sets the list for newly installable OSGi bundles
         updatableBundles.put(BundleInstallStatus.TO_BE_INSTALLED, bundlesToBeInstalled);
         //  sets the list for OSGi bundles to be uninstalled
-        updatableBundles.put(BundleInstallStatus.TO_BE_REMOVED, bundlesToBeRemoved);
+        updatableBundles.put(BundleInstallStatus.TO_BE_REMOVED, new ArrayList<>(bundlesToBeRemoved));
 
         return updatableBundles;
     }
 
     /**
-     * Merges the existing OSGi bundle information with the newly retrieved OSGi bundle information.
+     * Merges the existing, non OSGi-lib bundle information with the newly retrieved OSGi bundle information. Bundles
+     * are kept in their order of appearance and duplicates, in terms of symbolic name and version, are dropped.
      *
-     * @param newBundlesInfo     the new OSGi bundle information to be added
-     * @param existingBundleInfo the existing OSGi bundle information
+     * @param newBundlesInfo            the new OSGi bundle information to be added
+     * @param existingNonOSGiLibBundles the existing, non OSGi-lib bundle information
      * @return merged result of the existing OSGi bundle information with the newly retrieved OSGi bundle information
      */
     private static List<BundleInfo> mergeOSGiLibWithExistingBundlesInfo(List<BundleInfo> newBundlesInfo,
-            Map<BundleLocation, List<BundleInfo>> existingBundleInfo) {
-        List<BundleInfo> effectiveBundlesInfo = existingBundleInfo.get(BundleLocation.NON_OSGI_LIB_BUNDLE);
-
-        if (effectiveBundlesInfo != null) {
-            effectiveBundlesInfo.addAll(newBundlesInfo);
-        } else {
-            effectiveBundlesInfo = newBundlesInfo;
-        }
-
-        return effectiveBundlesInfo
-                .stream()
-                .distinct()
-                .collect(Collectors.toList());
+            List<BundleInfo> existingNonOSGiLibBundles) {
+        Set<BundleInfo> effectiveBundlesInfo = new LinkedHashSet<>(existingNonOSGiLibBundles);
+        effectiveBundlesInfo.addAll(newBundlesInfo);
+        return new ArrayList<>(effectiveBundlesInfo);
     }
 
     /**
      * Updates the specified bundles.info file with the specified OSGi bundle information.
+     * <p>
+     * The bundle information is written to a temporary file in the same directory, which then atomically replaces the
+     * bundles.info file. If the file system does not support atomic moves, the file is replaced non-atomically.
      *
      * @param info                the OSGi bundle information instances
      * @param bundlesInfoFilePath the bundles.info file path, to be updated
@@ -271,17 +323,16 @@ public class OSGiLibBundleDeployerUtils {
     private static void updateBundlesInfoFile(List<BundleInfo> info, Path bundlesInfoFilePath) throws IOException {
         if ((bundlesInfoFilePath != null) && (Files.exists(bundlesInfoFilePath))) {
             if (info != null) {
-                List<String> bundleInfoLines = new ArrayList<>();
-                info
-                        .stream()
-                        .forEach(information -> bundleInfoLines.add(information.toString()));
-
-                Path parent = bundlesInfoFilePath.getParent();
-                if (parent != null) {
-                    Path newBundlesInfoFile = Paths.get(parent.toString(), "new.info");
-                    Files.write(newBundlesInfoFile, bundleInfoLines);
-                    Files.deleteIfExists(bundlesInfoFilePath);
-                    Files.move(newBundlesInfoFile, newBundlesInfoFile.resolveSibling("bundles.info"));
+                List<String> bundleInfoLines = new ArrayList<>(info.size());
+                info.forEach(information -> bundleInfoLines.add(information.toString()));
+
+                Path newBundlesInfoFile = bundlesInfoFilePath.resolveSibling(BUNDLES_INFO_TEMP);
+                Files.write(newBundlesInfoFile, bundleInfoLines);
+                try {
+                    Files.move(newBundlesInfoFile, bundlesInfoFilePath, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(newBundlesInfoFile, bundlesInfoFilePath, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
         } else {
@@ -300,14 +351,15 @@ public class OSGiLibBundleDeployerUtils {
     public static List<String> getCarbonProfiles(String carbonHome) throws IOException {
         Path carbonProfilesHome = Paths.get(carbonHome, Constants.PROFILE_REPOSITORY);
         Path osgiRepoPath = Paths.get(carbonHome, Constants.PROFILE_REPOSITORY, Constants.OSGI_LIB);
-        Stream<Path> profiles = Files.list(carbonProfilesHome);
-        List<String> profileNames = new ArrayList<>();
-
-        profiles
-                .parallel()
-                .filter(profile -> !osgiRepoPath.equals(profile))
-                .forEach(profile -> Optional.ofNullable(profile.getFileName())
-                        .ifPresent(name -> profileNames.add(name.toString())));
+        List<String> profileNames;
+        try (Stream<Path> profiles = Files.list(carbonProfilesHome)) {
+            profileNames = profiles
+                    .filter(profile -> !osgiRepoPath.equals(profile))
+                    .map(Path::getFileName)
+                    .filter(Objects::nonNull)
+                    .map(Path::toString)
+                    .collect(Collectors.toList());
+        }
         if (profileNames.size() == 0) {
             throw new IOException("No profiles found in " + carbonHome + "/" + Constants.PROFILE_REPOSITORY);
         }
@@ -17,6 +17,8 @@ package org.wso2.carbon.launcher.extensions.model;
 
 import org.wso2.carbon.launcher.Constants;
 
+import java.util.Objects;
+
 /**
  * A Java class which models a holder for information of an OSGi bundle.
  *
@@ -106,8 +108,16 @@ public class BundleInfo {
         }
     }
 
+    /**
+     * Returns a hash code of the OSGi bundle symbolic name and version, consistent with {@link #equals(Object)}.
+     * <p>
+     * The OSGi-lib deployer indexes bundle information in hash based collections, hence the hash code combines both
+     * values in an order dependent way, unlike a product which collides for bundles with swapped hash codes.
+     *
+     * @return the hash code of this instance
+     */
     @Override
     public int hashCode() {
-        return (bundleSymbolicName.hashCode() * bundleVersion.hashCode());
+        return Objects.hash(bundleSymbolicName, bundleVersion);
     }
 }
@@ -24,8 +24,6 @@ import java.util.List;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Carbon launcher Utils.
@@ -36,34 +34,20 @@ public class Utils {
 
     private static final Logger logger = Logger.getLogger(Utils.class.getName());
 
-    private static final String VAR_REGEXP = "\\$\\{[^}]*}";
-    private static final Pattern varPattern = Pattern.compile(VAR_REGEXP);
-
     private Utils() {
     }
 
     /**
      * Replace system property holders in the property values.
-     * e.g Replace ${carbon.home} with value of the carbon.home system property.
+     * e.g Replace ${carbon.home} with value of the carbon.home system property. Defaults and nested references are
+     * supported as described in {@link VariableTemplate}.
      *
      * @param value System variable value to be replaced
      * @return resolved system property value
      */
     public static String initializeSystemProperties(String value) {
         //TODO this method is duplicated in org.wso2.carbon.utils.Utils class. FIX IT.
-        String newValue = value;
-        Matcher matcher = varPattern.matcher(value);
-        while (matcher.find()) {
-            String sysPropKey = value.substring(matcher.start() + 2, matcher.end() - 1);
-            String sysPropValue = getSystemVariableValue(sysPropKey, null);
-            if (isNullOrEmpty(sysPropValue)) {
-                throw new RuntimeException("System property " + sysPropKey + " cannot be null");
-            }
-
-            // Due to reported bug under CARBON-14746
-            sysPropValue = sysPropValue.replace("\\", "\\\\");
-            newValue = newValue.replaceFirst(VAR_REGEXP, sysPropValue);
-        }
+        String newValue = VariableTemplate.compile(value).resolve(key -> getSystemVariableValue(key, null));
 
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Substitute Variables before: " + value + ", after: " + newValue);
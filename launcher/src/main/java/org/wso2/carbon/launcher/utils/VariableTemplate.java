@@ -0,0 +1,244 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A string with variable references which is parsed once and resolved many times.
+ * <p>
+ * The following reference forms are supported.
+ * <ul>
+ * <li>{@code ${name}} is replaced by the value of the variable. Resolving fails if the variable is not set.</li>
+ * <li>{@code ${name:-default}} is replaced by the default if the variable is not set or is empty.</li>
+ * <li>References may be nested in the default as well as in the name, e.g. {@code ${a:-${b}}} or
+ * {@code ${carbon.${wso2.runtime}.home}}.</li>
+ * </ul>
+ * A {@code ${} without a matching closing brace is kept as it is. Compiled templates with references are cached by
+ * their source string, hence compiling the same property value again costs a single map lookup. The cache holds at
+ * most {@value #MAX_CACHED_TEMPLATES} templates, templates compiled once it is full are not cached.
+ *
+ * @since 5.2.0
+ */
+public final class VariableTemplate {
+
+    // The launch configuration has a few dozen properties, while the values passed to compile are arbitrary.
+    public static final int MAX_CACHED_TEMPLATES = 1024;
+
+    private static final String REFERENCE_START = "${";
+    private static final char REFERENCE_END = '}';
+    private static final String DEFAULT_SEPARATOR = ":-";
+
+    private static final Map<String, VariableTemplate> templateCache = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final Segment[] segments;
+
+    private VariableTemplate(String source) {
+        this.source = source;
+        this.segments = parse(source);
+    }
+
+    /**
+     * Returns the compiled template of the given string, compiling it only if it is not compiled already.
+     *
+     * @param source string with variable references
+     * @return compiled template
+     */
+    public static VariableTemplate compile(String source) {
+        VariableTemplate template = templateCache.get(source);
+        if (template == null) {
+            template = new VariableTemplate(source);
+            // A string without references is resolved to itself, hence there is nothing to save by caching it.
+            if (template.hasReferences() && templateCache.size() < MAX_CACHED_TEMPLATES) {
+                templateCache.putIfAbsent(source, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Replaces the variable references of this template with their values.
+     *
+     * @param variables variable lookup, returns null for a variable which is not set
+     * @return resolved string
+     * @throws RuntimeException if a variable without a default is not set
+     */
+    public String resolve(Function<String, String> variables) {
+        if (segments.length == 0) {
+            return source;
+        }
+        StringBuilder builder = new StringBuilder(source.length() + 32);
+        appendTo(builder, variables);
+        return builder.toString();
+    }
+
+    /**
+     * @return true if this template has at least one variable reference
+     */
+    public boolean hasReferences() {
+        return segments.length > 0;
+    }
+
+    private void appendTo(StringBuilder builder, Function<String, String> variables) {
+        if (segments.length == 0) {
+            builder.append(source);
+            return;
+        }
+        for (Segment segment : segments) {
+            segment.appendTo(builder, variables);
+        }
+    }
+
+    /**
+     * Splits the source into literal and reference segments. An empty array is returned for a source without any
+     * reference, which is then resolved to the source itself.
+     */
+    private static Segment[] parse(String source) {
+        int referenceStart = source.indexOf(REFERENCE_START);
+        if (referenceStart < 0) {
+            return new Segment[0];
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+        while (referenceStart >= 0) {
+            int referenceEnd = findReferenceEnd(source, referenceStart + REFERENCE_START.length());
+            if (referenceEnd < 0) {
+                break;
+            }
+            if (referenceStart > position) {
+                segments.add(new Literal(source.substring(position, referenceStart)));
+            }
+            segments.add(Reference.parse(source.substring(referenceStart + REFERENCE_START.length(), referenceEnd)));
+            position = referenceEnd + 1;
+            referenceStart = source.indexOf(REFERENCE_START, position);
+        }
+        if (segments.isEmpty()) {
+            return new Segment[0];
+        }
+        if (position < source.length()) {
+            segments.add(new Literal(source.substring(position)));
+        }
+        return segments.toArray(new Segment[segments.size()]);
+    }
+
+    /**
+     * @return index of the brace closing the reference whose body starts at the given index, -1 if there is none
+     */
+    private static int findReferenceEnd(String source, int bodyStart) {
+        int depth = 0;
+        for (int i = bodyStart; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '$' && i + 1 < source.length() && source.charAt(i + 1) == '{') {
+                depth++;
+                i++;
+            } else if (c == REFERENCE_END) {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first default separator which is not within a nested reference, -1 if there is none
+     */
+    private static int findDefaultSeparator(String body) {
+        int depth = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '$' && i + 1 < body.length() && body.charAt(i + 1) == '{') {
+                depth++;
+                i++;
+            } else if (c == REFERENCE_END) {
+                depth--;
+            } else if (depth == 0 && body.startsWith(DEFAULT_SEPARATOR, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * A part of a template.
+     */
+    private interface Segment {
+        void appendTo(StringBuilder builder, Function<String, String> variables);
+    }
+
+    /**
+     * A part of a template which is copied as it is.
+     */
+    private static final class Literal implements Segment {
+        private final String text;
+
+        private Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void appendTo(StringBuilder builder, Function<String, String> variables) {
+            builder.append(text);
+        }
+    }
+
+    /**
+     * A variable reference with an optional default.
+     */
+    private static final class Reference implements Segment {
+        private final VariableTemplate name;
+        private final VariableTemplate defaultValue;
+
+        private Reference(VariableTemplate name, VariableTemplate defaultValue) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+        }
+
+        private static Reference parse(String body) {
+            int separator = findDefaultSeparator(body);
+            if (separator < 0) {
+                return new Reference(new VariableTemplate(body), null);
+            }
+            return new Reference(new VariableTemplate(body.substring(0, separator)),
+                    new VariableTemplate(body.substring(separator + DEFAULT_SEPARATOR.length())));
+        }
+
+        @Override
+        public void appendTo(StringBuilder builder, Function<String, String> variables) {
+            String variableName = name.hasReferences() ? name.resolve(variables) : name.source;
+            String value = variables.apply(variableName);
+            if (value != null && !value.isEmpty()) {
+                builder.append(value);
+            } else if (defaultValue != null) {
+                defaultValue.appendTo(builder, variables);
+            } else {
+                throw new RuntimeException("System property " + variableName + " cannot be null");
+            }
+        }
+    }
+}
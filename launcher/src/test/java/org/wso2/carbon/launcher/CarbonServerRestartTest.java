@@ -0,0 +1,178 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.config.CarbonInitialBundle;
+import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+import org.wso2.carbon.launcher.test.BaseTest;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_RESTART;
+import static org.wso2.carbon.launcher.Constants.DEFAULT_PROFILE;
+import static org.wso2.carbon.launcher.Constants.ExitCodes;
+import static org.wso2.carbon.launcher.Constants.PROFILE;
+
+/**
+ * Unit tests for the in-process restart of org.wso2.carbon.launcher.CarbonServer, as driven by
+ * org.wso2.carbon.launcher.Main.
+ *
+ * @since 5.2.0
+ */
+public class CarbonServerRestartTest extends BaseTest {
+
+    private final Logger serverLogger = Logger.getLogger(CarbonServer.class.getName());
+    private final List<String> warnings = new CopyOnWriteArrayList<>();
+    private final Handler warningHandler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel() == Level.WARNING) {
+                warnings.add(record.getMessage());
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeMethod
+    public void init() {
+        setupCarbonHome();
+        String profileName = System.getProperty(PROFILE);
+        if (profileName == null || profileName.length() == 0) {
+            System.setProperty(PROFILE, DEFAULT_PROFILE);
+        }
+        warnings.clear();
+        serverLogger.addHandler(warningHandler);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        serverLogger.removeHandler(warningHandler);
+        System.clearProperty(CARBON_SERVER_RESTART);
+    }
+
+    @Test
+    public void testInProcessRestart() throws Exception {
+        TestCarbonServer carbonServer = new TestCarbonServer(createConfig(), false);
+
+        Assert.assertEquals(Main.runServer(carbonServer, carbonServer.config), ExitCodes.SUCCESSFUL_TERMINATION);
+        // The first framework requested the restart, which started a second framework in the same JVM.
+        Assert.assertEquals(carbonServer.frameworks, 2);
+        Assert.assertEquals(carbonServer.classLoaders, 2);
+        Assert.assertTrue(warnings.isEmpty(), warnings.toString());
+    }
+
+    @Test
+    public void testRestartFallsBackToJVMRestart() throws Exception {
+        TestCarbonServer carbonServer = new TestCarbonServer(createConfig(), true);
+
+        Assert.assertEquals(Main.runServer(carbonServer, carbonServer.config), ExitCodes.RESTART_ACTION);
+        // The class loader of the stopped framework is still reachable, hence no second framework is started.
+        Assert.assertEquals(carbonServer.frameworks, 1);
+        Assert.assertEquals(warnings.size(), 1);
+        Assert.assertTrue(warnings.get(0).matches(".*still reachable after \\d+ ms.*"), warnings.get(0));
+    }
+
+    private static CarbonLaunchConfig createConfig() {
+        // Launch configuration of the test resources in the in-process restart mode, without initial bundles.
+        return new CarbonLaunchConfig() {
+            @Override
+            public boolean isInProcessRestart() {
+                return true;
+            }
+
+            @Override
+            public List<CarbonInitialBundle> getInitialBundles() {
+                return Collections.emptyList();
+            }
+        };
+    }
+
+    /**
+     * Carbon server which runs mock OSGi frameworks. The first framework requests a restart when it stops.
+     */
+    private static class TestCarbonServer extends CarbonServer {
+        private final CarbonLaunchConfig config;
+        private final boolean leakClassLoader;
+        private final List<ClassLoader> leakedClassLoaders = new CopyOnWriteArrayList<>();
+        private int classLoaders;
+        private int frameworks;
+
+        TestCarbonServer(CarbonLaunchConfig config, boolean leakClassLoader) {
+            super(config);
+            this.config = config;
+            this.leakClassLoader = leakClassLoader;
+        }
+
+        @Override
+        ClassLoader createOSGiFwkClassLoader() {
+            classLoaders++;
+            ClassLoader classLoader = new URLClassLoader(new URL[0]);
+            if (leakClassLoader) {
+                leakedClassLoaders.add(classLoader);
+            }
+            return classLoader;
+        }
+
+        @Override
+        FrameworkFactory loadOSGiFwkFactory(ClassLoader classLoader) {
+            return configuration -> createFramework(++frameworks == 1);
+        }
+
+        private static Framework createFramework(boolean requestRestart) {
+            BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+            EasyMock.replay(bundleContext);
+            Framework framework = EasyMock.createNiceMock(Framework.class);
+            EasyMock.expect(framework.getBundleContext()).andReturn(bundleContext).anyTimes();
+            EasyMock.expect(framework.getState()).andReturn(Framework.ACTIVE).anyTimes();
+            try {
+                EasyMock.expect(framework.waitForStop(0)).andAnswer(() -> {
+                    if (requestRestart) {
+                        System.setProperty(CARBON_SERVER_RESTART, "true");
+                    }
+                    return new FrameworkEvent(FrameworkEvent.STOPPED, framework, null);
+                }).anyTimes();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            EasyMock.replay(framework);
+            return framework;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Unit tests for org.wso2.carbon.launcher.ShutdownOrchestrator class.
+ *
+ * @since 5.2.0
+ */
+public class ShutdownOrchestratorTest {
+
+    private static final int START_LEVEL = 10;
+
+    private final List<String> stopEvents = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testDependentBundlesStopFirst() throws Exception {
+        stopEvents.clear();
+        // The consumer imports a package of the provider and is slow to stop, so that a concurrent stop of the
+        // provider would start before the consumer has stopped.
+        Bundle provider = createBundle(1, "provider", 0);
+        Bundle consumer = createBundle(2, "consumer", 300);
+        Bundle serviceUser = createBundle(3, "service-user", 0);
+        Bundle independent = createBundle(4, "independent", 0);
+        wire(provider, consumer);
+        useService(consumer, serviceUser);
+        replay(provider, consumer, serviceUser, independent);
+
+        Framework framework = createFramework(provider, consumer, serviceUser, independent);
+        new ShutdownOrchestrator(framework, 10000, 5000, 4).shutdown();
+
+        Assert.assertEquals(stopEvents.size(), 8);
+        assertStoppedBefore("service-user", "consumer");
+        assertStoppedBefore("consumer", "provider");
+    }
+
+    @Test
+    public void testStopOrder() {
+        Bundle provider = createBundle(1, "provider", 0);
+        Bundle consumer = createBundle(2, "consumer", 0);
+        Bundle independent = createBundle(3, "independent", 0);
+        wire(provider, consumer);
+        replay(provider, consumer, independent);
+
+        List<List<Bundle>> stopOrder = ShutdownOrchestrator.getStopOrder(Arrays.asList(provider, consumer,
+                independent));
+        Assert.assertEquals(stopOrder.size(), 2);
+        Assert.assertEquals(new HashSet<>(stopOrder.get(0)), new HashSet<>(Arrays.asList(consumer, independent)));
+        Assert.assertEquals(stopOrder.get(1), Collections.singletonList(provider));
+    }
+
+    @Test
+    public void testStopOrderWithDependencyCycle() {
+        Bundle first = createBundle(1, "first", 0);
+        Bundle second = createBundle(2, "second", 0);
+        useService(first, second);
+        useService(second, first);
+        replay(first, second);
+
+        List<List<Bundle>> stopOrder = ShutdownOrchestrator.getStopOrder(Arrays.asList(first, second));
+        Assert.assertEquals(stopOrder, Arrays.asList(Collections.singletonList(second),
+                Collections.singletonList(first)));
+    }
+
+    private void assertStoppedBefore(String dependent, String dependency) {
+        int dependentStopped = stopEvents.indexOf(dependent + " stopped");
+        int dependencyStopping = stopEvents.indexOf(dependency + " stopping");
+        Assert.assertTrue(dependentStopped >= 0 && dependentStopped < dependencyStopping,
+                dependency + " was stopped before its dependent " + dependent + ": " + stopEvents);
+    }
+
+    private Bundle createBundle(long bundleId, String symbolicName, long stopTime) {
+        BundleStartLevel bundleStartLevel = EasyMock.createMock(BundleStartLevel.class);
+        EasyMock.expect(bundleStartLevel.getStartLevel()).andReturn(START_LEVEL).anyTimes();
+        EasyMock.replay(bundleStartLevel);
+
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getBundleId()).andReturn(bundleId).anyTimes();
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(Version.parseVersion("1.0.0")).anyTimes();
+        EasyMock.expect(bundle.getState()).andReturn(Bundle.ACTIVE).anyTimes();
+        EasyMock.expect(bundle.adapt(BundleStartLevel.class)).andReturn(bundleStartLevel).anyTimes();
+        try {
+            bundle.stop(Bundle.STOP_TRANSIENT);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        EasyMock.expectLastCall().andAnswer(() -> {
+            stopEvents.add(symbolicName + " stopping");
+            Thread.sleep(stopTime);
+            stopEvents.add(symbolicName + " stopped");
+            return null;
+        }).anyTimes();
+        return bundle;
+    }
+
+    private void wire(Bundle provider, Bundle requirer) {
+        BundleRevision requirerRevision = EasyMock.createMock(BundleRevision.class);
+        EasyMock.expect(requirerRevision.getBundle()).andReturn(requirer).anyTimes();
+        BundleWire wire = EasyMock.createMock(BundleWire.class);
+        EasyMock.expect(wire.getRequirer()).andReturn(requirerRevision).anyTimes();
+        BundleWiring wiring = EasyMock.createMock(BundleWiring.class);
+        EasyMock.expect(wiring.getProvidedWires(null)).andReturn(Collections.singletonList(wire)).anyTimes();
+        EasyMock.replay(requirerRevision, wire, wiring);
+        EasyMock.expect(provider.adapt(BundleWiring.class)).andReturn(wiring).anyTimes();
+    }
+
+    private void useService(Bundle provider, Bundle user) {
+        ServiceReference<?> service = EasyMock.createMock(ServiceReference.class);
+        EasyMock.expect(service.getUsingBundles()).andReturn(new Bundle[]{user}).anyTimes();
+        EasyMock.replay(service);
+        EasyMock.expect(provider.getRegisteredServices()).andReturn(new ServiceReference<?>[]{service}).anyTimes();
+    }
+
+    private Framework createFramework(Bundle... bundles) throws Exception {
+        BundleContext bundleContext = EasyMock.createMock(BundleContext.class);
+        EasyMock.expect(bundleContext.getBundles()).andReturn(bundles).anyTimes();
+        EasyMock.replay(bundleContext);
+
+        Framework framework = EasyMock.createNiceMock(Framework.class);
+        EasyMock.expect(framework.getBundleContext()).andReturn(bundleContext).anyTimes();
+        EasyMock.expect(framework.waitForStop(EasyMock.anyLong()))
+                .andReturn(new FrameworkEvent(FrameworkEvent.STOPPED, framework, null)).anyTimes();
+        EasyMock.replay(framework);
+        return framework;
+    }
+
+    private static void replay(Bundle... bundles) {
+        EasyMock.replay((Object[]) bundles);
+    }
+}
@@ -147,6 +147,51 @@ public class LoadLaunchConfigTest extends BaseTest {
         Assert.assertTrue(carbonServerListener instanceof OSGiLibBundleDeployer);
     }
 
+    @Test(dependsOnMethods = {"loadCarbonLaunchConfigFromFileTestCase"})
+    public void loadLaunchConfigCDSTrainingTestCase() {
+        Assert.assertFalse(launchConfig.isCDSTrainingRun());
+
+        System.setProperty(Constants.CARBON_CDS_TRAINING, "true");
+        try {
+            Assert.assertTrue(new CarbonLaunchConfig().isCDSTrainingRun());
+        } finally {
+            System.clearProperty(Constants.CARBON_CDS_TRAINING);
+        }
+    }
+
+    @Test(dependsOnMethods = {"loadCarbonLaunchConfigFromFileTestCase"})
+    public void loadLaunchConfigRestartModeTestCase() {
+        Assert.assertFalse(launchConfig.isInProcessRestart());
+
+        System.setProperty(Constants.CARBON_SERVER_RESTART_MODE, Constants.IN_PROCESS_RESTART_MODE);
+        try {
+            Assert.assertTrue(new CarbonLaunchConfig().isInProcessRestart());
+        } finally {
+            System.clearProperty(Constants.CARBON_SERVER_RESTART_MODE);
+        }
+    }
+
+    @Test(dependsOnMethods = {"loadCarbonLaunchConfigFromFileTestCase"})
+    public void loadLaunchConfigShutdownTestCase() {
+        Assert.assertEquals(launchConfig.getShutdownTimeout(), Constants.DEFAULT_SHUTDOWN_TIMEOUT);
+        Assert.assertEquals(launchConfig.getBundleShutdownTimeout(), Constants.DEFAULT_SHUTDOWN_BUNDLE_TIMEOUT);
+        Assert.assertEquals(launchConfig.getShutdownParallelism(), Runtime.getRuntime().availableProcessors());
+
+        System.setProperty(Constants.CARBON_SHUTDOWN_TIMEOUT, "60000");
+        System.setProperty(Constants.CARBON_SHUTDOWN_BUNDLE_TIMEOUT, "invalid");
+        System.setProperty(Constants.CARBON_SHUTDOWN_PARALLELISM, "1");
+        try {
+            CarbonLaunchConfig config = new CarbonLaunchConfig();
+            Assert.assertEquals(config.getShutdownTimeout(), 60000);
+            Assert.assertEquals(config.getBundleShutdownTimeout(), Constants.DEFAULT_SHUTDOWN_BUNDLE_TIMEOUT);
+            Assert.assertEquals(config.getShutdownParallelism(), 1);
+        } finally {
+            System.clearProperty(Constants.CARBON_SHUTDOWN_TIMEOUT);
+            System.clearProperty(Constants.CARBON_SHUTDOWN_BUNDLE_TIMEOUT);
+            System.clearProperty(Constants.CARBON_SHUTDOWN_PARALLELISM);
+        }
+    }
+
     @Test(dependsOnMethods = {"loadCarbonLaunchConfigFromFileTestCase"})
     public void carbonLogAppendTestCase() throws FileNotFoundException {
         String sampleMessage = "Sample message-test logging with class CarbonLaunchConfig";
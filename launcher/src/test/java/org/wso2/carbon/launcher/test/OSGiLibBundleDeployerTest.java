@@ -31,7 +31,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This Java class defines the unit tests for OSGi-lib bundle deployment.
@@ -160,6 +165,61 @@ public class OSGiLibBundleDeployerTest extends BaseTest {
         OSGiLibBundleDeployerUtils.getBundlesInfo(Paths.get(carbonHome, Constants.OSGI_REPOSITORY, Constants.OSGI_LIB));
     }
 
+    @Test(description = "Attempts to update the OSGi bundle information of multiple Carbon Runtimes concurrently",
+            priority = 6)
+    public void testUpdatingProfilesConcurrently() throws Exception {
+        Path home = Files.createTempDirectory("carbon-osgi-lib");
+        List<String> profiles = new ArrayList<>();
+        List<String> pluginBundles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pluginBundles.add("org.wso2.carbon.test.plugin" + i + ",1.0.0,../plugins/org.wso2.carbon.test.plugin" + i +
+                    "_1.0.0.jar,4,true");
+        }
+        for (int i = 0; i < 4; i++) {
+            String profile = "concurrent" + i;
+            profiles.add(profile);
+            Path configurator = Files.createDirectories(Paths.get(home.toString(), Constants.PROFILE_REPOSITORY,
+                    profile, "configuration", "org.eclipse.equinox.simpleconfigurator"));
+            Files.write(configurator.resolve(bundlesInfoFile), pluginBundles);
+        }
+        List<BundleInfo> libBundles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            libBundles.add(BundleInfo.getInstance("org.wso2.carbon.test.lib" + i + ",1.0.0,../../" +
+                    Constants.OSGI_LIB + "/org.wso2.carbon.test.lib" + i + "_1.0.0.jar,4,true"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> updates = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                for (String profile : profiles) {
+                    //  alternates between two versions of the OSGi-lib bundles, so that every update changes the file
+                    List<BundleInfo> bundles = (i % 2 == 0) ? libBundles : libBundles.subList(0, 500);
+                    updates.add(executor.submit(() -> {
+                        OSGiLibBundleDeployerUtils.updateOSGiLib(home.toString(), profile, bundles);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> update : updates) {
+                update.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (String profile : profiles) {
+            Path configurator = Paths.get(home.toString(), Constants.PROFILE_REPOSITORY, profile, "configuration",
+                    "org.eclipse.equinox.simpleconfigurator");
+            List<BundleInfo> actual = getActualBundleInfo(configurator.resolve(bundlesInfoFile));
+            Assert.assertTrue(actual.size() == pluginBundles.size() + libBundles.size() ||
+                    actual.size() == pluginBundles.size() + 500, "Unexpected bundle count " + actual.size());
+            Assert.assertEquals(new HashSet<>(actual).size(), actual.size());
+            Assert.assertFalse(Files.exists(configurator.resolve(bundlesInfoFile + ".tmp")));
+        }
+        FileUtils.deleteDirectory(home.toFile());
+    }
+
     /**
      * Utility functions for OSGi-lib unit-tests.
      */
@@ -19,6 +19,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.launcher.Constants;
 import org.wso2.carbon.launcher.utils.Utils;
+import org.wso2.carbon.launcher.utils.VariableTemplate;
 
 /**
  * Launcher Utils test class.
@@ -59,6 +60,52 @@ public class UtilsTest extends BaseTest {
         Assert.assertEquals(outputStr, expectedOutputStr);
     }
 
+    public void substituteVarsWithDefaultTest() {
+        System.setProperty(Constants.PROFILE, Constants.DEFAULT_PROFILE);
+        System.clearProperty("carbon.test.unset");
+        String inputStr = "${carbon.test.unset:-file:${wso2.runtime}}/${wso2.runtime:-other}";
+        String expectedOutputStr = "file:default/default";
+
+        String outputStr = Utils.initializeSystemProperties(inputStr);
+        Assert.assertEquals(outputStr, expectedOutputStr);
+    }
+
+    public void substituteNestedVarsTest() {
+        System.setProperty(Constants.PROFILE, Constants.DEFAULT_PROFILE);
+        System.setProperty("carbon.default.home", "C:\\wso2\\carbon");
+        String inputStr = "file:${carbon.${wso2.runtime}.home}/${unclosed";
+        String expectedOutputStr = "file:C:\\wso2\\carbon/${unclosed";
+
+        try {
+            String outputStr = Utils.initializeSystemProperties(inputStr);
+            Assert.assertEquals(outputStr, expectedOutputStr);
+        } finally {
+            System.clearProperty("carbon.default.home");
+        }
+    }
+
+    @Test(expectedExceptions = RuntimeException.class,
+            expectedExceptionsMessageRegExp = "System property carbon.test.unset cannot be null")
+    public void substituteUnsetVarTest() {
+        System.clearProperty("carbon.test.unset");
+        Utils.initializeSystemProperties("file:${carbon.test.unset}");
+    }
+
+    public void compiledTemplateCacheTest() {
+        String inputStr = "file:${carbon.home}/${wso2.runtime}";
+        Assert.assertSame(VariableTemplate.compile(inputStr), VariableTemplate.compile(inputStr));
+        Assert.assertFalse(VariableTemplate.compile("file:plugins").hasReferences());
+
+        // Once the cache is full, templates are still compiled, but no longer cached.
+        for (int i = 0; i < VariableTemplate.MAX_CACHED_TEMPLATES; i++) {
+            VariableTemplate.compile("file:${carbon.home}/" + i);
+        }
+        String uncachedStr = "file:${carbon.home}/uncached";
+        Assert.assertNotSame(VariableTemplate.compile(uncachedStr), VariableTemplate.compile(uncachedStr));
+        Assert.assertSame(VariableTemplate.compile(inputStr), VariableTemplate.compile(inputStr));
+        Assert.assertEquals(VariableTemplate.compile(uncachedStr).resolve(key -> "/home"), "file:/home/uncached");
+    }
+
     public void stringTokenizeTest() {
         String str = "file:plugins/org.eclipse.equinox.simpleconfigurator_1.1.200.v20160504-1450.jar@1:true," +
                 "file:plugins/org.apache.felix.gogo.runtime_0.10.0.v201209301036.jar@2:true," +
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.osgi.cds;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.osgi.utils.TestDistributionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boot time of the test distribution with and without the class data sharing archive created by
+ * carbon.sh --cds-train.
+ * <p>
+ * A single boot is too noisy on a shared build machine, hence each mode is booted once to warm up the file system
+ * caches and then {@value #MEASURED_BOOTS} more times, alternating the modes, and the medians are compared.
+ *
+ * <p>
+ * The nine boots are slow, hence the test is not part of the default test suite. It runs with the cds-boot-time
+ * profile.
+ *
+ * @since 5.2.0
+ */
+public class ClassDataSharingBootTimeTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassDataSharingBootTimeTest.class);
+
+    private static final String STARTUP_COMPLETED_LOG = " started in ";
+    private static final long PROCESS_TIMEOUT_SECONDS = 300;
+    private static final int MEASURED_BOOTS = 3;
+    // The median boot with the archive is allowed to be slower by this factor to absorb the remaining noise.
+    private static final double BOOT_TIME_TOLERANCE = 1.2;
+
+    private Path carbonHome;
+
+    @BeforeClass
+    public void copyDistribution() throws IOException {
+        if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+            throw new SkipException("Class data sharing training is supported only by carbon.sh");
+        }
+        String specVersion = System.getProperty("java.specification.version");
+        if (specVersion.startsWith("1.") || Integer.parseInt(specVersion) < 11) {
+            throw new SkipException("Class data sharing training requires JDK 11 or later");
+        }
+
+        carbonHome = TestDistributionUtils.copyTestDistribution("cds-boot-time");
+    }
+
+    @Test
+    public void testBootTimeWithClassDataSharingArchive() throws Exception {
+        Process training = startServer("off", "--cds-train");
+        Assert.assertTrue(training.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), "CDS training run timed out");
+        Assert.assertEquals(training.exitValue(), 0, "CDS training run failed");
+
+        Path archive = carbonHome.resolve(Paths.get("wso2", "default", "cds", "carbon.jsa"));
+        Assert.assertTrue(Files.exists(archive), "CDS archive was not created by the training run");
+
+        measureBootTime("off");
+        measureBootTime("on");
+        List<Long> bootTimesWithoutArchive = new ArrayList<>();
+        List<Long> bootTimesWithArchive = new ArrayList<>();
+        for (int i = 0; i < MEASURED_BOOTS; i++) {
+            bootTimesWithoutArchive.add(measureBootTime("off"));
+            bootTimesWithArchive.add(measureBootTime("on"));
+        }
+        long bootTimeWithoutArchive = TestDistributionUtils.median(bootTimesWithoutArchive);
+        long bootTimeWithArchive = TestDistributionUtils.median(bootTimesWithArchive);
+        logger.info("Boot times without the CDS archive: {} ms (median {} ms), with the CDS archive: {} ms " +
+                "(median {} ms)", bootTimesWithoutArchive, bootTimeWithoutArchive, bootTimesWithArchive,
+                bootTimeWithArchive);
+
+        Assert.assertTrue(Files.exists(archive), "CDS archive was discarded although the distribution is unchanged");
+        Assert.assertTrue(bootTimeWithArchive <= bootTimeWithoutArchive * BOOT_TIME_TOLERANCE,
+                "Median boot with the CDS archive (" + bootTimeWithArchive + " ms) is slower than the median boot " +
+                        "without it (" + bootTimeWithoutArchive + " ms)");
+    }
+
+    /**
+     * Boots the distribution and returns the time taken from the process launch to the startup completion log.
+     */
+    private long measureBootTime(String cds) throws Exception {
+        long start = System.nanoTime();
+        Process server = startServer(cds, "test");
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> started = reader.submit(() -> waitForStartup(server));
+            Assert.assertTrue(started.get(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), "Server did not start");
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            server.destroy();
+            server.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            reader.shutdownNow();
+        }
+    }
+
+    private Process startServer(String cds, String command) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder("sh",
+                TestDistributionUtils.getCarbonScript(carbonHome).toString(), command)
+                .redirectErrorStream(true);
+        processBuilder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        processBuilder.environment().put("CARBON_HOME", carbonHome.toAbsolutePath().toString());
+        processBuilder.environment().put("CARBON_CDS", cds);
+        processBuilder.environment().remove("JAVA_OPTS");
+        if (!"test".equals(command)) {
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        }
+        return processBuilder.start();
+    }
+
+    private boolean waitForStartup(Process server) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains(STARTUP_COMPLETED_LOG)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.osgi.performance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.osgi.utils.TestDistributionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * Boots the test distribution several times and records its boot time and footprint. Once a baseline is recorded
+ * in performance/boot-footprint-baseline.properties, the test also compares the measurements against it.
+ * <p>
+ * The footprint is read from the platform MXBeans of the server JVM through the JMX agent of the JVM, once the
+ * server is started. Every run appends its medians to target/boot-footprint/trend.csv, which can be archived by the
+ * build to follow the trend across builds. With a recorded baseline, the median of the boots of each metric must not
+ * exceed the baseline by more than the tolerance of the metric.
+ * <p>
+ * No baseline measured on the reference build machine is checked in yet. Until one is, the test only records the
+ * trend and is skipped, i.e. it does not gate the build on regressions.
+ * <p>
+ * Booting the distribution several times is slow and the measurements depend on the machine, hence the test is not
+ * part of the default test suite. It runs with the boot-footprint profile.
+ *
+ * @since 5.2.0
+ */
+public class BootFootprintRegressionTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BootFootprintRegressionTest.class);
+
+    private static final String STARTUP_COMPLETED_LOG = " started in ";
+    private static final String BASELINE_FILE = "boot-footprint-baseline.properties";
+    private static final String BOOT_COUNT_PROPERTY = "carbon.boot.count";
+    private static final String UPDATE_BASELINE_PROPERTY = "carbon.boot.baseline.update";
+    private static final String TOLERANCE_SUFFIX = ".tolerance";
+    private static final int DEFAULT_BOOT_COUNT = 3;
+    private static final long PROCESS_TIMEOUT_SECONDS = 300;
+    private static final long JMX_CONNECT_TIMEOUT = 30000;
+
+    private Path carbonHome;
+    private Path baselineFile;
+    private Path trendFile;
+
+    /**
+     * Metrics recorded for every boot.
+     */
+    private enum Metric {
+        TIME_TO_SERVER_INFO("timeToServerInfo", "ms"),
+        HEAP_AFTER_GC("heapAfterGc", "bytes"),
+        LOADED_CLASSES("loadedClasses", "classes"),
+        THREADS("threads", "threads");
+
+        private final String key;
+        private final String unit;
+
+        Metric(String key, String unit) {
+            this.key = key;
+            this.unit = unit;
+        }
+    }
+
+    @BeforeClass
+    public void copyDistribution() throws IOException {
+        if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+            throw new SkipException("Boot footprint is measured by starting the server with carbon.sh");
+        }
+
+        String basedir = System.getProperty("basedir");
+        if (basedir == null) {
+            basedir = Paths.get(".").toString();
+        }
+        baselineFile = Paths.get(basedir, "src", "test", "resources", "performance", BASELINE_FILE);
+        trendFile = Paths.get(basedir, "target", "boot-footprint", "trend.csv");
+
+        carbonHome = TestDistributionUtils.copyTestDistribution("boot-footprint");
+    }
+
+    @Test
+    public void testBootTimeAndFootprintAgainstBaseline() throws Exception {
+        int bootCount = Integer.getInteger(BOOT_COUNT_PROPERTY, DEFAULT_BOOT_COUNT);
+        Map<Metric, List<Long>> samples = new EnumMap<>(Metric.class);
+        for (int i = 1; i <= bootCount; i++) {
+            Map<Metric, Long> boot = boot();
+            logger.info("Boot {} of {}: {}", i, bootCount, boot);
+            boot.forEach((metric, value) -> samples.computeIfAbsent(metric, key -> new ArrayList<>()).add(value));
+        }
+
+        Map<Metric, Long> medians = new EnumMap<>(Metric.class);
+        samples.forEach((metric, values) -> medians.put(metric, TestDistributionUtils.median(values)));
+
+        if (Boolean.getBoolean(UPDATE_BASELINE_PROPERTY)) {
+            updateBaseline(medians);
+            writeTrend(bootCount, medians, "BASELINE");
+            return;
+        }
+
+        Properties baseline = new Properties();
+        try (InputStream inputStream = Files.newInputStream(baselineFile)) {
+            baseline.load(inputStream);
+        }
+
+        List<String> unrecorded = Arrays.stream(Metric.values())
+                .map(metric -> metric.key)
+                .filter(key -> baseline.getProperty(key, "").trim().isEmpty())
+                .collect(Collectors.toList());
+        if (!unrecorded.isEmpty()) {
+            writeTrend(bootCount, medians, "NO_BASELINE");
+            throw new SkipException("No baseline recorded for " + unrecorded + " in " + BASELINE_FILE +
+                    ". Record it with -D" + UPDATE_BASELINE_PROPERTY + "=true. Medians of this run: " + medians);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (Metric metric : Metric.values()) {
+            long baselineValue = Long.parseLong(baseline.getProperty(metric.key).trim());
+            double tolerance = Double.parseDouble(baseline.getProperty(metric.key + TOLERANCE_SUFFIX));
+            long limit = (long) (baselineValue * (1 + tolerance));
+            long median = medians.get(metric);
+            logger.info("{}: median {} {}, baseline {} {}, limit {} {}", metric.key, median, metric.unit,
+                    baselineValue, metric.unit, limit, metric.unit);
+            if (median > limit) {
+                regressions.add(metric.key + " " + median + " " + metric.unit + " exceeds the baseline of " +
+                        baselineValue + " " + metric.unit + " by more than " + Math.round(tolerance * 100) + "%");
+            }
+        }
+
+        writeTrend(bootCount, medians, regressions.isEmpty() ? "PASS" : "FAIL");
+        Assert.assertTrue(regressions.isEmpty(), "Boot time or footprint regression: " + regressions +
+                ". Refresh " + BASELINE_FILE + " with -D" + UPDATE_BASELINE_PROPERTY + "=true if it is intended.");
+    }
+
+    /**
+     * Starts the server, waits until it is started and reads its footprint.
+     */
+    private Map<Metric, Long> boot() throws Exception {
+        int jmxPort = getFreePort();
+        long start = System.nanoTime();
+        Process server = startServer(jmxPort);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        String serverPid = null;
+        try {
+            Future<Boolean> started = reader.submit(() -> waitForStartup(server));
+            Assert.assertTrue(started.get(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), "Server did not start");
+
+            Map<Metric, Long> metrics = new EnumMap<>(Metric.class);
+            metrics.put(Metric.TIME_TO_SERVER_INFO, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            try (JMXConnector connector = connect(jmxPort)) {
+                MBeanServerConnection connection = connector.getMBeanServerConnection();
+                MemoryMXBean memoryMXBean = ManagementFactory.newPlatformMXBeanProxy(connection,
+                        ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+                memoryMXBean.gc();
+                metrics.put(Metric.HEAP_AFTER_GC, memoryMXBean.getHeapMemoryUsage().getUsed());
+                metrics.put(Metric.LOADED_CLASSES, (long) ManagementFactory.newPlatformMXBeanProxy(connection,
+                        ManagementFactory.CLASS_LOADING_MXBEAN_NAME, ClassLoadingMXBean.class).getLoadedClassCount());
+                metrics.put(Metric.THREADS, (long) ManagementFactory.newPlatformMXBeanProxy(connection,
+                        ManagementFactory.THREAD_MXBEAN_NAME, ThreadMXBean.class).getThreadCount());
+                // RuntimeMXBean names the JVM as pid@hostname.
+                serverPid = ManagementFactory.newPlatformMXBeanProxy(connection,
+                        ManagementFactory.RUNTIME_MXBEAN_NAME, RuntimeMXBean.class).getName().split("@")[0];
+            }
+            return metrics;
+        } finally {
+            stopServer(server, serverPid);
+            reader.shutdownNow();
+        }
+    }
+
+    private Process startServer(int jmxPort) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder("sh",
+                TestDistributionUtils.getCarbonScript(carbonHome).toString())
+                .redirectErrorStream(true);
+        processBuilder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        processBuilder.environment().put("CARBON_HOME", carbonHome.toAbsolutePath().toString());
+        processBuilder.environment().put("CARBON_CDS", "off");
+        processBuilder.environment().put("JAVA_OPTS", "-Dcom.sun.management.jmxremote.port=" + jmxPort +
+                " -Dcom.sun.management.jmxremote.rmi.port=" + jmxPort +
+                " -Dcom.sun.management.jmxremote.authenticate=false" +
+                " -Dcom.sun.management.jmxremote.ssl=false" +
+                " -Dcom.sun.management.jmxremote.local.only=true" +
+                " -Djava.rmi.server.hostname=127.0.0.1");
+        return processBuilder.start();
+    }
+
+    /**
+     * carbon.sh runs the server JVM as a child process, hence the server JVM is stopped by its process id.
+     */
+    private void stopServer(Process server, String serverPid) throws IOException, InterruptedException {
+        if (serverPid != null) {
+            new ProcessBuilder("kill", serverPid).start().waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        if (!server.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            server.destroyForcibly();
+        }
+    }
+
+    private JMXConnector connect(int jmxPort) throws IOException, InterruptedException {
+        JMXServiceURL serviceURL = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + jmxPort + "/jmxrmi");
+        long deadline = System.currentTimeMillis() + JMX_CONNECT_TIMEOUT;
+        while (true) {
+            try {
+                return JMXConnectorFactory.connect(serviceURL);
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    private boolean waitForStartup(Process server) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream(),
+                StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains(STARTUP_COMPLETED_LOG)) {
+                // Keep draining the output, so that the server never blocks on a full pipe.
+                Thread drainer = new Thread(() -> drain(reader));
+                drainer.setDaemon(true);
+                drainer.start();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void drain(BufferedReader reader) {
+        try {
+            while (reader.readLine() != null) {
+                // Discard the output of the started server.
+            }
+        } catch (IOException ignored) {
+            // The server is stopped.
+        }
+    }
+
+    /**
+     * Replaces the metric values of the baseline file with the given values, keeping its comments and tolerances.
+     */
+    private void updateBaseline(Map<Metric, Long> medians) throws IOException {
+        List<String> lines = Files.readAllLines(baselineFile, StandardCharsets.UTF_8).stream()
+                .map(line -> Arrays.stream(Metric.values())
+                        .filter(metric -> line.startsWith(metric.key + "="))
+                        .findFirst()
+                        .map(metric -> metric.key + "=" + medians.get(metric))
+                        .orElse(line))
+                .collect(Collectors.toList());
+        Files.write(baselineFile, lines, StandardCharsets.UTF_8);
+        logger.info("Updated the boot footprint baseline {} with {}", baselineFile, medians);
+    }
+
+    private void writeTrend(int bootCount, Map<Metric, Long> medians, String result) throws IOException {
+        Files.createDirectories(trendFile.getParent());
+        if (!Files.exists(trendFile)) {
+            Files.write(trendFile, Collections.singletonList("timestamp,kernelVersion,javaVersion,boots," +
+                    Arrays.stream(Metric.values()).map(metric -> metric.key).collect(Collectors.joining(",")) +
+                    ",result"), StandardCharsets.UTF_8);
+        }
+        String trend = System.currentTimeMillis() + "," + System.getProperty("carbon.kernel.version") + "," +
+                System.getProperty("java.version") + "," + bootCount + "," +
+                Arrays.stream(Metric.values()).map(metric -> String.valueOf(medians.get(metric)))
+                        .collect(Collectors.joining(",")) + "," + result;
+        Files.write(trendFile, Collections.singletonList(trend), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.osgi.startupresolver;
+
+import org.ops4j.pax.exam.Configuration;
+import org.ops4j.pax.exam.ExamFactory;
+import org.ops4j.pax.exam.Option;
+import org.ops4j.pax.exam.spi.reactors.ExamReactorStrategy;
+import org.ops4j.pax.exam.spi.reactors.PerClass;
+import org.ops4j.pax.exam.testng.listener.PaxExam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+import org.wso2.carbon.container.CarbonContainerFactory;
+import org.wso2.carbon.kernel.CarbonServerInfo;
+import org.wso2.carbon.sample.synthetic.GraphShape;
+import org.wso2.carbon.sample.synthetic.SyntheticBundleGenerator;
+import org.wso2.carbon.sample.synthetic.SyntheticStartupMonitor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import static org.ops4j.pax.exam.CoreOptions.maven;
+import static org.ops4j.pax.exam.CoreOptions.systemProperty;
+import static org.wso2.carbon.container.options.CarbonDistributionOption.copyFile;
+import static org.wso2.carbon.container.options.CarbonDistributionOption.copyOSGiLibBundle;
+
+/**
+ * Boots the test distribution with a generated set of Carbon components of every {@link GraphShape} and records the
+ * time until all the components of each graph are ready.
+ * <p>
+ * The number of bundles per graph can be raised with the {@code carbon.synthetic.bundle.count} system property to
+ * measure the startup order resolver at production scale. The time-to-ready of each run is appended to
+ * target/synthetic-startup/time-to-ready.csv.
+ *
+ * @since 5.2.0
+ */
+@Listeners(PaxExam.class)
+@ExamReactorStrategy(PerClass.class)
+@ExamFactory(CarbonContainerFactory.class)
+public class SyntheticStartupScaleOSGiTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticStartupScaleOSGiTest.class);
+
+    private static final String BUNDLE_COUNT_PROPERTY = "carbon.synthetic.bundle.count";
+    private static final String REPORT_FILE_PROPERTY = "carbon.synthetic.report.file";
+    private static final int DEFAULT_BUNDLE_COUNT = 50;
+    private static final long SEED = 42;
+    private static final long READY_TIMEOUT = 60000;
+
+    @Inject
+    private CarbonServerInfo carbonServerInfo;
+
+    @Configuration
+    public Option[] createConfiguration() throws IOException {
+        int bundleCount = Integer.getInteger(BUNDLE_COUNT_PROPERTY, DEFAULT_BUNDLE_COUNT);
+        Path reportFile = Paths.get("target", "synthetic-startup", "time-to-ready.csv").toAbsolutePath();
+
+        List<Option> options = new ArrayList<>();
+        options.add(copyOSGiLibBundle(maven().artifactId("org.wso2.carbon.sample.synthetic")
+                .groupId("org.wso2.carbon").versionAsInProject()));
+        options.add(systemProperty(BUNDLE_COUNT_PROPERTY).value(String.valueOf(bundleCount)));
+        options.add(systemProperty(REPORT_FILE_PROPERTY).value(reportFile.toString()));
+        for (GraphShape shape : GraphShape.values()) {
+            SyntheticBundleGenerator generator = new SyntheticBundleGenerator(shape, bundleCount, SEED);
+            for (Path bundle : generator.generate(Paths.get("target", "synthetic-bundles", shape.getId()))) {
+                options.add(copyFile(bundle, Paths.get("lib", bundle.getFileName().toString())));
+            }
+        }
+        return options.toArray(new Option[options.size()]);
+    }
+
+    @Test
+    public void testSyntheticComponentsStartup() throws InterruptedException, IOException {
+        Assert.assertNotNull(carbonServerInfo, "CarbonServerInfo Service cannot be null");
+        int bundleCount = Integer.getInteger(BUNDLE_COUNT_PROPERTY, DEFAULT_BUNDLE_COUNT);
+        SyntheticStartupMonitor monitor = SyntheticStartupMonitor.getInstance();
+
+        List<String> results = new ArrayList<>();
+        for (GraphShape shape : GraphShape.values()) {
+            SyntheticBundleGenerator generator = new SyntheticBundleGenerator(shape, bundleCount, SEED);
+            String graphName = generator.getGraphName();
+            Assert.assertTrue(monitor.awaitComponents(graphName, generator.getComponentCount(), READY_TIMEOUT),
+                    "Only " + monitor.getReadyComponentCount(graphName) + " of " + generator.getComponentCount() +
+                            " synthetic components of the " + shape + " graph are ready");
+
+            long timeToReady = monitor.getTimeToReady(graphName);
+            logger.info("{} graph of {} bundles, {} components and {} services is ready in {} ms", shape,
+                    bundleCount, generator.getComponentCount(), generator.getServiceCount(), timeToReady);
+            results.add(String.join(",", String.valueOf(System.currentTimeMillis()), shape.name(),
+                    String.valueOf(bundleCount), String.valueOf(generator.getComponentCount()),
+                    String.valueOf(generator.getServiceCount()), String.valueOf(timeToReady)));
+        }
+
+        Path reportFile = Paths.get(System.getProperty(REPORT_FILE_PROPERTY));
+        Files.createDirectories(reportFile.getParent());
+        if (!Files.exists(reportFile)) {
+            Files.write(reportFile, Collections.singletonList(
+                    "timestamp,shape,bundles,components,services,timeToReadyMillis"), StandardCharsets.UTF_8);
+        }
+        Files.write(reportFile, results, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.osgi.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Utility functions of the tests which boot copies of the kernel test distribution with carbon.sh.
+ *
+ * @since 5.2.0
+ */
+public class TestDistributionUtils {
+
+    private TestDistributionUtils() {
+    }
+
+    /**
+     * Copies the unpacked kernel test distribution to target/{@code workDirectory}, so that a test can change it
+     * without affecting the other tests, and makes its carbon.sh executable.
+     *
+     * @param workDirectory name of the directory in target to copy the distribution to
+     * @return the Carbon home of the copied distribution
+     * @throws IOException if the distribution could not be copied
+     */
+    public static Path copyTestDistribution(String workDirectory) throws IOException {
+        String distributionName = "wso2carbon-kernel-test-" + System.getProperty("carbon.kernel.version");
+        Path carbonHome = Paths.get("target", workDirectory, distributionName);
+        copyDirectory(Paths.get("target", distributionName), carbonHome);
+        getCarbonScript(carbonHome).toFile().setExecutable(true);
+        return carbonHome;
+    }
+
+    /**
+     * @param carbonHome Carbon home of a distribution
+     * @return the carbon.sh script of the default runtime of the distribution
+     */
+    public static Path getCarbonScript(Path carbonHome) {
+        return carbonHome.resolve(Paths.get("wso2", "default", "bin", "carbon.sh"));
+    }
+
+    /**
+     * Recursively copies a directory, replacing the existing files.
+     *
+     * @param source directory to copy
+     * @param target directory to copy to
+     * @throws IOException if a file could not be copied
+     */
+    public static void copyDirectory(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @param values samples, not empty
+     * @return the median of the samples
+     */
+    public static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().collect(Collectors.toList());
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+}
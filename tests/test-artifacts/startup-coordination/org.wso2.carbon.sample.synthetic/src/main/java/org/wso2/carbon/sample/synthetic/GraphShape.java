@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.sample.synthetic;
+
+/**
+ * Dependency graph shapes of the synthetic Carbon components generated by {@link SyntheticBundleGenerator}.
+ *
+ * @since 5.2.0
+ */
+public enum GraphShape {
+
+    /**
+     * Each component requires the service registered by the previous component, which gives the deepest possible
+     * dependency chain. Components are satisfied strictly one after the other.
+     */
+    CHAIN("chain"),
+
+    /**
+     * A single component requires the services of all the other bundles, each of which registers one to three
+     * services.
+     */
+    WIDE_FAN_IN("fanin"),
+
+    /**
+     * Each component requires the services of up to three randomly chosen components generated before it.
+     */
+    RANDOM_DAG("dag"),
+
+    /**
+     * A few components, each of which requires a capability registered through {@code CapabilityProvider}s by many
+     * provider bundles.
+     */
+    PROVIDER_HEAVY("providers");
+
+    private final String id;
+
+    GraphShape(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return short identifier used in the names of the generated bundles, packages and components
+     */
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.sample.synthetic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+
+/**
+ * Generates OSGi bundles with Carbon-Component manifest headers, which form a dependency graph of the given
+ * {@link GraphShape}, to test the startup order resolver at scale.
+ * <p>
+ * Every generated bundle exports a package with a single generated service interface. A bundle may be a startup
+ * listener component which requires the services of other bundles, a provider which registers services of its own
+ * interface, or a {@code CapabilityProvider} of the interface of another bundle. The generated bundles contain no
+ * code of their own, their behaviour is driven by {@link SyntheticComponentActivator} through the headers written by
+ * this generator. Hence the bundle of this generator has to be installed along with the generated bundles.
+ * <p>
+ * The graph is derived from the given seed, so the same shape, size and seed always generate the same bundles. Each
+ * shape generates its own package namespace, hence bundles of different shapes can be booted together, but only a
+ * single graph of each shape.
+ *
+ * @since 5.2.0
+ */
+public class SyntheticBundleGenerator {
+
+    private static final String ACTIVATOR_PACKAGE = "org.wso2.carbon.sample.synthetic";
+    private static final String ACTIVATOR = ACTIVATOR_PACKAGE + ".SyntheticComponentActivator";
+    private static final String PACKAGE_PREFIX = ACTIVATOR_PACKAGE + ".";
+    private static final String INTERFACE_NAME = "SyntheticService";
+    private static final String CAPABILITY_PROVIDER = "org.wso2.carbon.kernel.startupresolver.CapabilityProvider";
+    private static final String CARBON_COMPONENT = "Carbon-Component";
+    private static final int MAX_DAG_DEPENDENCIES = 3;
+    private static final int MAX_SERVICE_COUNT = 3;
+    // Provider heavy graphs have one consumer component per this many bundles.
+    private static final int PROVIDERS_PER_COMPONENT = 10;
+
+    private final GraphShape shape;
+    private final int bundleCount;
+    private final List<Node> nodes;
+
+    /**
+     * @param shape       shape of the dependency graph
+     * @param bundleCount number of bundles to generate, at least 2
+     * @param seed        seed for the random parts of the graph
+     */
+    public SyntheticBundleGenerator(GraphShape shape, int bundleCount, long seed) {
+        if (bundleCount < 2) {
+            throw new IllegalArgumentException("At least 2 bundles are required for a graph, but was " + bundleCount);
+        }
+        this.shape = shape;
+        this.bundleCount = bundleCount;
+        this.nodes = createGraph(new Random(seed));
+    }
+
+    /**
+     * Writes the generated bundles to the given directory.
+     *
+     * @param outputDirectory directory to write the bundle jars to, created if it does not exist
+     * @return paths of the written bundle jars
+     * @throws IOException if a bundle could not be written
+     */
+    public List<Path> generate(Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        List<Path> bundles = new ArrayList<>(bundleCount);
+        for (int i = 0; i < bundleCount; i++) {
+            Path bundle = outputDirectory.resolve(getSymbolicName(i) + "_1.0.0.jar");
+            try (OutputStream outputStream = Files.newOutputStream(bundle)) {
+                writeBundle(i, outputStream);
+            }
+            bundles.add(bundle);
+        }
+        return bundles;
+    }
+
+    /**
+     * @return name of the graph, as reported to {@link SyntheticStartupMonitor} by the generated components
+     */
+    public String getGraphName() {
+        return shape.getId();
+    }
+
+    /**
+     * @return number of startup listener components in the graph
+     */
+    public int getComponentCount() {
+        return (int) nodes.stream().filter(node -> node.componentName != null).count();
+    }
+
+    /**
+     * @return number of OSGi services the generated bundles register
+     */
+    public int getServiceCount() {
+        return nodes.stream().mapToInt(node -> node.serviceCount + node.capabilityCount).sum();
+    }
+
+    private List<Node> createGraph(Random random) {
+        List<Node> graph = new ArrayList<>(bundleCount);
+        int consumerCount = Math.max(1, bundleCount / PROVIDERS_PER_COMPONENT);
+        for (int i = 0; i < bundleCount; i++) {
+            Node node = new Node();
+            switch (shape) {
+                case CHAIN:
+                    if (i > 0) {
+                        node.requiredNodes.add(i - 1);
+                    }
+                    node.serviceCount = 1;
+                    break;
+                case WIDE_FAN_IN:
+                    if (i == 0) {
+                        for (int j = 1; j < bundleCount; j++) {
+                            node.requiredNodes.add(j);
+                        }
+                    } else {
+                        node.serviceCount = 1 + random.nextInt(MAX_SERVICE_COUNT);
+                    }
+                    break;
+                case RANDOM_DAG:
+                    if (i > 0) {
+                        int dependencyCount = 1 + random.nextInt(Math.min(i, MAX_DAG_DEPENDENCIES));
+                        while (node.requiredNodes.size() < dependencyCount) {
+                            node.requiredNodes.add(random.nextInt(i));
+                        }
+                    }
+                    node.serviceCount = 1 + random.nextInt(MAX_SERVICE_COUNT - 1);
+                    break;
+                case PROVIDER_HEAVY:
+                    if (i < consumerCount) {
+                        // Same as a manager bundle which exports the interface its providers register.
+                        node.requiredNodes.add(i);
+                    } else {
+                        node.capabilityNode = (i - consumerCount) % consumerCount;
+                        node.capabilityCount = 1 + random.nextInt(MAX_SERVICE_COUNT);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown graph shape " + shape);
+            }
+            if (!node.requiredNodes.isEmpty()) {
+                node.componentName = "synthetic-" + shape.getId() + "-component-" + i;
+            }
+            graph.add(node);
+        }
+        return graph;
+    }
+
+    private void writeBundle(int index, OutputStream outputStream) throws IOException {
+        Node node = nodes.get(index);
+
+        Set<String> importedPackages = new LinkedHashSet<>();
+        importedPackages.add(ACTIVATOR_PACKAGE);
+        node.requiredNodes.forEach(requiredNode -> importedPackages.add(getPackageName(requiredNode)));
+        if (node.capabilityNode >= 0) {
+            importedPackages.add(getPackageName(node.capabilityNode));
+        }
+        importedPackages.remove(getPackageName(index));
+
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", getSymbolicName(index));
+        attributes.putValue("Bundle-Version", "1.0.0");
+        attributes.putValue("Bundle-Activator", ACTIVATOR);
+        attributes.putValue("Export-Package", getPackageName(index) + ";version=\"1.0.0\"");
+        attributes.putValue("Import-Package", String.join(",", importedPackages));
+        attributes.putValue(CARBON_COMPONENT, getCarbonComponentHeader(index, node));
+        attributes.putValue(SyntheticComponentActivator.GRAPH_HEADER, getGraphName());
+        if (node.componentName != null) {
+            attributes.putValue(SyntheticComponentActivator.COMPONENT_HEADER, node.componentName);
+            attributes.putValue(SyntheticComponentActivator.REQUIRED_SERVICES_HEADER, getRequiredServices(node));
+        }
+        if (node.serviceCount > 0) {
+            attributes.putValue(SyntheticComponentActivator.SERVICES_HEADER,
+                    getInterfaceName(index) + "=" + node.serviceCount);
+        }
+        if (node.capabilityNode >= 0) {
+            attributes.putValue(SyntheticComponentActivator.CAPABILITY_PROVIDER_HEADER,
+                    getInterfaceName(node.capabilityNode) + "=" + node.capabilityCount);
+        }
+
+        try (JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest)) {
+            jarOutputStream.putNextEntry(new JarEntry(getInterfaceName(index).replace('.', '/') + ".class"));
+            jarOutputStream.write(createInterfaceClass(getInterfaceName(index)));
+            jarOutputStream.closeEntry();
+        }
+    }
+
+    private String getCarbonComponentHeader(int index, Node node) {
+        StringJoiner header = new StringJoiner(",");
+        if (node.componentName != null) {
+            header.add("startup.listener;componentName=\"" + node.componentName + "\";requiredService=\"" +
+                    getRequiredServices(node) + "\"");
+        }
+        if (node.serviceCount > 0) {
+            header.add("osgi.service;objectClass=\"" + getInterfaceName(index) + "\";serviceCount=\"" +
+                    node.serviceCount + "\"");
+        }
+        if (node.capabilityNode >= 0) {
+            header.add("osgi.service;objectClass=\"" + CAPABILITY_PROVIDER + "\";capabilityName=\"" +
+                    getInterfaceName(node.capabilityNode) + "\"");
+        }
+        return header.toString();
+    }
+
+    private String getRequiredServices(Node node) {
+        return node.requiredNodes.stream().map(this::getInterfaceName).collect(Collectors.joining(","));
+    }
+
+    private String getSymbolicName(int index) {
+        return getPackageName(index);
+    }
+
+    private String getPackageName(int index) {
+        return PACKAGE_PREFIX + shape.getId() + ".c" + index;
+    }
+
+    private String getInterfaceName(int index) {
+        return getPackageName(index) + "." + INTERFACE_NAME;
+    }
+
+    /**
+     * Creates the class file of an empty public interface. The OSGi framework checks that a registered service is an
+     * instance of its object class, hence every service needs a real interface.
+     */
+    static byte[] createInterfaceClass(String interfaceName) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (DataOutputStream classFile = new DataOutputStream(byteArrayOutputStream)) {
+            classFile.writeInt(0xCAFEBABE);
+            classFile.writeShort(0);            // minor version
+            classFile.writeShort(52);           // major version, Java 8
+            classFile.writeShort(5);            // constant pool count, entries are indexed from 1
+            writeUtf8Constant(classFile, interfaceName.replace('.', '/'));
+            classFile.writeByte(7);             // #2 = Class #1
+            classFile.writeShort(1);
+            writeUtf8Constant(classFile, "java/lang/Object");
+            classFile.writeByte(7);             // #4 = Class #3
+            classFile.writeShort(3);
+            classFile.writeShort(0x0601);       // ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT
+            classFile.writeShort(2);            // this class
+            classFile.writeShort(4);            // super class
+            classFile.writeShort(0);            // interfaces
+            classFile.writeShort(0);            // fields
+            classFile.writeShort(0);            // methods
+            classFile.writeShort(0);            // attributes
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static void writeUtf8Constant(DataOutputStream classFile, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        classFile.writeByte(1);
+        classFile.writeShort(bytes.length);
+        classFile.write(bytes);
+    }
+
+    /**
+     * A generated bundle.
+     */
+    private static class Node {
+        private String componentName;
+        private final Set<Integer> requiredNodes = new LinkedHashSet<>();
+        private int serviceCount;
+        private int capabilityNode = -1;
+        private int capabilityCount;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.sample.synthetic;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.startupresolver.CapabilityProvider;
+import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
+import org.wso2.carbon.kernel.startupresolver.StartupServiceUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+
+/**
+ * Bundle activator of the bundles generated by {@link SyntheticBundleGenerator}.
+ * <p>
+ * The behaviour of a generated bundle is given by its manifest headers. A startup listener component registers a
+ * {@link RequiredCapabilityListener}, reports the required services to the startup service cache as they get
+ * registered, and registers its own services once all the required capabilities are available. Other bundles
+ * register their services, or their {@link CapabilityProvider} and its services, as soon as they are started.
+ *
+ * @since 5.2.0
+ */
+public class SyntheticComponentActivator implements BundleActivator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticComponentActivator.class);
+
+    static final String GRAPH_HEADER = "Synthetic-Graph";
+    static final String COMPONENT_HEADER = "Synthetic-Component";
+    static final String REQUIRED_SERVICES_HEADER = "Synthetic-Required-Services";
+    static final String SERVICES_HEADER = "Synthetic-Services";
+    static final String CAPABILITY_PROVIDER_HEADER = "Synthetic-Capability-Provider";
+
+    private static final String COMPONENT_NAME = "componentName";
+    private static final String CAPABILITY_NAME = "capabilityName";
+
+    private final List<ServiceTracker<Object, ServiceReference<Object>>> serviceTrackers = new ArrayList<>();
+
+    @Override
+    public void start(BundleContext bundleContext) throws Exception {
+        Bundle bundle = bundleContext.getBundle();
+        Dictionary<String, String> headers = bundle.getHeaders();
+        String graphName = headers.get(GRAPH_HEADER);
+        String componentName = headers.get(COMPONENT_HEADER);
+
+        String capabilityProvider = headers.get(CAPABILITY_PROVIDER_HEADER);
+        if (capabilityProvider != null) {
+            String capabilityName = getServiceName(capabilityProvider);
+            int capabilityCount = getServiceCount(capabilityProvider);
+            Dictionary<String, String> properties = new Hashtable<>();
+            properties.put(CAPABILITY_NAME, capabilityName);
+            bundleContext.registerService(CapabilityProvider.class, () -> capabilityCount, properties);
+            registerServices(bundleContext, capabilityProvider);
+        }
+
+        if (componentName == null) {
+            registerServices(bundleContext, headers.get(SERVICES_HEADER));
+            return;
+        }
+
+        Dictionary<String, String> properties = new Hashtable<>();
+        properties.put(COMPONENT_NAME, componentName);
+        bundleContext.registerService(RequiredCapabilityListener.class, () -> {
+            logger.debug("All required services are available for synthetic component {}", componentName);
+            registerServices(bundleContext, headers.get(SERVICES_HEADER));
+            SyntheticStartupMonitor.getInstance().componentReady(graphName, componentName);
+        }, properties);
+
+        for (String requiredService : headers.get(REQUIRED_SERVICES_HEADER).split(",")) {
+            Class<?> serviceInterface = bundle.loadClass(requiredService.trim());
+            ServiceTracker<Object, ServiceReference<Object>> serviceTracker = new ServiceTracker<>(bundleContext,
+                    serviceInterface.getName(), new ServiceTrackerCustomizer<Object, ServiceReference<Object>>() {
+                @Override
+                public ServiceReference<Object> addingService(ServiceReference<Object> reference) {
+                    StartupServiceUtils.updateServiceCache(componentName, serviceInterface);
+                    return reference;
+                }
+
+                @Override
+                public void modifiedService(ServiceReference<Object> reference, ServiceReference<Object> service) {
+                }
+
+                @Override
+                public void removedService(ServiceReference<Object> reference, ServiceReference<Object> service) {
+                }
+            });
+            serviceTracker.open();
+            serviceTrackers.add(serviceTracker);
+        }
+    }
+
+    @Override
+    public void stop(BundleContext bundleContext) throws Exception {
+        serviceTrackers.forEach(ServiceTracker::close);
+        serviceTrackers.clear();
+    }
+
+    /**
+     * Registers the services given by a header value of the form {@code interface=count}.
+     */
+    private static void registerServices(BundleContext bundleContext, String services) {
+        if (services == null) {
+            return;
+        }
+        String serviceName = getServiceName(services);
+        Class<?> serviceInterface;
+        try {
+            serviceInterface = bundleContext.getBundle().loadClass(serviceName);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Synthetic service interface " + serviceName + " cannot be loaded", e);
+        }
+        for (int i = 0; i < getServiceCount(services); i++) {
+            Object service = Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class<?>[]{serviceInterface},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return "Synthetic service " + serviceName;
+                        }
+                    });
+            bundleContext.registerService(serviceName, service, null);
+        }
+    }
+
+    private static String getServiceName(String services) {
+        return services.substring(0, services.indexOf('=')).trim();
+    }
+
+    private static int getServiceCount(String services) {
+        return Integer.parseInt(services.substring(services.indexOf('=') + 1).trim());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.sample.synthetic;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the time at which the synthetic components became ready, i.e. the time their required capability listener
+ * was notified.
+ *
+ * @since 5.2.0
+ */
+public class SyntheticStartupMonitor {
+
+    private static final SyntheticStartupMonitor syntheticStartupMonitor = new SyntheticStartupMonitor();
+
+    private final Map<String, Map<String, Long>> readyTimesByGraph = new HashMap<>();
+
+    private SyntheticStartupMonitor() {
+    }
+
+    public static SyntheticStartupMonitor getInstance() {
+        return syntheticStartupMonitor;
+    }
+
+    synchronized void componentReady(String graphName, String componentName) {
+        readyTimesByGraph.computeIfAbsent(graphName, graph -> new HashMap<>())
+                .put(componentName, System.currentTimeMillis());
+        notifyAll();
+    }
+
+    /**
+     * @param graphName name of the graph
+     * @return number of ready components of the graph
+     */
+    public synchronized int getReadyComponentCount(String graphName) {
+        return readyTimesByGraph.getOrDefault(graphName, new HashMap<>()).size();
+    }
+
+    /**
+     * Waits until the given number of components of the graph are ready.
+     *
+     * @param graphName      name of the graph
+     * @param componentCount number of components to wait for
+     * @param timeout        maximum time to wait in milliseconds
+     * @return true if the components became ready within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitComponents(String graphName, int componentCount, long timeout)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (getReadyComponentCount(graphName) < componentCount && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return getReadyComponentCount(graphName) >= componentCount;
+    }
+
+    /**
+     * @param graphName name of the graph
+     * @return time from the JVM start until the last component of the graph became ready in milliseconds, -1 if no
+     * component of the graph is ready
+     */
+    public synchronized long getTimeToReady(String graphName) {
+        return readyTimesByGraph.getOrDefault(graphName, new HashMap<>()).values().stream()
+                .mapToLong(readyTime -> readyTime - ManagementFactory.getRuntimeMXBean().getStartTime())
+                .max()
+                .orElse(-1);
+    }
+
+    /**
+     * Forgets the ready components of all the graphs.
+     */
+    public synchronized void clear() {
+        readyTimesByGraph.clear();
+    }
+}
@@ -23,7 +23,14 @@ import org.wso2.carbon.tools.exception.CarbonToolException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,8 +42,15 @@ import java.util.logging.Logger;
 class OSGiLibDeployerToolUtils {
     private static final Logger logger = Logger.getLogger(OSGiLibDeployerToolUtils.class.getName());
 
+    private static final String ALL_PROFILES = "ALL";
+
     /**
      * Executes the WSO2 Carbon OSGi-lib deployer tool.
+     * <p>
+     * The OSGi bundle information is read from the {@value Constants#OSGI_LIB} directory once and shared by all the
+     * Carbon Runtimes to be updated. If all Carbon Runtimes are to be updated, they are updated in parallel, since
+     * the update of each Carbon Runtime only locks its own bundles.info file. The time taken to update each Carbon
+     * Runtime and a summary of the whole execution are logged.
      *
      * @param carbonHome the {@link String} value of carbon.home
      * @param profile    the Carbon Runtime identifier
@@ -49,32 +63,64 @@ class OSGiLibDeployerToolUtils {
         }
 
         if (profile != null) {
+            long startTime = System.currentTimeMillis();
             Path osgiLibDirectoryPath = Paths.get(carbonHome, Constants.OSGI_LIB);
             logger.log(Level.FINE,
                     "Loading the new OSGi bundle information from " + Constants.OSGI_LIB + " folder...");
             List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(osgiLibDirectoryPath);
+            long scanTime = System.currentTimeMillis() - startTime;
             logger.log(Level.FINE, "Successfully loaded the new OSGi bundle information from " + Constants.OSGI_LIB +
                     " folder");
 
-            if (profile.equals("ALL")) {
-                OSGiLibBundleDeployerUtils.getCarbonProfiles(carbonHome)
-                        .forEach(carbonProfile -> {
-                            try {
-                                OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome, carbonProfile, newBundlesInfo);
-                            } catch (IOException e) {
-                                logger.log(Level.SEVERE,
-                                        "Failed to update the OSGi bundle information of Carbon Runtime: "
-                                                + carbonProfile, e);
-                            }
-                        });
-            } else {
+            List<String> carbonProfiles = profile.equals(ALL_PROFILES) ?
+                    OSGiLibBundleDeployerUtils.getCarbonProfiles(carbonHome) : Collections.singletonList(profile);
+            int failedProfiles = updateProfiles(carbonHome, carbonProfiles, newBundlesInfo);
+
+            logger.log(Level.INFO, String.format("Updated the OSGi bundle information of %d of %d Carbon Runtime(s) " +
+                            "with %d bundle(s) from the %s folder in %d ms (%d ms to read the %s folder)",
+                    carbonProfiles.size() - failedProfiles, carbonProfiles.size(), newBundlesInfo.size(),
+                    Constants.OSGI_LIB, System.currentTimeMillis() - startTime, scanTime, Constants.OSGI_LIB));
+        }
+    }
+
+    /**
+     * Updates the bundles.info files of the specified Carbon Runtimes in parallel, with the same OSGi bundle
+     * information. Failures are logged per Carbon Runtime and do not affect the update of the others.
+     *
+     * @param carbonHome     the {@link String} value of carbon.home
+     * @param carbonProfiles the names of the Carbon Runtimes to be updated
+     * @param newBundlesInfo the new OSGi bundle information
+     * @return the number of Carbon Runtimes which could not be updated
+     */
+    private static int updateProfiles(String carbonHome, List<String> carbonProfiles,
+            List<BundleInfo> newBundlesInfo) {
+        int threads = Math.max(1, Math.min(carbonProfiles.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, Future<Long>> updates = new LinkedHashMap<>();
+            carbonProfiles.forEach(carbonProfile -> updates.put(carbonProfile, executor.submit(() -> {
+                long startTime = System.currentTimeMillis();
+                OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome, carbonProfile, newBundlesInfo);
+                return System.currentTimeMillis() - startTime;
+            })));
+
+            int failedProfiles = 0;
+            for (Map.Entry<String, Future<Long>> update : updates.entrySet()) {
                 try {
-                    OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome, profile, newBundlesInfo);
-                } catch (IOException e) {
-                    logger.log(Level.SEVERE,
-                            "Failed to update the OSGi bundle information of Carbon Runtime: " + profile, e);
+                    logger.log(Level.INFO, String.format("Processed the OSGi bundle information of Carbon Runtime: " +
+                            "%s in %d ms", update.getKey(), update.getValue().get()));
+                } catch (ExecutionException e) {
+                    failedProfiles++;
+                    logger.log(Level.SEVERE, "Failed to update the OSGi bundle information of Carbon Runtime: " +
+                            update.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while updating the OSGi bundle information", e);
                 }
             }
+            return failedProfiles;
+        } finally {
+            executor.shutdownNow();
         }
     }
 